@@ -0,0 +1,267 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Utility methods for sets of cards represented as a 52-bit mask in a
+ * <code>long</code>. <br />
+ * <br />
+ * 
+ * Each card has an index from 0 to 51, <code>suit * 13 + rank</code>, so the
+ * 13 ranks of each suit form a contiguous bit field in the mask. <br />
+ * <br />
+ * 
+ * <b>NOTE:</b> This class is implemented with the focus on performance (instead of clean design).
+ */
+public abstract class CardSet {
+    
+    /** The number of cards in a deck. */
+    public static final int NO_OF_CARDS = Card.NO_OF_RANKS * Card.NO_OF_SUITS;
+    
+    /** The mask with all cards. */
+    public static final long ALL_CARDS = (1L << NO_OF_CARDS) - 1L;
+    
+    /** The mask of the ranks of a single suit. */
+    public static final int RANK_MASK = (1 << Card.NO_OF_RANKS) - 1;
+    
+    /** The (shared, immutable) cards, by index. */
+    private static final Card[] CARDS = new Card[NO_OF_CARDS];
+    
+    static {
+        for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+            for (int rank = 0; rank < Card.NO_OF_RANKS; rank++) {
+                CARDS[suit * Card.NO_OF_RANKS + rank] = new Card(rank, suit);
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of a card.
+     * 
+     * @param card
+     *            The card.
+     * 
+     * @return The index.
+     */
+    public static int indexOf(Card card) {
+        return card.getSuit() * Card.NO_OF_RANKS + card.getRank();
+    }
+    
+    /**
+     * Returns the index of a card by rank and suit.
+     * 
+     * @param rank
+     *            The rank.
+     * @param suit
+     *            The suit.
+     * 
+     * @return The index.
+     */
+    public static int indexOf(int rank, int suit) {
+        return suit * Card.NO_OF_RANKS + rank;
+    }
+    
+    /**
+     * Returns the (shared) card with a specific index.
+     * 
+     * @param index
+     *            The index.
+     * 
+     * @return The card.
+     */
+    public static Card getCard(int index) {
+        return CARDS[index];
+    }
+    
+    /**
+     * Returns the rank of a card index.
+     * 
+     * @param index
+     *            The index.
+     * 
+     * @return The rank.
+     */
+    public static int getRank(int index) {
+        return index % Card.NO_OF_RANKS;
+    }
+    
+    /**
+     * Returns the suit of a card index.
+     * 
+     * @param index
+     *            The index.
+     * 
+     * @return The suit.
+     */
+    public static int getSuit(int index) {
+        return index / Card.NO_OF_RANKS;
+    }
+    
+    /**
+     * Returns the mask of a single card.
+     * 
+     * @param card
+     *            The card.
+     * 
+     * @return The mask.
+     */
+    public static long mask(Card card) {
+        return 1L << indexOf(card);
+    }
+    
+    /**
+     * Returns the mask of an array of cards.
+     * 
+     * @param cards
+     *            The cards.
+     * 
+     * @return The mask.
+     */
+    public static long mask(Card... cards) {
+        long mask = 0L;
+        for (Card card : cards) {
+            mask |= 1L << indexOf(card);
+        }
+        return mask;
+    }
+    
+    /**
+     * Returns the mask of a collection of cards.
+     * 
+     * @param cards
+     *            The cards.
+     * 
+     * @return The mask.
+     */
+    public static long mask(Collection<Card> cards) {
+        long mask = 0L;
+        if (cards instanceof List) {
+            // Avoid the iterator.
+            List<Card> list = (List<Card>) cards;
+            for (int i = 0; i < list.size(); i++) {
+                mask |= 1L << indexOf(list.get(i));
+            }
+        } else {
+            for (Card card : cards) {
+                mask |= 1L << indexOf(card);
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Returns the mask of a set of cards given as a string, e.g. "As Kd 7h".
+     * 
+     * @param s
+     *            The cards.
+     * 
+     * @return The mask.
+     */
+    public static long parse(String s) {
+        long mask = 0L;
+        for (String part : s.trim().split("\\s+")) {
+            if (part.length() > 0) {
+                mask |= mask(new Card(part));
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Returns the number of cards in a mask.
+     * 
+     * @param mask
+     *            The mask.
+     * 
+     * @return The number of cards.
+     */
+    public static int size(long mask) {
+        return Long.bitCount(mask);
+    }
+    
+    /**
+     * Returns the ranks of a single suit in a mask, as a 13-bit mask.
+     * 
+     * @param mask
+     *            The mask.
+     * @param suit
+     *            The suit.
+     * 
+     * @return The rank mask.
+     */
+    public static int getRanks(long mask, int suit) {
+        return (int) (mask >>> (suit * Card.NO_OF_RANKS)) & RANK_MASK;
+    }
+    
+    /**
+     * Returns the cards in a mask, in index order.
+     * 
+     * @param mask
+     *            The mask.
+     * 
+     * @return The cards.
+     */
+    public static Card[] toCards(long mask) {
+        Card[] cards = new Card[Long.bitCount(mask)];
+        int i = 0;
+        while (mask != 0L) {
+            cards[i++] = CARDS[Long.numberOfTrailingZeros(mask)];
+            mask &= mask - 1L;
+        }
+        return cards;
+    }
+    
+    /**
+     * Adds the cards in a mask to a list, in index order.
+     * 
+     * @param mask
+     *            The mask.
+     * @param cards
+     *            The list to add the cards to.
+     */
+    public static void addCards(long mask, List<Card> cards) {
+        while (mask != 0L) {
+            cards.add(CARDS[Long.numberOfTrailingZeros(mask)]);
+            mask &= mask - 1L;
+        }
+    }
+    
+    /**
+     * Returns a string representation of a mask, e.g. "As Kd 7h".
+     * 
+     * @param mask
+     *            The mask.
+     * 
+     * @return The string representation.
+     */
+    public static String toString(long mask) {
+        StringBuilder sb = new StringBuilder();
+        while (mask != 0L) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(CARDS[Long.numberOfTrailingZeros(mask)]);
+            mask &= mask - 1L;
+        }
+        return sb.toString();
+    }
+    
+}
@@ -21,6 +21,8 @@ import java.math.BigDecimal;
 import java.util.List;
 import java.util.Set;
 import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.ActionType;
+import org.dsaw.poker.engine.actions.PackedAction;
 
 /**
  * A player client showing the table information and acting on behalf of the
@@ -49,7 +51,10 @@ public interface Client {
      * @param bigBlind
      *            The table's big blind.
      * @param players
-     *            The players at the table (including this player).
+     *            The players at the table (including this player), as an
+     *            unmodifiable list of read-only public snapshots (see
+     *            {@link Player#publicClone()}), also for this player; its
+     *            own player is passed by the other events.
      */
     void joinedTable(TableType type, BigDecimal bigBlind, List<Player> players);
     
@@ -98,7 +103,12 @@ public interface Client {
     void playerActed(Player player);
 
     /**
-     * Requests this player to act, selecting one of the allowed actions.
+     * Requests this player to act, selecting one of the allowed actions. <br />
+     * <br />
+     * 
+     * The table calls {@link #actPacked(BigDecimal, BigDecimal, int)}, whose
+     * default implementation ends up here; the bots overriding it still call
+     * this method when a subclass overrides it.
      * 
      * @param minBet
      *            The minimum bet.
@@ -110,5 +120,53 @@ public interface Client {
      * @return The selected action.
      */
     Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions);
+    
+    /**
+     * Requests this player to act, selecting one of the allowed actions given
+     * as a mask of action types (see {@link ActionType#mask()}). <br />
+     * <br />
+     * 
+     * The default implementation passes the allowed actions as a set to
+     * {@link #act(BigDecimal, BigDecimal, Set)}; clients override it to
+     * decide without the allocation.
+     * 
+     * @param minBet
+     *            The minimum bet.
+     * @param currentBet
+     *            The current bet.
+     * @param allowedActions
+     *            The mask of the allowed action types.
+     * 
+     * @return The selected action.
+     */
+    default Action act(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+        return act(minBet, currentBet, ActionType.toSet(allowedActions));
+    }
+    
+    /**
+     * Requests this player to act, returning the selected action packed (see
+     * {@link PackedAction}). <br />
+     * <br />
+     * 
+     * This is what the table calls. The default implementation packs the
+     * action returned by {@link #act(BigDecimal, BigDecimal, int)}; clients
+     * override it to bet or raise without allocating an action.
+     * 
+     * @param minBet
+     *            The minimum bet.
+     * @param currentBet
+     *            The current bet.
+     * @param allowedActions
+     *            The mask of the allowed action types.
+     * 
+     * @return The selected action, packed.
+     * 
+     * @throws IllegalArgumentException
+     *             If the amount of a bet or raise is not a whole number of
+     *             cents.
+     */
+    default long actPacked(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+        return PackedAction.fromAction(act(minBet, currentBet, allowedActions));
+    }
 
 }
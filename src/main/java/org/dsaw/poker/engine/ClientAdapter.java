@@ -0,0 +1,82 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import org.dsaw.poker.engine.actions.Action;
+
+/**
+ * Base class for clients that only observe a table (e.g. statistics or
+ * logging), with empty implementations for all event handlers. <br />
+ * <br />
+ * 
+ * An observer is never asked to act, so {@link #act} is not supported.
+ */
+public abstract class ClientAdapter implements Client {
+
+    /** {@inheritDoc} */
+    @Override
+    public void messageReceived(String message) {
+        // Empty implementation.
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void joinedTable(TableType type, BigDecimal bigBlind, List<Player> players) {
+        // Empty implementation.
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handStarted(Player dealer) {
+        // Empty implementation.
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void actorRotated(Player actor) {
+        // Empty implementation.
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void playerUpdated(Player player) {
+        // Empty implementation.
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
+        // Empty implementation.
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void playerActed(Player player) {
+        // Empty implementation.
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+        throw new UnsupportedOperationException("Observers cannot act");
+    }
+
+}
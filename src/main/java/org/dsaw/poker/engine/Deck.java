@@ -17,10 +17,12 @@
 
 package org.dsaw.poker.engine;
 
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * A standard, generic deck of game cards without jokers. <br />
@@ -35,14 +37,20 @@ public class Deck {
     /** The number of cards in a deck. */
     private static final int NO_OF_CARDS = Card.NO_OF_RANKS * Card.NO_OF_SUITS;
     
+    /** The size of the deck's state (see {@link #saveState}). */
+    public static final int STATE_SIZE = NO_OF_CARDS + 1;
+    
     /** The cards in the deck. */
     private Card[] cards;
     
+    /** The cards in their initial order. */
+    private final Card[] orderedCards;
+    
     /** The index of the next card to deal. */
     private int nextCardIndex = 0;
     
     /** Random number generator (crypographical quality). */
-    private Random random = new SecureRandom();
+    private final Random random = new SecureRandom();
 
     /**
      * Constructor.
@@ -57,6 +65,7 @@ public class Deck {
                 cards[index++] = new Card(rank, suit);
             }
         }
+        orderedCards = cards.clone();
     }
     
     /**
@@ -72,6 +81,26 @@ public class Deck {
         nextCardIndex = 0;
     }
     
+    /**
+     * Shuffles the deck from its initial order with a specific seed, so the
+     * seed alone determines the order of the cards (e.g. to replay a hand).
+     * 
+     * @param seed
+     *            The seed.
+     */
+    public void shuffle(long seed) {
+        System.arraycopy(orderedCards, 0, cards, 0, NO_OF_CARDS);
+        SplittableRandom seededRandom = new SplittableRandom(seed);
+        // Fisher-Yates shuffle.
+        for (int i = NO_OF_CARDS - 1; i > 0; i--) {
+            int j = seededRandom.nextInt(i + 1);
+            Card tempCard = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tempCard;
+        }
+        nextCardIndex = 0;
+    }
+    
     /**
      * Resets the deck.
      * 
@@ -156,6 +185,49 @@ public class Deck {
         return card;
     }
     
+    /**
+     * Writes the state of the deck (the order of the cards and the index of
+     * the next card to deal), one byte per card.
+     * 
+     * @param buffer
+     *            The buffer, with at least {@link #STATE_SIZE} bytes
+     *            remaining.
+     */
+    public void saveState(ByteBuffer buffer) {
+        for (Card card : cards) {
+            buffer.put((byte) CardSet.indexOf(card));
+        }
+        buffer.put((byte) nextCardIndex);
+    }
+    
+    /**
+     * Restores the state of the deck written by {@link #saveState}.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @throws IllegalArgumentException
+     *             If the state is invalid.
+     */
+    public void restoreState(ByteBuffer buffer) {
+        Card[] restoredCards = new Card[NO_OF_CARDS];
+        long mask = 0L;
+        for (int i = 0; i < NO_OF_CARDS; i++) {
+            int index = buffer.get();
+            if (index < 0 || index >= CardSet.NO_OF_CARDS || (mask & (1L << index)) != 0L) {
+                throw new IllegalArgumentException("Invalid deck state");
+            }
+            mask |= 1L << index;
+            restoredCards[i] = CardSet.getCard(index);
+        }
+        int restoredIndex = buffer.get();
+        if (restoredIndex < 0 || restoredIndex >= NO_OF_CARDS) {
+            throw new IllegalArgumentException("Invalid deck state");
+        }
+        cards = restoredCards;
+        nextCardIndex = restoredIndex;
+    }
+    
     /** {@inheritDoc} */
     @Override
     public String toString() {
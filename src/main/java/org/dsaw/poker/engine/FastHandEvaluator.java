@@ -0,0 +1,261 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+/**
+ * Evaluator for calculating the value of a poker hand given as a card mask
+ * (see {@link CardSet}). <br />
+ * <br />
+ * 
+ * Works on the 13-bit rank masks of the four suits with bitwise operations
+ * and lookup tables, without any allocation, so it is suitable for
+ * enumerating millions of hands. <br />
+ * <br />
+ * 
+ * The value is the hand value type's ordinal (with a Royal Flush counted as a
+ * Straight Flush) in the upper bits, followed by two 13-bit rank masks: the
+ * ranks that decide the hand (e.g. the pair) and the kickers. Since the
+ * number of bits in each mask is fixed per type, comparing two values as
+ * integers compares the hands. <br />
+ * <br />
+ * 
+ * <b>NOTE:</b> This class is implemented with the focus on performance (instead of clean design).
+ */
+public abstract class FastHandEvaluator {
+    
+    /** The number of bits per rank mask. */
+    private static final int RANK_BITS = Card.NO_OF_RANKS;
+    
+    /** The shift of the hand value type. */
+    private static final int TYPE_SHIFT = 2 * RANK_BITS;
+    
+    /** The number of rank masks. */
+    private static final int NO_OF_RANK_MASKS = 1 << RANK_BITS;
+    
+    /** The highest rank of the Straight per rank mask, plus one (0 for none). */
+    private static final byte[] STRAIGHTS = new byte[NO_OF_RANK_MASKS];
+    
+    /** The five highest ranks per rank mask. */
+    private static final short[] TOP_FIVE = new short[NO_OF_RANK_MASKS];
+    
+    /** The ranks of a Five-high Straight (Ace as One). */
+    private static final int WHEEL = (1 << Card.ACE) | 0xf;
+    
+    static {
+        for (int ranks = 0; ranks < NO_OF_RANK_MASKS; ranks++) {
+            for (int rank = Card.ACE; rank >= Card.FIVE; rank--) {
+                int straight = (rank == Card.FIVE) ? WHEEL : (0x1f << (rank - 4));
+                if ((ranks & straight) == straight) {
+                    STRAIGHTS[ranks] = (byte) (rank + 1);
+                    break;
+                }
+            }
+            TOP_FIVE[ranks] = (short) keepHighest(ranks, 5);
+        }
+    }
+    
+    /**
+     * Returns the value of a hand.
+     * 
+     * @param hand
+     *            The hand.
+     * 
+     * @return The hand value.
+     */
+    public static int evaluate(Hand hand) {
+        return evaluate(hand.getCardMask());
+    }
+    
+    /**
+     * Returns the value of a hand of (up to) seven cards, as the best hand of
+     * five cards.
+     * 
+     * @param cards
+     *            The card mask.
+     * 
+     * @return The hand value.
+     */
+    public static int evaluate(long cards) {
+        final int s0 = (int) cards & CardSet.RANK_MASK;
+        final int s1 = (int) (cards >>> RANK_BITS) & CardSet.RANK_MASK;
+        final int s2 = (int) (cards >>> (2 * RANK_BITS)) & CardSet.RANK_MASK;
+        final int s3 = (int) (cards >>> (3 * RANK_BITS)) & CardSet.RANK_MASK;
+        final int ranks = s0 | s1 | s2 | s3;
+        
+        // Flush (at most one suit can have five cards out of seven).
+        int flushRanks = 0;
+        if (Integer.bitCount(s0) >= 5) {
+            flushRanks = s0;
+        } else if (Integer.bitCount(s1) >= 5) {
+            flushRanks = s1;
+        } else if (Integer.bitCount(s2) >= 5) {
+            flushRanks = s2;
+        } else if (Integer.bitCount(s3) >= 5) {
+            flushRanks = s3;
+        }
+        if (flushRanks != 0) {
+            int straightFlush = STRAIGHTS[flushRanks];
+            if (straightFlush != 0) {
+                return value(HandValueType.STRAIGHT_FLUSH, 1 << (straightFlush - 1), 0);
+            }
+        }
+        
+        // Ranks with (at least) two, three and four cards.
+        final int quads = s0 & s1 & s2 & s3;
+        if (quads != 0) {
+            return value(HandValueType.FOUR_OF_A_KIND, quads, keepHighest(ranks & ~quads, 1));
+        }
+        final int trips = ((s0 & s1) & (s2 | s3)) | ((s2 & s3) & (s0 | s1));
+        final int pairs = (s0 & s1) | (s0 & s2) | (s0 & s3) | (s1 & s2) | (s1 & s3) | (s2 & s3);
+        if (trips != 0) {
+            int tripRank = Integer.highestOneBit(trips);
+            int pairRanks = pairs & ~tripRank;
+            if (pairRanks != 0) {
+                return value(HandValueType.FULL_HOUSE, tripRank, Integer.highestOneBit(pairRanks));
+            }
+        }
+        if (flushRanks != 0) {
+            return value(HandValueType.FLUSH, TOP_FIVE[flushRanks], 0);
+        }
+        final int straight = STRAIGHTS[ranks];
+        if (straight != 0) {
+            return value(HandValueType.STRAIGHT, 1 << (straight - 1), 0);
+        }
+        if (trips != 0) {
+            return value(HandValueType.THREE_OF_A_KIND, trips, keepHighest(ranks & ~trips, 2));
+        }
+        if (pairs != 0) {
+            if (Integer.bitCount(pairs) >= 2) {
+                int pairRanks = keepHighest(pairs, 2);
+                return value(HandValueType.TWO_PAIRS, pairRanks, keepHighest(ranks & ~pairRanks, 1));
+            } else {
+                return value(HandValueType.ONE_PAIR, pairs, keepHighest(ranks & ~pairs, 3));
+            }
+        }
+        return value(HandValueType.HIGH_CARD, TOP_FIVE[ranks], 0);
+    }
+    
+    /**
+     * Returns the hand value type of a hand value.
+     * 
+     * @param value
+     *            The hand value.
+     * 
+     * @return The hand value type.
+     */
+    public static HandValueType getType(int value) {
+        int type = value >>> TYPE_SHIFT;
+        if (type == HandValueType.STRAIGHT_FLUSH.getValue()) {
+            if (getMajorRanks(value) == (1 << Card.ACE)) {
+                return HandValueType.ROYAL_FLUSH;
+            } else {
+                return HandValueType.STRAIGHT_FLUSH;
+            }
+        }
+        switch (type) {
+            case 7:
+                return HandValueType.FOUR_OF_A_KIND;
+            case 6:
+                return HandValueType.FULL_HOUSE;
+            case 5:
+                return HandValueType.FLUSH;
+            case 4:
+                return HandValueType.STRAIGHT;
+            case 3:
+                return HandValueType.THREE_OF_A_KIND;
+            case 2:
+                return HandValueType.TWO_PAIRS;
+            case 1:
+                return HandValueType.ONE_PAIR;
+            default:
+                return HandValueType.HIGH_CARD;
+        }
+    }
+    
+    /**
+     * Returns the highest rank of the best Straight in a rank mask.
+     * 
+     * @param ranks
+     *            The rank mask.
+     * 
+     * @return The highest rank of the Straight (Five for a Wheel), or -1 if
+     *         none.
+     */
+    public static int getStraightRank(int ranks) {
+        return STRAIGHTS[ranks] - 1;
+    }
+    
+    /**
+     * Returns the ranks that decide a hand value (e.g. the pair, or the highest
+     * card of a Straight), as a rank mask.
+     * 
+     * @param value
+     *            The hand value.
+     * 
+     * @return The rank mask.
+     */
+    public static int getMajorRanks(int value) {
+        return (value >>> RANK_BITS) & CardSet.RANK_MASK;
+    }
+    
+    /**
+     * Returns the kickers of a hand value, as a rank mask.
+     * 
+     * @param value
+     *            The hand value.
+     * 
+     * @return The rank mask.
+     */
+    public static int getKickers(int value) {
+        return value & CardSet.RANK_MASK;
+    }
+    
+    /**
+     * Composes a hand value.
+     * 
+     * @param type
+     *            The hand value type.
+     * @param majorRanks
+     *            The ranks that decide the hand.
+     * @param kickers
+     *            The kickers.
+     * 
+     * @return The hand value.
+     */
+    private static int value(HandValueType type, int majorRanks, int kickers) {
+        return (type.getValue() << TYPE_SHIFT) | (majorRanks << RANK_BITS) | kickers;
+    }
+    
+    /**
+     * Keeps the highest ranks of a rank mask.
+     * 
+     * @param ranks
+     *            The rank mask.
+     * @param n
+     *            The maximum number of ranks to keep.
+     * 
+     * @return The rank mask with at most n ranks.
+     */
+    private static int keepHighest(int ranks, int n) {
+        while (Integer.bitCount(ranks) > n) {
+            ranks &= ranks - 1;
+        }
+        return ranks;
+    }
+    
+}
@@ -202,6 +202,19 @@ public class Hand {
         return dest;
     }
     
+    /**
+     * Returns the cards as a {@link CardSet} mask.
+     * 
+     * @return The card mask.
+     */
+    public long getCardMask() {
+        long mask = 0L;
+        for (int i = 0; i < noOfCards; i++) {
+            mask |= CardSet.mask(cards[i]);
+        }
+        return mask;
+    }
+    
     /**
      * Removes all cards.
      */
@@ -0,0 +1,283 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * The record of the start of a hand, enough to replay it exactly (see
+ * {@link Table#prepareReplay}). <br />
+ * <br />
+ * 
+ * The record holds the table settings, the table's seed and the hand number
+ * (which together determine the hand's seed, and so the cards), the dealer
+ * and the players dealt in with their stacks. Its string form is a single
+ * line that {@link #parse} reads back, e.g. to pass a failed hand from a log
+ * to a replay entry point.
+ */
+public class HandRecord {
+    
+    /** The table type. */
+    private final TableType tableType;
+    
+    /** The big blind. */
+    private final BigDecimal bigBlind;
+    
+    /** The ante. */
+    private final BigDecimal ante;
+    
+    /** The table's seed. */
+    private final long tableSeed;
+    
+    /** The hand number (starting at 1). */
+    private final long handNumber;
+    
+    /** The index of the dealer among the players. */
+    private final int dealer;
+    
+    /** The names of the players dealt in, in seating order. */
+    private final String[] names;
+    
+    /** The players' stacks at the start of the hand. */
+    private final BigDecimal[] stacks;
+    
+    /**
+     * Constructor.
+     * 
+     * @param tableType
+     *            The table type.
+     * @param bigBlind
+     *            The big blind.
+     * @param ante
+     *            The ante.
+     * @param tableSeed
+     *            The table's seed.
+     * @param handNumber
+     *            The hand number (starting at 1).
+     * @param dealer
+     *            The index of the dealer among the players.
+     * @param names
+     *            The names of the players dealt in, in seating order.
+     * @param stacks
+     *            The players' stacks at the start of the hand.
+     */
+    public HandRecord(TableType tableType, BigDecimal bigBlind, BigDecimal ante, long tableSeed, long handNumber, int dealer,
+            String[] names, BigDecimal[] stacks) {
+        if (names.length != stacks.length || names.length < 2) {
+            throw new IllegalArgumentException("Invalid players");
+        }
+        if (dealer < 0 || dealer >= names.length) {
+            throw new IllegalArgumentException("Invalid dealer: " + dealer);
+        }
+        if (handNumber < 1L) {
+            throw new IllegalArgumentException("Invalid hand number: " + handNumber);
+        }
+        this.tableType = tableType;
+        this.bigBlind = bigBlind;
+        this.ante = ante;
+        this.tableSeed = tableSeed;
+        this.handNumber = handNumber;
+        this.dealer = dealer;
+        this.names = names.clone();
+        this.stacks = stacks.clone();
+    }
+    
+    /**
+     * Returns the table type.
+     * 
+     * @return The table type.
+     */
+    public TableType getTableType() {
+        return tableType;
+    }
+    
+    /**
+     * Returns the big blind.
+     * 
+     * @return The big blind.
+     */
+    public BigDecimal getBigBlind() {
+        return bigBlind;
+    }
+    
+    /**
+     * Returns the ante.
+     * 
+     * @return The ante (zero for none).
+     */
+    public BigDecimal getAnte() {
+        return ante;
+    }
+    
+    /**
+     * Returns the table's seed.
+     * 
+     * @return The seed.
+     */
+    public long getTableSeed() {
+        return tableSeed;
+    }
+    
+    /**
+     * Returns the hand number.
+     * 
+     * @return The hand number (starting at 1).
+     */
+    public long getHandNumber() {
+        return handNumber;
+    }
+    
+    /**
+     * Returns the hand's seed, which determines the cards.
+     * 
+     * @return The seed.
+     */
+    public long getHandSeed() {
+        return getHandSeed(tableSeed, handNumber);
+    }
+    
+    /**
+     * Returns the index of the dealer among the players.
+     * 
+     * @return The dealer's index.
+     */
+    public int getDealer() {
+        return dealer;
+    }
+    
+    /**
+     * Returns the number of players dealt in.
+     * 
+     * @return The number of players.
+     */
+    public int getNoOfPlayers() {
+        return names.length;
+    }
+    
+    /**
+     * Returns a player's name.
+     * 
+     * @param index
+     *            The player's index, in seating order.
+     * 
+     * @return The name.
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+    
+    /**
+     * Returns a player's stack at the start of the hand.
+     * 
+     * @param index
+     *            The player's index, in seating order.
+     * 
+     * @return The stack.
+     */
+    public BigDecimal getStack(int index) {
+        return stacks[index];
+    }
+    
+    /**
+     * Returns the seed of a hand (the SplitMix64 mix of the table's seed and
+     * the hand number), so every hand can be dealt on its own.
+     * 
+     * @param tableSeed
+     *            The table's seed.
+     * @param handNumber
+     *            The hand number.
+     * 
+     * @return The hand's seed.
+     */
+    public static long getHandSeed(long tableSeed, long handNumber) {
+        long z = tableSeed + handNumber * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Parses the string form of a record.
+     * 
+     * @param s
+     *            The string form.
+     * 
+     * @return The record.
+     * 
+     * @throws IllegalArgumentException
+     *             If the string is not a valid record.
+     */
+    public static HandRecord parse(String s) {
+        String[] parts = s.trim().split(" ");
+        if (parts.length < 8) {
+            throw new IllegalArgumentException("Invalid hand record: " + s);
+        }
+        try {
+            int noOfPlayers = parts.length - 6;
+            String[] names = new String[noOfPlayers];
+            BigDecimal[] stacks = new BigDecimal[noOfPlayers];
+            for (int i = 0; i < noOfPlayers; i++) {
+                String part = parts[6 + i];
+                int separator = part.lastIndexOf('=');
+                names[i] = unescape(part.substring(0, separator));
+                stacks[i] = new BigDecimal(part.substring(separator + 1));
+            }
+            return new HandRecord(TableType.valueOf(parts[0]), new BigDecimal(parts[1]), new BigDecimal(parts[2]),
+                    Long.parseUnsignedLong(parts[3], 16), Long.parseLong(parts[4]), Integer.parseInt(parts[5]), names, stacks);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid hand record: " + s, e);
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(tableType).append(' ').append(bigBlind.toPlainString()).append(' ').append(ante.toPlainString());
+        sb.append(' ').append(Long.toHexString(tableSeed)).append(' ').append(handNumber).append(' ').append(dealer);
+        for (int i = 0; i < names.length; i++) {
+            sb.append(' ').append(escape(names[i])).append('=').append(stacks[i].toPlainString());
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Escapes the separators in a name.
+     * 
+     * @param name
+     *            The name.
+     * 
+     * @return The escaped name.
+     */
+    private static String escape(String name) {
+        return name.replace("%", "%25").replace(" ", "%20").replace("=", "%3D");
+    }
+    
+    /**
+     * Reverses {@link #escape}.
+     * 
+     * @param name
+     *            The escaped name.
+     * 
+     * @return The name.
+     */
+    private static String unescape(String name) {
+        return name.replace("%3D", "=").replace("%20", " ").replace("%25", "%");
+    }
+    
+}
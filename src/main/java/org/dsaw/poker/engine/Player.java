@@ -20,6 +20,9 @@ package org.dsaw.poker.engine;
 import java.math.BigDecimal;
 import java.util.List;
 import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.PackedAction;
+import org.dsaw.poker.engine.log.Log;
+import org.dsaw.poker.engine.log.Logger;
 
 /**
  * A Texas Hold'em player. <br />
@@ -32,6 +35,9 @@ import org.dsaw.poker.engine.actions.Action;
  */
 public class Player {
 
+    /** The logger (the dealt hole cards are logged at trace level). */
+    private static final Logger LOG = Log.getLogger(Player.class);
+    
     /** Name. */
     private final String name;
 
@@ -50,9 +56,18 @@ public class Player {
     /** Current bet. */
     private BigDecimal bet;
 
-    /** Last action performed. */
+    /** Last action performed, packed (see {@link PackedAction}). */
+    private long packedAction;
+
+    /** Last action performed (null if not unpacked yet). */
     private Action action;
 
+    /** Whether this is a read-only (public) snapshot. */
+    private boolean readOnly;
+
+    /** The key identifying this player, shared by its snapshots. */
+    private Object key;
+
     /**
      * Constructor.
      * 
@@ -69,6 +84,7 @@ public class Player {
         this.client = client;
 
         hand = new Hand();
+        key = new Object();
 
         resetHand();
     }
@@ -86,6 +102,7 @@ public class Player {
      * Prepares the player for another hand.
      */
     public void resetHand() {
+        checkWritable();
         hasCards = false;
         hand.removeAllCards();
         resetBet();
@@ -95,20 +112,22 @@ public class Player {
      * Resets the player's bet.
      */
     public void resetBet() {
+        checkWritable();
         bet = BigDecimal.ZERO;
-        action = (hasCards() && BigDecimal.ZERO.equals(cash)) ? Action.ALL_IN : null;
+        setPackedAction((hasCards() && cash.signum() == 0) ? PackedAction.ALL_IN : PackedAction.NONE);
     }
 
     /**
      * Sets the hole cards.
      */
     public void setCards(List<Card> cards) {
+        checkWritable();
         hand.removeAllCards();
         if (cards != null) {
             if (cards.size() == 2) {
                 hand.addCards(cards);
                 hasCards = true;
-                System.out.format("[CHEAT] %s's cards:\t%s\n", name, hand);
+                LOG.trace("[CHEAT] %s's cards: %s", name, hand);
             } else {
                 throw new IllegalArgumentException("Invalid number of cards");
             }
@@ -158,6 +177,7 @@ public class Player {
      *            The current bet.
      */
     public void setBet(BigDecimal bet) {
+        checkWritable();
         this.bet = bet;
     }
 
@@ -167,6 +187,9 @@ public class Player {
      * @return The action.
      */
     public Action getAction() {
+        if (action == null && packedAction != PackedAction.NONE) {
+            action = PackedAction.toAction(packedAction);
+        }
         return action;
     }
     
@@ -177,7 +200,31 @@ public class Player {
      *            The action.
      */
     public void setAction(Action action) {
+        checkWritable();
         this.action = action;
+        packedAction = PackedAction.fromAction(action);
+    }
+    
+    /**
+     * Returns the player's most recent action, packed.
+     * 
+     * @return The packed action ({@link PackedAction#NONE} for none).
+     */
+    public long getPackedAction() {
+        return packedAction;
+    }
+    
+    /**
+     * Sets the player's most recent action, packed. The action is only
+     * unpacked if asked for.
+     * 
+     * @param packedAction
+     *            The packed action.
+     */
+    public void setPackedAction(long packedAction) {
+        checkWritable();
+        this.packedAction = packedAction;
+        action = null;
     }
 
     /**
@@ -186,7 +233,7 @@ public class Player {
      * @return True if all-in, otherwise false.
      */
     public boolean isAllIn() {
-        return hasCards() && (BigDecimal.ZERO.equals(cash));
+        return hasCards() && cash.signum() == 0;
     }
 
     /**
@@ -198,6 +245,15 @@ public class Player {
         return hand.getCards();
     }
 
+    /**
+     * Returns the player's hole cards as a {@link CardSet} mask.
+     * 
+     * @return The card mask (0 if the cards are not known).
+     */
+    public long getCardMask() {
+        return hand.getCardMask();
+    }
+
     /**
      * Posts the small blind.
      * 
@@ -205,7 +261,8 @@ public class Player {
      *            The small blind.
      */
     public void postSmallBlind(BigDecimal blind) {
-        action = Action.SMALL_BLIND;
+        checkWritable();
+        setPackedAction(PackedAction.SMALL_BLIND);
         cash = cash.subtract(blind);
         bet = bet.add(blind);
     }
@@ -217,7 +274,8 @@ public class Player {
      *            The big blind.
      */
     public void postBigBlind(BigDecimal blind) {
-        action = Action.BIG_BLIND;
+        checkWritable();
+        setPackedAction(PackedAction.BIG_BLIND);
         cash = cash.subtract(blind);
         bet = bet.add(blind);
     }
@@ -229,6 +287,7 @@ public class Player {
      *            The amount of cash to pay.
      */
     public void payCash(BigDecimal amount) {
+        checkWritable();
         if (amount.compareTo(cash) > 0) {
             throw new IllegalStateException("Player asked to pay more cash than he owns!");
         }
@@ -242,11 +301,12 @@ public class Player {
      *            The amount won.
      */
     public void win(BigDecimal amount) {
+        checkWritable();
         cash = cash.add(amount);
     }
 
     /**
-     * Returns a clone of this player with only public information.
+     * Returns a read-only clone of this player with only public information.
      * 
      * @return The cloned player.
      */
@@ -254,10 +314,56 @@ public class Player {
         Player clone = new Player(name, cash, null);
         clone.hasCards = hasCards;
         clone.bet = bet;
+        clone.packedAction = packedAction;
         clone.action = action;
+        clone.readOnly = true;
+        clone.key = key;
         return clone;
     }
 
+    /**
+     * Returns a read-only clone of this player with the public information
+     * and the hole cards, as shown at the showdown.
+     * 
+     * @return The cloned player.
+     */
+    public Player showdownClone() {
+        Player clone = publicClone();
+        clone.hand.addCards(hand.getCards());
+        return clone;
+    }
+
+    /**
+     * Returns the key identifying this player. <br />
+     * <br />
+     * 
+     * A player and all its snapshots share the same key, so clients can
+     * tell players apart even if their names are equal.
+     * 
+     * @return The key.
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * Indicates whether this player is a read-only (public) snapshot.
+     * 
+     * @return True if read-only, otherwise false.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Guards against modifying a read-only snapshot shared by the clients.
+     */
+    private void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Cannot modify a read-only player snapshot");
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
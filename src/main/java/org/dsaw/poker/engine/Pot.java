@@ -30,7 +30,11 @@ import java.util.Set;
  * partial call, bet or raise, the pot must be {@link #split}.
  * 
  * @author Oscar Stigter
+ * 
+ * @deprecated The table keeps the contributions in a {@link PotLedger},
+ *             which determines the side pots only at the showdown.
  */
+@Deprecated
 public class Pot {
 
     /** Bet for this pot. */
@@ -0,0 +1,278 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * The contributions of the players to the pot in a hand, with the division of
+ * the main pot and any side pots at the showdown. <br />
+ * <br />
+ * 
+ * The total contribution of each seat is kept as a number of units of the
+ * smallest amount contributed so far, e.g. cents with blinds of $ 0.10 and
+ * whole chips for integral amounts, so contributing is a single addition. The
+ * side pots follow from the contribution levels: each distinct level starts a
+ * pot, shared by the seats that contributed at least that much. They are only
+ * determined once, at the showdown, by sorting the seats by contribution.
+ * <br />
+ * <br />
+ * 
+ * <b>NOTE:</b> This class is implemented with the focus on performance
+ * (instead of clean design).
+ */
+public class PotLedger {
+    
+    /** The hand value of a seat that does not take part in the showdown. */
+    public static final int NO_HAND = -1;
+    
+    /** The total contribution of each seat, in units. */
+    private long[] contributions;
+    
+    /** The number of seats in the hand. */
+    private int noOfSeats;
+    
+    /** The number of decimals of a unit. */
+    private int scale;
+    
+    /** The number of units in a whole chip (10 to the power of the scale). */
+    private long unitsPerChip;
+    
+    /** The running total of the contributions, in units. */
+    private long total;
+    
+    /** The total as an amount (null if not determined yet). */
+    private BigDecimal totalAmount;
+    
+    /** The seats ordered by contribution (at the showdown). */
+    private int[] order;
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The initial number of seats.
+     */
+    public PotLedger(int capacity) {
+        contributions = new long[capacity];
+        order = new int[capacity];
+        reset(0);
+    }
+    
+    /**
+     * Clears the pot for a new hand.
+     * 
+     * @param noOfSeats
+     *            The number of seats in the hand.
+     */
+    public void reset(int noOfSeats) {
+        if (contributions.length < noOfSeats) {
+            contributions = new long[noOfSeats];
+            order = new int[noOfSeats];
+        } else {
+            Arrays.fill(contributions, 0, this.noOfSeats, 0L);
+        }
+        this.noOfSeats = noOfSeats;
+        scale = 0;
+        unitsPerChip = 1L;
+        total = 0L;
+        totalAmount = BigDecimal.ZERO;
+    }
+    
+    /**
+     * Adds a contribution of a seat.
+     * 
+     * @param seat
+     *            The seat.
+     * @param amount
+     *            The (non-negative) amount.
+     */
+    public void contribute(int seat, BigDecimal amount) {
+        if (amount.signum() == 0) {
+            return;
+        }
+        if (amount.scale() > scale) {
+            amount = amount.stripTrailingZeros();
+            if (amount.scale() > scale) {
+                rescale(amount.scale());
+            }
+        }
+        long units = amount.scaleByPowerOfTen(scale).longValueExact();
+        contributions[seat] += units;
+        total += units;
+        totalAmount = null;
+    }
+    
+    /**
+     * Returns the total of all contributions (the total pot).
+     * 
+     * @return The total.
+     */
+    public BigDecimal getTotal() {
+        if (totalAmount == null) {
+            totalAmount = toAmount(total);
+        }
+        return totalAmount;
+    }
+    
+    /**
+     * Returns the total contribution of a seat.
+     * 
+     * @param seat
+     *            The seat.
+     * 
+     * @return The contribution.
+     */
+    public BigDecimal getContribution(int seat) {
+        return toAmount(contributions[seat]);
+    }
+    
+    /**
+     * Returns a number of units as an amount.
+     * 
+     * @param units
+     *            The number of units.
+     * 
+     * @return The amount.
+     */
+    public BigDecimal toAmount(long units) {
+        return BigDecimal.valueOf(units, scale);
+    }
+    
+    /**
+     * Divides the pots at the showdown. <br />
+     * <br />
+     * 
+     * Each pot goes to the best hand(s) of the seats that contributed to it;
+     * a pot only contributed to by seats that folded goes to the best hand(s)
+     * overall. A pot is split in whole chips, and the odd chips are given
+     * one by one to its winners in the specified order.
+     * 
+     * @param handValues
+     *            The hand value of each seat (higher is better), or
+     *            {@link #NO_HAND} for seats that folded.
+     * @param oddChipOrder
+     *            The order of all seats for the odd chips (the seats that
+     *            folded may be anywhere).
+     * @param winnings
+     *            The winnings of each seat, in units (output).
+     */
+    public void divide(int[] handValues, int[] oddChipOrder, long[] winnings) {
+        Arrays.fill(winnings, 0, noOfSeats, 0L);
+        
+        // Sort the seats by contribution (insertion sort; few seats).
+        for (int i = 0; i < noOfSeats; i++) {
+            int seat = i;
+            long contribution = contributions[seat];
+            int j = i - 1;
+            while (j >= 0 && contributions[order[j]] > contribution) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = seat;
+        }
+        
+        int bestValue = NO_HAND;
+        for (int seat = 0; seat < noOfSeats; seat++) {
+            bestValue = Math.max(bestValue, handValues[seat]);
+        }
+        
+        // One pot per contribution level, shared by the seats at or above it.
+        long level = 0L;
+        for (int k = 0; k < noOfSeats; k++) {
+            long nextLevel = contributions[order[k]];
+            if (nextLevel == level) {
+                continue;
+            }
+            long pot = (nextLevel - level) * (noOfSeats - k);
+            level = nextLevel;
+            
+            // The best hand among the contributors, or overall if they all folded.
+            int winningValue = NO_HAND;
+            for (int i = k; i < noOfSeats; i++) {
+                winningValue = Math.max(winningValue, handValues[order[i]]);
+            }
+            boolean isDeadPot = (winningValue == NO_HAND);
+            if (isDeadPot) {
+                winningValue = bestValue;
+            }
+            int noOfWinners = 0;
+            for (int seat = 0; seat < noOfSeats; seat++) {
+                if (isWinner(seat, winningValue, level, isDeadPot, handValues)) {
+                    noOfWinners++;
+                }
+            }
+            
+            // Split in whole chips...
+            long share = (pot / noOfWinners) / unitsPerChip * unitsPerChip;
+            for (int seat = 0; seat < noOfSeats; seat++) {
+                if (isWinner(seat, winningValue, level, isDeadPot, handValues)) {
+                    winnings[seat] += share;
+                }
+            }
+            // ...and hand out the odd chips (or the fraction left over).
+            long oddChips = pot - share * noOfWinners;
+            for (int i = 0; oddChips > 0L; i = (i + 1) % noOfSeats) {
+                int seat = oddChipOrder[i];
+                if (isWinner(seat, winningValue, level, isDeadPot, handValues)) {
+                    long oddChip = Math.min(oddChips, unitsPerChip);
+                    winnings[seat] += oddChip;
+                    oddChips -= oddChip;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Indicates whether a seat wins (a share of) a pot.
+     * 
+     * @param seat
+     *            The seat.
+     * @param winningValue
+     *            The winning hand value.
+     * @param level
+     *            The contribution level of the pot.
+     * @param isDeadPot
+     *            Whether only folded seats contributed to the pot.
+     * @param handValues
+     *            The hand values of the seats.
+     * 
+     * @return True if the seat wins, otherwise false.
+     */
+    private boolean isWinner(int seat, int winningValue, long level, boolean isDeadPot, int[] handValues) {
+        return handValues[seat] == winningValue && (isDeadPot || contributions[seat] >= level);
+    }
+    
+    /**
+     * Increases the scale of the units, e.g. from whole chips to cents.
+     * 
+     * @param newScale
+     *            The new scale.
+     */
+    private void rescale(int newScale) {
+        long factor = BigDecimal.ONE.scaleByPowerOfTen(newScale - scale).longValueExact();
+        for (int seat = 0; seat < noOfSeats; seat++) {
+            contributions[seat] = Math.multiplyExact(contributions[seat], factor);
+        }
+        total = Math.multiplyExact(total, factor);
+        unitsPerChip = Math.multiplyExact(unitsPerChip, factor);
+        scale = newScale;
+    }
+    
+}
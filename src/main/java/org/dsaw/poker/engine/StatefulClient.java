@@ -0,0 +1,48 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+/**
+ * A client with state that is kept in table snapshots (see
+ * {@link Table#snapshot()}), e.g. a bot's opponent model. <br />
+ * <br />
+ * 
+ * Snapshots are taken between hands, so only state that outlives a hand
+ * needs to be saved.
+ */
+public interface StatefulClient extends Client {
+    
+    /**
+     * Saves the client's state.
+     * 
+     * @return The state.
+     */
+    byte[] saveState();
+    
+    /**
+     * Restores the client's state, as saved by {@link #saveState()}.
+     * 
+     * @param state
+     *            The state.
+     * 
+     * @throws IllegalArgumentException
+     *             If the state is invalid.
+     */
+    void restoreState(byte[] state);
+    
+}
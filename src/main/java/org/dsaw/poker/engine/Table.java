@@ -34,18 +34,27 @@
 
 package org.dsaw.poker.engine;
 
-import org.dsaw.poker.engine.actions.Action;
-import org.dsaw.poker.engine.actions.BetAction;
-import org.dsaw.poker.engine.actions.RaiseAction;
+import org.dsaw.poker.engine.actions.ActionType;
+import org.dsaw.poker.engine.actions.PackedAction;
+import org.dsaw.poker.engine.codec.WireCodec;
+import org.dsaw.poker.engine.jfr.DecisionEvent;
+import org.dsaw.poker.engine.jfr.HandEvent;
+import org.dsaw.poker.engine.jfr.ShowdownEvent;
+import org.dsaw.poker.engine.log.Log;
+import org.dsaw.poker.engine.log.LogLevel;
+import org.dsaw.poker.engine.log.Logger;
+import org.dsaw.poker.engine.metrics.TableMetrics;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
 /**
  * Limit Texas Hold'em poker table. <br />
@@ -63,12 +72,36 @@ public class Table {
     /** Whether players will always call the showdown, or fold when no chance. */
     private static final boolean ALWAYS_CALL_SHOWDOWN = false;
     
+    /** The logger (the table messages are logged at debug level). */
+    private static final Logger LOG = Log.getLogger(Table.class);
+    
+    /** The source of the seeds of tables without an explicit seed. */
+    private static final SecureRandom SEEDS = new SecureRandom();
+    
+    /** The magic number of a snapshot ('TBL1'). */
+    private static final int SNAPSHOT_MAGIC = 0x54424c31;
+    
+    /** The maximum size of a snapshot without the players. */
+    private static final int SNAPSHOT_BASE_SIZE = 16 + 8 * WireCodec.MAX_VARINT_SIZE + Deck.STATE_SIZE;
+    
     /** Table type (poker variant). */
     private final TableType tableType;
     
     /** The size of the big blind. */
-    private final BigDecimal bigBlind;
-
+    private BigDecimal bigBlind;
+    
+    /** The size of the ante (zero for none). */
+    private BigDecimal ante;
+    
+    /** Whether players with less than the big blind are dealt in. */
+    private boolean shortStacksAllowed;
+    
+    /** Whether the clients have been notified of joining the table. */
+    private boolean started;
+    
+    /** Whether a hand is being played. */
+    private boolean handInProgress;
+    
     /** The players at the table. */
     private final List<Player> players;
     
@@ -78,6 +111,42 @@ public class Table {
     /** The deck of cards. */
     private final Deck deck;
     
+    /** The table's seed, from which each hand's seed is derived. */
+    private long seed;
+    
+    /** The number of the current hand (starting at 1). */
+    private long handNumber;
+    
+    /** The players dealt in the current hand, in seating order. */
+    private Player[] handPlayers = new Player[0];
+    
+    /** The stacks of the players dealt in at the start of the current hand. */
+    private BigDecimal[] handStacks = new BigDecimal[0];
+    
+    /** The order in which the seats show at the showdown. */
+    private int[] showOrder = new int[0];
+    
+    /** Whether each seat is in the show order. */
+    private boolean[] isShowing = new boolean[0];
+    
+    /** The hand value of each seat at the showdown. */
+    private int[] handValues = new int[0];
+    
+    /** The order of the seats for the odd chips. */
+    private int[] oddChipOrder = new int[0];
+    
+    /** The winnings of each seat at the showdown, in pot units. */
+    private long[] winnings = new long[0];
+    
+    /** The number of players dealt in the current hand. */
+    private int noOfHandPlayers;
+    
+    /** The big blind of the current hand. */
+    private BigDecimal handBigBlind;
+    
+    /** The ante of the current hand. */
+    private BigDecimal handAnte;
+    
     /** The community cards on the board. */
     private final List<Card> board;
     
@@ -99,8 +168,8 @@ public class Table {
     /** The current bet in the current hand. */
     private BigDecimal bet;
 
-    /** All pots in the current hand (main pot and any side pots). */
-    private final List<Pot> pots;
+    /** The contributions to the pot in the current hand, by seat. */
+    private final PotLedger potLedger;
     
     /** The player who bet or raised last (aggressor). */
     private Player lastBettor;
@@ -108,20 +177,34 @@ public class Table {
     /** Number of raises in the current betting round. */
     private int raises;
     
+    /** The event bus distributing the table events to the clients. */
+    private final TableEventBus eventBus;
+    
+    /** The metrics being recorded, or null if disabled. */
+    private TableMetrics metrics;
+    
     /**
      * Constructor.
      * 
      * @param bigBlind
      *            The size of the big blind.
+     * 
+     * @throws IllegalArgumentException
+     *             If the big blind is not a whole number of cents.
      */
     public Table(TableType type, BigDecimal bigBlind) {
         this.tableType = type;
-        this.bigBlind = bigBlind;
+        this.bigBlind = checkAmount("Big blind", bigBlind);
+        ante = BigDecimal.ZERO;
         players = new ArrayList<>();
         activePlayers = new ArrayList<>();
         deck = new Deck();
+        seed = SEEDS.nextLong();
         board = new ArrayList<>();
-        pots = new ArrayList<>();
+        potLedger = new PotLedger(10);
+        eventBus = new TableEventBus();
+        minBet = BigDecimal.ZERO;
+        bet = BigDecimal.ZERO;
     }
     
     /**
@@ -131,35 +214,374 @@ public class Table {
      *            The player.
      */
     public void addPlayer(Player player) {
+        addPlayer(player, TableEventType.ALL);
+    }
+    
+    /**
+     * Adds a player, whose client only receives the specified event types.
+     * 
+     * @param player
+     *            The player.
+     * @param eventTypes
+     *            The event types the player's client subscribes to.
+     */
+    public void addPlayer(Player player, Set<TableEventType> eventTypes) {
         players.add(player);
+        eventBus.subscribe(player.getClient(), player, eventTypes);
+        if (started) {
+            // Joining a running game (between hands).
+            eventBus.joinedTable(tableType, bigBlind, players);
+        }
     }
     
     /**
-     * Main game loop.
+     * Removes a player. <br />
+     * <br />
+     * 
+     * May only be called between hands.
+     * 
+     * @param player
+     *            The player.
      */
-    public void run() {
-        for (Player player : players) {
-            player.getClient().joinedTable(tableType, bigBlind, players);
-        }
-        dealerPosition = -1;
-        actorPosition = -1;
-        while (true) {
-            int noOfActivePlayers = 0;
-            for (Player player : players) {
-                if (player.getCash().compareTo(bigBlind) >= 0) {
-                    noOfActivePlayers++;
-                }
+    public void removePlayer(Player player) {
+        if (players.remove(player)) {
+            eventBus.unsubscribe(player.getClient());
+            player.resetHand();
+            if (started) {
+                eventBus.joinedTable(tableType, bigBlind, players);
+            }
+        }
+    }
+    
+    /**
+     * Returns the players at the table.
+     * 
+     * @return The players.
+     */
+    public List<Player> getPlayers() {
+        return Collections.unmodifiableList(players);
+    }
+    
+    /**
+     * Returns the current dealer.
+     * 
+     * @return The dealer, or null before the first hand.
+     */
+    public Player getDealer() {
+        return dealer;
+    }
+    
+    /**
+     * Returns the size of the big blind.
+     * 
+     * @return The big blind.
+     */
+    public BigDecimal getBigBlind() {
+        return bigBlind;
+    }
+    
+    /**
+     * Sets the blinds and ante for the next hands (e.g. for a new tournament
+     * blind level). The small blind is half of the big blind.
+     * 
+     * @param bigBlind
+     *            The big blind.
+     * @param ante
+     *            The ante (zero for none).
+     * 
+     * @throws IllegalArgumentException
+     *             If the big blind or ante is not a whole number of cents.
+     */
+    public void setBlinds(BigDecimal bigBlind, BigDecimal ante) {
+        checkAmount("Big blind", bigBlind);
+        checkAmount("Ante", ante);
+        this.bigBlind = bigBlind;
+        this.ante = ante;
+    }
+    
+    /**
+     * Checks that an amount is a whole number of cents, as bets and raises
+     * are passed in cents (see {@link PackedAction}).
+     * 
+     * @param name
+     *            The name of the amount.
+     * @param amount
+     *            The amount.
+     * 
+     * @return The amount.
+     * 
+     * @throws IllegalArgumentException
+     *             If the amount is not a whole number of cents.
+     */
+    private static BigDecimal checkAmount(String name, BigDecimal amount) {
+        try {
+            WireCodec.toCents(amount);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(name + " must be a whole number of cents: " + amount, e);
+        }
+        return amount;
+    }
+    
+    /**
+     * Sets whether players with less cash than the big blind are dealt in,
+     * posting what they can afford (as in tournaments), instead of sitting
+     * out.
+     * 
+     * @param shortStacksAllowed
+     *            True if short stacks are dealt in.
+     */
+    public void setShortStacksAllowed(boolean shortStacksAllowed) {
+        this.shortStacksAllowed = shortStacksAllowed;
+    }
+    
+    /**
+     * Sets the table's seed. <br />
+     * <br />
+     * 
+     * The cards of each hand are determined by its seed, derived from the
+     * table's seed and the hand number, so tables with the same seed deal the
+     * same cards hand by hand. Without an explicit seed a table gets a random
+     * one, so its hands can still be replayed from their records.
+     * 
+     * @param seed
+     *            The seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * Sets the metrics to record the table's hot path in. <br />
+     * <br />
+     * 
+     * Metrics are disabled by default.
+     * 
+     * @param metrics
+     *            The metrics, or null to disable recording.
+     */
+    public void setMetrics(TableMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Returns the metrics being recorded.
+     * 
+     * @return The metrics, or null if disabled.
+     */
+    public TableMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Returns the table's seed.
+     * 
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * Returns the record of the current (or last) hand, e.g. to replay a hand
+     * that failed.
+     * 
+     * @return The hand record, or null before the first hand.
+     */
+    public HandRecord getHandRecord() {
+        if (noOfHandPlayers == 0) {
+            return null;
+        }
+        String[] names = new String[noOfHandPlayers];
+        for (int i = 0; i < noOfHandPlayers; i++) {
+            names[i] = handPlayers[i].getName();
+        }
+        return new HandRecord(tableType, handBigBlind, handAnte, seed, handNumber, dealerPosition, names,
+                Arrays.copyOf(handStacks, noOfHandPlayers));
+    }
+    
+    /**
+     * Prepares a table to replay a recorded hand, with the same cards, dealer
+     * and stacks. <br />
+     * <br />
+     * 
+     * The recorded players are seated with the given clients, subscribed to
+     * all events; more clients or observers may be added before the hand is
+     * played with {@link #playNextHand()}. The hand is replayed exactly if
+     * the clients act the same as in the original hand (e.g. deterministic
+     * bots).
+     * 
+     * @param record
+     *            The hand record.
+     * @param clients
+     *            The clients of the recorded players, in seating order.
+     * 
+     * @return The table.
+     */
+    public static Table prepareReplay(HandRecord record, List<Client> clients) {
+        if (clients.size() != record.getNoOfPlayers()) {
+            throw new IllegalArgumentException("Expected " + record.getNoOfPlayers() + " clients");
+        }
+        Table table = new Table(record.getTableType(), record.getBigBlind());
+        table.setBlinds(record.getBigBlind(), record.getAnte());
+        table.setShortStacksAllowed(true);
+        table.setSeed(record.getTableSeed());
+        for (int i = 0; i < clients.size(); i++) {
+            table.addPlayer(new Player(record.getName(i), record.getStack(i), clients.get(i)));
+        }
+        table.eventBus.joinedTable(table.tableType, table.bigBlind, table.players);
+        table.started = true;
+        // The next hand gets the recorded number (and so seed) and dealer.
+        table.handNumber = record.getHandNumber() - 1L;
+        table.dealerPosition = record.getDealer() - 1;
+        return table;
+    }
+    
+    /**
+     * Takes a snapshot of the table's state, to restore it later (e.g. after
+     * a crash) with {@link #restore}. <br />
+     * <br />
+     * 
+     * Snapshots are taken between hands, when the pots are empty and no
+     * betting round is in progress. They contain the table settings and seed,
+     * the hand number, the dealer position, the order of the deck, and the
+     * players with their cash and, for a {@link StatefulClient}, their
+     * client's state. Amounts are kept exactly. A snapshot of a few players
+     * takes a few hundred bytes, cheap enough to take after every hand.
+     * 
+     * @return The snapshot.
+     * 
+     * @throws IllegalStateException
+     *             If a hand is in progress.
+     */
+    public byte[] snapshot() {
+        if (handInProgress) {
+            throw new IllegalStateException("Cannot take a snapshot during a hand");
+        }
+        int noOfPlayers = players.size();
+        byte[][] states = new byte[noOfPlayers][];
+        int size = SNAPSHOT_BASE_SIZE;
+        for (int i = 0; i < noOfPlayers; i++) {
+            Player player = players.get(i);
+            Client client = player.getClient();
+            if (client instanceof StatefulClient) {
+                states[i] = ((StatefulClient) client).saveState();
+                size += states[i].length;
             }
-            if (noOfActivePlayers > 1) {
-                playHand();
+            size += 4 * WireCodec.MAX_VARINT_SIZE + 4 * player.getName().length();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(SNAPSHOT_MAGIC);
+        WireCodec.putVarLong(buffer, tableType.ordinal());
+        WireCodec.putDecimal(buffer, bigBlind);
+        WireCodec.putDecimal(buffer, ante);
+        buffer.put((byte) ((shortStacksAllowed ? 1 : 0) | (started ? 2 : 0)));
+        buffer.putLong(seed);
+        WireCodec.putVarLong(buffer, handNumber);
+        WireCodec.putVarLong(buffer, dealerPosition + 1);
+        deck.saveState(buffer);
+        WireCodec.putVarLong(buffer, noOfPlayers);
+        for (int i = 0; i < noOfPlayers; i++) {
+            Player player = players.get(i);
+            WireCodec.putString(buffer, player.getName());
+            WireCodec.putDecimal(buffer, player.getCash());
+            // The length plus one, with zero for no state.
+            if (states[i] == null) {
+                WireCodec.putVarLong(buffer, 0L);
             } else {
-                break;
+                WireCodec.putVarLong(buffer, states[i].length + 1L);
+                buffer.put(states[i]);
             }
         }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+    
+    /**
+     * Restores a table from a snapshot taken with {@link #snapshot()}. <br />
+     * <br />
+     * 
+     * The players are seated with the given clients, subscribed to all events.
+     * Clients implementing {@link StatefulClient} get their saved state back.
+     * Observers, and event subscriptions other than the default, must be set
+     * up again by the caller.
+     * 
+     * @param snapshot
+     *            The snapshot.
+     * @param clients
+     *            The clients of the players, in seating order.
+     * 
+     * @return The table, ready to play the next hand.
+     * 
+     * @throws IllegalArgumentException
+     *             If the snapshot is invalid, or the number of clients does
+     *             not match.
+     */
+    public static Table restore(byte[] snapshot, List<Client> clients) {
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+        try {
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IllegalArgumentException("Not a table snapshot");
+            }
+            TableType type = TableType.values()[(int) WireCodec.getVarLong(buffer)];
+            BigDecimal bigBlind = WireCodec.getDecimal(buffer);
+            Table table = new Table(type, bigBlind);
+            table.ante = WireCodec.getDecimal(buffer);
+            int flags = buffer.get();
+            table.shortStacksAllowed = (flags & 1) != 0;
+            boolean started = (flags & 2) != 0;
+            table.seed = buffer.getLong();
+            table.handNumber = WireCodec.getVarLong(buffer);
+            table.dealerPosition = (int) WireCodec.getVarLong(buffer) - 1;
+            table.deck.restoreState(buffer);
+            long noOfPlayers = WireCodec.getVarLong(buffer);
+            if (noOfPlayers != clients.size()) {
+                throw new IllegalArgumentException("Expected " + noOfPlayers + " clients");
+            }
+            for (Client client : clients) {
+                Player player = new Player(WireCodec.getString(buffer), WireCodec.getDecimal(buffer), client);
+                int length = (int) WireCodec.getVarLong(buffer) - 1;
+                if (length >= 0) {
+                    byte[] state = new byte[length];
+                    buffer.get(state);
+                    if (client instanceof StatefulClient) {
+                        ((StatefulClient) client).restoreState(state);
+                    }
+                }
+                table.addPlayer(player);
+            }
+            if (started) {
+                table.eventBus.joinedTable(table.tableType, table.bigBlind, table.players);
+                table.started = true;
+            }
+            return table;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ArithmeticException e) {
+            throw new IllegalArgumentException("Corrupt table snapshot", e);
+        }
+    }
+    
+    /**
+     * Adds an observer, a client without a player that only receives the
+     * public table events.
+     * 
+     * @param client
+     *            The observing client.
+     * @param eventTypes
+     *            The event types the client subscribes to.
+     */
+    public void addObserver(Client client, Set<TableEventType> eventTypes) {
+        eventBus.subscribe(client, null, eventTypes);
+    }
+    
+    /**
+     * Main game loop.
+     */
+    public void run() {
+        while (playNextHand()) {
+            // Keep playing.
+        }
         
         // Game over.
         board.clear();
-        pots.clear();
+        potLedger.reset(0);
         bet = BigDecimal.ZERO;
         notifyBoardUpdated();
         for (Player player : players) {
@@ -169,12 +591,67 @@ public class Table {
         notifyMessage("Game over.");
     }
     
+    /**
+     * Plays the next hand, if at least two players can play. <br />
+     * <br />
+     * 
+     * Allows the caller to change the players or blinds between hands.
+     * 
+     * @return True if a hand was played, false if not enough players are
+     *         left (game over).
+     */
+    public boolean playNextHand() {
+        if (!started) {
+            eventBus.joinedTable(tableType, bigBlind, players);
+            dealerPosition = -1;
+            actorPosition = -1;
+            started = true;
+        }
+        int noOfActivePlayers = 0;
+        for (Player player : players) {
+            if (canPlay(player)) {
+                noOfActivePlayers++;
+            }
+        }
+        if (noOfActivePlayers > 1) {
+            playHand();
+            return true;
+        } else {
+            return false;
+        }
+    }
+    
+    /**
+     * Indicates whether a player can be dealt in.
+     * 
+     * @param player
+     *            The player.
+     * 
+     * @return True if the player can play, otherwise false.
+     */
+    private boolean canPlay(Player player) {
+        if (shortStacksAllowed) {
+            return player.getCash().signum() > 0;
+        } else {
+            // Player must be able to afford at least the big blind.
+            return player.getCash().compareTo(bigBlind) >= 0;
+        }
+    }
+    
     /**
      * Plays a single hand.
      */
     private void playHand() {
+        HandEvent event = new HandEvent();
+        event.begin();
+        handInProgress = true;
         resetHand();
         
+        // Antes.
+        if (ante.signum() > 0) {
+            postAntes();
+        }
+        
         // Small blind.
         if (activePlayers.size() > 2) {
             rotateActor();
@@ -216,6 +693,14 @@ public class Table {
                 }
             }
         }
+        handInProgress = false;
+        if (metrics != null) {
+            metrics.handPlayed();
+        }
+        if (event.shouldCommit()) {
+            event.set(handNumber, HandRecord.getHandSeed(seed, handNumber), noOfHandPlayers);
+            event.commit();
+        }
     }
     
     /**
@@ -224,15 +709,14 @@ public class Table {
     private void resetHand() {
         // Clear the board.
         board.clear();
-        pots.clear();
+        potLedger.reset(0);
         notifyBoardUpdated();
         
         // Determine the active players.
         activePlayers.clear();
         for (Player player : players) {
             player.resetHand();
-            // Player must be able to afford at least the big blind.
-            if (player.getCash().compareTo(bigBlind) >= 0) {
+            if (canPlay(player)) {
                 activePlayers.add(player);
             }
         }
@@ -241,8 +725,28 @@ public class Table {
         dealerPosition = (dealerPosition + 1) % activePlayers.size();
         dealer = activePlayers.get(dealerPosition);
 
-        // Shuffle the deck.
-        deck.shuffle();
+        // Shuffle the deck with the hand's seed.
+        handNumber++;
+        deck.shuffle(HandRecord.getHandSeed(seed, handNumber));
+        
+        // Record the start of the hand.
+        handBigBlind = bigBlind;
+        handAnte = ante;
+        noOfHandPlayers = activePlayers.size();
+        if (handPlayers.length < noOfHandPlayers) {
+            handPlayers = new Player[noOfHandPlayers];
+            handStacks = new BigDecimal[noOfHandPlayers];
+            showOrder = new int[noOfHandPlayers];
+            isShowing = new boolean[noOfHandPlayers];
+            handValues = new int[noOfHandPlayers];
+            oddChipOrder = new int[noOfHandPlayers];
+            winnings = new long[noOfHandPlayers];
+        }
+        for (int i = 0; i < noOfHandPlayers; i++) {
+            handPlayers[i] = activePlayers.get(i);
+            handStacks[i] = handPlayers[i].getCash();
+        }
+        potLedger.reset(noOfHandPlayers);
 
         // Determine the first player to act.
         actorPosition = dealerPosition;
@@ -253,9 +757,7 @@ public class Table {
         bet = minBet;
         
         // Notify all clients a new hand has started.
-        for (Player player : players) {
-            player.getClient().handStarted(dealer);
-        }
+        eventBus.handStarted(dealer);
         notifyPlayersUpdated(false);
         notifyMessage("New hand, %s is the dealer.", dealer);
     }
@@ -266,16 +768,36 @@ public class Table {
     private void rotateActor() {
         actorPosition = (actorPosition + 1) % activePlayers.size();
         actor = activePlayers.get(actorPosition);
-        for (Player player : players) {
-            player.getClient().actorRotated(actor);
+        eventBus.actorRotated(actor);
+    }
+    
+    /**
+     * Posts the antes of all active players (dead money, not part of their
+     * bets).
+     */
+    private void postAntes() {
+        Player blindActor = actor;
+        for (Player player : activePlayers) {
+            BigDecimal amount = player.getCash().min(ante);
+            player.payCash(amount);
+            actor = player;
+            contributePot(amount);
         }
+        actor = blindActor;
+        notifyBoardUpdated();
+        notifyPlayersUpdated(false);
     }
     
     /**
      * Posts the small blind.
      */
     private void postSmallBlind() {
-        final BigDecimal smallBlind = bigBlind.divide(BigDecimal.valueOf(2)); //TODO
+        BigDecimal halfBlind = bigBlind.divide(BigDecimal.valueOf(2));
+        if (halfBlind.scale() > WireCodec.AMOUNT_SCALE) {
+            // Odd number of cents; round down to keep the stacks in whole cents.
+            halfBlind = halfBlind.setScale(WireCodec.AMOUNT_SCALE, RoundingMode.DOWN);
+        }
+        final BigDecimal smallBlind = actor.getCash().min(halfBlind);
         actor.postSmallBlind(smallBlind);
         contributePot(smallBlind);
         notifyBoardUpdated();
@@ -286,8 +808,9 @@ public class Table {
      * Posts the big blind.
      */
     private void postBigBlind() {
-        actor.postBigBlind(bigBlind);
-        contributePot(bigBlind);
+        final BigDecimal amount = actor.getCash().min(bigBlind);
+        actor.postBigBlind(amount);
+        contributePot(amount);
         notifyBoardUpdated();
         notifyPlayerActed();
     }
@@ -299,7 +822,6 @@ public class Table {
         for (Player player : activePlayers) {
             player.setCards(deck.deal(2));
         }
-        System.out.println();
         notifyPlayersUpdated(false);
         notifyMessage("%s deals the hole cards.", dealer);
     }
@@ -347,27 +869,45 @@ public class Table {
         
         while (playersToAct > 0) {
             rotateActor();
-            Action action;
+            long action;
             if (actor.isAllIn()) {
                 // Player is all-in, so must check.
-                action = Action.CHECK;
+                action = PackedAction.CHECK;
                 playersToAct--;
             } else {
                 // Otherwise allow client to act.
-                Set<Action> allowedActions = getAllowedActions(actor);
-                action = actor.getClient().act(minBet, bet, allowedActions);
+                int allowedActions = getAllowedActions(actor);
+                DecisionEvent event = new DecisionEvent();
+                event.begin();
+                long start = (metrics != null) ? System.nanoTime() : 0L;
+                action = actor.getClient().actPacked(minBet, bet, allowedActions);
+                if (metrics != null) {
+                    metrics.clientActed(actor.getName(), System.nanoTime() - start);
+                }
                 // Verify chosen action to guard against broken clients (accidental or on purpose).
-                if (!allowedActions.contains(action)) {
-                    if (action instanceof BetAction && !allowedActions.contains(Action.BET)) {
+                ActionType type = PackedAction.getType(action);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.set(handNumber, actor.getName(), (type != null) ? type.name() : null, PackedAction.getCents(action));
+                    event.commit();
+                }
+                if (type == null) {
+                    if (!PackedAction.isValid(action)) {
+                        throw new IllegalStateException(String.format("Player '%s' acted with invalid action code %d", actor, PackedAction.getCode(action)));
+                    }
+                    throw new IllegalStateException(String.format("Player '%s' did not act", actor));
+                }
+                if (!type.isIn(allowedActions)) {
+                    if (type == ActionType.BET) {
                         throw new IllegalStateException(String.format("Player '%s' acted with illegal Bet action", actor));
-                    } else if (action instanceof RaiseAction && !allowedActions.contains(Action.RAISE)) {
+                    } else if (type == ActionType.RAISE) {
                         throw new IllegalStateException(String.format("Player '%s' acted with illegal Raise action", actor));
                     }
                 }
                 playersToAct--;
-                if (action == Action.CHECK) {
+                if (type == ActionType.CHECK) {
                     // Do nothing.
-                } else if (action == Action.CALL) {
+                } else if (type == ActionType.CALL) {
                     BigDecimal betIncrement = bet.subtract(actor.getBet());
                     if (betIncrement.compareTo(actor.getCash()) > 0) {
                         betIncrement = actor.getCash();
@@ -375,11 +915,15 @@ public class Table {
                     actor.payCash(betIncrement);
                     actor.setBet(actor.getBet().add(betIncrement));
                     contributePot(betIncrement);
-                } else if (action instanceof BetAction) {
-                    BigDecimal amount = (tableType == TableType.FIXED_LIMIT) ? minBet : action.getAmount();
+                } else if (type == ActionType.BET) {
+                    BigDecimal amount = (tableType == TableType.FIXED_LIMIT) ? minBet : PackedAction.getAmount(action);
                     if (amount.compareTo(minBet) < 0 && amount.compareTo(actor.getCash()) < 0) {
                         throw new IllegalStateException("Illegal client action: bet less than minimum bet!");
                     }
+                    if (amount.compareTo(actor.getCash()) > 0) {
+                        // Bet more than the player's stack; all-in.
+                        amount = actor.getCash();
+                    }
                     actor.setBet(amount);
                     actor.payCash(amount);
                     contributePot(amount);
@@ -387,18 +931,22 @@ public class Table {
                     minBet = amount;
                     lastBettor = actor;
                     playersToAct = activePlayers.size();
-                } else if (action instanceof RaiseAction) {
-                    BigDecimal amount = (tableType == TableType.FIXED_LIMIT) ? minBet : action.getAmount();
+                } else if (type == ActionType.RAISE) {
+                    BigDecimal amount = (tableType == TableType.FIXED_LIMIT) ? minBet : PackedAction.getAmount(action);
                     if (amount.compareTo(minBet) < 0 && amount.compareTo(actor.getCash()) < 0) {
                         throw new IllegalStateException("Illegal client action: raise less than minimum bet!");
                     }
-                    bet = bet.add(amount);
-                    minBet = amount;
-                    BigDecimal betIncrement = bet.subtract(actor.getBet());
+                    BigDecimal raisedBet = bet.add(amount);
+                    BigDecimal betIncrement = raisedBet.subtract(actor.getBet());
                     if (betIncrement.compareTo(actor.getCash()) > 0) {
+                        // Raise more than the player's stack; all-in.
                         betIncrement = actor.getCash();
+                        raisedBet = actor.getBet().add(betIncrement).max(bet);
                     }
-                    actor.setBet(bet);
+                    // The next raise must be at least the applied raise (an all-in short of the minimum does not lower it).
+                    minBet = minBet.max(raisedBet.subtract(bet));
+                    bet = raisedBet;
+                    actor.setBet(actor.getBet().add(betIncrement));
                     actor.payCash(betIncrement);
                     contributePot(betIncrement);
                     lastBettor = actor;
@@ -410,27 +958,28 @@ public class Table {
                         // Max. number of raises reached; other players get one more turn.
                         playersToAct = activePlayers.size() - 1;
                     }
-                } else if (action == Action.FOLD) {
+                } else if (type == ActionType.FOLD) {
                     actor.setCards(null);
                     activePlayers.remove(actor);
                     actorPosition--;
                     if (activePlayers.size() == 1) {
                         // Only one player left, so he wins the entire pot.
+                        actor.setPackedAction(action);
                         notifyBoardUpdated();
                         notifyPlayerActed();
                         Player winner = activePlayers.get(0);
                         BigDecimal amount = getTotalPot();
                         winner.win(amount);
                         notifyBoardUpdated();
-                        notifyMessage("%s wins $ %d.", winner, amount);
+                        notifyMessage("%s wins $ %s.", winner, amount);
                         playersToAct = 0;
                     }
                 } else {
                     // Programming error, should never happen.
-                    throw new IllegalStateException("Invalid action: " + action);
+                    throw new IllegalStateException("Invalid action: " + type);
                 }
             }
-            actor.setAction(action);
+            actor.setPackedAction(action);
             if (playersToAct > 0) {
                 notifyBoardUpdated();
                 notifyPlayerActed();
@@ -451,36 +1000,32 @@ public class Table {
      * @param player
      *            The player.
      * 
-     * @return The allowed actions.
+     * @return The mask of the allowed action types.
      */
-    private Set<Action> getAllowedActions(Player player) {
-        Set<Action> actions = new HashSet<>();
+    private int getAllowedActions(Player player) {
         if (player.isAllIn()) {
-            actions.add(Action.CHECK);
+            return ActionType.CHECK.mask();
+        }
+        boolean canRaise = tableType == TableType.NO_LIMIT || raises < MAX_RAISES || activePlayers.size() == 2;
+        int actions = ActionType.FOLD.mask();
+        if (bet.signum() == 0) {
+            actions |= ActionType.CHECK.mask();
+            if (canRaise) {
+                actions |= ActionType.BET.mask();
+            }
         } else {
-            BigDecimal actorBet = actor.getBet();
-            if (bet.equals(BigDecimal.ZERO)) {
-                actions.add(Action.CHECK);
-                if (tableType == TableType.NO_LIMIT || raises < MAX_RAISES || activePlayers.size() == 2) {
-                    actions.add(Action.BET);
-                }
+            if (actor.getBet().compareTo(bet) < 0) {
+                actions |= ActionType.CALL.mask();
             } else {
-                if (actorBet.compareTo(bet) < 0) {
-                    actions.add(Action.CALL);
-                    if (tableType == TableType.NO_LIMIT || raises < MAX_RAISES || activePlayers.size() == 2) {
-                        actions.add(Action.RAISE);
-                    }
-                } else {
-                    actions.add(Action.CHECK);
-                    if (tableType == TableType.NO_LIMIT || raises < MAX_RAISES || activePlayers.size() == 2) {
-                        actions.add(Action.RAISE);
-                    }
-                }
+                actions |= ActionType.CHECK.mask();
+            }
+            if (canRaise) {
+                actions |= ActionType.RAISE.mask();
             }
-            actions.add(Action.FOLD);
         }
         return actions;
     }
+
     
     /**
      * Contributes to the pot.
@@ -489,72 +1034,75 @@ public class Table {
      *            The amount to contribute.
      */
     private void contributePot(BigDecimal amount) {
-        for (Pot pot : pots) {
-            if (!pot.hasContributer(actor)) {
-                BigDecimal potBet = pot.getBet();
-                if (amount.compareTo(potBet) >= 0) {
-                    // Regular call, bet or raise.
-                    pot.addContributer(actor);
-                    amount = amount.subtract(pot.getBet());
-                } else {
-                    // Partial call (all-in); redistribute pots.
-                    pots.add(pot.split(actor, amount));
-                    amount = BigDecimal.ZERO;
-                }
-            }
-            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-                break;
+        potLedger.contribute(getSeat(actor), amount);
+    }
+    
+    /**
+     * Returns the seat of a player in the current hand.
+     * 
+     * @param player
+     *            The player.
+     * 
+     * @return The seat.
+     */
+    private int getSeat(Player player) {
+        for (int seat = 0; seat < noOfHandPlayers; seat++) {
+            if (handPlayers[seat] == player) {
+                return seat;
             }
         }
-        if (amount.compareTo(BigDecimal.ZERO) > 0) {
-            Pot pot = new Pot(amount);
-            pot.addContributer(actor);
-            pots.add(pot);
-        }
+        throw new IllegalStateException("Not in the hand: " + player);
     }
     
     /**
      * Performs the showdown.
      */
     private void doShowdown() {
-//        System.out.println("\n[DEBUG] Pots:");
-//        for (Pot pot : pots) {
-//            System.out.format("  %s\n", pot);
-//        }
-//        System.out.format("[DEBUG]  Total: %d\n", getTotalPot());
-        
+        ShowdownEvent event = new ShowdownEvent();
+        event.begin();
+        int noOfPlayers = activePlayers.size();
         // Determine show order; start with all-in players...
-        List<Player> showingPlayers = new ArrayList<>();
-        for (Pot pot : pots) {
-            for (Player contributor : pot.getContributors()) {
-                if (!showingPlayers.contains(contributor) && contributor.isAllIn()) {
-                    showingPlayers.add(contributor);
-                }
+        Arrays.fill(isShowing, 0, noOfHandPlayers, false);
+        int noOfShowing = 0;
+        for (int seat = 0; seat < noOfHandPlayers; seat++) {
+            if (handPlayers[seat].isAllIn()) {
+                showOrder[noOfShowing++] = seat;
+                isShowing[seat] = true;
             }
         }
         // ...then last player to bet or raise (aggressor)...
         if (lastBettor != null) {
-            if (!showingPlayers.contains(lastBettor)) {
-                showingPlayers.add(lastBettor);
+            int seat = getSeat(lastBettor);
+            if (!isShowing[seat]) {
+                showOrder[noOfShowing++] = seat;
+                isShowing[seat] = true;
             }
         }
         //...and finally the remaining players, starting left of the button.
         int pos = (dealerPosition + 1) % activePlayers.size();
-        while (showingPlayers.size() < activePlayers.size()) {
-            Player player = activePlayers.get(pos);
-            if (!showingPlayers.contains(player)) {
-                showingPlayers.add(player);
+        while (noOfShowing < activePlayers.size()) {
+            int seat = getSeat(activePlayers.get(pos));
+            if (!isShowing[seat]) {
+                showOrder[noOfShowing++] = seat;
+                isShowing[seat] = true;
             }
             pos = (pos + 1) % activePlayers.size();
         }
         
         // Players automatically show or fold in order.
+        long boardMask = CardSet.mask(board);
+        Arrays.fill(handValues, 0, noOfHandPlayers, PotLedger.NO_HAND);
         boolean firstToShow = true;
         int bestHandValue = -1;
-        for (Player playerToShow : showingPlayers) {
-            Hand hand = new Hand(board);
-            hand.addCards(playerToShow.getCards());
-            HandValue handValue = new HandValue(hand);
+        long evaluationTime = 0L;
+        for (int i = 0; i < noOfShowing; i++) {
+            int seat = showOrder[i];
+            Player playerToShow = handPlayers[seat];
+            long start = (metrics != null) ? System.nanoTime() : 0L;
+            int handValue = FastHandEvaluator.evaluate(boardMask | playerToShow.getCardMask());
+            if (metrics != null) {
+                evaluationTime += System.nanoTime() - start;
+            }
             boolean doShow = ALWAYS_CALL_SHOWDOWN;
             if (!doShow) {
                 if (playerToShow.isAllIn()) {
@@ -564,124 +1112,89 @@ public class Table {
                 } else if (firstToShow) {
                     // First player must always show.
                     doShow = true;
-                    bestHandValue = handValue.getValue();
+                    bestHandValue = handValue;
                     firstToShow = false;
                 } else {
                     // Remaining players only show when having a chance to win.
-                    if (handValue.getValue() >= bestHandValue) {
+                    if (handValue >= bestHandValue) {
                         doShow = true;
-                        bestHandValue = handValue.getValue();
+                        bestHandValue = handValue;
                     }
                 }
             }
             if (doShow) {
                 // Show hand.
-                for (Player player : players) {
-                    player.getClient().playerUpdated(playerToShow);
-                }
-                notifyMessage("%s has %s.", playerToShow, handValue.getDescription());
+                handValues[seat] = handValue;
+                eventBus.playerUpdated(playerToShow, true);
+                notifyMessage("%s has %s.", playerToShow, FastHandEvaluator.getType(handValue).getDescription());
             } else {
                 // Fold.
                 playerToShow.setCards(null);
                 activePlayers.remove(playerToShow);
-                for (Player player : players) {
-                    if (player.equals(playerToShow)) {
-                        player.getClient().playerUpdated(playerToShow);
-                    } else {
-                        // Hide secret information to other players.
-                        player.getClient().playerUpdated(playerToShow.publicClone());
-                    }
-                }
+                // Hide secret information to other players.
+                eventBus.playerUpdated(playerToShow, false);
                 notifyMessage("%s folds.", playerToShow);
             }
         }
         
-        // Sort players by hand value (highest to lowest).
-        Map<HandValue, List<Player>> rankedPlayers = new TreeMap<>();
-        for (Player player : activePlayers) {
-            // Create a hand with the community cards and the player's hole cards.
-            Hand hand = new Hand(board);
-            hand.addCards(player.getCards());
-            // Store the player together with other players with the same hand value.
-            HandValue handValue = new HandValue(hand);
-//            System.out.format("[DEBUG] %s: %s\n", player, handValue);
-            List<Player> playerList = rankedPlayers.get(handValue);
-            if (playerList == null) {
-                playerList = new ArrayList<>();
-            }
-            playerList.add(player);
-            rankedPlayers.put(handValue, playerList);
+        if (metrics != null) {
+            metrics.showdownEvaluated(evaluationTime);
         }
-
-        // Per rank (single or multiple winners), calculate pot distribution.
-        BigDecimal totalPot = getTotalPot();
-        Map<Player, BigDecimal> potDivision = new HashMap<>();
-        for (HandValue handValue : rankedPlayers.keySet()) {
-            List<Player> winners = rankedPlayers.get(handValue);
-            for (Pot pot : pots) {
-                // Determine how many winners share this pot.
-                int noOfWinnersInPot = 0;
-                for (Player winner : winners) {
-                    if (pot.hasContributer(winner)) {
-                        noOfWinnersInPot++;
-                    }
-                }
-                if (noOfWinnersInPot > 0) {
-                    // Divide pot over winners.
-                    BigDecimal potShare = pot.getValue().divide(new BigDecimal(String.valueOf(noOfWinnersInPot))); //TODO
-                    for (Player winner : winners) {
-                        if (pot.hasContributer(winner)) {
-                            BigDecimal oldShare = potDivision.get(winner);
-                            if (oldShare != null) {
-                                potDivision.put(winner, oldShare.add(potShare));
-                            } else {
-                                potDivision.put(winner, potShare);
-                            }
-                            
-                        }
-                    }
-                    // Determine if we have any odd chips left in the pot.
-                    BigDecimal oddChips = pot.getValue().remainder(new BigDecimal(String.valueOf(noOfWinnersInPot))); //TODO
-                    if (oddChips.compareTo(BigDecimal.ZERO) > 0) {
-                        // Divide odd chips over winners, starting left of the dealer.
-                        pos = dealerPosition;
-                        while (oddChips.compareTo(BigDecimal.ZERO) > 0) {
-                            pos = (pos + 1) % activePlayers.size();
-                            Player winner = activePlayers.get(pos);
-                            BigDecimal oldShare = potDivision.get(winner);
-                            if (oldShare != null) {
-                                potDivision.put(winner, oldShare.add(BigDecimal.ONE));
-//                                System.out.format("[DEBUG] %s receives an odd chip from the pot.\n", winner);
-                                oddChips = oddChips.subtract(BigDecimal.ONE);
-                            }
-                        }
-                        
-                    }
-                    pot.clear();
-                }
+        
+        // Divide the pots over the best hands; odd chips go to the winners starting left of the dealer.
+        BigDecimal totalPot = potLedger.getTotal();
+        int noOfOrdered = 0;
+        for (int i = 0; i < activePlayers.size(); i++) {
+            oddChipOrder[noOfOrdered++] = getSeat(activePlayers.get((dealerPosition + 1 + i) % activePlayers.size()));
+        }
+        for (int seat = 0; seat < noOfHandPlayers; seat++) {
+            if (handValues[seat] == PotLedger.NO_HAND) {
+                oddChipOrder[noOfOrdered++] = seat;
             }
         }
+        potLedger.divide(handValues, oddChipOrder, winnings);
         
-        // Divide winnings.
-        StringBuilder winnerText = new StringBuilder();
+        // Divide winnings; the winner text is only built when someone reads it.
+        StringBuilder winnerText = isMessageRead() ? new StringBuilder() : null;
         BigDecimal totalWon = BigDecimal.ZERO;
-        for (Player winner : potDivision.keySet()) {
-            BigDecimal potShare = potDivision.get(winner);
+        for (int seat = 0; seat < noOfHandPlayers; seat++) {
+            if (winnings[seat] == 0L) {
+                continue;
+            }
+            Player winner = handPlayers[seat];
+            BigDecimal potShare = potLedger.toAmount(winnings[seat]);
             winner.win(potShare);
             totalWon = totalWon.add(potShare);
-            if (winnerText.length() > 0) {
-                winnerText.append(", ");
+            if (winnerText != null) {
+                if (winnerText.length() > 0) {
+                    winnerText.append(", ");
+                }
+                winnerText.append(winner).append(" wins $ ").append(potShare);
             }
-            winnerText.append(String.format("%s wins $ %d", winner, potShare));
             notifyPlayersUpdated(true);
         }
-        winnerText.append('.');
-        notifyMessage(winnerText.toString());
+        if (winnerText != null) {
+            // Not a format string; the names may contain '%'.
+            notifyMessage("%s.", winnerText);
+        }
         
         // Sanity check.
-        if (!totalWon.equals(totalPot)) {
+        if (totalWon.compareTo(totalPot) != 0) {
             throw new IllegalStateException("Incorrect pot division!");
         }
+        if (event.shouldCommit()) {
+            event.set(handNumber, noOfPlayers, activePlayers.size());
+            event.commit();
+        }
+    }
+    
+    /**
+     * Indicates whether the game messages are read, by a client or the log.
+     * 
+     * @return True if read, otherwise false.
+     */
+    private boolean isMessageRead() {
+        return eventBus.hasSubscribers(TableEventType.MESSAGE) || LOG.isEnabled(LogLevel.DEBUG);
     }
     
     /**
@@ -693,9 +1206,18 @@ public class Table {
      *            Any arguments.
      */
     private void notifyMessage(String message, Object... args) {
-        message = String.format(message, args);
-        for (Player player : players) {
-            player.getClient().messageReceived(message);
+        boolean subscribed = eventBus.hasSubscribers(TableEventType.MESSAGE);
+        if (subscribed || LOG.isEnabled(LogLevel.DEBUG)) {
+            // Only format the message when someone reads it.
+            String text = String.format(message, args);
+            LOG.debug(text);
+            if (subscribed) {
+                long start = (metrics != null) ? System.nanoTime() : 0L;
+                eventBus.messageReceived(text);
+                if (metrics != null) {
+                    metrics.clientsNotified(System.nanoTime() - start);
+                }
+            }
         }
     }
     
@@ -703,9 +1225,12 @@ public class Table {
      * Notifies clients that the board has been updated.
      */
     private void notifyBoardUpdated() {
-        BigDecimal pot = getTotalPot();
-        for (Player player : players) {
-            player.getClient().boardUpdated(board, bet, pot);
+        if (eventBus.hasSubscribers(TableEventType.BOARD_UPDATED)) {
+            long start = (metrics != null) ? System.nanoTime() : 0L;
+            eventBus.boardUpdated(board, bet, getTotalPot());
+            if (metrics != null) {
+                metrics.clientsNotified(System.nanoTime() - start);
+            }
         }
     }
     
@@ -715,11 +1240,7 @@ public class Table {
      * @return The total pot size.
      */
     private BigDecimal getTotalPot() {
-        BigDecimal totalPot = BigDecimal.ZERO;
-        for (Pot pot : pots) {
-            totalPot = totalPot.add(pot.getValue());
-        }
-        return totalPot;
+        return potLedger.getTotal();
     }
 
     /**
@@ -727,20 +1248,18 @@ public class Table {
      * <br />
      * 
      * A player's secret information is only sent its own client; other clients
-     * see only a player's public information.
+     * share a single snapshot with only the player's public information.
      * 
      * @param showdown
      *            Whether we are at the showdown phase.
      */
     private void notifyPlayersUpdated(boolean showdown) {
-        for (Player playerToNotify : players) {
-            for (Player player : players) {
-                if (!showdown && !player.equals(playerToNotify)) {
-                    // Hide secret information to other players.
-                    player = player.publicClone();
-                }
-                playerToNotify.getClient().playerUpdated(player);
-            }
+        long start = (metrics != null) ? System.nanoTime() : 0L;
+        for (Player player : players) {
+            eventBus.playerUpdated(player, showdown);
+        }
+        if (metrics != null) {
+            metrics.clientsNotified(System.nanoTime() - start);
         }
     }
     
@@ -748,9 +1267,10 @@ public class Table {
      * Notifies clients that a player has acted.
      */
     private void notifyPlayerActed() {
-        for (Player p : players) {
-            Player playerInfo = p.equals(actor) ? actor : actor.publicClone();
-            p.getClient().playerActed(playerInfo);
+        long start = (metrics != null) ? System.nanoTime() : 0L;
+        eventBus.playerActed(actor);
+        if (metrics != null) {
+            metrics.clientsNotified(System.nanoTime() - start);
         }
     }
     
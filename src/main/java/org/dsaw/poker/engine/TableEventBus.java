@@ -0,0 +1,297 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Distributes the table events to the subscribed clients. <br />
+ * <br />
+ * 
+ * For each event at most one public snapshot of the player involved is built,
+ * which is shared by all subscribers; the private (full) view of a player is
+ * only sent to the client owning that player. <br />
+ * <br />
+ * 
+ * Clients only receive the event types they subscribed to.
+ */
+public class TableEventBus {
+    
+    /** The subscriptions, in order of subscription. */
+    private final List<Subscription> subscriptions;
+    
+    /** The combined event mask of all subscriptions. */
+    private int eventMask;
+    
+    /**
+     * Constructor.
+     */
+    public TableEventBus() {
+        subscriptions = new ArrayList<>();
+    }
+    
+    /**
+     * Subscribes a client to a set of event types.
+     * 
+     * @param client
+     *            The client.
+     * @param owner
+     *            The player owned by the client, or null for an observer.
+     * @param types
+     *            The event types to receive.
+     */
+    public void subscribe(Client client, Player owner, Set<TableEventType> types) {
+        if (client == null) {
+            throw new IllegalArgumentException("Null client");
+        }
+        subscriptions.add(new Subscription(client, owner, TableEventType.mask(types)));
+        eventMask |= TableEventType.mask(types);
+    }
+    
+    /**
+     * Unsubscribes a client from all event types.
+     * 
+     * @param client
+     *            The client.
+     */
+    public void unsubscribe(Client client) {
+        eventMask = 0;
+        for (int i = subscriptions.size() - 1; i >= 0; i--) {
+            Subscription subscription = subscriptions.get(i);
+            if (subscription.client == client) {
+                subscriptions.remove(i);
+            } else {
+                eventMask |= subscription.mask;
+            }
+        }
+    }
+    
+    /**
+     * Indicates whether any client is subscribed to a specific event type.
+     * 
+     * @param type
+     *            The event type.
+     * 
+     * @return True if subscribed, otherwise false.
+     */
+    public boolean hasSubscribers(TableEventType type) {
+        return (eventMask & type.mask()) != 0;
+    }
+    
+    /**
+     * Publishes a game message.
+     * 
+     * @param message
+     *            The message.
+     */
+    public void messageReceived(String message) {
+        int mask = TableEventType.MESSAGE.mask();
+        for (Subscription subscription : subscriptions) {
+            if ((subscription.mask & mask) != 0) {
+                subscription.client.messageReceived(message);
+            }
+        }
+    }
+    
+    /**
+     * Publishes the joining of the table. <br />
+     * <br />
+     * 
+     * All clients, including the owners of the players, get the same
+     * unmodifiable list of public snapshots, rather than the table's live list
+     * of players.
+     * 
+     * @param type
+     *            The table type.
+     * @param bigBlind
+     *            The big blind.
+     * @param players
+     *            The players at the table.
+     */
+    public void joinedTable(TableType type, BigDecimal bigBlind, List<Player> players) {
+        int mask = TableEventType.JOINED_TABLE.mask();
+        if ((eventMask & mask) == 0) {
+            return;
+        }
+        List<Player> publicPlayers = new ArrayList<>(players.size());
+        for (Player player : players) {
+            publicPlayers.add(player.publicClone());
+        }
+        publicPlayers = Collections.unmodifiableList(publicPlayers);
+        for (Subscription subscription : subscriptions) {
+            if ((subscription.mask & mask) != 0) {
+                subscription.client.joinedTable(type, bigBlind, publicPlayers);
+            }
+        }
+    }
+    
+    /**
+     * Publishes the start of a new hand.
+     * 
+     * @param dealer
+     *            The dealer.
+     */
+    public void handStarted(Player dealer) {
+        int mask = TableEventType.HAND_STARTED.mask();
+        Player snapshot = null;
+        for (Subscription subscription : subscriptions) {
+            if ((subscription.mask & mask) != 0) {
+                if (subscription.owner == dealer) {
+                    subscription.client.handStarted(dealer);
+                } else {
+                    if (snapshot == null) {
+                        snapshot = dealer.publicClone();
+                    }
+                    subscription.client.handStarted(snapshot);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Publishes the rotation of the actor.
+     * 
+     * @param actor
+     *            The new actor.
+     */
+    public void actorRotated(Player actor) {
+        int mask = TableEventType.ACTOR_ROTATED.mask();
+        Player snapshot = null;
+        for (Subscription subscription : subscriptions) {
+            if ((subscription.mask & mask) != 0) {
+                if (subscription.owner == actor) {
+                    subscription.client.actorRotated(actor);
+                } else {
+                    if (snapshot == null) {
+                        snapshot = actor.publicClone();
+                    }
+                    subscription.client.actorRotated(snapshot);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Publishes an update of a player.
+     * 
+     * @param player
+     *            The player.
+     * @param showdown
+     *            Whether the player's secret information may be revealed to
+     *            all clients (showdown).
+     */
+    public void playerUpdated(Player player, boolean showdown) {
+        int mask = TableEventType.PLAYER_UPDATED.mask();
+        Player snapshot = null;
+        for (Subscription subscription : subscriptions) {
+            if ((subscription.mask & mask) != 0) {
+                if (subscription.owner == player) {
+                    subscription.client.playerUpdated(player);
+                } else {
+                    if (snapshot == null) {
+                        snapshot = showdown ? player.showdownClone() : player.publicClone();
+                    }
+                    subscription.client.playerUpdated(snapshot);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Publishes an update of the board.
+     * 
+     * @param board
+     *            The community cards.
+     * @param bet
+     *            The current bet.
+     * @param pot
+     *            The current pot.
+     */
+    public void boardUpdated(List<Card> board, BigDecimal bet, BigDecimal pot) {
+        int mask = TableEventType.BOARD_UPDATED.mask();
+        if ((eventMask & mask) == 0) {
+            return;
+        }
+        List<Card> cards = Collections.unmodifiableList(board);
+        for (Subscription subscription : subscriptions) {
+            if ((subscription.mask & mask) != 0) {
+                subscription.client.boardUpdated(cards, bet, pot);
+            }
+        }
+    }
+    
+    /**
+     * Publishes the action of a player.
+     * 
+     * @param player
+     *            The player that has acted.
+     */
+    public void playerActed(Player player) {
+        int mask = TableEventType.PLAYER_ACTED.mask();
+        Player snapshot = null;
+        for (Subscription subscription : subscriptions) {
+            if ((subscription.mask & mask) != 0) {
+                if (subscription.owner == player) {
+                    subscription.client.playerActed(player);
+                } else {
+                    if (snapshot == null) {
+                        snapshot = player.publicClone();
+                    }
+                    subscription.client.playerActed(snapshot);
+                }
+            }
+        }
+    }
+    
+    /**
+     * A client's subscription.
+     */
+    private static class Subscription {
+        
+        /** The client. */
+        private final Client client;
+        
+        /** The player owned by the client (if any). */
+        private final Player owner;
+        
+        /** The subscribed event types. */
+        private final int mask;
+        
+        /**
+         * Constructor.
+         * 
+         * @param client
+         *            The client.
+         * @param owner
+         *            The owned player.
+         * @param mask
+         *            The event mask.
+         */
+        public Subscription(Client client, Player owner, int mask) {
+            this.client = client;
+            this.owner = owner;
+            this.mask = mask;
+        }
+        
+    }
+
+}
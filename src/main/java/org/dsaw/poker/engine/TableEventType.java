@@ -0,0 +1,84 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The types of table events a {@link Client} can subscribe to. <br />
+ * <br />
+ * 
+ * Each type corresponds to one of the notification methods of the
+ * {@link Client} interface.
+ */
+public enum TableEventType {
+    
+    /** A game message ({@link Client#messageReceived}). */
+    MESSAGE,
+    
+    /** Joining the table ({@link Client#joinedTable}). */
+    JOINED_TABLE,
+    
+    /** The start of a new hand ({@link Client#handStarted}). */
+    HAND_STARTED,
+    
+    /** The rotation of the actor ({@link Client#actorRotated}). */
+    ACTOR_ROTATED,
+    
+    /** An update of a player ({@link Client#playerUpdated}). */
+    PLAYER_UPDATED,
+    
+    /** An update of the board ({@link Client#boardUpdated}). */
+    BOARD_UPDATED,
+    
+    /** A player having acted ({@link Client#playerActed}). */
+    PLAYER_ACTED,
+    
+    ;
+    
+    /** All event types. */
+    public static final Set<TableEventType> ALL = Collections.unmodifiableSet(EnumSet.allOf(TableEventType.class));
+    
+    /**
+     * Returns the bit of this event type in an event mask.
+     * 
+     * @return The bit mask.
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+    
+    /**
+     * Returns the event mask for a set of event types.
+     * 
+     * @param types
+     *            The event types.
+     * 
+     * @return The event mask.
+     */
+    public static int mask(Set<TableEventType> types) {
+        int mask = 0;
+        for (TableEventType type : types) {
+            mask |= type.mask();
+        }
+        return mask;
+    }
+
+}
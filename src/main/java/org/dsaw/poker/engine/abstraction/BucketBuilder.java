@@ -0,0 +1,372 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.abstraction;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.dsaw.poker.engine.analysis.EquityCalculator;
+import org.dsaw.poker.engine.analysis.HandIndexer;
+
+/**
+ * Offline builder of a card abstraction: the buckets of the canonical hands
+ * of a street (see {@link HandIndexer}), grouping hands with similar equity
+ * distributions over the future boards. <br />
+ * <br />
+ * 
+ * The feature of a hand is its equity histogram (see
+ * {@link EquityCalculator#getHistogram}), in cumulative form, so that the
+ * Euclidean distance between features behaves like the earth mover's
+ * distance between the histograms. The centroids are found with parallel
+ * k-means on a random sample of the hands, and numbered by increasing mean
+ * equity. Then all hands are assigned to the nearest centroid in parallel,
+ * directly into a memory-mapped {@link BucketMap}. <br />
+ * <br />
+ * 
+ * The result is deterministic for a given seed, independent of the number
+ * of threads: the runouts of each hand are sampled with a random generator
+ * seeded with its index.
+ */
+public class BucketBuilder {
+    
+    /** The default number of histogram bins. */
+    public static final int DEFAULT_BINS = 20;
+    
+    /** The default maximum number of runouts per hand. */
+    public static final int DEFAULT_TRIALS = 200;
+    
+    /** The default maximum number of hands to cluster. */
+    public static final int DEFAULT_SAMPLE_SIZE = 100000;
+    
+    /** The default maximum number of k-means iterations. */
+    public static final int DEFAULT_ITERATIONS = 100;
+    
+    /** The number of hands per leaf task. */
+    private static final int TASK_SIZE = 1024;
+    
+    /** The hand indexer. */
+    private final HandIndexer indexer;
+    
+    /** The number of buckets. */
+    private final int noOfBuckets;
+    
+    /** The number of histogram bins. */
+    private int noOfBins = DEFAULT_BINS;
+    
+    /** The maximum number of runouts per hand. */
+    private int trials = DEFAULT_TRIALS;
+    
+    /** The maximum number of hands to cluster. */
+    private int sampleSize = DEFAULT_SAMPLE_SIZE;
+    
+    /** The maximum number of k-means iterations. */
+    private int maxIterations = DEFAULT_ITERATIONS;
+    
+    /** The random seed. */
+    private long seed;
+    
+    /**
+     * Constructor.
+     * 
+     * @param indexer
+     *            The hand indexer of the street.
+     * @param noOfBuckets
+     *            The number of buckets.
+     */
+    public BucketBuilder(HandIndexer indexer, int noOfBuckets) {
+        if (noOfBuckets < 1 || noOfBuckets > BucketMap.MAX_BUCKETS || noOfBuckets > indexer.getSize()) {
+            throw new IllegalArgumentException("Invalid number of buckets: " + noOfBuckets);
+        }
+        this.indexer = indexer;
+        this.noOfBuckets = noOfBuckets;
+    }
+    
+    /**
+     * Sets the number of histogram bins.
+     * 
+     * @param noOfBins
+     *            The number of bins.
+     */
+    public void setNoOfBins(int noOfBins) {
+        this.noOfBins = noOfBins;
+    }
+    
+    /**
+     * Sets the maximum number of runouts per hand; if there are more, this
+     * number is sampled.
+     * 
+     * @param trials
+     *            The number of runouts.
+     */
+    public void setTrials(int trials) {
+        this.trials = trials;
+    }
+    
+    /**
+     * Sets the maximum number of hands to cluster; if there are more, a random
+     * sample is clustered.
+     * 
+     * @param sampleSize
+     *            The number of hands.
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+    
+    /**
+     * Sets the maximum number of k-means iterations.
+     * 
+     * @param maxIterations
+     *            The number of iterations.
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+    
+    /**
+     * Sets the random seed.
+     * 
+     * @param seed
+     *            The seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * Builds the buckets into a bucket map file.
+     * 
+     * @param file
+     *            The file.
+     * 
+     * @return The bucket map.
+     * 
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public BucketMap build(File file) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        
+        // Features of the sample.
+        long size = indexer.getSize();
+        long[] sample;
+        if (size <= sampleSize) {
+            sample = new long[(int) size];
+            for (int i = 0; i < sample.length; i++) {
+                sample[i] = i;
+            }
+        } else {
+            sample = new long[sampleSize];
+            for (int i = 0; i < sample.length; i++) {
+                sample[i] = random.nextLong(size);
+            }
+        }
+        final float[] features = new float[sample.length * noOfBins];
+        final long[] sampleIndexes = sample;
+        ForkJoinPool.commonPool().invoke(new HandTask(new HandProcessor() {
+            @Override
+            public void process(long i) {
+                getFeature(sampleIndexes[(int) i], features, (int) i * noOfBins);
+            }
+        }, 0L, sample.length));
+        
+        // Cluster, and number the centroids by mean equity.
+        final KMeans kMeans = new KMeans(noOfBins, noOfBuckets, maxIterations);
+        final float[] centroids = sortByMeanEquity(kMeans.cluster(features, random.split()));
+        
+        // Assign all hands.
+        final BucketMap map = BucketMap.create(file, indexer, noOfBuckets);
+        final ThreadLocal<float[]> feature = new ThreadLocal<float[]>() {
+            @Override
+            protected float[] initialValue() {
+                return new float[noOfBins];
+            }
+        };
+        ForkJoinPool.commonPool().invoke(new HandTask(new HandProcessor() {
+            @Override
+            public void process(long index) {
+                float[] point = feature.get();
+                getFeature(index, point, 0);
+                map.setBucket(index, kMeans.nearest(centroids, point, 0));
+            }
+        }, 0L, size));
+        map.flush();
+        return map;
+    }
+    
+    /**
+     * Calculates the feature of a hand: its cumulative equity histogram.
+     * 
+     * @param index
+     *            The canonical index of the hand.
+     * @param features
+     *            The features.
+     * @param offset
+     *            The offset of the hand's feature.
+     */
+    private void getFeature(long index, float[] features, int offset) {
+        long[] rounds = indexer.unindex(index);
+        long board = 0L;
+        for (int round = 1; round < rounds.length; round++) {
+            board |= rounds[round];
+        }
+        SplittableRandom random = new SplittableRandom(seed + index);
+        double[] histogram = EquityCalculator.getHistogram(rounds[0], board, noOfBins, trials, random);
+        double cumulative = 0.0;
+        for (int bin = 0; bin < noOfBins; bin++) {
+            cumulative += histogram[bin];
+            features[offset + bin] = (float) cumulative;
+        }
+    }
+    
+    /**
+     * Sorts centroids by increasing mean equity.
+     * 
+     * @param centroids
+     *            The centroids (cumulative histograms).
+     * 
+     * @return The sorted centroids.
+     */
+    private float[] sortByMeanEquity(float[] centroids) {
+        // The mean of a histogram on [0, 1] is the area above its cumulative form.
+        long[] keys = new long[noOfBuckets];
+        for (int c = 0; c < noOfBuckets; c++) {
+            double area = 0.0;
+            for (int bin = 0; bin < noOfBins; bin++) {
+                area += 1.0 - centroids[c * noOfBins + bin];
+            }
+            keys[c] = ((long) Float.floatToIntBits((float) area) << 32) | c;
+        }
+        Arrays.sort(keys);
+        float[] sorted = new float[centroids.length];
+        for (int i = 0; i < noOfBuckets; i++) {
+            int c = (int) keys[i];
+            System.arraycopy(centroids, c * noOfBins, sorted, i * noOfBins, noOfBins);
+        }
+        return sorted;
+    }
+    
+    /**
+     * Builds the buckets of a street into a file.
+     * 
+     * @param args
+     *            The street (preflop, flop, turn or river), the number of
+     *            buckets, the file and optionally the maximum number of
+     *            runouts per hand.
+     * 
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: BucketBuilder <preflop|flop|turn|river> <buckets> <file> [trials]");
+            System.exit(1);
+        }
+        HandIndexer indexer;
+        switch (args[0]) {
+            case "preflop":
+                indexer = HandIndexer.PREFLOP;
+                break;
+            case "flop":
+                indexer = HandIndexer.FLOP;
+                break;
+            case "turn":
+                indexer = HandIndexer.TURN;
+                break;
+            case "river":
+                indexer = HandIndexer.RIVER;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid street: " + args[0]);
+        }
+        BucketBuilder builder = new BucketBuilder(indexer, Integer.parseInt(args[1]));
+        if (args.length > 3) {
+            builder.setTrials(Integer.parseInt(args[3]));
+        }
+        long startTime = System.currentTimeMillis();
+        builder.build(new File(args[2]));
+        System.out.format("%d hands bucketed in %d s%n", indexer.getSize(), (System.currentTimeMillis() - startTime) / 1000L);
+    }
+    
+    /**
+     * Processor of a single hand (or sample position).
+     */
+    private interface HandProcessor {
+        
+        /**
+         * Processes a hand.
+         * 
+         * @param i
+         *            The hand.
+         */
+        void process(long i);
+        
+    }
+    
+    /**
+     * Task processing a range of hands in parallel.
+     */
+    private static class HandTask extends RecursiveAction {
+        
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+        
+        /** The processor. */
+        private final HandProcessor processor;
+        
+        /** The first hand. */
+        private final long from;
+        
+        /** The end of the range (exclusive). */
+        private final long to;
+        
+        /**
+         * Constructor.
+         * 
+         * @param processor
+         *            The processor.
+         * @param from
+         *            The first hand.
+         * @param to
+         *            The end of the range (exclusive).
+         */
+        private HandTask(HandProcessor processor, long from, long to) {
+            this.processor = processor;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                for (long i = from; i < to; i++) {
+                    processor.process(i);
+                }
+            } else {
+                long middle = (from + to) >>> 1;
+                invokeAll(new HandTask(processor, from, middle), new HandTask(processor, middle, to));
+            }
+        }
+        
+    }
+    
+}
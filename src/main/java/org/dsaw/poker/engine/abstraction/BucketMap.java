@@ -0,0 +1,261 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.abstraction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import org.dsaw.poker.engine.analysis.HandIndexer;
+
+/**
+ * Map of the canonical hands of a street (see {@link HandIndexer}) to their
+ * buckets, stored as a compact binary array in a memory-mapped file. <br />
+ * <br />
+ * 
+ * The file has a header of {@value #HEADER_SIZE} bytes (the magic number
+ * 'BKT1', the number of cards per round, the number of buckets and the
+ * number of hands), followed by one bucket per canonical index, as a byte
+ * for up to 256 buckets and as a short otherwise. Loading maps the file, so
+ * it takes no time and memory up front, and looking up a bucket is a single
+ * read. Files larger than a mapped buffer (such as the river's 2.4 GB) are
+ * mapped in segments. <br />
+ * <br />
+ * 
+ * Buckets can be read concurrently. Concurrent writes must be to different
+ * indexes.
+ */
+public class BucketMap {
+    
+    /** The size of the header in bytes. */
+    public static final int HEADER_SIZE = 64;
+    
+    /** The maximum number of buckets. */
+    public static final int MAX_BUCKETS = 1 << 16;
+    
+    /** The magic number ('BKT1'). */
+    private static final int MAGIC = 0x424b5431;
+    
+    /** The number of bits of the offset within a segment. */
+    private static final int SEGMENT_BITS = 30;
+    
+    /** The mask of the offset within a segment. */
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1L;
+    
+    /** The hand indexer. */
+    private final HandIndexer indexer;
+    
+    /** The number of buckets. */
+    private final int noOfBuckets;
+    
+    /** The number of bytes per bucket. */
+    private final int bucketSize;
+    
+    /** The mapped segments. */
+    private final MappedByteBuffer[] segments;
+    
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The file.
+     * @param indexer
+     *            The hand indexer.
+     * @param noOfBuckets
+     *            The number of buckets.
+     * @param writable
+     *            Whether the file is mapped for writing.
+     * 
+     * @throws IOException
+     *             If the file could not be mapped.
+     */
+    private BucketMap(RandomAccessFile file, HandIndexer indexer, int noOfBuckets, boolean writable) throws IOException {
+        this.indexer = indexer;
+        this.noOfBuckets = noOfBuckets;
+        bucketSize = (noOfBuckets <= 256) ? 1 : 2;
+        long length = indexer.getSize() * bucketSize;
+        segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS)];
+        FileChannel channel = file.getChannel();
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        for (int i = 0; i < segments.length; i++) {
+            long position = (long) i << SEGMENT_BITS;
+            segments[i] = channel.map(mode, HEADER_SIZE + position, Math.min(length - position, 1L << SEGMENT_BITS));
+            segments[i].order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+    
+    /**
+     * Creates a new bucket map file (with all hands in bucket 0), mapped for
+     * writing.
+     * 
+     * @param file
+     *            The file.
+     * @param indexer
+     *            The hand indexer.
+     * @param noOfBuckets
+     *            The number of buckets.
+     * 
+     * @return The bucket map.
+     * 
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public static BucketMap create(File file, HandIndexer indexer, int noOfBuckets) throws IOException {
+        if (noOfBuckets < 1 || noOfBuckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Invalid number of buckets: " + noOfBuckets);
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0L);
+            raf.writeInt(MAGIC);
+            for (int round = 0; round < HandIndexer.MAX_ROUNDS; round++) {
+                raf.writeInt((round < indexer.getNoOfRounds()) ? indexer.getNoOfCards(round) : 0);
+            }
+            raf.writeInt(noOfBuckets);
+            raf.writeLong(indexer.getSize());
+            raf.setLength(HEADER_SIZE + indexer.getSize() * ((noOfBuckets <= 256) ? 1 : 2));
+            return new BucketMap(raf, indexer, noOfBuckets, true);
+        } finally {
+            // The mapping stays valid after closing the file.
+            raf.close();
+        }
+    }
+    
+    /**
+     * Loads a bucket map file, mapped for reading.
+     * 
+     * @param file
+     *            The file.
+     * 
+     * @return The bucket map.
+     * 
+     * @throws IOException
+     *             If the file could not be read or is invalid.
+     */
+    public static BucketMap load(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            if (raf.readInt() != MAGIC) {
+                throw new IOException("Not a bucket map: " + file);
+            }
+            int noOfRounds = 0;
+            int[] cardsPerRound = new int[HandIndexer.MAX_ROUNDS];
+            for (int round = 0; round < HandIndexer.MAX_ROUNDS; round++) {
+                cardsPerRound[round] = raf.readInt();
+                if (cardsPerRound[round] > 0) {
+                    noOfRounds++;
+                }
+            }
+            int[] rounds = new int[noOfRounds];
+            System.arraycopy(cardsPerRound, 0, rounds, 0, noOfRounds);
+            HandIndexer indexer = new HandIndexer(rounds);
+            int noOfBuckets = raf.readInt();
+            long size = raf.readLong();
+            if (size != indexer.getSize() || noOfBuckets < 1 || noOfBuckets > MAX_BUCKETS
+                    || raf.length() != HEADER_SIZE + size * ((noOfBuckets <= 256) ? 1 : 2)) {
+                throw new IOException("Corrupt bucket map: " + file);
+            }
+            return new BucketMap(raf, indexer, noOfBuckets, false);
+        } finally {
+            raf.close();
+        }
+    }
+    
+    /**
+     * Returns the hand indexer.
+     * 
+     * @return The hand indexer.
+     */
+    public HandIndexer getIndexer() {
+        return indexer;
+    }
+    
+    /**
+     * Returns the number of buckets.
+     * 
+     * @return The number of buckets.
+     */
+    public int getNoOfBuckets() {
+        return noOfBuckets;
+    }
+    
+    /**
+     * Returns the bucket of a canonical hand.
+     * 
+     * @param index
+     *            The canonical index.
+     * 
+     * @return The bucket.
+     */
+    public int getBucket(long index) {
+        long offset = index * bucketSize;
+        MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+        int position = (int) (offset & SEGMENT_MASK);
+        if (bucketSize == 1) {
+            return segment.get(position) & 0xff;
+        } else {
+            return segment.getShort(position) & 0xffff;
+        }
+    }
+    
+    /**
+     * Returns the bucket of a hand.
+     * 
+     * @param rounds
+     *            The card masks dealt in each round.
+     * 
+     * @return The bucket.
+     */
+    public int getHandBucket(long... rounds) {
+        return getBucket(indexer.index(rounds));
+    }
+    
+    /**
+     * Sets the bucket of a canonical hand.
+     * 
+     * @param index
+     *            The canonical index.
+     * @param bucket
+     *            The bucket.
+     */
+    public void setBucket(long index, int bucket) {
+        if (bucket < 0 || bucket >= noOfBuckets) {
+            throw new IllegalArgumentException("Invalid bucket: " + bucket);
+        }
+        long offset = index * bucketSize;
+        MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+        int position = (int) (offset & SEGMENT_MASK);
+        if (bucketSize == 1) {
+            segment.put(position, (byte) bucket);
+        } else {
+            segment.putShort(position, (short) bucket);
+        }
+    }
+    
+    /**
+     * Writes the changed buckets to the file.
+     */
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+    
+}
@@ -0,0 +1,55 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.abstraction;
+
+/**
+ * Card abstraction: the bucket of hole cards and a board on each street. <br />
+ * <br />
+ * 
+ * The streets are numbered from 0 (Pre-Flop) to 3 (River).
+ */
+public interface CardAbstraction {
+    
+    /** The number of streets. */
+    int NO_OF_STREETS = 4;
+    
+    /**
+     * Returns the number of buckets on a street.
+     * 
+     * @param street
+     *            The street.
+     * 
+     * @return The number of buckets.
+     */
+    int getNoOfBuckets(int street);
+    
+    /**
+     * Returns the bucket of hole cards and a board.
+     * 
+     * @param street
+     *            The street.
+     * @param holeCards
+     *            The hole cards (card mask).
+     * @param board
+     *            The board of the street (card mask).
+     * 
+     * @return The bucket.
+     */
+    int getBucket(int street, long holeCards, long board);
+    
+}
@@ -0,0 +1,291 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.abstraction;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel k-means clustering of points with a fixed number of dimensions,
+ * stored consecutively in a <code>float</code> array. <br />
+ * <br />
+ * 
+ * The initial centroids are chosen with k-means++ seeding. Each iteration
+ * assigns the points to their nearest centroid (by squared Euclidean
+ * distance) in parallel on the common fork/join pool, with the coordinate
+ * sums per centroid merged from the subtasks, and stops when no assignment
+ * changes or after the maximum number of iterations.
+ */
+public class KMeans {
+    
+    /** The number of points per leaf task. */
+    private static final int TASK_SIZE = 4096;
+    
+    /** The number of dimensions. */
+    private final int dimensions;
+    
+    /** The number of clusters. */
+    private final int k;
+    
+    /** The maximum number of iterations. */
+    private final int maxIterations;
+    
+    /**
+     * Constructor.
+     * 
+     * @param dimensions
+     *            The number of dimensions.
+     * @param k
+     *            The number of clusters.
+     * @param maxIterations
+     *            The maximum number of iterations.
+     */
+    public KMeans(int dimensions, int k, int maxIterations) {
+        if (dimensions < 1 || k < 1 || maxIterations < 1) {
+            throw new IllegalArgumentException("Invalid dimensions, clusters or iterations");
+        }
+        this.dimensions = dimensions;
+        this.k = k;
+        this.maxIterations = maxIterations;
+    }
+    
+    /**
+     * Clusters the points.
+     * 
+     * @param points
+     *            The points (consecutive coordinates).
+     * @param random
+     *            The random generator for the seeding.
+     * 
+     * @return The centroids (consecutive coordinates).
+     */
+    public float[] cluster(float[] points, SplittableRandom random) {
+        int n = points.length / dimensions;
+        if (n < k) {
+            throw new IllegalArgumentException("Fewer points than clusters: " + n);
+        }
+        float[] centroids = seed(points, n, random);
+        int[] assignments = new int[n];
+        Arrays.fill(assignments, -1);
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            Sums sums = ForkJoinPool.commonPool().invoke(new AssignTask(points, centroids, assignments, 0, n));
+            for (int c = 0; c < k; c++) {
+                if (sums.counts[c] > 0) {
+                    for (int d = 0; d < dimensions; d++) {
+                        centroids[c * dimensions + d] = (float) (sums.sums[c * dimensions + d] / sums.counts[c]);
+                    }
+                }
+            }
+            if (sums.noOfChanges == 0) {
+                break;
+            }
+        }
+        return centroids;
+    }
+    
+    /**
+     * Returns the nearest centroid of a point.
+     * 
+     * @param centroids
+     *            The centroids.
+     * @param points
+     *            The points.
+     * @param point
+     *            The index of the point.
+     * 
+     * @return The index of the nearest centroid.
+     */
+    public int nearest(float[] centroids, float[] points, int point) {
+        int nearest = 0;
+        double minDistance = Double.MAX_VALUE;
+        for (int c = 0; c < k; c++) {
+            double distance = distance(centroids, c, points, point, minDistance);
+            if (distance < minDistance) {
+                minDistance = distance;
+                nearest = c;
+            }
+        }
+        return nearest;
+    }
+    
+    /**
+     * Chooses the initial centroids with k-means++ seeding: each next centroid
+     * is a point chosen with a probability proportional to its squared
+     * distance to the nearest centroid so far.
+     * 
+     * @param points
+     *            The points.
+     * @param n
+     *            The number of points.
+     * @param random
+     *            The random generator.
+     * 
+     * @return The centroids.
+     */
+    private float[] seed(float[] points, int n, SplittableRandom random) {
+        float[] centroids = new float[k * dimensions];
+        double[] distances = new double[n];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        int point = random.nextInt(n);
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(points, point * dimensions, centroids, c * dimensions, dimensions);
+            double total = 0.0;
+            for (int i = 0; i < n; i++) {
+                distances[i] = Math.min(distances[i], distance(centroids, c, points, i, distances[i]));
+                total += distances[i];
+            }
+            if (total == 0.0) {
+                // Fewer distinct points than clusters; duplicates stay empty.
+                point = random.nextInt(n);
+            } else {
+                double target = random.nextDouble() * total;
+                point = 0;
+                while (point < n - 1 && (target -= distances[point]) >= 0.0) {
+                    point++;
+                }
+            }
+        }
+        return centroids;
+    }
+    
+    /**
+     * Returns the squared distance between a centroid and a point, stopping
+     * early once it reaches the bound.
+     * 
+     * @param centroids
+     *            The centroids.
+     * @param c
+     *            The index of the centroid.
+     * @param points
+     *            The points.
+     * @param point
+     *            The index of the point.
+     * @param bound
+     *            The bound.
+     * 
+     * @return The squared distance (at least the bound when stopped early).
+     */
+    private double distance(float[] centroids, int c, float[] points, int point, double bound) {
+        double distance = 0.0;
+        int offset = c * dimensions;
+        int pointOffset = point * dimensions;
+        for (int d = 0; d < dimensions && distance < bound; d++) {
+            double delta = centroids[offset + d] - points[pointOffset + d];
+            distance += delta * delta;
+        }
+        return distance;
+    }
+    
+    /**
+     * The coordinate sums and counts per centroid of an assignment step.
+     */
+    private class Sums {
+        
+        /** The coordinate sums per centroid. */
+        private final double[] sums = new double[k * dimensions];
+        
+        /** The number of points per centroid. */
+        private final int[] counts = new int[k];
+        
+        /** The number of changed assignments. */
+        private int noOfChanges;
+        
+        /**
+         * Adds the sums of another step.
+         * 
+         * @param other
+         *            The other sums.
+         */
+        private void add(Sums other) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += other.sums[i];
+            }
+            for (int c = 0; c < k; c++) {
+                counts[c] += other.counts[c];
+            }
+            noOfChanges += other.noOfChanges;
+        }
+        
+    }
+    
+    /**
+     * Task assigning a range of points to their nearest centroid.
+     */
+    private class AssignTask extends RecursiveTask<Sums> {
+        
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+        
+        /** The points. */
+        private final float[] points;
+        
+        /** The centroids. */
+        private final float[] centroids;
+        
+        /** The assignments per point. */
+        private final int[] assignments;
+        
+        /** The first point. */
+        private final int from;
+        
+        /** The end of the range (exclusive). */
+        private final int to;
+        
+        /**
+         * Constructor.
+         */
+        private AssignTask(float[] points, float[] centroids, int[] assignments, int from, int to) {
+            this.points = points;
+            this.centroids = centroids;
+            this.assignments = assignments;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        protected Sums compute() {
+            if (to - from <= TASK_SIZE) {
+                Sums sums = new Sums();
+                for (int point = from; point < to; point++) {
+                    int c = nearest(centroids, points, point);
+                    if (assignments[point] != c) {
+                        assignments[point] = c;
+                        sums.noOfChanges++;
+                    }
+                    sums.counts[c]++;
+                    for (int d = 0; d < dimensions; d++) {
+                        sums.sums[c * dimensions + d] += points[point * dimensions + d];
+                    }
+                }
+                return sums;
+            } else {
+                int middle = (from + to) >>> 1;
+                AssignTask left = new AssignTask(points, centroids, assignments, from, middle);
+                left.fork();
+                Sums sums = new AssignTask(points, centroids, assignments, middle, to).compute();
+                sums.add(left.join());
+                return sums;
+            }
+        }
+        
+    }
+    
+}
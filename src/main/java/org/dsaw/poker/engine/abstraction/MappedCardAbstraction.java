@@ -0,0 +1,121 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.abstraction;
+
+import java.io.File;
+import java.io.IOException;
+import org.dsaw.poker.engine.analysis.HandIndexer;
+
+/**
+ * Card abstraction with a {@link BucketMap} per street (built with the
+ * {@link BucketBuilder}). <br />
+ * <br />
+ * 
+ * A street without a bucket map uses the canonical hand indexes as buckets,
+ * which is lossless (and typical for the 169 Pre-Flop hands). Since the
+ * board is given as a card mask, the Turn and River are taken to be its
+ * highest cards; the equity-based buckets do not depend on that order.
+ */
+public class MappedCardAbstraction implements CardAbstraction {
+    
+    /** The indexers per street. */
+    private static final HandIndexer[] INDEXERS = {HandIndexer.PREFLOP, HandIndexer.FLOP, HandIndexer.TURN, HandIndexer.RIVER};
+    
+    /** The bucket maps per street (<code>null</code> for lossless). */
+    private final BucketMap[] maps;
+    
+    /**
+     * Constructor.
+     * 
+     * @param maps
+     *            The bucket maps per street (<code>null</code> for lossless).
+     */
+    public MappedCardAbstraction(BucketMap... maps) {
+        if (maps.length != NO_OF_STREETS) {
+            throw new IllegalArgumentException("Invalid number of streets: " + maps.length);
+        }
+        for (int street = 0; street < NO_OF_STREETS; street++) {
+            if (maps[street] != null && maps[street].getIndexer().getSize() != INDEXERS[street].getSize()) {
+                throw new IllegalArgumentException("Bucket map of the wrong street: " + street);
+            }
+        }
+        this.maps = maps.clone();
+    }
+    
+    /**
+     * Loads the bucket maps of the streets.
+     * 
+     * @param files
+     *            The bucket map files per street (<code>null</code> for
+     *            lossless).
+     * 
+     * @return The card abstraction.
+     * 
+     * @throws IOException
+     *             If a file could not be read.
+     */
+    public static MappedCardAbstraction load(File... files) throws IOException {
+        BucketMap[] maps = new BucketMap[files.length];
+        for (int street = 0; street < files.length; street++) {
+            if (files[street] != null) {
+                maps[street] = BucketMap.load(files[street]);
+            }
+        }
+        return new MappedCardAbstraction(maps);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public int getNoOfBuckets(int street) {
+        if (maps[street] != null) {
+            return maps[street].getNoOfBuckets();
+        } else {
+            long size = INDEXERS[street].getSize();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many hands for a lossless street: " + street);
+            }
+            return (int) size;
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public int getBucket(int street, long holeCards, long board) {
+        long index;
+        switch (street) {
+            case 0:
+                index = HandIndexer.PREFLOP.index(holeCards);
+                break;
+            case 1:
+                index = HandIndexer.FLOP.index(holeCards, board);
+                break;
+            case 2:
+                // The equity features do not depend on the order of the board
+                // cards, so any split of the board gives the same bucket.
+                index = HandIndexer.TURN.index(holeCards, board & ~Long.highestOneBit(board), Long.highestOneBit(board));
+                break;
+            default:
+                long river = Long.highestOneBit(board);
+                long turn = Long.highestOneBit(board & ~river);
+                index = HandIndexer.RIVER.index(holeCards, board & ~(river | turn), turn, river);
+                break;
+        }
+        return (maps[street] != null) ? maps[street].getBucket(index) : (int) index;
+    }
+    
+}
@@ -117,6 +117,25 @@ public abstract class Action {
         return amount;
     }
     
+    /**
+     * Returns the action's type. <br />
+     * <br />
+     * 
+     * The actions of this package override it; the default implementation,
+     * for subclasses from before the action types, identifies the action by
+     * its name (e.g. "Fold"), as these are not otherwise known to the table.
+     * 
+     * @return The action's type, or null if unknown (an illegal action).
+     */
+    public ActionType getType() {
+        for (ActionType type : ActionType.values()) {
+            if (type.getAction().getName().equals(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+    
     /** {@inheritDoc} */
     @Override
     public String toString() {
@@ -0,0 +1,178 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.actions;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The types of player actions, with the allowed actions of a decision as a
+ * bit mask of types (see {@link #mask()}). <br />
+ * <br />
+ * 
+ * Bets and raises carry an amount, so an {@link Action} is an object; its
+ * type identifies it without comparing objects.
+ */
+public enum ActionType {
+    
+    /** Check. */
+    CHECK,
+    
+    /** Call. */
+    CALL,
+    
+    /** Bet. */
+    BET,
+    
+    /** Raise. */
+    RAISE,
+    
+    /** Fold. */
+    FOLD,
+    
+    /** Player went all-in. */
+    ALL_IN,
+    
+    /** Posting the small blind. */
+    SMALL_BLIND,
+    
+    /** Posting the big blind. */
+    BIG_BLIND,
+    
+    /** Continue. */
+    CONTINUE,
+    
+    ;
+    
+    /** The action types, by ordinal. */
+    private static final ActionType[] VALUES = values();
+    
+    /**
+     * Returns the bit of this action type in an action mask.
+     * 
+     * @return The bit mask.
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+    
+    /**
+     * Indicates whether an action mask contains this action type.
+     * 
+     * @param mask
+     *            The action mask.
+     * 
+     * @return True if contained, otherwise false.
+     */
+    public boolean isIn(int mask) {
+        return (mask & (1 << ordinal())) != 0;
+    }
+    
+    /**
+     * Returns the shared action of this type (with a zero amount for bets and
+     * raises).
+     * 
+     * @return The action.
+     */
+    public Action getAction() {
+        switch (this) {
+            case CHECK:
+                return Action.CHECK;
+            case CALL:
+                return Action.CALL;
+            case BET:
+                return Action.BET;
+            case RAISE:
+                return Action.RAISE;
+            case FOLD:
+                return Action.FOLD;
+            case ALL_IN:
+                return Action.ALL_IN;
+            case SMALL_BLIND:
+                return Action.SMALL_BLIND;
+            case BIG_BLIND:
+                return Action.BIG_BLIND;
+            default:
+                return Action.CONTINUE;
+        }
+    }
+    
+    /**
+     * Returns the action type with a specific ordinal, without allocating
+     * (unlike {@link #values()}).
+     * 
+     * @param ordinal
+     *            The ordinal.
+     * 
+     * @return The action type.
+     */
+    public static ActionType fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+    
+    /**
+     * Returns the action mask of a set of actions.
+     * 
+     * @param actions
+     *            The actions.
+     * 
+     * @return The action mask.
+     */
+    public static int mask(Set<Action> actions) {
+        int mask = 0;
+        for (Action action : actions) {
+            ActionType type = action.getType();
+            if (type != null) {
+                mask |= type.mask();
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Returns the number of action types in an action mask.
+     * 
+     * @param mask
+     *            The action mask.
+     * 
+     * @return The number of action types.
+     */
+    public static int size(int mask) {
+        return Integer.bitCount(mask);
+    }
+    
+    /**
+     * Returns the (shared) actions of an action mask as a set, e.g. for
+     * clients using {@link Set} based allowed actions.
+     * 
+     * @param mask
+     *            The action mask.
+     * 
+     * @return The actions.
+     */
+    public static Set<Action> toSet(int mask) {
+        Set<Action> actions = new HashSet<>();
+        for (ActionType type : VALUES) {
+            if (type.isIn(mask)) {
+                actions.add(type.getAction());
+            }
+        }
+        return actions;
+    }
+    
+}
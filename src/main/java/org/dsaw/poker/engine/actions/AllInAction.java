@@ -30,5 +30,11 @@ public class AllInAction extends Action {
     /* package */ AllInAction() {
         super("All-in", "goes all-in");
     }
+    
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.ALL_IN;
+    }
 
 }
@@ -36,6 +36,12 @@ public class BetAction extends Action {
         super("Bet", "bets", amount);
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.BET;
+    }
+    
     /** {@inheritDoc} */
     @Override
     public String toString() {
@@ -31,4 +31,10 @@ public class BigBlindAction extends Action {
         super("Big blind", "posts the big blind");
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.BIG_BLIND;
+    }
+    
 }
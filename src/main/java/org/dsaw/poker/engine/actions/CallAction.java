@@ -31,4 +31,10 @@ public class CallAction extends Action {
         super("Call", "calls");
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.CALL;
+    }
+    
 }
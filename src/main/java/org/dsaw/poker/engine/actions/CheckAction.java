@@ -31,4 +31,10 @@ public class CheckAction extends Action {
         super("Check", "checks");
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.CHECK;
+    }
+    
 }
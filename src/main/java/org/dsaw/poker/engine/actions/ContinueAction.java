@@ -31,4 +31,10 @@ public class ContinueAction extends Action {
         super("Continue", "continues");
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.CONTINUE;
+    }
+    
 }
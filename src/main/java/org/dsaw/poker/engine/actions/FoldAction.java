@@ -31,4 +31,10 @@ public class FoldAction extends Action {
         super("Fold", "folds");
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.FOLD;
+    }
+    
 }
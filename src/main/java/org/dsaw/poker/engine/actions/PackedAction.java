@@ -0,0 +1,248 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.actions;
+
+import java.math.BigDecimal;
+import org.dsaw.poker.engine.codec.WireCodec;
+
+/**
+ * Actions packed into a <code>long</code>, for deciding and applying actions
+ * without allocating an {@link Action} per bet or raise. <br />
+ * <br />
+ * 
+ * The lowest bits hold the action type's ordinal plus one, which is also the
+ * action code of the {@link WireCodec} (with zero for no action); the other
+ * bits hold the amount of a bet or raise in cents. Amounts must be a whole
+ * number of cents, as on the wire (see {@link WireCodec#toCents}). <br />
+ * <br />
+ * 
+ * <b>NOTE:</b> This class is implemented with the focus on performance (instead of clean design).
+ */
+public abstract class PackedAction {
+    
+    /** The number of bits of the action code. */
+    private static final int CODE_BITS = 4;
+    
+    /** The mask of the action code. */
+    private static final long CODE_MASK = (1L << CODE_BITS) - 1L;
+    
+    /** The maximum amount in cents. */
+    private static final long MAX_CENTS = -1L >>> CODE_BITS;
+    
+    /** The highest valid action code. */
+    private static final int MAX_CODE = ActionType.values().length;
+    
+    /** No action. */
+    public static final long NONE = 0L;
+    
+    /** Check. */
+    public static final long CHECK = of(ActionType.CHECK);
+    
+    /** Call. */
+    public static final long CALL = of(ActionType.CALL);
+    
+    /** Fold. */
+    public static final long FOLD = of(ActionType.FOLD);
+    
+    /** Player went all-in. */
+    public static final long ALL_IN = of(ActionType.ALL_IN);
+    
+    /** Posting the small blind. */
+    public static final long SMALL_BLIND = of(ActionType.SMALL_BLIND);
+    
+    /** Posting the big blind. */
+    public static final long BIG_BLIND = of(ActionType.BIG_BLIND);
+    
+    /** Continue. */
+    public static final long CONTINUE = of(ActionType.CONTINUE);
+    
+    /**
+     * Returns a packed action without amount.
+     * 
+     * @param type
+     *            The action type.
+     * 
+     * @return The packed action.
+     */
+    public static long of(ActionType type) {
+        return type.ordinal() + 1L;
+    }
+    
+    /**
+     * Returns a packed action.
+     * 
+     * @param type
+     *            The action type.
+     * @param cents
+     *            The (non-negative) amount in cents.
+     * 
+     * @return The packed action.
+     * 
+     * @throws IllegalArgumentException
+     *             If the amount is negative or too large.
+     */
+    public static long of(ActionType type, long cents) {
+        if ((cents & ~MAX_CENTS) != 0L) {
+            throw new IllegalArgumentException("Invalid amount in cents: " + cents);
+        }
+        return (cents << CODE_BITS) | (type.ordinal() + 1L);
+    }
+    
+    /**
+     * Returns a packed bet.
+     * 
+     * @param amount
+     *            The amount to bet.
+     * 
+     * @return The packed action.
+     * 
+     * @throws IllegalArgumentException
+     *             If the amount is not a whole number of cents, or too large.
+     */
+    public static long bet(BigDecimal amount) {
+        return of(ActionType.BET, WireCodec.toCents(amount));
+    }
+    
+    /**
+     * Returns a packed raise.
+     * 
+     * @param amount
+     *            The amount to raise with.
+     * 
+     * @return The packed action.
+     * 
+     * @throws IllegalArgumentException
+     *             If the amount is not a whole number of cents, or too large.
+     */
+    public static long raise(BigDecimal amount) {
+        return of(ActionType.RAISE, WireCodec.toCents(amount));
+    }
+    
+    /**
+     * Returns the action type of a packed action.
+     * 
+     * @param action
+     *            The packed action.
+     * 
+     * @return The action type, or null for {@link #NONE} and invalid action
+     *         codes (see {@link #isValid(long)}).
+     */
+    public static ActionType getType(long action) {
+        int code = getCode(action);
+        return (code == 0 || code > MAX_CODE) ? null : ActionType.fromOrdinal(code - 1);
+    }
+    
+    /**
+     * Indicates whether a packed action has a valid action code, i.e. is
+     * either {@link #NONE} or has an action type.
+     * 
+     * @param action
+     *            The packed action.
+     * 
+     * @return True if valid, otherwise false.
+     */
+    public static boolean isValid(long action) {
+        return getCode(action) <= MAX_CODE;
+    }
+    
+    /**
+     * Returns the action code of a packed action, as used by the
+     * {@link WireCodec}.
+     * 
+     * @param action
+     *            The packed action.
+     * 
+     * @return The action code.
+     */
+    public static int getCode(long action) {
+        return (int) (action & CODE_MASK);
+    }
+    
+    /**
+     * Returns the amount of a packed action in cents.
+     * 
+     * @param action
+     *            The packed action.
+     * 
+     * @return The amount in cents (zero without amount).
+     */
+    public static long getCents(long action) {
+        return action >>> CODE_BITS;
+    }
+    
+    /**
+     * Returns the amount of a packed action.
+     * 
+     * @param action
+     *            The packed action.
+     * 
+     * @return The amount (zero without amount).
+     */
+    public static BigDecimal getAmount(long action) {
+        return WireCodec.fromCents(getCents(action));
+    }
+    
+    /**
+     * Packs an action.
+     * 
+     * @param action
+     *            The action (may be null).
+     * 
+     * @return The packed action.
+     * 
+     * @throws IllegalArgumentException
+     *             If the action is of an unknown type, or the amount of a bet
+     *             or raise is not a whole number of cents, or too large.
+     */
+    public static long fromAction(Action action) {
+        if (action == null) {
+            return NONE;
+        }
+        ActionType type = action.getType();
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown action: " + action);
+        } else if (type == ActionType.BET || type == ActionType.RAISE) {
+            return of(type, WireCodec.toCents(action.getAmount()));
+        } else {
+            return of(type);
+        }
+    }
+    
+    /**
+     * Unpacks an action.
+     * 
+     * @param action
+     *            The packed action.
+     * 
+     * @return The action (shared, except for bets and raises), or null for
+     *         {@link #NONE}.
+     */
+    public static Action toAction(long action) {
+        ActionType type = getType(action);
+        if (type == null) {
+            return null;
+        } else if (type == ActionType.BET) {
+            return new BetAction(getAmount(action));
+        } else if (type == ActionType.RAISE) {
+            return new RaiseAction(getAmount(action));
+        } else {
+            return type.getAction();
+        }
+    }
+    
+}
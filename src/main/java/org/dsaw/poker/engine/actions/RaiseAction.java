@@ -36,6 +36,12 @@ public class RaiseAction extends Action {
         super("Raise", "raises", amount);
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.RAISE;
+    }
+    
     /** {@inheritDoc} */
     @Override
     public String toString() {
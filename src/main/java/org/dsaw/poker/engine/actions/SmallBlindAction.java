@@ -31,4 +31,10 @@ public class SmallBlindAction extends Action {
         super("Small blind", "posts the small blind");
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public ActionType getType() {
+        return ActionType.SMALL_BLIND;
+    }
+    
 }
@@ -0,0 +1,526 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.dsaw.poker.engine.HandValueType;
+
+/**
+ * Classifier of board textures: the highest rank, the pairing, the suits,
+ * the connectedness and the type of the best possible hand (the nuts). <br />
+ * <br />
+ * 
+ * A texture is packed in an <code>int</code>, read with the static accessors
+ * (like the values of the {@link FastHandEvaluator}). <br />
+ * <br />
+ * 
+ * The 22,100 flops fall into 1,755 classes up to suit isomorphism. The class
+ * of each flop and the texture of each class (with the nuts found by
+ * enumerating all hole cards) are precomputed by {@link #main} into the
+ * resource <code>flop-textures.dat</code>, so classifying a flop is two array
+ * reads. Turn and river boards are classified from tables indexed by the
+ * 13-bit rank masks of the board and of its suits. <br />
+ * <br />
+ * 
+ * <b>NOTE:</b> This class is implemented with the focus on performance (instead of clean design).
+ */
+public abstract class BoardTexture {
+    
+    /** The number of flops. */
+    public static final int NO_OF_FLOPS = CardSet.NO_OF_CARDS * (CardSet.NO_OF_CARDS - 1) * (CardSet.NO_OF_CARDS - 2) / 6;
+    
+    /** The number of flop classes (up to suit isomorphism). */
+    public static final int NO_OF_FLOP_CLASSES = 1755;
+    
+    /** The name of the resource with the flop table. */
+    public static final String RESOURCE = "flop-textures.dat";
+    
+    /** The magic number of the resource ('FTX1'). */
+    private static final int MAGIC = 0x46545831;
+    
+    /** The number of rank masks. */
+    private static final int NO_OF_RANK_MASKS = 1 << Card.NO_OF_RANKS;
+    
+    /** Bit offset of the highest rank. */
+    private static final int HIGH_RANK_SHIFT = 0;
+    
+    /** Bit offset of the pairing. */
+    private static final int PAIRING_SHIFT = 4;
+    
+    /** Bit offset of the maximum number of cards of the same suit. */
+    private static final int SUIT_COUNT_SHIFT = 7;
+    
+    /** Bit offset of the nuts. */
+    private static final int NUTS_SHIFT = 10;
+    
+    /** Bit offset of the number of straight rank combinations. */
+    private static final int STRAIGHTS_SHIFT = 14;
+    
+    /** The pairings, by ordinal. */
+    private static final BoardPairing[] PAIRINGS = BoardPairing.values();
+    
+    /** The hand value types, by value. */
+    private static final HandValueType[] TYPES = new HandValueType[HandValueType.values().length];
+    
+    /** The highest rank of a Straight with up to two added ranks (-1 for none), per rank mask. */
+    private static final byte[] MAX_STRAIGHTS = new byte[NO_OF_RANK_MASKS];
+    
+    /** The number of rank combinations of two hole cards completing a Straight, per rank mask. */
+    private static final byte[] STRAIGHT_COMBOS = new byte[NO_OF_RANK_MASKS];
+    
+    /** The flop class, by flop index. */
+    private static final short[] FLOP_CLASSES = new short[NO_OF_FLOPS];
+    
+    /** The texture, by flop class. */
+    private static final int[] FLOP_TEXTURES = new int[NO_OF_FLOP_CLASSES];
+    
+    static {
+        for (HandValueType type : HandValueType.values()) {
+            TYPES[type.getValue()] = type;
+        }
+        for (int ranks = 0; ranks < NO_OF_RANK_MASKS; ranks++) {
+            int maxStraight = FastHandEvaluator.getStraightRank(ranks);
+            int noOfCombos = 0;
+            for (int r1 = 0; r1 < Card.NO_OF_RANKS; r1++) {
+                maxStraight = Math.max(maxStraight, FastHandEvaluator.getStraightRank(ranks | (1 << r1)));
+                for (int r2 = r1 + 1; r2 < Card.NO_OF_RANKS; r2++) {
+                    int straight = FastHandEvaluator.getStraightRank(ranks | (1 << r1) | (1 << r2));
+                    if (straight >= 0) {
+                        maxStraight = Math.max(maxStraight, straight);
+                        noOfCombos++;
+                    }
+                }
+            }
+            MAX_STRAIGHTS[ranks] = (byte) maxStraight;
+            STRAIGHT_COMBOS[ranks] = (byte) noOfCombos;
+        }
+        if (!load()) {
+            computeFlops();
+        }
+    }
+    
+    /**
+     * Returns the texture of a board.
+     * 
+     * @param board
+     *            The board (3, 4 or 5 cards).
+     * 
+     * @return The texture.
+     */
+    public static int getTexture(long board) {
+        int size = Long.bitCount(board);
+        if (size == 3) {
+            return FLOP_TEXTURES[FLOP_CLASSES[getFlopIndex(board)]];
+        } else if (size == 4 || size == 5) {
+            return computeTexture(board);
+        } else {
+            throw new IllegalArgumentException("Invalid board size: " + size);
+        }
+    }
+    
+    /**
+     * Returns the class of a flop (equal for flops that only differ by a
+     * permutation of the suits).
+     * 
+     * @param flop
+     *            The flop.
+     * 
+     * @return The flop class, from 0 to 1754.
+     */
+    public static int getFlopClass(long flop) {
+        return FLOP_CLASSES[getFlopIndex(flop)];
+    }
+    
+    /**
+     * Returns the index of a flop.
+     * 
+     * @param flop
+     *            The flop (exactly three cards).
+     * 
+     * @return The flop index, from 0 to 22099.
+     */
+    public static int getFlopIndex(long flop) {
+        int c1 = Long.numberOfTrailingZeros(flop);
+        flop &= flop - 1L;
+        int c2 = Long.numberOfTrailingZeros(flop);
+        flop &= flop - 1L;
+        int c3 = Long.numberOfTrailingZeros(flop);
+        return c1 + c2 * (c2 - 1) / 2 + c3 * (c3 - 1) * (c3 - 2) / 6;
+    }
+    
+    /**
+     * Returns the highest rank on the board.
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return The highest rank.
+     */
+    public static int getHighRank(int texture) {
+        return (texture >>> HIGH_RANK_SHIFT) & 0xf;
+    }
+    
+    /**
+     * Returns the pairing of the board.
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return The pairing.
+     */
+    public static BoardPairing getPairing(int texture) {
+        return PAIRINGS[(texture >>> PAIRING_SHIFT) & 0x7];
+    }
+    
+    /**
+     * Returns the maximum number of board cards of the same suit.
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return The number of cards.
+     */
+    public static int getMaxSuitCount(int texture) {
+        return (texture >>> SUIT_COUNT_SHIFT) & 0x7;
+    }
+    
+    /**
+     * Indicates whether all board cards have different suits.
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return True if rainbow, otherwise false.
+     */
+    public static boolean isRainbow(int texture) {
+        return getMaxSuitCount(texture) == 1;
+    }
+    
+    /**
+     * Indicates whether at most two board cards share a suit, so a Flush Draw
+     * needs both hole cards of that suit.
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return True if two-tone, otherwise false.
+     */
+    public static boolean isTwoTone(int texture) {
+        return getMaxSuitCount(texture) == 2;
+    }
+    
+    /**
+     * Indicates whether all cards on the flop have the same suit.
+     * 
+     * @param texture
+     *            The texture of a flop.
+     * 
+     * @return True if monotone, otherwise false.
+     */
+    public static boolean isMonotone(int texture) {
+        return getMaxSuitCount(texture) == 3;
+    }
+    
+    /**
+     * Indicates whether a Flush is possible (at least three cards of the same
+     * suit).
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return True if a Flush is possible, otherwise false.
+     */
+    public static boolean isFlushPossible(int texture) {
+        return getMaxSuitCount(texture) >= 3;
+    }
+    
+    /**
+     * Returns the connectedness of the board: the number of combinations of
+     * two (different) hole card ranks that complete a Straight, from 0 to 78.
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return The number of straight rank combinations.
+     */
+    public static int getStraightCombos(int texture) {
+        return (texture >>> STRAIGHTS_SHIFT) & 0x7f;
+    }
+    
+    /**
+     * Returns the type of the best possible hand (the nuts).
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return The hand value type of the nuts.
+     */
+    public static HandValueType getNutType(int texture) {
+        return TYPES[(texture >>> NUTS_SHIFT) & 0xf];
+    }
+    
+    /**
+     * Returns a description of a texture.
+     * 
+     * @param texture
+     *            The texture.
+     * 
+     * @return The description.
+     */
+    public static String toString(int texture) {
+        return String.format("%s-high, %s, %d suited, %d straight combos, nuts %s",
+                Card.RANK_SYMBOLS[getHighRank(texture)], getPairing(texture), getMaxSuitCount(texture),
+                getStraightCombos(texture), getNutType(texture).getDescription());
+    }
+    
+    /**
+     * Computes the texture of a board from the rank mask tables.
+     * 
+     * @param board
+     *            The board.
+     * 
+     * @return The texture.
+     */
+    private static int computeTexture(long board) {
+        int s0 = CardSet.getRanks(board, 0);
+        int s1 = CardSet.getRanks(board, 1);
+        int s2 = CardSet.getRanks(board, 2);
+        int s3 = CardSet.getRanks(board, 3);
+        int ranks = s0 | s1 | s2 | s3;
+        int quads = s0 & s1 & s2 & s3;
+        int trips = ((s0 & s1) & (s2 | s3)) | ((s2 & s3) & (s0 | s1));
+        int pairs = (s0 & s1) | (s0 & s2) | (s0 & s3) | (s1 & s2) | (s1 & s3) | (s2 & s3);
+        
+        BoardPairing pairing;
+        if (quads != 0) {
+            pairing = BoardPairing.QUADS;
+        } else if (trips != 0) {
+            pairing = (pairs != trips) ? BoardPairing.FULL_HOUSE : BoardPairing.TRIPS;
+        } else if (pairs != 0) {
+            pairing = (Integer.bitCount(pairs) > 1) ? BoardPairing.TWO_PAIRS : BoardPairing.PAIRED;
+        } else {
+            pairing = BoardPairing.UNPAIRED;
+        }
+        
+        int maxSuitCount = Math.max(Math.max(Integer.bitCount(s0), Integer.bitCount(s1)),
+                Math.max(Integer.bitCount(s2), Integer.bitCount(s3)));
+        
+        // The nuts: a Straight Flush with two hole cards of a suit with three or more cards,
+        // Four of a Kind on any paired board, and otherwise a Flush, Straight or set.
+        HandValueType nuts = HandValueType.THREE_OF_A_KIND;
+        int maxStraightFlush = -1;
+        for (int suitRanks : new int[] {s0, s1, s2, s3}) {
+            if (Integer.bitCount(suitRanks) >= 3) {
+                maxStraightFlush = Math.max(maxStraightFlush, MAX_STRAIGHTS[suitRanks]);
+            }
+        }
+        if (maxStraightFlush == Card.ACE) {
+            nuts = HandValueType.ROYAL_FLUSH;
+        } else if (maxStraightFlush >= 0) {
+            nuts = HandValueType.STRAIGHT_FLUSH;
+        } else if (pairs != 0) {
+            nuts = HandValueType.FOUR_OF_A_KIND;
+        } else if (maxSuitCount >= 3) {
+            nuts = HandValueType.FLUSH;
+        } else if (MAX_STRAIGHTS[ranks] >= 0) {
+            nuts = HandValueType.STRAIGHT;
+        }
+        
+        return pack(31 - Integer.numberOfLeadingZeros(ranks), pairing, maxSuitCount, nuts, STRAIGHT_COMBOS[ranks]);
+    }
+    
+    /**
+     * Packs the features of a texture.
+     * 
+     * @param highRank
+     *            The highest rank.
+     * @param pairing
+     *            The pairing.
+     * @param maxSuitCount
+     *            The maximum number of cards of the same suit.
+     * @param nuts
+     *            The type of the nuts.
+     * @param straightCombos
+     *            The number of straight rank combinations.
+     * 
+     * @return The texture.
+     */
+    private static int pack(int highRank, BoardPairing pairing, int maxSuitCount, HandValueType nuts, int straightCombos) {
+        return (highRank << HIGH_RANK_SHIFT) | (pairing.ordinal() << PAIRING_SHIFT) | (maxSuitCount << SUIT_COUNT_SHIFT)
+                | (nuts.getValue() << NUTS_SHIFT) | (straightCombos << STRAIGHTS_SHIFT);
+    }
+    
+    /**
+     * Computes the flop classes and their textures, with the nuts found by
+     * enumerating all hole cards.
+     */
+    private static void computeFlops() {
+        int[][] permutations = getSuitPermutations();
+        Map<Long, Integer> classes = new HashMap<>();
+        for (int c3 = 2; c3 < CardSet.NO_OF_CARDS; c3++) {
+            for (int c2 = 1; c2 < c3; c2++) {
+                for (int c1 = 0; c1 < c2; c1++) {
+                    long flop = (1L << c1) | (1L << c2) | (1L << c3);
+                    long canonical = Long.MAX_VALUE;
+                    for (int[] permutation : permutations) {
+                        canonical = Math.min(canonical, permute(flop, permutation));
+                    }
+                    Integer flopClass = classes.get(canonical);
+                    if (flopClass == null) {
+                        flopClass = classes.size();
+                        classes.put(canonical, flopClass);
+                        FLOP_TEXTURES[flopClass] = computeFlopTexture(flop);
+                    }
+                    FLOP_CLASSES[getFlopIndex(flop)] = (short) (int) flopClass;
+                }
+            }
+        }
+        if (classes.size() != NO_OF_FLOP_CLASSES) {
+            throw new IllegalStateException("Unexpected number of flop classes: " + classes.size());
+        }
+    }
+    
+    /**
+     * Computes the texture of a flop, with the nuts found by enumerating all
+     * hole cards.
+     * 
+     * @param flop
+     *            The flop.
+     * 
+     * @return The texture.
+     */
+    private static int computeFlopTexture(long flop) {
+        int best = 0;
+        for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+            long holeCards = Combos.getMask(combo);
+            if ((holeCards & flop) == 0L) {
+                best = Math.max(best, FastHandEvaluator.evaluate(flop | holeCards));
+            }
+        }
+        int texture = computeTexture(flop);
+        int nutsMask = 0xf << NUTS_SHIFT;
+        return (texture & ~nutsMask) | (FastHandEvaluator.getType(best).getValue() << NUTS_SHIFT);
+    }
+    
+    /**
+     * Returns all 24 permutations of the suits.
+     * 
+     * @return The permutations.
+     */
+    private static int[][] getSuitPermutations() {
+        int[][] permutations = new int[24][];
+        int n = 0;
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                for (int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if (a != b && a != c && b != c && d != a && d != b && d != c) {
+                        permutations[n++] = new int[] {a, b, c, d};
+                    }
+                }
+            }
+        }
+        return permutations;
+    }
+    
+    /**
+     * Permutes the suits of a card mask.
+     * 
+     * @param mask
+     *            The card mask.
+     * @param permutation
+     *            The new suit for each suit.
+     * 
+     * @return The permuted card mask.
+     */
+    private static long permute(long mask, int[] permutation) {
+        long permuted = 0L;
+        for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+            permuted |= (long) CardSet.getRanks(mask, suit) << (permutation[suit] * Card.NO_OF_RANKS);
+        }
+        return permuted;
+    }
+    
+    /**
+     * Loads the flop table from the resource.
+     * 
+     * @return True if loaded, false if the resource is missing or invalid.
+     */
+    private static boolean load() {
+        InputStream is = BoardTexture.class.getResourceAsStream(RESOURCE);
+        if (is == null) {
+            return false;
+        }
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(is))) {
+            if (dis.readInt() != MAGIC || dis.readInt() != NO_OF_FLOPS || dis.readInt() != NO_OF_FLOP_CLASSES) {
+                return false;
+            }
+            for (int i = 0; i < NO_OF_FLOPS; i++) {
+                FLOP_CLASSES[i] = dis.readShort();
+            }
+            for (int i = 0; i < NO_OF_FLOP_CLASSES; i++) {
+                FLOP_TEXTURES[i] = dis.readInt();
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Generates the flop table resource.
+     * 
+     * @param args
+     *            The output file (e.g.
+     *            src/main/resources/org/dsaw/poker/engine/analysis/flop-textures.dat).
+     * 
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: BoardTexture <output file>");
+            return;
+        }
+        // Always generate from scratch, not from a loaded resource.
+        computeFlops();
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(args[0])))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(NO_OF_FLOPS);
+            dos.writeInt(NO_OF_FLOP_CLASSES);
+            for (short flopClass : FLOP_CLASSES) {
+                dos.writeShort(flopClass);
+            }
+            for (int texture : FLOP_TEXTURES) {
+                dos.writeInt(texture);
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,103 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.util.Arrays;
+import org.dsaw.poker.engine.CardSet;
+
+/**
+ * Utility methods for the 1326 combinations of two hole cards. <br />
+ * <br />
+ * 
+ * A combination of the cards with indexes c1 &lt; c2 (see {@link CardSet})
+ * has the index <code>c2 * (c2 - 1) / 2 + c1</code>, which is used to index
+ * opponent ranges and per-combination tables.
+ */
+public abstract class Combos {
+    
+    /** The number of combinations of two hole cards. */
+    public static final int NO_OF_COMBOS = CardSet.NO_OF_CARDS * (CardSet.NO_OF_CARDS - 1) / 2;
+    
+    /** The card masks, by combination index. */
+    private static final long[] MASKS = new long[NO_OF_COMBOS];
+    
+    static {
+        for (int c2 = 1; c2 < CardSet.NO_OF_CARDS; c2++) {
+            for (int c1 = 0; c1 < c2; c1++) {
+                MASKS[indexOf(c1, c2)] = (1L << c1) | (1L << c2);
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of a combination of two cards.
+     * 
+     * @param c1
+     *            The index of one card.
+     * @param c2
+     *            The index of the other card.
+     * 
+     * @return The combination index.
+     */
+    public static int indexOf(int c1, int c2) {
+        if (c1 > c2) {
+            int c = c1;
+            c1 = c2;
+            c2 = c;
+        }
+        return c2 * (c2 - 1) / 2 + c1;
+    }
+    
+    /**
+     * Returns the index of a combination of two cards given as a mask.
+     * 
+     * @param mask
+     *            The mask with exactly two cards.
+     * 
+     * @return The combination index.
+     */
+    public static int indexOf(long mask) {
+        int c1 = Long.numberOfTrailingZeros(mask);
+        int c2 = 63 - Long.numberOfLeadingZeros(mask);
+        return indexOf(c1, c2);
+    }
+    
+    /**
+     * Returns the card mask of a combination.
+     * 
+     * @param index
+     *            The combination index.
+     * 
+     * @return The card mask.
+     */
+    public static long getMask(int index) {
+        return MASKS[index];
+    }
+    
+    /**
+     * Returns a uniform range (a weight of 1 for each combination).
+     * 
+     * @return The weights, by combination index.
+     */
+    public static double[] uniformRange() {
+        double[] weights = new double[NO_OF_COMBOS];
+        Arrays.fill(weights, 1.0);
+        return weights;
+    }
+    
+}
@@ -0,0 +1,157 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+
+/**
+ * Classifier of straight and flush draws. <br />
+ * <br />
+ * 
+ * Straight draws are looked up in tables indexed by the 13-bit mask of the
+ * ranks present: the ranks completing a (higher) Straight, and those of them
+ * at both ends of four sequential ranks. The hero's straight outs are the
+ * ranks completing a Straight for the hole cards and board together, but not
+ * for the board alone. Flush draws follow from the suit counts. So a query
+ * takes constant time, without trying the remaining cards one by one. <br />
+ * <br />
+ * 
+ * <b>NOTE:</b> This class is implemented with the focus on performance (instead of clean design).
+ */
+public abstract class DrawClassifier {
+    
+    /** The number of rank masks. */
+    private static final int NO_OF_RANK_MASKS = 1 << Card.NO_OF_RANKS;
+    
+    /** The ranks completing a (higher) Straight, per rank mask. */
+    private static final short[] STRAIGHT_OUTS = new short[NO_OF_RANK_MASKS];
+    
+    /** The straight outs at both ends of four sequential ranks, per rank mask. */
+    private static final short[] OPEN_ENDED_OUTS = new short[NO_OF_RANK_MASKS];
+    
+    /** The card mask of all cards of a rank (in all suits), per rank mask bit. */
+    private static final long[] RANK_CARDS = new long[Card.NO_OF_RANKS];
+    
+    static {
+        for (int rank = 0; rank < Card.NO_OF_RANKS; rank++) {
+            for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+                RANK_CARDS[rank] |= 1L << CardSet.indexOf(rank, suit);
+            }
+        }
+        for (int ranks = 0; ranks < NO_OF_RANK_MASKS; ranks++) {
+            int straightRank = FastHandEvaluator.getStraightRank(ranks);
+            int outs = 0;
+            for (int rank = 0; rank < Card.NO_OF_RANKS; rank++) {
+                int bit = 1 << rank;
+                if ((ranks & bit) == 0 && FastHandEvaluator.getStraightRank(ranks | bit) > straightRank) {
+                    outs |= bit;
+                }
+            }
+            STRAIGHT_OUTS[ranks] = (short) outs;
+            // Four sequential ranks (the Ace also below the Deuce) with both ends open.
+            int openEnded = 0;
+            for (int low = Card.DEUCE; low + 3 < Card.ACE; low++) {
+                int below = (low == Card.DEUCE) ? Card.ACE : low - 1;
+                int above = low + 4;
+                int four = 0xf << low;
+                if ((ranks & four) == four && (outs & (1 << below)) != 0 && (outs & (1 << above)) != 0) {
+                    openEnded |= (1 << below) | (1 << above);
+                }
+            }
+            OPEN_ENDED_OUTS[ranks] = (short) openEnded;
+        }
+    }
+    
+    /**
+     * Classifies the draws of a hand on the flop or turn. On the river, or
+     * with a Straight Flush made, there are no draws.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board.
+     * 
+     * @return The draws.
+     */
+    public static Draws classify(long holeCards, long board) {
+        int boardSize = Long.bitCount(board);
+        if (boardSize < 3 || boardSize > 4) {
+            return Draws.NONE;
+        }
+        long cards = holeCards | board;
+        int types = 0;
+        long outs = 0L;
+        
+        // Flush draws: the hole cards must contribute to the suit.
+        boolean hasFlush = false;
+        for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+            int suitRanks = CardSet.getRanks(cards, suit);
+            int count = Integer.bitCount(suitRanks);
+            if (count >= 5) {
+                hasFlush = true;
+            } else if (CardSet.getRanks(holeCards, suit) != 0) {
+                if (count == 4) {
+                    types |= 1 << DrawType.FLUSH_DRAW.ordinal();
+                    outs |= (long) (~suitRanks & CardSet.RANK_MASK) << (suit * Card.NO_OF_RANKS);
+                } else if (count == 3 && boardSize == 3) {
+                    types |= 1 << DrawType.BACKDOOR_FLUSH_DRAW.ordinal();
+                }
+            }
+        }
+        
+        // Straight draws.
+        int ranks = getRanks(cards);
+        if (!hasFlush && FastHandEvaluator.getStraightRank(ranks) < 0) {
+            int straightOuts = STRAIGHT_OUTS[ranks] & ~STRAIGHT_OUTS[getRanks(board)];
+            int noOfRanks = Integer.bitCount(straightOuts);
+            if (noOfRanks > 0) {
+                if (Integer.bitCount(OPEN_ENDED_OUTS[ranks] & straightOuts) >= 2) {
+                    types |= 1 << DrawType.OPEN_ENDED_STRAIGHT_DRAW.ordinal();
+                } else if (noOfRanks >= 2) {
+                    types |= 1 << DrawType.DOUBLE_GUTSHOT.ordinal();
+                } else {
+                    types |= 1 << DrawType.GUTSHOT.ordinal();
+                }
+                while (straightOuts != 0) {
+                    outs |= RANK_CARDS[Integer.numberOfTrailingZeros(straightOuts)];
+                    straightOuts &= straightOuts - 1;
+                }
+            }
+        }
+        
+        if (types == 0) {
+            return Draws.NONE;
+        }
+        return new Draws(types, outs & ~cards);
+    }
+    
+    /**
+     * Returns the ranks present in a card mask.
+     * 
+     * @param cards
+     *            The card mask.
+     * 
+     * @return The rank mask.
+     */
+    private static int getRanks(long cards) {
+        return (int) (cards | (cards >>> Card.NO_OF_RANKS) | (cards >>> (2 * Card.NO_OF_RANKS)) | (cards >>> (3 * Card.NO_OF_RANKS))) & CardSet.RANK_MASK;
+    }
+    
+}
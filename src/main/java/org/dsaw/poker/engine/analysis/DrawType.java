@@ -0,0 +1,64 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+/**
+ * The types of drawing hands.
+ */
+public enum DrawType {
+    
+    /** Flush draw (four cards of the same suit). */
+    FLUSH_DRAW("a Flush Draw"),
+    
+    /** Backdoor flush draw (three cards of the same suit on the flop). */
+    BACKDOOR_FLUSH_DRAW("a Backdoor Flush Draw"),
+    
+    /** Open-ended straight draw (four sequential ranks, open at both ends). */
+    OPEN_ENDED_STRAIGHT_DRAW("an Open-Ended Straight Draw"),
+    
+    /** Double gutshot (two different ranks complete a Straight). */
+    DOUBLE_GUTSHOT("a Double Gutshot"),
+    
+    /** Gutshot (one rank completes a Straight). */
+    GUTSHOT("a Gutshot"),
+    
+    ;
+    
+    /** The description. */
+    private final String description;
+    
+    /**
+     * Constructor.
+     * 
+     * @param description
+     *            The description.
+     */
+    DrawType(String description) {
+        this.description = description;
+    }
+    
+    /**
+     * Returns the description.
+     * 
+     * @return The description.
+     */
+    public String getDescription() {
+        return description;
+    }
+    
+}
@@ -0,0 +1,117 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.util.EnumSet;
+import java.util.Set;
+import org.dsaw.poker.engine.CardSet;
+
+/**
+ * The draws of a hand and the cards improving it (the outs), as classified by
+ * the {@link DrawClassifier}.
+ */
+public class Draws {
+    
+    /** No draws. */
+    public static final Draws NONE = new Draws(0, 0L);
+    
+    /** The draw types, as a bit mask of their ordinals. */
+    private final int types;
+    
+    /** The outs, as a card mask. */
+    private final long outs;
+    
+    /**
+     * Constructor.
+     * 
+     * @param types
+     *            The draw types, as a bit mask of their ordinals.
+     * @param outs
+     *            The outs, as a card mask.
+     */
+    /* package */ Draws(int types, long outs) {
+        this.types = types;
+        this.outs = outs;
+    }
+    
+    /**
+     * Indicates whether the hand has a specific draw.
+     * 
+     * @param type
+     *            The draw type.
+     * 
+     * @return True if the hand has the draw, otherwise false.
+     */
+    public boolean has(DrawType type) {
+        return (types & (1 << type.ordinal())) != 0;
+    }
+    
+    /**
+     * Returns the draw types.
+     * 
+     * @return The draw types.
+     */
+    public Set<DrawType> getTypes() {
+        Set<DrawType> set = EnumSet.noneOf(DrawType.class);
+        for (DrawType type : DrawType.values()) {
+            if (has(type)) {
+                set.add(type);
+            }
+        }
+        return set;
+    }
+    
+    /**
+     * Returns the outs: the cards completing a Straight or Flush (not
+     * already made by the board alone).
+     * 
+     * @return The outs, as a card mask.
+     */
+    public long getOuts() {
+        return outs;
+    }
+    
+    /**
+     * Returns the number of outs.
+     * 
+     * @return The number of outs.
+     */
+    public int getNoOfOuts() {
+        return Long.bitCount(outs);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (DrawType type : DrawType.values()) {
+            if (has(type)) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(type.getDescription());
+            }
+        }
+        if (sb.length() == 0) {
+            sb.append("No draw");
+        }
+        sb.append(String.format(" (%d outs: %s)", getNoOfOuts(), CardSet.toString(outs)));
+        return sb.toString();
+    }
+    
+}
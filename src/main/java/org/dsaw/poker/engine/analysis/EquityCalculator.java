@@ -0,0 +1,299 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.util.SplittableRandom;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.dsaw.poker.engine.jfr.EquityEvent;
+
+/**
+ * Calculator of the all-in equity of hole cards against a random opponent
+ * hand, and of its distribution over the boards still to come. <br />
+ * <br />
+ * 
+ * The equity on a complete board is exact: all opponent combinations are
+ * evaluated with the {@link FastHandEvaluator}, with ties counting half. On
+ * an incomplete board it is averaged over the runouts (the remaining board
+ * cards), enumerated when there are not more than the given number of trials
+ * and sampled otherwise. <br />
+ * <br />
+ * 
+ * <b>NOTE:</b> This class is implemented with the focus on performance (instead of clean design).
+ */
+public abstract class EquityCalculator {
+    
+    /** The number of board cards on the river. */
+    private static final int NO_OF_BOARD_CARDS = 5;
+    
+    /**
+     * Returns the exact equity on a complete board.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board (5 cards).
+     * 
+     * @return The equity, from 0 to 1.
+     */
+    public static double getRiverEquity(long holeCards, long board) {
+        int value = FastHandEvaluator.evaluate(holeCards | board);
+        long dead = holeCards | board;
+        int noOfCombos = 0;
+        int score = 0;
+        for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+            long comboMask = Combos.getMask(combo);
+            if ((comboMask & dead) == 0L) {
+                int comboValue = FastHandEvaluator.evaluate(comboMask | board);
+                noOfCombos++;
+                // Two points for a win, one for a tie.
+                if (value > comboValue) {
+                    score += 2;
+                } else if (value == comboValue) {
+                    score++;
+                }
+            }
+        }
+        return score / (2.0 * noOfCombos);
+    }
+    
+    /**
+     * Returns the equity, averaged over the runouts.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board (0 to 5 cards).
+     * @param trials
+     *            The maximum number of runouts to enumerate; more are sampled.
+     * @param random
+     *            The random generator for sampling.
+     * 
+     * @return The equity, from 0 to 1.
+     */
+    public static double getEquity(long holeCards, long board, int trials, SplittableRandom random) {
+        EquityEvent event = new EquityEvent();
+        event.begin();
+        double[] equities = getRunoutEquities(holeCards, board, trials, random);
+        double sum = 0.0;
+        for (double equity : equities) {
+            sum += equity;
+        }
+        if (event.shouldCommit()) {
+            event.set("Equity", board, 1, equities.length);
+            event.commit();
+        }
+        return sum / equities.length;
+    }
+    
+    /**
+     * Returns the equity against several random opponent hands, sampled over
+     * the runouts and the opponents' hole cards. <br />
+     * <br />
+     * 
+     * The equity is the average share of the pot won at the showdown, with
+     * split pots shared equally among the winners.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board (0 to 5 cards).
+     * @param noOfOpponents
+     *            The number of opponents (at least 1).
+     * @param trials
+     *            The number of samples.
+     * @param random
+     *            The random generator for sampling.
+     * 
+     * @return The equity, from 0 to 1.
+     */
+    public static double getMultiwayEquity(long holeCards, long board, int noOfOpponents, int trials, SplittableRandom random) {
+        if (Long.bitCount(holeCards) != 2 || (holeCards & board) != 0L || Long.bitCount(board) > NO_OF_BOARD_CARDS) {
+            throw new IllegalArgumentException("Invalid hole cards or board");
+        }
+        if (trials < 1) {
+            throw new IllegalArgumentException("Invalid number of trials: " + trials);
+        }
+        int noOfMissing = NO_OF_BOARD_CARDS - Long.bitCount(board);
+        long deck = CardSet.ALL_CARDS & ~(holeCards | board);
+        int noOfDeckCards = Long.bitCount(deck);
+        int noOfDrawn = noOfMissing + 2 * noOfOpponents;
+        if (noOfOpponents < 1 || noOfDrawn > noOfDeckCards) {
+            throw new IllegalArgumentException("Invalid number of opponents: " + noOfOpponents);
+        }
+        EquityEvent event = new EquityEvent();
+        event.begin();
+        int[] cards = new int[noOfDeckCards];
+        int n = 0;
+        for (long rest = deck; rest != 0L; rest &= rest - 1L) {
+            cards[n++] = Long.numberOfTrailingZeros(rest);
+        }
+        double share = 0.0;
+        for (int trial = 0; trial < trials; trial++) {
+            // Partial Fisher-Yates shuffle of the runout and the opponents' cards.
+            for (int i = 0; i < noOfDrawn; i++) {
+                int j = i + random.nextInt(noOfDeckCards - i);
+                int card = cards[j];
+                cards[j] = cards[i];
+                cards[i] = card;
+            }
+            long runout = board;
+            for (int i = 0; i < noOfMissing; i++) {
+                runout |= 1L << cards[i];
+            }
+            int value = FastHandEvaluator.evaluate(holeCards | runout);
+            int noOfWinners = 1;
+            for (int i = noOfMissing; i < noOfDrawn; i += 2) {
+                int opponentValue = FastHandEvaluator.evaluate((1L << cards[i]) | (1L << cards[i + 1]) | runout);
+                if (opponentValue > value) {
+                    noOfWinners = 0;
+                    break;
+                } else if (opponentValue == value) {
+                    noOfWinners++;
+                }
+            }
+            if (noOfWinners > 0) {
+                share += 1.0 / noOfWinners;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.set("Multiway Equity", board, noOfOpponents, trials);
+            event.commit();
+        }
+        return share / trials;
+    }
+    
+    /**
+     * Returns the distribution of the river equity over the runouts, as a
+     * histogram with bins of equal width.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board (0 to 5 cards).
+     * @param noOfBins
+     *            The number of bins.
+     * @param trials
+     *            The maximum number of runouts to enumerate; more are sampled.
+     * @param random
+     *            The random generator for sampling.
+     * 
+     * @return The fraction of runouts per bin.
+     */
+    public static double[] getHistogram(long holeCards, long board, int noOfBins, int trials, SplittableRandom random) {
+        EquityEvent event = new EquityEvent();
+        event.begin();
+        double[] equities = getRunoutEquities(holeCards, board, trials, random);
+        double[] histogram = new double[noOfBins];
+        double weight = 1.0 / equities.length;
+        for (double equity : equities) {
+            histogram[Math.min((int) (equity * noOfBins), noOfBins - 1)] += weight;
+        }
+        if (event.shouldCommit()) {
+            event.set("Equity Histogram", board, 1, equities.length);
+            event.commit();
+        }
+        return histogram;
+    }
+    
+    /**
+     * Returns the river equities of the enumerated or sampled runouts.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board (0 to 5 cards).
+     * @param trials
+     *            The maximum number of runouts to enumerate; more are sampled.
+     * @param random
+     *            The random generator for sampling.
+     * 
+     * @return The equities.
+     */
+    private static double[] getRunoutEquities(long holeCards, long board, int trials, SplittableRandom random) {
+        if (Long.bitCount(holeCards) != 2 || (holeCards & board) != 0L || Long.bitCount(board) > NO_OF_BOARD_CARDS) {
+            throw new IllegalArgumentException("Invalid hole cards or board");
+        }
+        if (trials < 1) {
+            throw new IllegalArgumentException("Invalid number of trials: " + trials);
+        }
+        int noOfMissing = NO_OF_BOARD_CARDS - Long.bitCount(board);
+        long deck = CardSet.ALL_CARDS & ~(holeCards | board);
+        int noOfDeckCards = Long.bitCount(deck);
+        long noOfRunouts = 1L;
+        for (int i = 0; i < noOfMissing; i++) {
+            noOfRunouts = noOfRunouts * (noOfDeckCards - i) / (i + 1);
+        }
+        if (noOfRunouts <= trials) {
+            double[] equities = new double[(int) noOfRunouts];
+            enumerate(holeCards, board, deck, noOfMissing, equities, 0);
+            return equities;
+        } else {
+            int[] cards = new int[noOfDeckCards];
+            int n = 0;
+            for (long rest = deck; rest != 0L; rest &= rest - 1L) {
+                cards[n++] = Long.numberOfTrailingZeros(rest);
+            }
+            double[] equities = new double[trials];
+            for (int trial = 0; trial < trials; trial++) {
+                // Partial Fisher-Yates shuffle of the missing cards.
+                long runout = board;
+                for (int i = 0; i < noOfMissing; i++) {
+                    int j = i + random.nextInt(noOfDeckCards - i);
+                    int card = cards[j];
+                    cards[j] = cards[i];
+                    cards[i] = card;
+                    runout |= 1L << card;
+                }
+                equities[trial] = getRiverEquity(holeCards, runout);
+            }
+            return equities;
+        }
+    }
+    
+    /**
+     * Enumerates the runouts with cards above those already chosen.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board so far.
+     * @param deck
+     *            The remaining cards to choose from.
+     * @param noOfMissing
+     *            The number of cards still missing.
+     * @param equities
+     *            The equities of the runouts.
+     * @param index
+     *            The index of the next runout.
+     * 
+     * @return The index of the next runout after the enumerated ones.
+     */
+    private static int enumerate(long holeCards, long board, long deck, int noOfMissing, double[] equities, int index) {
+        if (noOfMissing == 0) {
+            equities[index++] = getRiverEquity(holeCards, board);
+        } else {
+            for (long rest = deck; rest != 0L; rest &= rest - 1L) {
+                long card = Long.lowestOneBit(rest);
+                index = enumerate(holeCards, board | card, rest & ~card, noOfMissing - 1, equities, index);
+            }
+        }
+        return index;
+    }
+    
+}
@@ -0,0 +1,597 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+
+/**
+ * Indexer of hands up to suit isomorphism, mapping the cards dealt in a
+ * number of rounds (e.g. the hole cards and the flop) to a dense canonical
+ * index and back. <br />
+ * <br />
+ * 
+ * Two hands have the same index if and only if one is a suit permutation of
+ * the other, so the indexes can be used as offsets in compact lookup tables.
+ * There are 169 preflop, 1,286,792 flop, 55,190,538 turn and 2,428,287,420
+ * river indexes. <br />
+ * <br />
+ * 
+ * A hand is described per suit by the ranks of that suit dealt in each
+ * round. Suits dealt the same number of cards in each round (the same
+ * <i>shape</i>) are interchangeable, so the canonical index is the offset of
+ * the multiset of shapes (the <i>configuration</i>), combined with the index
+ * of the multiset of the rank sets of the suits in each group of equal
+ * shapes. Indexing and unindexing take a bounded number of steps, independent
+ * of the number of indexes. <br />
+ * <br />
+ * 
+ * The algorithm follows K. Waugh, "A Fast and Optimal Hand Isomorphism
+ * Algorithm" (2013). <br />
+ * <br />
+ * 
+ * This class is immutable and thread-safe.
+ */
+public class HandIndexer {
+    
+    /** The maximum number of rounds. */
+    public static final int MAX_ROUNDS = 4;
+    
+    /** The number of bits per round in a shape. */
+    private static final int SHAPE_BITS = 4;
+    
+    /** The number of rank masks. */
+    private static final int NO_OF_RANK_MASKS = 1 << Card.NO_OF_RANKS;
+    
+    /** The binomial coefficients of the number of ranks. */
+    private static final int[][] RANK_BINOMIALS = new int[Card.NO_OF_RANKS + 1][Card.NO_OF_RANKS + 1];
+    
+    /** The colexicographical index of each rank mask among the masks with the same number of ranks. */
+    private static final int[] RANK_MASK_INDEXES = new int[NO_OF_RANK_MASKS];
+    
+    /** The rank masks by number of ranks and colexicographical index. */
+    private static final int[][] RANK_MASKS = new int[Card.NO_OF_RANKS + 1][];
+    
+    /** The n-th rank not in a rank mask, by rank mask and n. */
+    private static final byte[][] NTH_UNSET = new byte[NO_OF_RANK_MASKS][Card.NO_OF_RANKS];
+    
+    /** The number of cards per round. */
+    private final int[] cardsPerRound;
+    
+    /** The number of indexes. */
+    private final long size;
+    
+    /** The configuration keys (multisets of shapes, sign bit flipped), in ascending order. */
+    private final long[] keys;
+    
+    /** The configurations, in the order of the keys. */
+    private final Configuration[] configurations;
+    
+    /** The offset of each configuration, in the order of the keys. */
+    private final long[] offsets;
+    
+    static {
+        for (int n = 0; n <= Card.NO_OF_RANKS; n++) {
+            RANK_BINOMIALS[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                RANK_BINOMIALS[n][k] = RANK_BINOMIALS[n - 1][k - 1] + ((k < n) ? RANK_BINOMIALS[n - 1][k] : 0);
+            }
+        }
+        for (int k = 0; k <= Card.NO_OF_RANKS; k++) {
+            RANK_MASKS[k] = new int[RANK_BINOMIALS[Card.NO_OF_RANKS][k]];
+        }
+        for (int mask = 0; mask < NO_OF_RANK_MASKS; mask++) {
+            int index = 0;
+            int k = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                k++;
+                index += binomial(Integer.numberOfTrailingZeros(rest), k);
+            }
+            RANK_MASK_INDEXES[mask] = index;
+            RANK_MASKS[k][index] = mask;
+            
+            int unset = ~mask & (NO_OF_RANK_MASKS - 1);
+            for (int n = 0; n < Card.NO_OF_RANKS; n++) {
+                NTH_UNSET[mask][n] = (byte) ((unset != 0) ? Integer.numberOfTrailingZeros(unset) : -1);
+                unset &= unset - 1;
+            }
+        }
+    }
+    
+    // The standard indexers are initialized after the static tables they use.
+    
+    /** Indexer of the hole cards. */
+    public static final HandIndexer PREFLOP = new HandIndexer(2);
+    
+    /** Indexer of the hole cards and the flop. */
+    public static final HandIndexer FLOP = new HandIndexer(2, 3);
+    
+    /** Indexer of the hole cards, the flop and the turn. */
+    public static final HandIndexer TURN = new HandIndexer(2, 3, 1);
+    
+    /** Indexer of the hole cards, the flop, the turn and the river. */
+    public static final HandIndexer RIVER = new HandIndexer(2, 3, 1, 1);
+    
+    /**
+     * Constructor.
+     * 
+     * @param cardsPerRound
+     *            The number of cards dealt in each round.
+     */
+    public HandIndexer(int... cardsPerRound) {
+        if (cardsPerRound.length < 1 || cardsPerRound.length > MAX_ROUNDS) {
+            throw new IllegalArgumentException("Invalid number of rounds: " + cardsPerRound.length);
+        }
+        int noOfCards = 0;
+        for (int noOfRoundCards : cardsPerRound) {
+            if (noOfRoundCards < 1) {
+                throw new IllegalArgumentException("Invalid number of cards in a round: " + noOfRoundCards);
+            }
+            noOfCards += noOfRoundCards;
+        }
+        if (noOfCards > Card.NO_OF_RANKS) {
+            throw new IllegalArgumentException("Too many cards: " + noOfCards);
+        }
+        this.cardsPerRound = cardsPerRound.clone();
+        
+        // Enumerate the distributions of the cards of each round over the suits.
+        List<int[]> shapeLists = new ArrayList<int[]>();
+        enumerateShapes(0, new int[Card.NO_OF_SUITS], shapeLists);
+        long[] allKeys = new long[shapeLists.size()];
+        int noOfKeys = 0;
+        for (int[] shapes : shapeLists) {
+            sortDescending(shapes, null);
+            allKeys[noOfKeys++] = toKey(shapes);
+        }
+        Arrays.sort(allKeys);
+        int noOfConfigurations = 0;
+        for (int i = 0; i < noOfKeys; i++) {
+            if (i == 0 || allKeys[i] != allKeys[i - 1]) {
+                allKeys[noOfConfigurations++] = allKeys[i];
+            }
+        }
+        keys = Arrays.copyOf(allKeys, noOfConfigurations);
+        configurations = new Configuration[noOfConfigurations];
+        offsets = new long[noOfConfigurations];
+        long offset = 0L;
+        for (int i = 0; i < noOfConfigurations; i++) {
+            configurations[i] = new Configuration(keys[i]);
+            offsets[i] = offset;
+            offset += configurations[i].size;
+        }
+        size = offset;
+    }
+    
+    /**
+     * Returns the number of rounds.
+     * 
+     * @return The number of rounds.
+     */
+    public int getNoOfRounds() {
+        return cardsPerRound.length;
+    }
+    
+    /**
+     * Returns the number of cards dealt in a round.
+     * 
+     * @param round
+     *            The round.
+     * 
+     * @return The number of cards.
+     */
+    public int getNoOfCards(int round) {
+        return cardsPerRound[round];
+    }
+    
+    /**
+     * Returns the number of indexes.
+     * 
+     * @return The number of indexes.
+     */
+    public long getSize() {
+        return size;
+    }
+    
+    /**
+     * Returns the canonical index of a hand.
+     * 
+     * @param rounds
+     *            The card masks (see {@link CardSet}) dealt in each round.
+     * 
+     * @return The index.
+     */
+    public long index(long... rounds) {
+        if (rounds.length != cardsPerRound.length) {
+            throw new IllegalArgumentException("Invalid number of rounds: " + rounds.length);
+        }
+        long dealt = 0L;
+        for (int r = 0; r < rounds.length; r++) {
+            if (Long.bitCount(rounds[r]) != cardsPerRound[r] || (rounds[r] & dealt) != 0L || (rounds[r] & ~CardSet.ALL_CARDS) != 0L) {
+                throw new IllegalArgumentException("Invalid cards in round " + r);
+            }
+            dealt |= rounds[r];
+        }
+        
+        // The shape and the index of the rank sets of each suit.
+        int[] shapes = new int[Card.NO_OF_SUITS];
+        long[] suitIndexes = new long[Card.NO_OF_SUITS];
+        for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+            int shape = 0;
+            long suitIndex = 0L;
+            int used = 0;
+            int noOfUsed = 0;
+            for (long round : rounds) {
+                int ranks = (int) (round >>> (suit * Card.NO_OF_RANKS)) & CardSet.RANK_MASK;
+                int noOfRanks = Integer.bitCount(ranks);
+                shape = (shape << SHAPE_BITS) | noOfRanks;
+                suitIndex = suitIndex * RANK_BINOMIALS[Card.NO_OF_RANKS - noOfUsed][noOfRanks] + RANK_MASK_INDEXES[compress(ranks, used)];
+                used |= ranks;
+                noOfUsed += noOfRanks;
+            }
+            shapes[suit] = shape;
+            suitIndexes[suit] = suitIndex;
+        }
+        sortDescending(shapes, suitIndexes);
+        
+        int c = Arrays.binarySearch(keys, toKey(shapes));
+        Configuration configuration = configurations[c];
+        long index = 0L;
+        int first = 0;
+        for (int g = 0; g < configuration.groupSizes.length; g++) {
+            int groupSize = configuration.groupSizes[g];
+            // Multiset index of the suit indexes (descending) as a combination of distinct values.
+            long groupIndex = 0L;
+            for (int j = 1; j <= groupSize; j++) {
+                groupIndex += binomial(suitIndexes[first + groupSize - j] + j - 1, j);
+            }
+            index = index * configuration.groupCounts[g] + groupIndex;
+            first += groupSize;
+        }
+        return offsets[c] + index;
+    }
+    
+    /**
+     * Returns the canonical index of a hand.
+     * 
+     * @param cards
+     *            The cards, in the order dealt.
+     * 
+     * @return The index.
+     */
+    public long index(Card... cards) {
+        long[] rounds = new long[cardsPerRound.length];
+        int i = 0;
+        for (int r = 0; r < rounds.length; r++) {
+            for (int n = 0; n < cardsPerRound[r]; n++) {
+                if (i >= cards.length) {
+                    throw new IllegalArgumentException("Too few cards: " + cards.length);
+                }
+                rounds[r] |= CardSet.mask(cards[i++]);
+            }
+        }
+        if (i != cards.length) {
+            throw new IllegalArgumentException("Too many cards: " + cards.length);
+        }
+        return index(rounds);
+    }
+    
+    /**
+     * Returns the canonical hand of an index.
+     * 
+     * @param index
+     *            The index.
+     * 
+     * @return The card masks (see {@link CardSet}) dealt in each round.
+     */
+    public long[] unindex(long index) {
+        if (index < 0L || index >= size) {
+            throw new IllegalArgumentException("Invalid index: " + index);
+        }
+        int c = Arrays.binarySearch(offsets, index);
+        if (c < 0) {
+            c = -c - 2;
+        }
+        Configuration configuration = configurations[c];
+        index -= offsets[c];
+        
+        long[] suitIndexes = new long[Card.NO_OF_SUITS];
+        int last = Card.NO_OF_SUITS;
+        for (int g = configuration.groupSizes.length - 1; g >= 0; g--) {
+            long groupIndex = index % configuration.groupCounts[g];
+            index /= configuration.groupCounts[g];
+            int groupSize = configuration.groupSizes[g];
+            last -= groupSize;
+            long bound = configuration.groupSuitCounts[g] + groupSize - 1;
+            for (int j = groupSize; j >= 1; j--) {
+                // The largest value with a binomial not exceeding the rest of the index.
+                long low = j - 1;
+                long high = bound;
+                while (low < high) {
+                    long middle = (low + high + 1) >>> 1;
+                    if (binomial(middle, j) <= groupIndex) {
+                        low = middle;
+                    } else {
+                        high = middle - 1;
+                    }
+                }
+                groupIndex -= binomial(low, j);
+                suitIndexes[last + groupSize - j] = low - (j - 1);
+                bound = low;
+            }
+        }
+        
+        int noOfRounds = cardsPerRound.length;
+        long[] rounds = new long[noOfRounds];
+        for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+            int shape = configuration.shapes[suit];
+            int[] noOfRanks = new int[noOfRounds];
+            int[] noOfUsed = new int[noOfRounds];
+            int used = 0;
+            for (int r = 0; r < noOfRounds; r++) {
+                noOfRanks[r] = (shape >>> ((noOfRounds - 1 - r) * SHAPE_BITS)) & ((1 << SHAPE_BITS) - 1);
+                noOfUsed[r] = used;
+                used += noOfRanks[r];
+            }
+            long suitIndex = suitIndexes[suit];
+            int[] rankIndexes = new int[noOfRounds];
+            for (int r = noOfRounds - 1; r >= 0; r--) {
+                int radix = RANK_BINOMIALS[Card.NO_OF_RANKS - noOfUsed[r]][noOfRanks[r]];
+                rankIndexes[r] = (int) (suitIndex % radix);
+                suitIndex /= radix;
+            }
+            int usedRanks = 0;
+            for (int r = 0; r < noOfRounds; r++) {
+                int ranks = expand(RANK_MASKS[noOfRanks[r]][rankIndexes[r]], usedRanks);
+                rounds[r] |= (long) ranks << (suit * Card.NO_OF_RANKS);
+                usedRanks |= ranks;
+            }
+        }
+        return rounds;
+    }
+    
+    /**
+     * Enumerates the shapes of all distributions of the cards of each round
+     * over the suits.
+     * 
+     * @param round
+     *            The current round.
+     * @param shapes
+     *            The shapes of the previous rounds.
+     * @param shapeLists
+     *            The shapes of the complete distributions.
+     */
+    private void enumerateShapes(int round, int[] shapes, List<int[]> shapeLists) {
+        if (round == cardsPerRound.length) {
+            shapeLists.add(shapes.clone());
+        } else {
+            distribute(round, 0, cardsPerRound[round], shapes, shapeLists);
+        }
+    }
+    
+    /**
+     * Distributes the remaining cards of a round over the remaining suits.
+     * 
+     * @param round
+     *            The current round.
+     * @param suit
+     *            The current suit.
+     * @param noOfCards
+     *            The number of cards left to distribute.
+     * @param shapes
+     *            The shapes so far.
+     * @param shapeLists
+     *            The shapes of the complete distributions.
+     */
+    private void distribute(int round, int suit, int noOfCards, int[] shapes, List<int[]> shapeLists) {
+        if (suit == Card.NO_OF_SUITS - 1) {
+            int[] next = shapes.clone();
+            next[suit] = (next[suit] << SHAPE_BITS) | noOfCards;
+            enumerateShapes(round + 1, next, shapeLists);
+        } else {
+            for (int n = 0; n <= noOfCards; n++) {
+                int[] next = shapes.clone();
+                next[suit] = (next[suit] << SHAPE_BITS) | n;
+                distribute(round, suit + 1, noOfCards - n, next, shapeLists);
+            }
+        }
+    }
+    
+    /**
+     * Sorts the shapes of the suits in descending order, and suits with the
+     * same shape by descending index.
+     * 
+     * @param shapes
+     *            The shapes.
+     * @param suitIndexes
+     *            The suit indexes (sorted along), or <code>null</code>.
+     */
+    private static void sortDescending(int[] shapes, long[] suitIndexes) {
+        for (int i = 1; i < shapes.length; i++) {
+            int shape = shapes[i];
+            long suitIndex = (suitIndexes != null) ? suitIndexes[i] : 0L;
+            int j = i - 1;
+            while (j >= 0 && (shapes[j] < shape || (shapes[j] == shape && suitIndexes != null && suitIndexes[j] < suitIndex))) {
+                shapes[j + 1] = shapes[j];
+                if (suitIndexes != null) {
+                    suitIndexes[j + 1] = suitIndexes[j];
+                }
+                j--;
+            }
+            shapes[j + 1] = shape;
+            if (suitIndexes != null) {
+                suitIndexes[j + 1] = suitIndex;
+            }
+        }
+    }
+    
+    /**
+     * Returns the configuration key of the sorted shapes.
+     * 
+     * @param shapes
+     *            The shapes, in descending order.
+     * 
+     * @return The key.
+     */
+    private static long toKey(int[] shapes) {
+        long key = 0L;
+        for (int shape : shapes) {
+            key = (key << (SHAPE_BITS * MAX_ROUNDS)) | shape;
+        }
+        return key ^ Long.MIN_VALUE;
+    }
+    
+    /**
+     * Removes the used ranks from a rank mask, shifting the higher ranks down.
+     * 
+     * @param ranks
+     *            The rank mask.
+     * @param used
+     *            The used ranks (disjoint from the rank mask).
+     * 
+     * @return The compressed rank mask.
+     */
+    private static int compress(int ranks, int used) {
+        int compressed = 0;
+        for (int rest = ranks; rest != 0; rest &= rest - 1) {
+            int rank = Integer.numberOfTrailingZeros(rest);
+            compressed |= 1 << (rank - Integer.bitCount(used & ((1 << rank) - 1)));
+        }
+        return compressed;
+    }
+    
+    /**
+     * Reverses {@link #compress}, inserting the used ranks.
+     * 
+     * @param compressed
+     *            The compressed rank mask.
+     * @param used
+     *            The used ranks.
+     * 
+     * @return The rank mask.
+     */
+    private static int expand(int compressed, int used) {
+        int ranks = 0;
+        for (int rest = compressed; rest != 0; rest &= rest - 1) {
+            ranks |= 1 << NTH_UNSET[used][Integer.numberOfTrailingZeros(rest)];
+        }
+        return ranks;
+    }
+    
+    /**
+     * Returns a binomial coefficient.
+     * 
+     * @param n
+     *            The number of elements.
+     * @param k
+     *            The number of chosen elements.
+     * 
+     * @return The binomial coefficient (0 if k &gt; n).
+     */
+    private static long binomial(long n, int k) {
+        if (k > n) {
+            return 0L;
+        }
+        long binomial = 1L;
+        for (int i = 0; i < k; i++) {
+            binomial = binomial * (n - i) / (i + 1);
+        }
+        return binomial;
+    }
+    
+    /**
+     * A configuration: a multiset of suit shapes, with the groups of suits of
+     * equal shape.
+     */
+    private class Configuration {
+        
+        /** The shapes of the suits, in descending order. */
+        private final int[] shapes = new int[Card.NO_OF_SUITS];
+        
+        /** The number of suits in each group. */
+        private final int[] groupSizes;
+        
+        /** The number of rank set combinations of a suit in each group. */
+        private final long[] groupSuitCounts;
+        
+        /** The number of indexes of each group. */
+        private final long[] groupCounts;
+        
+        /** The number of indexes. */
+        private final long size;
+        
+        /**
+         * Constructor.
+         * 
+         * @param key
+         *            The configuration key.
+         */
+        private Configuration(long key) {
+            key ^= Long.MIN_VALUE;
+            int shapeMask = (1 << (SHAPE_BITS * MAX_ROUNDS)) - 1;
+            int noOfGroups = 0;
+            for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+                shapes[suit] = (int) (key >>> ((Card.NO_OF_SUITS - 1 - suit) * SHAPE_BITS * MAX_ROUNDS)) & shapeMask;
+                if (suit == 0 || shapes[suit] != shapes[suit - 1]) {
+                    noOfGroups++;
+                }
+            }
+            groupSizes = new int[noOfGroups];
+            groupSuitCounts = new long[noOfGroups];
+            groupCounts = new long[noOfGroups];
+            long count = 1L;
+            int g = -1;
+            for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+                if (suit == 0 || shapes[suit] != shapes[suit - 1]) {
+                    g++;
+                    groupSuitCounts[g] = getSuitCount(shapes[suit]);
+                }
+                groupSizes[g]++;
+            }
+            for (g = 0; g < noOfGroups; g++) {
+                // Multisets of the given size.
+                groupCounts[g] = binomial(groupSuitCounts[g] + groupSizes[g] - 1, groupSizes[g]);
+                count *= groupCounts[g];
+            }
+            size = count;
+        }
+        
+        /**
+         * Returns the number of rank set combinations of a suit with a shape.
+         * 
+         * @param shape
+         *            The shape.
+         * 
+         * @return The number of combinations.
+         */
+        private long getSuitCount(int shape) {
+            long count = 1L;
+            int used = 0;
+            for (int r = 0; r < cardsPerRound.length; r++) {
+                int noOfRanks = (shape >>> ((cardsPerRound.length - 1 - r) * SHAPE_BITS)) & ((1 << SHAPE_BITS) - 1);
+                count *= RANK_BINOMIALS[Card.NO_OF_RANKS - used][noOfRanks];
+                used += noOfRanks;
+            }
+            return count;
+        }
+    
+    }
+
+}
@@ -0,0 +1,113 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+/**
+ * The strength and potential of a hand against an opponent range. <br />
+ * <br />
+ * 
+ * The hand strength (HS) is the probability of currently being ahead of a
+ * single opponent (ties counting half). The positive potential (PPOT) is the
+ * probability of getting ahead with the next card when currently behind, the
+ * negative potential (NPOT) the probability of falling behind when currently
+ * ahead.
+ */
+public class HandStrength {
+    
+    /** The hand strength. */
+    private final double strength;
+    
+    /** The positive potential. */
+    private final double positivePotential;
+    
+    /** The negative potential. */
+    private final double negativePotential;
+    
+    /**
+     * Constructor.
+     * 
+     * @param strength
+     *            The hand strength.
+     * @param positivePotential
+     *            The positive potential.
+     * @param negativePotential
+     *            The negative potential.
+     */
+    public HandStrength(double strength, double positivePotential, double negativePotential) {
+        this.strength = strength;
+        this.positivePotential = positivePotential;
+        this.negativePotential = negativePotential;
+    }
+    
+    /**
+     * Returns the hand strength (HS).
+     * 
+     * @return The probability of currently being ahead.
+     */
+    public double getStrength() {
+        return strength;
+    }
+    
+    /**
+     * Returns the positive potential (PPOT).
+     * 
+     * @return The probability of getting ahead when behind.
+     */
+    public double getPositivePotential() {
+        return positivePotential;
+    }
+    
+    /**
+     * Returns the negative potential (NPOT).
+     * 
+     * @return The probability of falling behind when ahead.
+     */
+    public double getNegativePotential() {
+        return negativePotential;
+    }
+    
+    /**
+     * Returns the effective hand strength, combining the strength with the
+     * potentials: <code>HS * (1 - NPOT) + (1 - HS) * PPOT</code>.
+     * 
+     * @return The effective hand strength.
+     */
+    public double getEffectiveStrength() {
+        return strength * (1.0 - negativePotential) + (1.0 - strength) * positivePotential;
+    }
+    
+    /**
+     * Returns the effective hand strength against a number of opponents,
+     * assuming independent opponent hands.
+     * 
+     * @param noOfOpponents
+     *            The number of opponents.
+     * 
+     * @return The effective hand strength.
+     */
+    public double getEffectiveStrength(int noOfOpponents) {
+        return Math.pow(getEffectiveStrength(), noOfOpponents);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("HS %.3f, PPOT %.3f, NPOT %.3f", strength, positivePotential, negativePotential);
+    }
+    
+}
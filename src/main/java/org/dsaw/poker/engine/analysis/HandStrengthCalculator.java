@@ -0,0 +1,317 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.dsaw.poker.engine.jfr.EquityEvent;
+
+/**
+ * Calculator of the strength and potential of a hand (see
+ * {@link HandStrength}) by enumerating all opponent hole cards, weighted by an
+ * opponent range, with the {@link FastHandEvaluator}. The potential looks
+ * ahead one card (the turn on the flop, the river on the turn). <br />
+ * <br />
+ * 
+ * The opponent hand values only depend on the board, so they are calculated
+ * once per board, for the current board and for each next card, and kept in a
+ * small direct-mapped cache. All players at a table (and all their decisions
+ * during a betting round) share the same board, so a query on a cached board
+ * only evaluates the hero's own hands and compares. <br />
+ * <br />
+ * 
+ * This class is thread-safe; the cache entries are immutable.
+ */
+public class HandStrengthCalculator {
+    
+    /** The default number of cached boards. */
+    public static final int DEFAULT_CACHE_SIZE = 16;
+    
+    /** The number of cards. */
+    private static final int NO_OF_CARDS = CardSet.NO_OF_CARDS;
+    
+    /** Index of the state 'ahead'. */
+    private static final int AHEAD = 0;
+    
+    /** Index of the state 'tied'. */
+    private static final int TIED = 1;
+    
+    /** Index of the state 'behind'. */
+    private static final int BEHIND = 2;
+    
+    /** The cache of evaluated boards. */
+    private final BoardValues[] cache;
+    
+    /**
+     * Constructor with the default cache size.
+     */
+    public HandStrengthCalculator() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param cacheSize
+     *            The number of cached boards (a power of two).
+     */
+    public HandStrengthCalculator(int cacheSize) {
+        if (cacheSize < 1 || Integer.bitCount(cacheSize) != 1) {
+            throw new IllegalArgumentException("Cache size must be a power of two: " + cacheSize);
+        }
+        cache = new BoardValues[cacheSize];
+    }
+    
+    /**
+     * Calculates the strength and potential of a hand against a uniform
+     * opponent range.
+     * 
+     * @param holeCards
+     *            The hero's hole cards.
+     * @param board
+     *            The board (0, 3, 4 or 5 cards).
+     * 
+     * @return The hand strength.
+     */
+    public HandStrength calculate(long holeCards, long board) {
+        return calculate(holeCards, board, null);
+    }
+    
+    /**
+     * Calculates the strength and potential of a hand against an opponent
+     * range. The potentials are 0 before the flop and on the river.
+     * 
+     * @param holeCards
+     *            The hero's hole cards.
+     * @param board
+     *            The board (0, 3, 4 or 5 cards).
+     * @param weights
+     *            The opponent range, as a weight by combination index (see
+     *            {@link Combos}), or null for a uniform range.
+     * 
+     * @return The hand strength.
+     */
+    public HandStrength calculate(long holeCards, long board, double[] weights) {
+        EquityEvent event = new EquityEvent();
+        event.begin();
+        HandStrength strength = calculateStrength(holeCards, board, weights);
+        if (event.shouldCommit()) {
+            event.set("Hand Strength", board, 1, 0);
+            event.commit();
+        }
+        return strength;
+    }
+    
+    /**
+     * Calculates the strength and potential of a hand against an opponent
+     * range.
+     * 
+     * @param holeCards
+     *            The hero's hole cards.
+     * @param board
+     *            The board.
+     * @param weights
+     *            The opponent range, or null for a uniform range.
+     * 
+     * @return The hand strength.
+     */
+    private HandStrength calculateStrength(long holeCards, long board, double[] weights) {
+        if ((holeCards & board) != 0L || Long.bitCount(holeCards) != 2) {
+            throw new IllegalArgumentException("Invalid hole cards or board");
+        }
+        BoardValues values = getBoardValues(board);
+        long dead = holeCards | board;
+        int heroValue = FastHandEvaluator.evaluate(dead);
+        
+        // Hero's hand values with each next card.
+        int[] heroNextValues = null;
+        if (values.nextValues != null) {
+            heroNextValues = new int[NO_OF_CARDS];
+            for (int card = 0; card < NO_OF_CARDS; card++) {
+                long cardMask = 1L << card;
+                if ((dead & cardMask) == 0L) {
+                    heroNextValues[card] = FastHandEvaluator.evaluate(dead | cardMask);
+                }
+            }
+        }
+        
+        // Weights per current state, and per current and next state (accumulated over all next cards).
+        double[] totals = new double[3];
+        double[][] potentials = new double[3][3];
+        for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+            long comboMask = Combos.getMask(combo);
+            if ((comboMask & dead) != 0L) {
+                continue;
+            }
+            double weight = (weights != null) ? weights[combo] : 1.0;
+            if (weight <= 0.0) {
+                continue;
+            }
+            int state = compare(heroValue, values.values[combo]);
+            totals[state] += weight;
+            if (heroNextValues != null) {
+                long used = dead | comboMask;
+                int offset = combo * NO_OF_CARDS;
+                double[] row = potentials[state];
+                for (int card = 0; card < NO_OF_CARDS; card++) {
+                    if ((used & (1L << card)) == 0L) {
+                        row[compare(heroNextValues[card], values.nextValues[offset + card])] += weight;
+                    }
+                }
+            }
+        }
+        
+        double total = totals[AHEAD] + totals[TIED] + totals[BEHIND];
+        if (total <= 0.0) {
+            return new HandStrength(0.0, 0.0, 0.0);
+        }
+        double strength = (totals[AHEAD] + totals[TIED] / 2.0) / total;
+        double positivePotential = 0.0;
+        double negativePotential = 0.0;
+        if (heroNextValues != null) {
+            double behindTotal = sum(potentials[BEHIND]);
+            double tiedTotal = sum(potentials[TIED]);
+            double aheadTotal = sum(potentials[AHEAD]);
+            double denominator = behindTotal + tiedTotal / 2.0;
+            if (denominator > 0.0) {
+                positivePotential = (potentials[BEHIND][AHEAD] + potentials[BEHIND][TIED] / 2.0 + potentials[TIED][AHEAD] / 2.0) / denominator;
+            }
+            denominator = aheadTotal + tiedTotal / 2.0;
+            if (denominator > 0.0) {
+                negativePotential = (potentials[AHEAD][BEHIND] + potentials[TIED][BEHIND] / 2.0 + potentials[AHEAD][TIED] / 2.0) / denominator;
+            }
+        }
+        return new HandStrength(strength, positivePotential, negativePotential);
+    }
+    
+    /**
+     * Returns the opponent hand values for a board, from the cache or newly
+     * calculated.
+     * 
+     * @param board
+     *            The board.
+     * 
+     * @return The board values.
+     */
+    private BoardValues getBoardValues(long board) {
+        int slot = (int) (mix(board) & (cache.length - 1));
+        BoardValues values = cache[slot];
+        if (values == null || values.board != board) {
+            values = new BoardValues(board);
+            cache[slot] = values;
+        }
+        return values;
+    }
+    
+    /**
+     * Compares two hand values.
+     * 
+     * @param heroValue
+     *            The hero's hand value.
+     * @param opponentValue
+     *            The opponent's hand value.
+     * 
+     * @return The state (AHEAD, TIED or BEHIND).
+     */
+    private static int compare(int heroValue, int opponentValue) {
+        if (heroValue > opponentValue) {
+            return AHEAD;
+        } else if (heroValue == opponentValue) {
+            return TIED;
+        } else {
+            return BEHIND;
+        }
+    }
+    
+    /**
+     * Returns the sum of an array.
+     * 
+     * @param values
+     *            The values.
+     * 
+     * @return The sum.
+     */
+    private static double sum(double[] values) {
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+    
+    /**
+     * Mixes the bits of a card mask for the cache slot.
+     * 
+     * @param mask
+     *            The card mask.
+     * 
+     * @return The mixed bits.
+     */
+    private static long mix(long mask) {
+        mask *= 0x9e3779b97f4a7c15L;
+        return mask ^ (mask >>> 29);
+    }
+    
+    /**
+     * The opponent hand values on a board (immutable once constructed).
+     */
+    private static class BoardValues {
+        
+        /** The board. */
+        private final long board;
+        
+        /** The hand value by combination index (undefined for combinations using board cards). */
+        private final int[] values;
+        
+        /** The hand value by combination index and next card (null if no next card). */
+        private final int[] nextValues;
+        
+        /**
+         * Constructor.
+         * 
+         * @param board
+         *            The board.
+         */
+        private BoardValues(long board) {
+            this.board = board;
+            values = new int[Combos.NO_OF_COMBOS];
+            int boardSize = Long.bitCount(board);
+            boolean hasNextCard = (boardSize == 3 || boardSize == 4);
+            nextValues = hasNextCard ? new int[Combos.NO_OF_COMBOS * NO_OF_CARDS] : null;
+            for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+                long comboMask = Combos.getMask(combo);
+                if ((comboMask & board) != 0L) {
+                    continue;
+                }
+                long cards = board | comboMask;
+                values[combo] = FastHandEvaluator.evaluate(cards);
+                if (hasNextCard) {
+                    int offset = combo * NO_OF_CARDS;
+                    for (int card = 0; card < NO_OF_CARDS; card++) {
+                        long cardMask = 1L << card;
+                        if ((cards & cardMask) == 0L) {
+                            nextValues[offset + card] = FastHandEvaluator.evaluate(cards | cardMask);
+                        }
+                    }
+                }
+            }
+        }
+        
+    }
+    
+}
@@ -0,0 +1,121 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+/**
+ * The absolute rank of a hand on a board, among all possible opponent hole
+ * cards (see {@link NutRanker}).
+ */
+public class NutRank {
+    
+    /** The rank (1 for the nuts). */
+    private final int rank;
+    
+    /** The opponent combinations beating the hand, as combination indexes. */
+    private final int[] beatingCombos;
+    
+    /** The number of opponent combinations tying the hand. */
+    private final int noOfTies;
+    
+    /** The number of possible opponent combinations. */
+    private final int noOfCombos;
+    
+    /**
+     * Constructor.
+     * 
+     * @param rank
+     *            The rank (1 for the nuts).
+     * @param beatingCombos
+     *            The combinations beating the hand.
+     * @param noOfTies
+     *            The number of combinations tying the hand.
+     * @param noOfCombos
+     *            The number of possible combinations.
+     */
+    public NutRank(int rank, int[] beatingCombos, int noOfTies, int noOfCombos) {
+        this.rank = rank;
+        this.beatingCombos = beatingCombos;
+        this.noOfTies = noOfTies;
+        this.noOfCombos = noOfCombos;
+    }
+    
+    /**
+     * Returns the rank: 1 for the nuts, 2 for the second nuts, etc., counting
+     * distinct hand values of the possible opponent combinations.
+     * 
+     * @return The rank.
+     */
+    public int getRank() {
+        return rank;
+    }
+    
+    /**
+     * Returns the opponent combinations beating the hand, best first.
+     * 
+     * @return The combination indexes (see {@link Combos}).
+     */
+    public int[] getBeatingCombos() {
+        return beatingCombos.clone();
+    }
+    
+    /**
+     * Returns the number of opponent combinations beating the hand.
+     * 
+     * @return The number of combinations.
+     */
+    public int getNoOfBeatingCombos() {
+        return beatingCombos.length;
+    }
+    
+    /**
+     * Returns the number of opponent combinations tying the hand.
+     * 
+     * @return The number of combinations.
+     */
+    public int getNoOfTies() {
+        return noOfTies;
+    }
+    
+    /**
+     * Returns the number of possible opponent combinations (not using the
+     * board or hole cards).
+     * 
+     * @return The number of combinations.
+     */
+    public int getNoOfCombos() {
+        return noOfCombos;
+    }
+    
+    /**
+     * Returns the percentile of the hand: the fraction of opponent
+     * combinations it beats, with ties counting half.
+     * 
+     * @return The percentile, from 0 to 1.
+     */
+    public double getPercentile() {
+        int noOfBeaten = noOfCombos - beatingCombos.length - noOfTies;
+        return (noOfBeaten + noOfTies / 2.0) / noOfCombos;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("rank %d, beaten by %d of %d combos (%.1f%%)", rank, beatingCombos.length, noOfCombos, 100.0 * getPercentile());
+    }
+    
+}
@@ -0,0 +1,223 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.util.Arrays;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+
+/**
+ * Calculator of the absolute rank of a hand on a board (see {@link NutRank}).
+ * <br />
+ * <br />
+ * 
+ * All opponent hole cards not using a board card are evaluated once per board
+ * with the {@link FastHandEvaluator} and sorted by hand value, and kept in a
+ * small direct-mapped cache. A query on a cached board is a binary search for
+ * the hand's value, corrected for the combinations using one of the hand's
+ * own cards (the blockers). <br />
+ * <br />
+ * 
+ * This class is thread-safe; the cache entries are immutable.
+ */
+public class NutRanker {
+    
+    /** The default number of cached boards. */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+    
+    /** The number of bits of a combination index in a sort key. */
+    private static final int COMBO_BITS = 11;
+    
+    /** The cache of sorted boards. */
+    private final SortedBoard[] cache;
+    
+    /**
+     * Constructor with the default cache size.
+     */
+    public NutRanker() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param cacheSize
+     *            The number of cached boards (a power of two).
+     */
+    public NutRanker(int cacheSize) {
+        if (cacheSize < 1 || Integer.bitCount(cacheSize) != 1) {
+            throw new IllegalArgumentException("Cache size must be a power of two: " + cacheSize);
+        }
+        cache = new SortedBoard[cacheSize];
+    }
+    
+    /**
+     * Ranks a hand on a board.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board (0 to 5 cards).
+     * 
+     * @return The rank.
+     */
+    public NutRank rank(long holeCards, long board) {
+        if ((holeCards & board) != 0L || Long.bitCount(holeCards) != 2) {
+            throw new IllegalArgumentException("Invalid hole cards or board");
+        }
+        SortedBoard sorted = getSortedBoard(board);
+        int value = FastHandEvaluator.evaluate(holeCards | board);
+        
+        // Combinations better than the hand come first: [0, better), equal: [better, notWorse).
+        int better = sorted.countBetter(value);
+        int notWorse = sorted.countBetter(value - 1);
+        
+        int[] beatingCombos = new int[better];
+        int noOfBeating = 0;
+        int rank = 1;
+        int lastValue = -1;
+        for (int i = 0; i < better; i++) {
+            int combo = sorted.combos[i];
+            if ((Combos.getMask(combo) & holeCards) == 0L) {
+                beatingCombos[noOfBeating++] = combo;
+                int comboValue = sorted.values[i];
+                if (comboValue != lastValue) {
+                    rank++;
+                    lastValue = comboValue;
+                }
+            }
+        }
+        
+        // Blocker correction: remove the combinations using a hole card from the ties and the total.
+        int c1 = Long.numberOfTrailingZeros(holeCards);
+        int c2 = 63 - Long.numberOfLeadingZeros(holeCards);
+        int blocked = 1;
+        int blockedTies = (sorted.valuesByCombo[Combos.indexOf(c1, c2)] == value) ? 1 : 0;
+        long rest = CardSet.ALL_CARDS & ~board & ~holeCards;
+        while (rest != 0L) {
+            int card = Long.numberOfTrailingZeros(rest);
+            rest &= rest - 1L;
+            blocked += 2;
+            if (sorted.valuesByCombo[Combos.indexOf(c1, card)] == value) {
+                blockedTies++;
+            }
+            if (sorted.valuesByCombo[Combos.indexOf(c2, card)] == value) {
+                blockedTies++;
+            }
+        }
+        
+        int noOfTies = notWorse - better - blockedTies;
+        int noOfCombos = sorted.values.length - blocked;
+        return new NutRank(rank, Arrays.copyOf(beatingCombos, noOfBeating), noOfTies, noOfCombos);
+    }
+    
+    /**
+     * Returns the sorted opponent hand values for a board, from the cache or
+     * newly calculated.
+     * 
+     * @param board
+     *            The board.
+     * 
+     * @return The sorted board.
+     */
+    private SortedBoard getSortedBoard(long board) {
+        long mixed = board * 0x9e3779b97f4a7c15L;
+        int slot = (int) ((mixed ^ (mixed >>> 29)) & (cache.length - 1));
+        SortedBoard sorted = cache[slot];
+        if (sorted == null || sorted.board != board) {
+            sorted = new SortedBoard(board);
+            cache[slot] = sorted;
+        }
+        return sorted;
+    }
+    
+    /**
+     * The opponent hand values on a board, sorted from best to worst
+     * (immutable once constructed).
+     */
+    private static class SortedBoard {
+        
+        /** The board. */
+        private final long board;
+        
+        /** The hand values, from best to worst. */
+        private final int[] values;
+        
+        /** The combination indexes, in the order of the values. */
+        private final int[] combos;
+        
+        /** The hand value by combination index (-1 for combinations using board cards). */
+        private final int[] valuesByCombo;
+        
+        /**
+         * Constructor.
+         * 
+         * @param board
+         *            The board.
+         */
+        private SortedBoard(long board) {
+            this.board = board;
+            valuesByCombo = new int[Combos.NO_OF_COMBOS];
+            long[] keys = new long[Combos.NO_OF_COMBOS];
+            int n = 0;
+            for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+                long comboMask = Combos.getMask(combo);
+                if ((comboMask & board) == 0L) {
+                    int value = FastHandEvaluator.evaluate(comboMask | board);
+                    valuesByCombo[combo] = value;
+                    // Sort ascending on the inverted value, so the best hands come first.
+                    keys[n++] = ((long) ~value << COMBO_BITS) | combo;
+                } else {
+                    valuesByCombo[combo] = -1;
+                }
+            }
+            Arrays.sort(keys, 0, n);
+            values = new int[n];
+            combos = new int[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = ~(int) (keys[i] >> COMBO_BITS);
+                combos[i] = (int) keys[i] & ((1 << COMBO_BITS) - 1);
+            }
+        }
+        
+        /**
+         * Returns the number of combinations with a better hand value.
+         * 
+         * @param value
+         *            The hand value.
+         * 
+         * @return The number of combinations.
+         */
+        private int countBetter(int value) {
+            // Binary search for the first value not greater (values are descending).
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] > value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+        
+    }
+    
+}
@@ -18,39 +18,62 @@
 package org.dsaw.poker.engine.bots;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
 import org.dsaw.poker.engine.Player;
 import org.dsaw.poker.engine.TableType;
 import org.dsaw.poker.engine.actions.Action;
-import org.dsaw.poker.engine.actions.BetAction;
-import org.dsaw.poker.engine.actions.RaiseAction;
+import org.dsaw.poker.engine.actions.ActionType;
+import org.dsaw.poker.engine.actions.PackedAction;
+import org.dsaw.poker.engine.analysis.EquityCalculator;
 import org.dsaw.poker.engine.util.PokerUtils;
 
 /**
  * Basic Texas Hold'em poker bot. <br />
  * <br />
  * 
- * The current implementation acts purely on the bot's hole cards, based on the
- * Chen formula, combined with a configurable level of tightness (when to play
- * or fold a hand ) and aggression (how much to bet or raise in case of good
+ * By default the bot acts purely on its hole cards, based on the Chen
+ * formula, combined with a configurable level of tightness (when to play or
+ * fold a hand ) and aggression (how much to bet or raise in case of good
  * cards or when bluffing). <br />
  * <br />
  * 
+ * In equity mode (constructed with a time budget) the bot also tracks the
+ * board, the pot, its own bet and the opponents still in the hand. It
+ * compares its Monte Carlo equity against the remaining opponents with the
+ * pot odds: it calls when the equity exceeds the pot odds by a margin that
+ * grows with the tightness, and bets or raises when the equity exceeds its
+ * fair share of the pot by a margin that shrinks with the aggression. The
+ * equity is cached for the current hole cards, board and number of
+ * opponents, so every decision on the same street refines the previous
+ * estimate within its own time budget. <br />
+ * <br />
+ * 
  * TODO:
  * <ul>
  * <li>Improve basic bot AI</li>
  * <li>bluffing</li>
- * <li>consider board cards</li>
- * <li>consider current bet</li>
- * <li>consider pot</li>
  * </ul>
  * 
  * @author Oscar Stigter
  */
 public class BasicBot extends Bot {
     
+    /** The maximum number of equity samples per street. */
+    private static final int MAX_TRIALS = 20000;
+    
+    /** The number of equity samples between two checks of the time budget. */
+    private static final int BATCH_SIZE = 16;
+    
+    /** The extra equity required to call per point of tightness. */
+    private static final double TIGHTNESS_MARGIN = 0.001;
+    
     /** Tightness (0 = loose, 100 = tight). */
     private final int tightness;
     
@@ -63,6 +86,51 @@ public class BasicBot extends Bot {
     /** The hole cards. */
     private Card[] cards;
     
+    /** The time budget per decision in nanoseconds (0 = Chen formula only). */
+    private final long timeBudget;
+    
+    /** The random generator for the equity samples. */
+    private final SplittableRandom random = new SplittableRandom();
+    
+    /** The bot's player name (learned from its hole cards). */
+    private String name;
+    
+    /** Whether each opponent dealt in is still in the hand, by name. */
+    private final Map<String, Boolean> opponents = new HashMap<>();
+    
+    /** The board. */
+    private long board;
+    
+    /** The total pot. */
+    private BigDecimal pot = BigDecimal.ZERO;
+    
+    /** The bot's bet in the current betting round. */
+    private BigDecimal bet = BigDecimal.ZERO;
+    
+    /** The bot's cash. */
+    private BigDecimal cash = BigDecimal.ZERO;
+    
+    /** The hole cards of the cached equity. */
+    private long cachedCards;
+    
+    /** The board of the cached equity. */
+    private long cachedBoard;
+    
+    /** The number of opponents of the cached equity. */
+    private int cachedOpponents;
+    
+    /** The cached equity. */
+    private double cachedEquity;
+    
+    /** The number of samples of the cached equity. */
+    private int trials;
+    
+    /** Whether a subclass overrides the act method with a set of allowed actions. */
+    private final boolean overridesSetAct = overridesAct(BasicBot.class, Set.class);
+    
+    /** Whether a subclass overrides the act method with a mask of allowed actions. */
+    private final boolean overridesMaskAct = overridesAct(BasicBot.class, int.class);
+    
     /**
      * Constructor.
      * 
@@ -81,6 +149,34 @@ public class BasicBot extends Bot {
         }
         this.tightness = tightness;
         this.aggression = aggression;
+        this.timeBudget = 0L;
+    }
+    
+    /**
+     * Constructor for the equity mode.
+     * 
+     * @param tightness
+     *            The bot's tightness (0 = loose, 100 = tight).
+     * @param aggression
+     *            The bot's aggressiveness in betting (0 = careful, 100 =
+     *            aggressive).
+     * @param timeBudget
+     *            The maximum time per decision in nanoseconds; the first
+     *            batch of samples of a street is always completed.
+     */
+    public BasicBot(int tightness, int aggression, long timeBudget) {
+        if (tightness < 0 || tightness > 100) {
+            throw new IllegalArgumentException("Invalid tightness setting");
+        }
+        if (aggression < 0 || aggression > 100) {
+            throw new IllegalArgumentException("Invalid aggression setting");
+        }
+        if (timeBudget <= 0L) {
+            throw new IllegalArgumentException("Invalid time budget: " + timeBudget);
+        }
+        this.tightness = tightness;
+        this.aggression = aggression;
+        this.timeBudget = timeBudget;
     }
 
     /** {@inheritDoc} */
@@ -99,6 +195,10 @@ public class BasicBot extends Bot {
     @Override
     public void handStarted(Player dealer) {
         cards = null;
+        opponents.clear();
+        board = 0L;
+        bet = BigDecimal.ZERO;
+        trials = 0;
     }
 
     /** {@inheritDoc} */
@@ -110,40 +210,93 @@ public class BasicBot extends Bot {
     /** {@inheritDoc} */
     @Override
     public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
-        // Not implemented.
+        board = CardSet.mask(cards);
+        this.pot = pot;
     }
 
     /** {@inheritDoc} */
     @Override
     public void playerUpdated(Player player) {
-        if (player.getCards().length == NO_OF_HOLE_CARDS) {
+        if (cards == null && player.getCards().length == NO_OF_HOLE_CARDS) {
+            // Only our own hole cards are visible before the showdown.
             this.cards = player.getCards();
+            name = player.getName();
+        }
+        if (player.getName().equals(name)) {
+            bet = player.getBet();
+            cash = player.getCash();
+        } else if (player.hasCards() && !opponents.containsKey(player.getName())) {
+            opponents.put(player.getName(), Boolean.TRUE);
         }
     }
 
     /** {@inheritDoc} */
     @Override
     public void playerActed(Player player) {
-        // Not implemented.
+        if (player.getName().equals(name)) {
+            bet = player.getBet();
+            cash = player.getCash();
+        } else if (player.getPackedAction() == PackedAction.FOLD) {
+            opponents.put(player.getName(), Boolean.FALSE);
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
-        Action action;
-        if (allowedActions.size() == 1) {
+        return PackedAction.toAction(decide(minBet, currentBet, ActionType.mask(allowedActions)));
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public Action act(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+        if (overridesSetAct) {
+            // A subclass deciding on the set of allowed actions.
+            return act(minBet, currentBet, ActionType.toSet(allowedActions));
+        }
+        return PackedAction.toAction(decide(minBet, currentBet, allowedActions));
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public long actPacked(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+        if (overridesSetAct || overridesMaskAct) {
+            // A subclass deciding on an action object.
+            return PackedAction.fromAction(act(minBet, currentBet, allowedActions));
+        }
+        return decide(minBet, currentBet, allowedActions);
+    }
+    
+    /**
+     * Decides on an action.
+     * 
+     * @param minBet
+     *            The minimum bet.
+     * @param currentBet
+     *            The current bet.
+     * @param allowedActions
+     *            The mask of the allowed action types.
+     * 
+     * @return The selected action, packed.
+     */
+    private long decide(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+        if (timeBudget > 0L) {
+            return actOnEquity(minBet, currentBet, allowedActions, nanoTime());
+        }
+        long action;
+        if (ActionType.size(allowedActions) == 1) {
             // No choice, must check.
-            action = Action.CHECK;
+            action = PackedAction.CHECK;
         } else {
             double chenScore = PokerUtils.getChenScore(cards);
             double chenScoreToPlay = tightness * 0.2;
             if ((chenScore < chenScoreToPlay)) {
-                if (allowedActions.contains(Action.CHECK)) {
+                if (ActionType.CHECK.isIn(allowedActions)) {
                     // Always check for free if possible.
-                    action = Action.CHECK;
+                    action = PackedAction.CHECK;
                 } else {
                     // Bad hole cards; play tight.
-                    action = Action.FOLD;
+                    action = PackedAction.FOLD;
                 }
             } else {
                 // Good enough hole cards, play hand.
@@ -151,23 +304,22 @@ public class BasicBot extends Bot {
                     // Very good hole cards; bet or raise!
                     if (aggression == 0) {
                         // Never bet.
-                        if (allowedActions.contains(Action.CALL)) {
-                            action = Action.CALL;
+                        if (ActionType.CALL.isIn(allowedActions)) {
+                            action = PackedAction.CALL;
                         } else {
-                            action = Action.CHECK;
+                            action = PackedAction.CHECK;
                         }
                     } else if (aggression == 100) {
                         // Always go all-in!
-                        //FIXME: Check and bet/raise player's remaining cash.
-                        BigDecimal amount = (tableType == TableType.FIXED_LIMIT) ? minBet : minBet.multiply(BigDecimal.TEN.multiply(BigDecimal.TEN));
-                        if (allowedActions.contains(Action.BET)) {
-                            action = new BetAction(amount);
-                        } else if (allowedActions.contains(Action.RAISE)) {
-                            action = new RaiseAction(amount);
-                        } else if (allowedActions.contains(Action.CALL)) {
-                            action = Action.CALL;
+                        BigDecimal amount = (tableType == TableType.FIXED_LIMIT) ? minBet : capToCash(minBet.multiply(BigDecimal.TEN.multiply(BigDecimal.TEN)));
+                        if (ActionType.BET.isIn(allowedActions)) {
+                            action = PackedAction.bet(amount);
+                        } else if (ActionType.RAISE.isIn(allowedActions)) {
+                            action = PackedAction.raise(amount);
+                        } else if (ActionType.CALL.isIn(allowedActions)) {
+                            action = PackedAction.CALL;
                         } else {
-                            action = Action.CHECK;
+                            action = PackedAction.CHECK;
                         }
                     } else {
                         BigDecimal amount = minBet;
@@ -176,31 +328,32 @@ public class BasicBot extends Bot {
                             for (int i = 0; i < betLevel; i++) {
                                 amount = amount.add(amount);
                             }
+                            amount = capToCash(amount);
                         }
                         if (currentBet.compareTo(amount) < 0) {
-                            if (allowedActions.contains(Action.BET)) {
-                                action = new BetAction(amount);
-                            } else if (allowedActions.contains(Action.RAISE)) {
-                                action = new RaiseAction(amount);
-                            } else if (allowedActions.contains(Action.CALL)) {
-                                action = Action.CALL;
+                            if (ActionType.BET.isIn(allowedActions)) {
+                                action = PackedAction.bet(amount);
+                            } else if (ActionType.RAISE.isIn(allowedActions)) {
+                                action = PackedAction.raise(amount);
+                            } else if (ActionType.CALL.isIn(allowedActions)) {
+                                action = PackedAction.CALL;
                             } else {
-                                action = Action.CHECK;
+                                action = PackedAction.CHECK;
                             }
                         } else {
-                            if (allowedActions.contains(Action.CALL)) {
-                                action = Action.CALL;
+                            if (ActionType.CALL.isIn(allowedActions)) {
+                                action = PackedAction.CALL;
                             } else {
-                                action = Action.CHECK;
+                                action = PackedAction.CHECK;
                             }
                         }
                     }
                 } else {
                     // Decent hole cards; check or call.
-                    if (allowedActions.contains(Action.CHECK)) {
-                        action = Action.CHECK;
+                    if (ActionType.CHECK.isIn(allowedActions)) {
+                        action = PackedAction.CHECK;
                     } else {
-                        action = Action.CALL;
+                        action = PackedAction.CALL;
                     }
                 }
             }
@@ -208,4 +361,133 @@ public class BasicBot extends Bot {
         return action;
     }
     
+    /**
+     * Selects an action in equity mode.
+     * 
+     * @param minBet
+     *            The minimum bet.
+     * @param currentBet
+     *            The current bet.
+     * @param allowedActions
+     *            The mask of the allowed action types.
+     * @param start
+     *            The start time of the decision in nanoseconds.
+     * 
+     * @return The selected action.
+     */
+    private long actOnEquity(BigDecimal minBet, BigDecimal currentBet, int allowedActions, long start) {
+        if (ActionType.size(allowedActions) == 1) {
+            // No choice, must check.
+            return PackedAction.CHECK;
+        }
+        int noOfOpponents = 0;
+        for (Boolean active : opponents.values()) {
+            if (active) {
+                noOfOpponents++;
+            }
+        }
+        noOfOpponents = Math.max(noOfOpponents, 1);
+        double equity = getEquity(noOfOpponents, start + timeBudget);
+        BigDecimal toCall = currentBet.subtract(bet).max(BigDecimal.ZERO);
+        if (cash.signum() > 0) {
+            toCall = toCall.min(cash);
+        }
+        double potOdds = 0.0;
+        if (toCall.signum() > 0) {
+            potOdds = toCall.doubleValue() / (pot.doubleValue() + toCall.doubleValue());
+        }
+        double callEquity = potOdds + tightness * TIGHTNESS_MARGIN;
+        double fairShare = 1.0 / (noOfOpponents + 1);
+        double raiseEquity = Math.max(fairShare + (1.0 - fairShare) * (100 - aggression) / 200.0, callEquity);
+        if (aggression > 0 && equity >= raiseEquity) {
+            // Strong hand; bet or raise for value.
+            BigDecimal amount = minBet;
+            if (tableType == TableType.NO_LIMIT) {
+                BigDecimal potBet = pot.multiply(BigDecimal.valueOf(aggression)).divide(BigDecimal.valueOf(100), minBet.scale(), RoundingMode.DOWN);
+                amount = capToCash(amount.max(potBet));
+            }
+            if (ActionType.BET.isIn(allowedActions)) {
+                return PackedAction.bet(amount);
+            } else if (ActionType.RAISE.isIn(allowedActions)) {
+                return PackedAction.raise(amount);
+            }
+        }
+        if (ActionType.CHECK.isIn(allowedActions)) {
+            return PackedAction.CHECK;
+        } else if (equity >= callEquity) {
+            return PackedAction.CALL;
+        } else {
+            return PackedAction.FOLD;
+        }
+    }
+    
+    /**
+     * Returns the equity against the opponents, refining the cached estimate
+     * with batches of samples until the deadline or the maximum number of
+     * samples. <br />
+     * <br />
+     * 
+     * A batch is only started when it is expected to finish before the
+     * deadline, based on the duration of the previous one.
+     * 
+     * @param noOfOpponents
+     *            The number of opponents still in the hand.
+     * @param deadline
+     *            The deadline in nanoseconds.
+     * 
+     * @return The equity, from 0 to 1.
+     */
+    private double getEquity(int noOfOpponents, long deadline) {
+        long holeCards = CardSet.mask(cards);
+        if (holeCards != cachedCards || board != cachedBoard || noOfOpponents != cachedOpponents) {
+            cachedCards = holeCards;
+            cachedBoard = board;
+            cachedOpponents = noOfOpponents;
+            trials = 0;
+        }
+        long now = nanoTime();
+        long batchTime = 0L;
+        while (trials < MAX_TRIALS && (trials == 0 || now + batchTime - deadline <= 0L)) {
+            double batchEquity = EquityCalculator.getMultiwayEquity(holeCards, board, noOfOpponents, BATCH_SIZE, random);
+            cachedEquity = (cachedEquity * trials + batchEquity * BATCH_SIZE) / (trials + BATCH_SIZE);
+            trials += BATCH_SIZE;
+            long end = nanoTime();
+            batchTime = end - now;
+            now = end;
+        }
+        return cachedEquity;
+    }
+    
+    /**
+     * Caps a no-limit bet or raise at the bot's remaining cash (going
+     * all-in), if known.
+     * 
+     * @param amount
+     *            The amount.
+     * 
+     * @return The capped amount.
+     */
+    private BigDecimal capToCash(BigDecimal amount) {
+        return (cash.signum() > 0) ? amount.min(cash) : amount;
+    }
+    
+    /**
+     * Returns the number of samples of the cached equity.
+     * 
+     * @return The number of samples.
+     */
+    /* package */ int getTrials() {
+        return trials;
+    }
+    
+    /**
+     * Returns the clock the time budget is measured with (overridden by the
+     * tests).
+     * 
+     * @return The time in nanoseconds.
+     */
+    /* package */ long nanoTime() {
+        return System.nanoTime();
+    }
+    
 }
@@ -17,6 +17,7 @@
 
 package org.dsaw.poker.engine.bots;
 
+import java.math.BigDecimal;
 import org.dsaw.poker.engine.Client;
 
 /**
@@ -29,4 +30,31 @@ public abstract class Bot implements Client {
     /** Number of hole cards. */
     protected static final int NO_OF_HOLE_CARDS = 2;
     
+    /**
+     * Indicates whether the class of this bot overrides an act method of a bot
+     * implementation. <br />
+     * <br />
+     * 
+     * The table calls {@link Client#actPacked(BigDecimal, BigDecimal, int)},
+     * which bot implementations override to decide directly. Subclasses
+     * written against the other act methods keep being called, as the
+     * implementations check with this method whether to route their decisions
+     * through these.
+     * 
+     * @param implementation
+     *            The bot implementation.
+     * @param allowedActionsType
+     *            The type of the allowed actions of the act method
+     *            (<code>Set.class</code> or <code>int.class</code>).
+     * 
+     * @return True if overridden, otherwise false.
+     */
+    protected final boolean overridesAct(Class<? extends Bot> implementation, Class<?> allowedActionsType) {
+        try {
+            return getClass().getMethod("act", BigDecimal.class, BigDecimal.class, allowedActionsType).getDeclaringClass() != implementation;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("No act method with allowed actions of type " + allowedActionsType, e);
+        }
+    }
+    
 }
@@ -0,0 +1,289 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.bots;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.TableEventType;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.abstraction.CardAbstraction;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.ActionType;
+import org.dsaw.poker.engine.actions.BetAction;
+import org.dsaw.poker.engine.actions.RaiseAction;
+import org.dsaw.poker.engine.solver.BettingTree;
+import org.dsaw.poker.engine.solver.PolicyFile;
+
+/**
+ * Heads-up Fixed-Limit Texas Hold'em bot playing a solved strategy from a
+ * memory-mapped {@link PolicyFile} (see <code>CfrSolver</code>). <br />
+ * <br />
+ * 
+ * The bot follows the betting history as a node of the policy's
+ * {@link BettingTree}, and computes the card bucket of each street when the
+ * cards change. A decision is then a lookup of the probabilities of the
+ * information set (node and bucket) and a sample with the thread's random
+ * generator, without any allocation. Any number of bots can share one
+ * policy. <br />
+ * <br />
+ * 
+ * When the game leaves the tree (more than two players, or more raises than
+ * the tree's cap), the bot checks or calls for the rest of the hand. When its
+ * raise was called and the table lets it act once more, it checks.
+ */
+public class StrategyBot extends Bot {
+    
+    /** The event types the bot needs. */
+    public static final Set<TableEventType> EVENT_TYPES = Collections.unmodifiableSet(EnumSet.of(TableEventType.JOINED_TABLE,
+            TableEventType.HAND_STARTED, TableEventType.PLAYER_UPDATED, TableEventType.BOARD_UPDATED, TableEventType.PLAYER_ACTED));
+    
+    /** The number of board cards per street. */
+    private static final int[] BOARD_CARDS = {0, 3, 4, 5};
+    
+    /** The policy. */
+    private final PolicyFile policy;
+    
+    /** The betting tree. */
+    private final BettingTree tree;
+    
+    /** The card abstraction. */
+    private final CardAbstraction abstraction;
+    
+    /** The card buckets per street of the current hand. */
+    private final int[] buckets = new int[CardAbstraction.NO_OF_STREETS];
+    
+    /** The name of the bot's player (known once dealt). */
+    private String name;
+    
+    /** The name of the dealer of the current hand. */
+    private String dealerName;
+    
+    /** Whether the table is heads-up. */
+    private boolean headsUp;
+    
+    /** The hole cards (card mask). */
+    private long holeCards;
+    
+    /** The current street. */
+    private int street;
+    
+    /** The current node in the betting tree (-1 if off the tree). */
+    private int node;
+    
+    /** Whether a subclass overrides the act method with a set of allowed actions. */
+    private final boolean overridesSetAct = overridesAct(StrategyBot.class, Set.class);
+    
+    /**
+     * Constructor.
+     * 
+     * @param policy
+     *            The policy.
+     */
+    public StrategyBot(PolicyFile policy) {
+        this.policy = policy;
+        tree = policy.getTree();
+        abstraction = policy.getAbstraction();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void joinedTable(TableType type, BigDecimal bigBlind, List<Player> players) {
+        if (type != TableType.FIXED_LIMIT) {
+            throw new IllegalStateException("Only plays Fixed-Limit");
+        }
+        headsUp = (players.size() == 2);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void messageReceived(String message) {
+        // Not implemented.
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void handStarted(Player dealer) {
+        dealerName = dealer.getName();
+        holeCards = 0L;
+        street = 0;
+        node = headsUp ? 0 : -1;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void actorRotated(Player actor) {
+        // Not implemented.
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void playerUpdated(Player player) {
+        // Only the own player is sent with its cards before the showdown.
+        if (street == 0 && !player.isReadOnly() && player.hasCards()) {
+            name = player.getName();
+            if (holeCards == 0L) {
+                holeCards = player.getCardMask();
+                buckets[0] = abstraction.getBucket(0, holeCards, 0L);
+            }
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
+        int noOfCards = cards.size();
+        int newStreet = street;
+        while (newStreet < CardAbstraction.NO_OF_STREETS - 1 && BOARD_CARDS[newStreet] < noOfCards) {
+            newStreet++;
+        }
+        if (newStreet != street) {
+            street = newStreet;
+            if (node != -1 && tree.getType(node) == BettingTree.DECISION && tree.getStreet(node) < street) {
+                // The table does not announce the call that ends a street.
+                node = tree.getChild(node, BettingTree.CALL);
+                if (tree.getStreet(node) != street) {
+                    node = -1;
+                }
+            }
+            if (holeCards != 0L) {
+                long board = 0L;
+                for (int i = 0; i < noOfCards; i++) {
+                    board |= CardSet.mask(cards.get(i));
+                }
+                buckets[street] = abstraction.getBucket(street, holeCards, board);
+            }
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void playerActed(Player player) {
+        if (node == -1 || player.getName().equals(name)) {
+            return;
+        }
+        Action action = player.getAction();
+        if (action == Action.SMALL_BLIND || action == Action.BIG_BLIND) {
+            return;
+        }
+        boolean raise = (action instanceof BetAction || action instanceof RaiseAction);
+        if (tree.getType(node) != BettingTree.DECISION || tree.getStreet(node) != street) {
+            // The opponent's extra turn after a called raise; checking keeps the tree.
+            if (raise) {
+                node = -1;
+            }
+            return;
+        }
+        int treeAction = raise ? BettingTree.RAISE : ((action == Action.FOLD) ? BettingTree.FOLD : BettingTree.CALL);
+        node = (tree.getPlayer(node) == getPosition()) ? -1 : tree.getChild(node, treeAction);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+        return decide(minBet, currentBet, ActionType.mask(allowedActions));
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public Action act(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+        if (overridesSetAct) {
+            // A subclass deciding on the set of allowed actions.
+            return act(minBet, currentBet, ActionType.toSet(allowedActions));
+        }
+        return decide(minBet, currentBet, allowedActions);
+    }
+    
+    /**
+     * Decides on an action.
+     * 
+     * @param minBet
+     *            The minimum bet.
+     * @param currentBet
+     *            The current bet.
+     * @param allowedActions
+     *            The mask of the allowed action types.
+     * 
+     * @return The selected action.
+     */
+    private Action decide(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+        if (ActionType.size(allowedActions) == 1) {
+            // No choice, must check.
+            return Action.CHECK;
+        }
+        if (node == -1 || tree.getType(node) != BettingTree.DECISION || tree.getStreet(node) != street || tree.getPlayer(node) != getPosition()) {
+            // Off the tree, or an extra turn after a called raise.
+            if (node != -1 && tree.getStreet(node) == street) {
+                node = -1;
+            }
+            return passive(allowedActions);
+        }
+        long infoSet = tree.getInfoSet(node, buckets[street]);
+        float target = ThreadLocalRandom.current().nextFloat();
+        int treeAction = BettingTree.CALL;
+        for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+            if (tree.getChild(node, action) != -1) {
+                treeAction = action;
+                target -= policy.getProbability(infoSet, action);
+                if (target < 0.0f) {
+                    break;
+                }
+            }
+        }
+        node = tree.getChild(node, treeAction);
+        if (treeAction == BettingTree.FOLD) {
+            return Action.FOLD;
+        } else if (treeAction == BettingTree.RAISE) {
+            // The table uses the fixed bet size, whatever the amount.
+            if (ActionType.BET.isIn(allowedActions)) {
+                return Action.BET;
+            } else if (ActionType.RAISE.isIn(allowedActions)) {
+                return Action.RAISE;
+            }
+        }
+        return passive(allowedActions);
+    }
+    
+    /**
+     * Returns the position of the bot in the tree.
+     * 
+     * @return 1 for the dealer, 0 for the big blind.
+     */
+    private int getPosition() {
+        return (dealerName != null && dealerName.equals(name)) ? 1 : 0;
+    }
+    
+    /**
+     * Returns the check or call action.
+     * 
+     * @param allowedActions
+     *            The mask of the allowed action types.
+     * 
+     * @return The action.
+     */
+    private static Action passive(int allowedActions) {
+        return ActionType.CHECK.isIn(allowedActions) ? Action.CHECK : Action.CALL;
+    }
+    
+}
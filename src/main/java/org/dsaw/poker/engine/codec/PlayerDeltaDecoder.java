@@ -0,0 +1,177 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.codec;
+
+import java.nio.ByteBuffer;
+import org.dsaw.poker.engine.CardSet;
+
+/**
+ * Decoder for the player updates encoded by a {@link PlayerDeltaEncoder}. <br />
+ * <br />
+ * 
+ * Keeps the current state of each seat in primitive arrays, to which each
+ * decoded update is applied; it does not allocate.
+ */
+public class PlayerDeltaDecoder {
+    
+    /** The cash per seat, in cents. */
+    private final long[] cash;
+    
+    /** The bet per seat, in cents. */
+    private final long[] bet;
+    
+    /** The action code per seat. */
+    private final int[] actionCode;
+    
+    /** The action amount per seat, in cents. */
+    private final long[] actionAmount;
+    
+    /** The known hole cards per seat. */
+    private final long[] cards;
+    
+    /** Whether the player has hole cards, per seat. */
+    private final boolean[] hasCards;
+    
+    /**
+     * Constructor.
+     */
+    public PlayerDeltaDecoder() {
+        cash = new long[PlayerDeltaEncoder.MAX_SEATS];
+        bet = new long[PlayerDeltaEncoder.MAX_SEATS];
+        actionCode = new int[PlayerDeltaEncoder.MAX_SEATS];
+        actionAmount = new long[PlayerDeltaEncoder.MAX_SEATS];
+        cards = new long[PlayerDeltaEncoder.MAX_SEATS];
+        hasCards = new boolean[PlayerDeltaEncoder.MAX_SEATS];
+    }
+    
+    /**
+     * Decodes a player update and applies it.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The seat of the updated player.
+     * 
+     * @throws IllegalArgumentException
+     *             If the update is malformed.
+     */
+    public int decode(ByteBuffer buffer) {
+        int seat = buffer.get();
+        if (seat < 0 || seat >= PlayerDeltaEncoder.MAX_SEATS) {
+            throw new IllegalArgumentException("Invalid seat: " + seat);
+        }
+        int flags = buffer.get();
+        hasCards[seat] = (flags & PlayerDeltaEncoder.FLAG_HAS_CARDS) != 0;
+        if ((flags & PlayerDeltaEncoder.FLAG_CASH) != 0) {
+            cash[seat] = WireCodec.getVarLong(buffer);
+        }
+        if ((flags & PlayerDeltaEncoder.FLAG_BET) != 0) {
+            bet[seat] = WireCodec.getVarLong(buffer);
+        }
+        if ((flags & PlayerDeltaEncoder.FLAG_ACTION) != 0) {
+            int code = WireCodec.getActionCode(buffer);
+            actionCode[seat] = code;
+            actionAmount[seat] = WireCodec.hasAmount(code) ? WireCodec.getVarLong(buffer) : 0L;
+        }
+        if ((flags & PlayerDeltaEncoder.FLAG_CARDS) != 0) {
+            int count = buffer.get();
+            if (count < 0 || count > 2) {
+                throw new IllegalArgumentException("Invalid number of hole cards: " + count);
+            }
+            long mask = 0L;
+            for (int i = 0; i < count; i++) {
+                mask |= CardSet.mask(WireCodec.getCard(buffer));
+            }
+            cards[seat] = mask;
+        }
+        return seat;
+    }
+    
+    /**
+     * Returns a player's cash.
+     * 
+     * @param seat
+     *            The seat.
+     * 
+     * @return The cash in cents.
+     */
+    public long getCash(int seat) {
+        return cash[seat];
+    }
+    
+    /**
+     * Returns a player's bet.
+     * 
+     * @param seat
+     *            The seat.
+     * 
+     * @return The bet in cents.
+     */
+    public long getBet(int seat) {
+        return bet[seat];
+    }
+    
+    /**
+     * Returns a player's last action code.
+     * 
+     * @param seat
+     *            The seat.
+     * 
+     * @return The action code.
+     */
+    public int getActionCode(int seat) {
+        return actionCode[seat];
+    }
+    
+    /**
+     * Returns the amount of a player's last action.
+     * 
+     * @param seat
+     *            The seat.
+     * 
+     * @return The amount in cents.
+     */
+    public long getActionAmount(int seat) {
+        return actionAmount[seat];
+    }
+    
+    /**
+     * Returns a player's known hole cards.
+     * 
+     * @param seat
+     *            The seat.
+     * 
+     * @return The card mask (0 if not known).
+     */
+    public long getCards(int seat) {
+        return cards[seat];
+    }
+    
+    /**
+     * Indicates whether a player has hole cards.
+     * 
+     * @param seat
+     *            The seat.
+     * 
+     * @return True if having hole cards, otherwise false.
+     */
+    public boolean hasCards(int seat) {
+        return hasCards[seat];
+    }
+    
+}
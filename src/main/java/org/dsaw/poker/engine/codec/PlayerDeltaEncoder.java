@@ -0,0 +1,180 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.actions.PackedAction;
+
+/**
+ * Delta encoder for player updates. <br />
+ * <br />
+ * 
+ * Remembers the last state sent for each seat, and only encodes the fields
+ * that have changed since. An update consists of the seat (byte), a flags
+ * byte (see the <code>FLAG_</code> constants) and the changed fields in flag
+ * order: cash, bet (varint cents), action (see {@link WireCodec#putAction})
+ * and hole cards (count byte followed by the cards). <br />
+ * <br />
+ * 
+ * An encoder is stateful and must be paired with exactly one
+ * {@link PlayerDeltaDecoder}, e.g. one per connection; it does not allocate.
+ */
+public class PlayerDeltaEncoder {
+    
+    /** The maximum number of seats. */
+    public static final int MAX_SEATS = 32;
+    
+    /** Flag indicating the cash has changed. */
+    public static final int FLAG_CASH      = 0x01;
+    
+    /** Flag indicating the bet has changed. */
+    public static final int FLAG_BET       = 0x02;
+    
+    /** Flag indicating the action has changed. */
+    public static final int FLAG_ACTION    = 0x04;
+    
+    /** Flag indicating the (known) hole cards have changed. */
+    public static final int FLAG_CARDS     = 0x08;
+    
+    /** Flag indicating whether the player has hole cards (a value, not a change). */
+    public static final int FLAG_HAS_CARDS = 0x10;
+    
+    /** The last sent cash per seat, in cents (-1 if never sent). */
+    private final long[] cash;
+    
+    /** The last sent bet per seat, in cents. */
+    private final long[] bet;
+    
+    /** The last sent action code per seat. */
+    private final int[] actionCode;
+    
+    /** The last sent action amount per seat, in cents. */
+    private final long[] actionAmount;
+    
+    /** The last sent hole cards per seat. */
+    private final long[] cards;
+    
+    /**
+     * Constructor.
+     */
+    public PlayerDeltaEncoder() {
+        cash = new long[MAX_SEATS];
+        bet = new long[MAX_SEATS];
+        actionCode = new int[MAX_SEATS];
+        actionAmount = new long[MAX_SEATS];
+        cards = new long[MAX_SEATS];
+        reset();
+    }
+    
+    /**
+     * Forgets all sent state, so the next update of each seat is complete.
+     */
+    public void reset() {
+        Arrays.fill(cash, -1L);
+        Arrays.fill(bet, -1L);
+        Arrays.fill(actionCode, -1);
+        Arrays.fill(actionAmount, 0L);
+        Arrays.fill(cards, -1L);
+    }
+    
+    /**
+     * Encodes the update of a player.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param seat
+     *            The player's seat.
+     * @param player
+     *            The player.
+     */
+    public void encode(ByteBuffer buffer, int seat, Player player) {
+        // Packed action codes are the wire's action codes.
+        long action = player.getPackedAction();
+        int code = PackedAction.getCode(action);
+        long amount = PackedAction.getCents(action);
+        encode(buffer, seat, WireCodec.toCents(player.getCash()), WireCodec.toCents(player.getBet()),
+                code, amount, player.getCardMask(), player.hasCards());
+    }
+    
+    /**
+     * Encodes the update of a player given by its primitive state.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param seat
+     *            The player's seat.
+     * @param newCash
+     *            The cash in cents.
+     * @param newBet
+     *            The bet in cents.
+     * @param newActionCode
+     *            The action code.
+     * @param newActionAmount
+     *            The action amount in cents.
+     * @param newCards
+     *            The known hole cards (card mask).
+     * @param hasCards
+     *            Whether the player has hole cards.
+     */
+    public void encode(ByteBuffer buffer, int seat, long newCash, long newBet, int newActionCode,
+            long newActionAmount, long newCards, boolean hasCards) {
+        if (seat < 0 || seat >= MAX_SEATS) {
+            throw new IllegalArgumentException("Invalid seat: " + seat);
+        }
+        int flags = hasCards ? FLAG_HAS_CARDS : 0;
+        if (newCash != cash[seat]) {
+            flags |= FLAG_CASH;
+        }
+        if (newBet != bet[seat]) {
+            flags |= FLAG_BET;
+        }
+        if (newActionCode != actionCode[seat] || newActionAmount != actionAmount[seat]) {
+            flags |= FLAG_ACTION;
+        }
+        if (newCards != cards[seat]) {
+            flags |= FLAG_CARDS;
+        }
+        buffer.put((byte) seat);
+        buffer.put((byte) flags);
+        if ((flags & FLAG_CASH) != 0) {
+            WireCodec.putVarLong(buffer, newCash);
+            cash[seat] = newCash;
+        }
+        if ((flags & FLAG_BET) != 0) {
+            WireCodec.putVarLong(buffer, newBet);
+            bet[seat] = newBet;
+        }
+        if ((flags & FLAG_ACTION) != 0) {
+            WireCodec.putAction(buffer, newActionCode, newActionAmount);
+            actionCode[seat] = newActionCode;
+            actionAmount[seat] = newActionAmount;
+        }
+        if ((flags & FLAG_CARDS) != 0) {
+            long mask = newCards;
+            buffer.put((byte) Long.bitCount(mask));
+            while (mask != 0L) {
+                buffer.put((byte) Long.numberOfTrailingZeros(mask));
+                mask &= mask - 1L;
+            }
+            cards[seat] = newCards;
+        }
+    }
+    
+}
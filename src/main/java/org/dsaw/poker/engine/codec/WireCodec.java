@@ -0,0 +1,527 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.codec;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.BetAction;
+import org.dsaw.poker.engine.actions.RaiseAction;
+
+/**
+ * Compact binary codec for cards, boards, amounts and actions. <br />
+ * <br />
+ * 
+ * The encoding is:
+ * <ul>
+ * <li>card: one byte (its {@link CardSet} index)</li>
+ * <li>board: the 52-bit card mask in 7 bytes (the dealing order is not
+ * preserved)</li>
+ * <li>amount: unsigned variable length integer (7 bits per byte) of the
+ * number of cents</li>
+ * <li>action: action code byte, followed by the amount for bets and raises</li>
+ * </ul>
+ * 
+ * Encoding never allocates; decoding only allocates for amounts (and thus
+ * bets and raises), which can also be decoded as primitive cents instead. <br />
+ * <br />
+ * 
+ * <b>NOTE:</b> This class is implemented with the focus on performance (instead of clean design).
+ */
+public abstract class WireCodec {
+    
+    /** The scale of the encoded amounts (cents). */
+    public static final int AMOUNT_SCALE = 2;
+    
+    /** The number of cents per chip. */
+    public static final long CENTS = 100L;
+    
+    /** The number of bytes of an encoded board. */
+    public static final int BOARD_SIZE = 7;
+    
+    /** The maximum number of bytes of an encoded varint. */
+    public static final int MAX_VARINT_SIZE = 10;
+    
+    // Action codes.
+    
+    /** No action. */
+    public static final int NO_ACTION   = 0;
+    
+    /** Check. */
+    public static final int CHECK       = 1;
+    
+    /** Call. */
+    public static final int CALL        = 2;
+    
+    /** Bet. */
+    public static final int BET         = 3;
+    
+    /** Raise. */
+    public static final int RAISE       = 4;
+    
+    /** Fold. */
+    public static final int FOLD        = 5;
+    
+    /** All-in. */
+    public static final int ALL_IN      = 6;
+    
+    /** Small blind. */
+    public static final int SMALL_BLIND = 7;
+    
+    /** Big blind. */
+    public static final int BIG_BLIND   = 8;
+    
+    /** Continue. */
+    public static final int CONTINUE    = 9;
+    
+    /** The number of action codes. */
+    public static final int NO_OF_ACTION_CODES = 10;
+    
+    /** The actions without amount, by action code. */
+    private static final Action[] ACTIONS = {
+        null, Action.CHECK, Action.CALL, null, null, Action.FOLD,
+        Action.ALL_IN, Action.SMALL_BLIND, Action.BIG_BLIND, Action.CONTINUE
+    };
+    
+    /**
+     * Writes an unsigned variable length integer.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param value
+     *            The (non-negative) value.
+     */
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        if (value < 0L) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        while ((value & ~0x7fL) != 0L) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+    
+    /**
+     * Reads an unsigned variable length integer.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The value.
+     * 
+     * @throws IllegalArgumentException
+     *             If the value is malformed.
+     */
+    public static long getVarLong(ByteBuffer buffer) {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+    
+    /**
+     * Returns the number of bytes of an encoded unsigned variable length
+     * integer.
+     * 
+     * @param value
+     *            The (non-negative) value.
+     * 
+     * @return The number of bytes.
+     */
+    public static int getVarLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7fL) != 0L) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+    
+    /**
+     * Writes a card.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param card
+     *            The card.
+     */
+    public static void putCard(ByteBuffer buffer, Card card) {
+        buffer.put((byte) CardSet.indexOf(card));
+    }
+    
+    /**
+     * Reads a card.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The (shared) card.
+     * 
+     * @throws IllegalArgumentException
+     *             If the card is invalid.
+     */
+    public static Card getCard(ByteBuffer buffer) {
+        int index = buffer.get();
+        if (index < 0 || index >= CardSet.NO_OF_CARDS) {
+            throw new IllegalArgumentException("Invalid card: " + index);
+        }
+        return CardSet.getCard(index);
+    }
+    
+    /**
+     * Writes a board (or any other set of cards) as a card mask.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param cards
+     *            The cards.
+     */
+    public static void putBoard(ByteBuffer buffer, List<Card> cards) {
+        putCardMask(buffer, CardSet.mask(cards));
+    }
+    
+    /**
+     * Writes a card mask.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param mask
+     *            The card mask.
+     */
+    public static void putCardMask(ByteBuffer buffer, long mask) {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            buffer.put((byte) mask);
+            mask >>>= 8;
+        }
+    }
+    
+    /**
+     * Reads a card mask.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The card mask.
+     * 
+     * @throws IllegalArgumentException
+     *             If the mask contains invalid bits.
+     */
+    public static long getCardMask(ByteBuffer buffer) {
+        long mask = 0L;
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            mask |= (buffer.get() & 0xffL) << (8 * i);
+        }
+        if ((mask & ~CardSet.ALL_CARDS) != 0L) {
+            throw new IllegalArgumentException("Invalid card mask");
+        }
+        return mask;
+    }
+    
+    /**
+     * Reads a board into a list of cards.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param cards
+     *            The list to add the (shared) cards to, in index order.
+     */
+    public static void getBoard(ByteBuffer buffer, List<Card> cards) {
+        CardSet.addCards(getCardMask(buffer), cards);
+    }
+    
+    /**
+     * Returns an amount as a number of cents.
+     * 
+     * @param amount
+     *            The (non-negative) amount.
+     * 
+     * @return The number of cents.
+     * 
+     * @throws IllegalArgumentException
+     *             If the amount is not a whole number of cents, or too large.
+     */
+    public static long toCents(BigDecimal amount) {
+        try {
+            if (amount.scale() == 0) {
+                // Whole chips (common case); exact without allocating.
+                return Math.multiplyExact(amount.longValueExact(), CENTS);
+            } else {
+                return amount.movePointRight(AMOUNT_SCALE).setScale(0, RoundingMode.UNNECESSARY).longValueExact();
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount: " + amount, e);
+        }
+    }
+    
+    /**
+     * Returns a number of cents as an amount.
+     * 
+     * @param cents
+     *            The number of cents.
+     * 
+     * @return The amount.
+     */
+    public static BigDecimal fromCents(long cents) {
+        if (cents % CENTS == 0L) {
+            return BigDecimal.valueOf(cents / CENTS);
+        } else {
+            return BigDecimal.valueOf(cents, AMOUNT_SCALE);
+        }
+    }
+    
+    /**
+     * Writes an amount.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param amount
+     *            The amount.
+     */
+    public static void putAmount(ByteBuffer buffer, BigDecimal amount) {
+        putVarLong(buffer, toCents(amount));
+    }
+    
+    /**
+     * Reads an amount.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The amount.
+     */
+    public static BigDecimal getAmount(ByteBuffer buffer) {
+        return fromCents(getVarLong(buffer));
+    }
+    
+    /**
+     * Writes an exact amount of any scale (e.g. in snapshots), unlike
+     * {@link #putAmount}.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param amount
+     *            The amount.
+     */
+    public static void putDecimal(ByteBuffer buffer, BigDecimal amount) {
+        putVarLong(buffer, amount.scale());
+        putVarLong(buffer, amount.unscaledValue().longValueExact());
+    }
+    
+    /**
+     * Reads an exact amount written with {@link #putDecimal}.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The amount.
+     */
+    public static BigDecimal getDecimal(ByteBuffer buffer) {
+        int scale = (int) getVarLong(buffer);
+        return BigDecimal.valueOf(getVarLong(buffer), scale);
+    }
+    
+    /**
+     * Returns the action code of an action.
+     * 
+     * @param action
+     *            The action (may be null).
+     * 
+     * @return The action code.
+     */
+    public static int getActionCode(Action action) {
+        if (action == null) {
+            return NO_ACTION;
+        } else if (action == Action.CHECK) {
+            return CHECK;
+        } else if (action == Action.CALL) {
+            return CALL;
+        } else if (action instanceof BetAction) {
+            return BET;
+        } else if (action instanceof RaiseAction) {
+            return RAISE;
+        } else if (action == Action.FOLD) {
+            return FOLD;
+        } else if (action == Action.ALL_IN) {
+            return ALL_IN;
+        } else if (action == Action.SMALL_BLIND) {
+            return SMALL_BLIND;
+        } else if (action == Action.BIG_BLIND) {
+            return BIG_BLIND;
+        } else if (action == Action.CONTINUE) {
+            return CONTINUE;
+        } else {
+            throw new IllegalArgumentException("Unknown action: " + action);
+        }
+    }
+    
+    /**
+     * Indicates whether actions with a specific code carry an amount.
+     * 
+     * @param code
+     *            The action code.
+     * 
+     * @return True if carrying an amount, otherwise false.
+     */
+    public static boolean hasAmount(int code) {
+        return code == BET || code == RAISE;
+    }
+    
+    /**
+     * Writes an action.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param action
+     *            The action (may be null).
+     */
+    public static void putAction(ByteBuffer buffer, Action action) {
+        int code = getActionCode(action);
+        buffer.put((byte) code);
+        if (hasAmount(code)) {
+            putAmount(buffer, action.getAmount());
+        }
+    }
+    
+    /**
+     * Writes an action given by its action code and amount.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param code
+     *            The action code.
+     * @param cents
+     *            The amount in cents (only written for bets and raises).
+     */
+    public static void putAction(ByteBuffer buffer, int code, long cents) {
+        buffer.put((byte) code);
+        if (hasAmount(code)) {
+            putVarLong(buffer, cents);
+        }
+    }
+    
+    /**
+     * Reads an action code. For bets and raises, it must be followed by
+     * reading the amount with {@link #getVarLong}.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The action code.
+     * 
+     * @throws IllegalArgumentException
+     *             If the action code is invalid.
+     */
+    public static int getActionCode(ByteBuffer buffer) {
+        int code = buffer.get();
+        if (code < 0 || code >= NO_OF_ACTION_CODES) {
+            throw new IllegalArgumentException("Invalid action code: " + code);
+        }
+        return code;
+    }
+    
+    /**
+     * Reads an action.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The action (shared, except for bets and raises), or null for
+     *         {@link #NO_ACTION}.
+     */
+    public static Action getAction(ByteBuffer buffer) {
+        int code = getActionCode(buffer);
+        if (code == BET) {
+            return new BetAction(getAmount(buffer));
+        } else if (code == RAISE) {
+            return new RaiseAction(getAmount(buffer));
+        } else {
+            return ACTIONS[code];
+        }
+    }
+    
+    /**
+     * Returns the action for an action code.
+     * 
+     * @param code
+     *            The action code.
+     * @param amount
+     *            The amount (only used for bets and raises).
+     * 
+     * @return The action, or null for {@link #NO_ACTION}.
+     */
+    public static Action getAction(int code, BigDecimal amount) {
+        if (code == BET) {
+            return new BetAction(amount);
+        } else if (code == RAISE) {
+            return new RaiseAction(amount);
+        } else if (code >= 0 && code < NO_OF_ACTION_CODES) {
+            return ACTIONS[code];
+        } else {
+            throw new IllegalArgumentException("Invalid action code: " + code);
+        }
+    }
+    
+    /**
+     * Writes a string (varint length and UTF-8 bytes). <br />
+     * <br />
+     * 
+     * Unlike the other types, strings are allocated when encoded; they are
+     * only used for names and game messages.
+     * 
+     * @param buffer
+     *            The buffer.
+     * @param s
+     *            The string.
+     */
+    public static void putString(ByteBuffer buffer, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putVarLong(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+    
+    /**
+     * Reads a string.
+     * 
+     * @param buffer
+     *            The buffer.
+     * 
+     * @return The string.
+     */
+    public static String getString(ByteBuffer buffer) {
+        long length = getVarLong(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[(int) length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+}
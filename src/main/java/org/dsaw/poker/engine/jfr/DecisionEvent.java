@@ -0,0 +1,71 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event spanning a client's decision; its duration is the
+ * decision latency.
+ */
+@Name("org.dsaw.poker.engine.Decision")
+@Label("Decision")
+@Category({ HandEvent.CATEGORY, "Table" })
+@Description("A client deciding on an action")
+public class DecisionEvent extends Event {
+    
+    /** The hand number. */
+    @Label("Hand Number")
+    private long handNumber;
+    
+    /** The player's name. */
+    @Label("Player")
+    private String player;
+    
+    /** The action type (null if the client did not act). */
+    @Label("Action")
+    private String action;
+    
+    /** The amount of a bet or raise, in cents. */
+    @Label("Amount (cents)")
+    private long amount;
+    
+    /**
+     * Sets the decision.
+     * 
+     * @param handNumber
+     *            The hand number.
+     * @param player
+     *            The player's name.
+     * @param action
+     *            The action type (null if the client did not act).
+     * @param amount
+     *            The amount of a bet or raise, in cents.
+     */
+    public void set(long handNumber, String player, String action, long amount) {
+        this.handNumber = handNumber;
+        this.player = player;
+        this.action = action;
+        this.amount = amount;
+    }
+    
+}
@@ -0,0 +1,71 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event spanning a bulk evaluation: an equity calculation
+ * or a hand strength calculation, each evaluating many hands.
+ */
+@Name("org.dsaw.poker.engine.Equity")
+@Label("Equity Calculation")
+@Category({ HandEvent.CATEGORY, "Analysis" })
+@Description("A calculation evaluating many hands")
+public class EquityEvent extends Event {
+    
+    /** The calculation. */
+    @Label("Calculation")
+    private String calculation;
+    
+    /** The number of board cards. */
+    @Label("Board Cards")
+    private int boardCards;
+    
+    /** The number of opponents. */
+    @Label("Opponents")
+    private int opponents;
+    
+    /** The number of runouts or samples. */
+    @Label("Trials")
+    private int trials;
+    
+    /**
+     * Sets the calculation.
+     * 
+     * @param calculation
+     *            The calculation.
+     * @param board
+     *            The board.
+     * @param opponents
+     *            The number of opponents.
+     * @param trials
+     *            The number of runouts or samples (0 if exhaustive).
+     */
+    public void set(String calculation, long board, int opponents, int trials) {
+        this.calculation = calculation;
+        this.boardCards = Long.bitCount(board);
+        this.opponents = opponents;
+        this.trials = trials;
+    }
+    
+}
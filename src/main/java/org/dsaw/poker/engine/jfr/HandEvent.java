@@ -0,0 +1,70 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event spanning a hand, from the shuffle to the last
+ * notification.
+ */
+@Name(HandEvent.NAME)
+@Label("Hand")
+@Category({ HandEvent.CATEGORY, "Table" })
+@Description("A hand played at a table")
+public class HandEvent extends Event {
+    
+    /** The root category of the engine's events. */
+    public static final String CATEGORY = "Poker Engine";
+    
+    /** The event's name. */
+    public static final String NAME = "org.dsaw.poker.engine.Hand";
+    
+    /** The hand number. */
+    @Label("Hand Number")
+    private long handNumber;
+    
+    /** The hand seed. */
+    @Label("Seed")
+    private long seed;
+    
+    /** The number of players dealt in. */
+    @Label("Players")
+    private int players;
+    
+    /**
+     * Sets the hand.
+     * 
+     * @param handNumber
+     *            The hand number.
+     * @param seed
+     *            The hand seed.
+     * @param players
+     *            The number of players dealt in.
+     */
+    public void set(long handNumber, long seed, int players) {
+        this.handNumber = handNumber;
+        this.seed = seed;
+        this.players = players;
+    }
+    
+}
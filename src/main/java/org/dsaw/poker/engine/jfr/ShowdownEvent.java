@@ -0,0 +1,64 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event spanning a showdown: evaluating the hands, showing
+ * them and dividing the pot.
+ */
+@Name("org.dsaw.poker.engine.Showdown")
+@Label("Showdown")
+@Category({ HandEvent.CATEGORY, "Table" })
+@Description("The showdown of a hand")
+public class ShowdownEvent extends Event {
+    
+    /** The hand number. */
+    @Label("Hand Number")
+    private long handNumber;
+    
+    /** The number of players at the showdown. */
+    @Label("Players")
+    private int players;
+    
+    /** The number of players showing their hand. */
+    @Label("Shown Hands")
+    private int shownHands;
+    
+    /**
+     * Sets the showdown.
+     * 
+     * @param handNumber
+     *            The hand number.
+     * @param players
+     *            The number of players at the showdown.
+     * @param shownHands
+     *            The number of players showing their hand.
+     */
+    public void set(long handNumber, int players, int shownHands) {
+        this.handNumber = handNumber;
+        this.players = players;
+        this.shownHands = shownHands;
+    }
+    
+}
@@ -0,0 +1,136 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A sink handing the records to another sink on a background thread. <br />
+ * <br />
+ * 
+ * Logging threads never block: when the bounded queue is full, records are
+ * dropped and counted instead. Records the other sink fails to write, and
+ * records written while closing that are not handed over anymore, are
+ * counted as dropped as well.
+ */
+public class AsyncSink implements LogSink {
+    
+    /** The time to wait for a record before checking for closing, in ms. */
+    private static final long POLL_TIMEOUT = 100L;
+    
+    /** The sink the records are handed to. */
+    private final LogSink delegate;
+    
+    /** The queued records. */
+    private final BlockingQueue<LogRecord> queue;
+    
+    /** The number of dropped records. */
+    private final AtomicLong dropped;
+    
+    /** The background thread. */
+    private final Thread thread;
+    
+    /** Whether the sink has been closed. */
+    private volatile boolean closed;
+    
+    /**
+     * Constructor.
+     * 
+     * @param delegate
+     *            The sink to hand the records to.
+     * @param capacity
+     *            The maximum number of queued records.
+     */
+    public AsyncSink(LogSink delegate, int capacity) {
+        this.delegate = delegate;
+        queue = new ArrayBlockingQueue<>(capacity);
+        dropped = new AtomicLong();
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "log-sink");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void write(LogRecord record) {
+        if (closed || !queue.offer(record)) {
+            dropped.incrementAndGet();
+        } else if (closed && queue.remove(record)) {
+            // Closed while queuing; the background thread may have stopped already.
+            dropped.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Returns the number of records dropped because the queue was full, the
+     * sink closed or the other sink failed.
+     * 
+     * @return The number of dropped records.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    /**
+     * Writes the queued records, stops the background thread and closes the
+     * other sink.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Hands the queued records to the other sink until closed.
+     */
+    private void drain() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                LogRecord record = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    try {
+                        delegate.write(record);
+                    } catch (RuntimeException e) {
+                        // Keep handing over the other records.
+                        dropped.incrementAndGet();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stop, dropping the queued records.
+            while (queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+        delegate.close();
+    }
+    
+}
@@ -0,0 +1,61 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.log;
+
+import java.io.PrintStream;
+
+/**
+ * A sink writing one line per record to a console stream. <br />
+ * <br />
+ * 
+ * Writing is synchronous; wrap the sink in an {@link AsyncSink} to keep
+ * the stream's lock off the logging threads.
+ */
+public class ConsoleSink implements LogSink {
+    
+    /** The stream. */
+    private final PrintStream out;
+    
+    /**
+     * Constructor.
+     * 
+     * @param out
+     *            The stream.
+     */
+    public ConsoleSink(PrintStream out) {
+        this.out = out;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void write(LogRecord record) {
+        synchronized (out) {
+            out.println(record);
+            if (record.getThrown() != null) {
+                record.getThrown().printStackTrace(out);
+            }
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        out.flush();
+    }
+    
+}
@@ -0,0 +1,121 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.log;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The entry point of the engine's logging: the loggers, the default level
+ * and the sink all loggers write to. <br />
+ * <br />
+ * 
+ * By default, messages from {@link LogLevel#INFO} up are written to
+ * standard error. Multi-threaded servers should install an
+ * {@link AsyncSink}, so that logging threads do not contend for the console.
+ */
+public abstract class Log {
+    
+    /** The loggers by name. */
+    private static final ConcurrentMap<String, Logger> LOGGERS = new ConcurrentHashMap<>();
+    
+    /** The default level of the loggers. */
+    private static volatile LogLevel defaultLevel = LogLevel.INFO;
+    
+    /** The sink. */
+    private static volatile LogSink sink = new ConsoleSink(System.err);
+    
+    /**
+     * Returns the logger of a class.
+     * 
+     * @param type
+     *            The class.
+     * 
+     * @return The logger.
+     */
+    public static Logger getLogger(Class<?> type) {
+        return getLogger(type.getName());
+    }
+    
+    /**
+     * Returns a logger, creating it if necessary.
+     * 
+     * @param name
+     *            The logger's name.
+     * 
+     * @return The logger.
+     */
+    public static Logger getLogger(String name) {
+        Logger logger = LOGGERS.get(name);
+        if (logger == null) {
+            Logger created = new Logger(name);
+            logger = LOGGERS.putIfAbsent(name, created);
+            if (logger == null) {
+                logger = created;
+            }
+        }
+        return logger;
+    }
+    
+    /**
+     * Returns the default level of the loggers.
+     * 
+     * @return The default level.
+     */
+    public static LogLevel getDefaultLevel() {
+        return defaultLevel;
+    }
+    
+    /**
+     * Sets the default level of the loggers.
+     * 
+     * @param level
+     *            The minimum level to log.
+     */
+    public static void setDefaultLevel(LogLevel level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Null level");
+        }
+        defaultLevel = level;
+    }
+    
+    /**
+     * Returns the sink.
+     * 
+     * @return The sink.
+     */
+    public static LogSink getSink() {
+        return sink;
+    }
+    
+    /**
+     * Sets the sink, closing the previous one.
+     * 
+     * @param sink
+     *            The sink.
+     */
+    public static void setSink(LogSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Null sink");
+        }
+        LogSink previous = Log.sink;
+        Log.sink = sink;
+        previous.close();
+    }
+    
+}
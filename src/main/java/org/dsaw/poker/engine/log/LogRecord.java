@@ -0,0 +1,128 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.log;
+
+/**
+ * A formatted log message with its context.
+ */
+public class LogRecord {
+    
+    /** The time in milliseconds since the epoch. */
+    private final long time;
+    
+    /** The level. */
+    private final LogLevel level;
+    
+    /** The name of the logger. */
+    private final String loggerName;
+    
+    /** The name of the logging thread. */
+    private final String threadName;
+    
+    /** The message. */
+    private final String message;
+    
+    /** The exception, if any. */
+    private final Throwable thrown;
+    
+    /**
+     * Constructor.
+     * 
+     * @param time
+     *            The time in milliseconds since the epoch.
+     * @param level
+     *            The level.
+     * @param loggerName
+     *            The name of the logger.
+     * @param threadName
+     *            The name of the logging thread.
+     * @param message
+     *            The message.
+     * @param thrown
+     *            The exception, or null if none.
+     */
+    public LogRecord(long time, LogLevel level, String loggerName, String threadName, String message, Throwable thrown) {
+        this.time = time;
+        this.level = level;
+        this.loggerName = loggerName;
+        this.threadName = threadName;
+        this.message = message;
+        this.thrown = thrown;
+    }
+    
+    /**
+     * Returns the time.
+     * 
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    /**
+     * Returns the level.
+     * 
+     * @return The level.
+     */
+    public LogLevel getLevel() {
+        return level;
+    }
+    
+    /**
+     * Returns the name of the logger.
+     * 
+     * @return The logger name.
+     */
+    public String getLoggerName() {
+        return loggerName;
+    }
+    
+    /**
+     * Returns the name of the logging thread.
+     * 
+     * @return The thread name.
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+    
+    /**
+     * Returns the message.
+     * 
+     * @return The message.
+     */
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * Returns the exception.
+     * 
+     * @return The exception, or null if none.
+     */
+    public Throwable getThrown() {
+        return thrown;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("%tF %<tT.%<tL %-5s [%s] %s: %s", time, level, threadName, loggerName, message);
+    }
+    
+}
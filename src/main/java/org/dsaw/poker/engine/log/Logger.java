@@ -0,0 +1,286 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.log;
+
+/**
+ * A named, level-gated logger. <br />
+ * <br />
+ * 
+ * Messages with arguments are formatted (see {@link String#format}) only if
+ * the level is enabled, so a disabled message costs a level check; the
+ * overloads with up to two arguments also avoid the varargs array. Messages
+ * without arguments are used as is.
+ */
+public class Logger {
+    
+    /** The name. */
+    private final String name;
+    
+    /** The level of this logger, or null for the default level. */
+    private volatile LogLevel level;
+    
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The name.
+     */
+    /* package */ Logger(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Returns the name.
+     * 
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Sets the level of this logger.
+     * 
+     * @param level
+     *            The minimum level to log, or null for the default level (see
+     *            {@link Log#setDefaultLevel(LogLevel)}).
+     */
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+    
+    /**
+     * Indicates whether messages of a level are logged.
+     * 
+     * @param level
+     *            The level.
+     * 
+     * @return True if logged, otherwise false.
+     */
+    public boolean isEnabled(LogLevel level) {
+        LogLevel threshold = this.level;
+        if (threshold == null) {
+            threshold = Log.getDefaultLevel();
+        }
+        return level.compareTo(threshold) >= 0 && level != LogLevel.OFF;
+    }
+    
+    /**
+     * Logs a message.
+     * 
+     * @param level
+     *            The level.
+     * @param message
+     *            The message.
+     */
+    public void log(LogLevel level, String message) {
+        if (isEnabled(level)) {
+            write(level, message, null);
+        }
+    }
+    
+    /**
+     * Logs a message with one argument.
+     * 
+     * @param level
+     *            The level.
+     * @param format
+     *            The message format.
+     * @param arg
+     *            The argument.
+     */
+    public void log(LogLevel level, String format, Object arg) {
+        if (isEnabled(level)) {
+            write(level, String.format(format, arg), null);
+        }
+    }
+    
+    /**
+     * Logs a message with two arguments.
+     * 
+     * @param level
+     *            The level.
+     * @param format
+     *            The message format.
+     * @param arg1
+     *            The first argument.
+     * @param arg2
+     *            The second argument.
+     */
+    public void log(LogLevel level, String format, Object arg1, Object arg2) {
+        if (isEnabled(level)) {
+            write(level, String.format(format, arg1, arg2), null);
+        }
+    }
+    
+    /**
+     * Logs a message with any number of arguments.
+     * 
+     * @param level
+     *            The level.
+     * @param format
+     *            The message format.
+     * @param args
+     *            The arguments.
+     */
+    public void log(LogLevel level, String format, Object... args) {
+        if (isEnabled(level)) {
+            write(level, String.format(format, args), null);
+        }
+    }
+    
+    /**
+     * Logs a message with an exception.
+     * 
+     * @param level
+     *            The level.
+     * @param message
+     *            The message.
+     * @param thrown
+     *            The exception.
+     */
+    public void log(LogLevel level, String message, Throwable thrown) {
+        if (isEnabled(level)) {
+            write(level, message, thrown);
+        }
+    }
+    
+    /**
+     * Logs a trace message with one argument.
+     * 
+     * @param format
+     *            The message format.
+     * @param arg
+     *            The argument.
+     */
+    public void trace(String format, Object arg) {
+        log(LogLevel.TRACE, format, arg);
+    }
+    
+    /**
+     * Logs a trace message with two arguments.
+     * 
+     * @param format
+     *            The message format.
+     * @param arg1
+     *            The first argument.
+     * @param arg2
+     *            The second argument.
+     */
+    public void trace(String format, Object arg1, Object arg2) {
+        log(LogLevel.TRACE, format, arg1, arg2);
+    }
+    
+    /**
+     * Logs a debug message.
+     * 
+     * @param message
+     *            The message.
+     */
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message);
+    }
+    
+    /**
+     * Logs a debug message with one argument.
+     * 
+     * @param format
+     *            The message format.
+     * @param arg
+     *            The argument.
+     */
+    public void debug(String format, Object arg) {
+        log(LogLevel.DEBUG, format, arg);
+    }
+    
+    /**
+     * Logs a debug message with two arguments.
+     * 
+     * @param format
+     *            The message format.
+     * @param arg1
+     *            The first argument.
+     * @param arg2
+     *            The second argument.
+     */
+    public void debug(String format, Object arg1, Object arg2) {
+        log(LogLevel.DEBUG, format, arg1, arg2);
+    }
+    
+    /**
+     * Logs an info message.
+     * 
+     * @param message
+     *            The message.
+     */
+    public void info(String message) {
+        log(LogLevel.INFO, message);
+    }
+    
+    /**
+     * Logs an info message with one argument.
+     * 
+     * @param format
+     *            The message format.
+     * @param arg
+     *            The argument.
+     */
+    public void info(String format, Object arg) {
+        log(LogLevel.INFO, format, arg);
+    }
+    
+    /**
+     * Logs a warning.
+     * 
+     * @param message
+     *            The message.
+     * @param thrown
+     *            The exception, or null if none.
+     */
+    public void warn(String message, Throwable thrown) {
+        log(LogLevel.WARN, message, thrown);
+    }
+    
+    /**
+     * Logs an error.
+     * 
+     * @param message
+     *            The message.
+     * @param thrown
+     *            The exception, or null if none.
+     */
+    public void error(String message, Throwable thrown) {
+        log(LogLevel.ERROR, message, thrown);
+    }
+    
+    /**
+     * Writes a record to the sink.
+     * 
+     * @param level
+     *            The level.
+     * @param message
+     *            The message.
+     * @param thrown
+     *            The exception, or null if none.
+     */
+    private void write(LogLevel level, String message, Throwable thrown) {
+        Log.getSink().write(new LogRecord(System.currentTimeMillis(), level, name, Thread.currentThread().getName(),
+                message, thrown));
+    }
+    
+}
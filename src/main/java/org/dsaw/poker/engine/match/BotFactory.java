@@ -0,0 +1,50 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.match;
+
+import java.util.Set;
+import org.dsaw.poker.engine.TableEventType;
+import org.dsaw.poker.engine.bots.Bot;
+
+/**
+ * Factory of the instances of a bot in a match, one per table.
+ */
+public interface BotFactory {
+    
+    /**
+     * Returns the bot's name in the results.
+     * 
+     * @return The name.
+     */
+    String getName();
+    
+    /**
+     * Creates a new instance of the bot.
+     * 
+     * @return The bot.
+     */
+    Bot createBot();
+    
+    /**
+     * Returns the event types the bot needs.
+     * 
+     * @return The event types.
+     */
+    Set<TableEventType> getEventTypes();
+    
+}
@@ -0,0 +1,384 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.match;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.dsaw.poker.engine.Client;
+import org.dsaw.poker.engine.HandRecord;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+
+/**
+ * Heads-up match between two bots with duplicate dealing. <br />
+ * <br />
+ * 
+ * The match is played in blocks of hands. Each block is played at two tables
+ * with the same seed, with the bots' seats swapped, so each bot
+ * gets the other's cards and position in the same hands and the luck of the
+ * cards largely cancels out. The stacks are reset before every hand. <br />
+ * <br />
+ * 
+ * Blocks are played in parallel, in waves of one block per thread. After
+ * each wave the match stops when the result is significant (the confidence
+ * interval of the mean winnings excludes zero) or when the maximum number of
+ * hands is reached. Since the result is tested after every wave, the default
+ * confidence is 99% rather than 95%. A match with the same seed and
+ * deterministic bots gives the same result.
+ */
+public class DuplicateMatch {
+    
+    /** The table type. */
+    private final TableType tableType;
+    
+    /** The big blind. */
+    private final BigDecimal bigBlind;
+    
+    /** The first bot. */
+    private final BotFactory bot1;
+    
+    /** The second bot. */
+    private final BotFactory bot2;
+    
+    /** The starting stack per hand in big blinds. */
+    private int stackSize = 200;
+    
+    /** The number of hands per table per block. */
+    private int blockSize = 500;
+    
+    /** The minimum number of hands (both seatings together). */
+    private long minHands = 10000L;
+    
+    /** The maximum number of hands (both seatings together). */
+    private long maxHands = 1000000L;
+    
+    /** The number of standard errors of the confidence interval. */
+    private double z = 2.576;
+    
+    /** The seed of the first block. */
+    private long seed;
+    
+    /** The number of threads. */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * Constructor.
+     * 
+     * @param tableType
+     *            The table type (betting structure).
+     * @param bigBlind
+     *            The big blind.
+     * @param bot1
+     *            The first bot.
+     * @param bot2
+     *            The second bot.
+     */
+    public DuplicateMatch(TableType tableType, BigDecimal bigBlind, BotFactory bot1, BotFactory bot2) {
+        this.tableType = tableType;
+        this.bigBlind = bigBlind;
+        this.bot1 = bot1;
+        this.bot2 = bot2;
+    }
+    
+    /**
+     * Sets the starting stack of every hand.
+     * 
+     * @param stackSize
+     *            The stack in big blinds (default 200).
+     */
+    public void setStackSize(int stackSize) {
+        if (stackSize < 1) {
+            throw new IllegalArgumentException("Invalid stack size: " + stackSize);
+        }
+        this.stackSize = stackSize;
+    }
+    
+    /**
+     * Sets the number of hands per table per block.
+     * 
+     * @param blockSize
+     *            The number of hands (default 500).
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+    
+    /**
+     * Sets the number of hands to play before stopping early.
+     * 
+     * @param minHands
+     *            The minimum number of hands (default 10,000).
+     */
+    public void setMinHands(long minHands) {
+        this.minHands = minHands;
+    }
+    
+    /**
+     * Sets the number of hands after which the match stops.
+     * 
+     * @param maxHands
+     *            The maximum number of hands (default 1,000,000).
+     */
+    public void setMaxHands(long maxHands) {
+        if (maxHands < 1L) {
+            throw new IllegalArgumentException("Invalid maximum number of hands: " + maxHands);
+        }
+        this.maxHands = maxHands;
+    }
+    
+    /**
+     * Sets the confidence level of the confidence interval, as a number of
+     * standard errors.
+     * 
+     * @param z
+     *            The number of standard errors (default 2.576, 99%).
+     */
+    public void setConfidence(double z) {
+        if (z <= 0.0) {
+            throw new IllegalArgumentException("Invalid number of standard errors: " + z);
+        }
+        this.z = z;
+    }
+    
+    /**
+     * Sets the seed of the first block; the following blocks use the next
+     * seeds.
+     * 
+     * @param seed
+     *            The seed (default 0).
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * Sets the number of threads.
+     * 
+     * @param parallelism
+     *            The number of threads (default the number of processors).
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Plays the match.
+     * 
+     * @return The result.
+     * 
+     * @throws InterruptedException
+     *             If interrupted while waiting for the tables.
+     */
+    public MatchResult run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            long maxBlocks = Math.max(maxHands / (2L * blockSize), 1L);
+            long noOfBlocks = 0L;
+            // Welford's online mean and variance of the duplicate hand pairs.
+            long noOfPairs = 0L;
+            double mean = 0.0;
+            double m2 = 0.0;
+            double standardError = 0.0;
+            boolean significant = false;
+            while (noOfBlocks < maxBlocks && !(significant && 2L * noOfPairs >= minHands)) {
+                List<Future<double[]>> futures = new ArrayList<>();
+                for (int i = 0; i < parallelism && noOfBlocks < maxBlocks; i++) {
+                    futures.add(executor.submit(new BlockTask(seed + noOfBlocks)));
+                    noOfBlocks++;
+                }
+                // Merged in block order, so the result does not depend on the timing.
+                for (Future<double[]> future : futures) {
+                    double[] samples;
+                    try {
+                        samples = future.get();
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Match table failed", e.getCause());
+                    }
+                    for (double sample : samples) {
+                        noOfPairs++;
+                        double delta = sample - mean;
+                        mean += delta / noOfPairs;
+                        m2 += delta * (sample - mean);
+                    }
+                }
+                standardError = (noOfPairs > 1L) ? Math.sqrt(m2 / (noOfPairs - 1L) / noOfPairs) : 0.0;
+                significant = Math.abs(mean) > z * standardError;
+            }
+            return new MatchResult(bot1.getName(), bot2.getName(), 2L * noOfPairs, mean, standardError, z);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Plays a block of hands at the two tables of a seed.
+     * 
+     * @param blockSeed
+     *            The seed of both decks.
+     * 
+     * @return The first bot's winnings per duplicate hand pair, in milli big
+     *         blinds per hand.
+     */
+    private double[] playBlock(long blockSeed) {
+        BigDecimal stack = bigBlind.multiply(BigDecimal.valueOf(stackSize));
+        String name1 = getPlayerName1();
+        String name2 = getPlayerName2();
+        Player[] players = new Player[4];
+        Table table1 = new Table(tableType, bigBlind);
+        table1.setSeed(blockSeed);
+        players[0] = new Player(name1, stack, bot1.createBot());
+        players[1] = new Player(name2, stack, bot2.createBot());
+        table1.addPlayer(players[0], bot1.getEventTypes());
+        table1.addPlayer(players[1], bot2.getEventTypes());
+        
+        // Swapped seats, the same cards.
+        Table table2 = new Table(tableType, bigBlind);
+        table2.setSeed(blockSeed);
+        players[2] = new Player(name2, stack, bot2.createBot());
+        players[3] = new Player(name1, stack, bot1.createBot());
+        table2.addPlayer(players[2], bot2.getEventTypes());
+        table2.addPlayer(players[3], bot1.getEventTypes());
+        
+        double scale = 1000.0 / bigBlind.doubleValue();
+        double[] samples = new double[blockSize];
+        for (int hand = 0; hand < blockSize; hand++) {
+            for (Player player : players) {
+                resetStack(player, stack);
+            }
+            playHand(table1);
+            playHand(table2);
+            BigDecimal won = players[0].getCash().subtract(stack).add(players[3].getCash()).subtract(stack);
+            samples[hand] = won.doubleValue() * scale / 2.0;
+        }
+        return samples;
+    }
+    
+    /**
+     * Prepares a table to replay a hand of this match from its record (as
+     * given when a hand fails), with new instances of the bots.
+     * 
+     * @param record
+     *            The hand record.
+     * 
+     * @return The table, ready to play the hand.
+     */
+    public Table prepareReplay(HandRecord record) {
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < record.getNoOfPlayers(); i++) {
+            String name = record.getName(i);
+            if (name.equals(getPlayerName1())) {
+                clients.add(bot1.createBot());
+            } else if (name.equals(getPlayerName2())) {
+                clients.add(bot2.createBot());
+            } else {
+                throw new IllegalArgumentException("Unknown player: " + name);
+            }
+        }
+        return Table.prepareReplay(record, clients);
+    }
+    
+    /**
+     * Returns the first bot's player name.
+     * 
+     * @return The player name.
+     */
+    private String getPlayerName1() {
+        return bot1.getName();
+    }
+    
+    /**
+     * Returns the second bot's player name, which differs from the first
+     * bot's when a bot plays itself.
+     * 
+     * @return The player name.
+     */
+    private String getPlayerName2() {
+        return bot1.getName().equals(bot2.getName()) ? bot2.getName() + " (2)" : bot2.getName();
+    }
+    
+    /**
+     * Plays a hand, adding the hand record to any failure.
+     * 
+     * @param table
+     *            The table.
+     */
+    private static void playHand(Table table) {
+        try {
+            table.playNextHand();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Hand failed (replay: " + table.getHandRecord() + ")", e);
+        }
+    }
+    
+    /**
+     * Resets a player's stack between hands.
+     * 
+     * @param player
+     *            The player.
+     * @param stack
+     *            The stack.
+     */
+    private static void resetStack(Player player, BigDecimal stack) {
+        int compare = player.getCash().compareTo(stack);
+        if (compare < 0) {
+            player.win(stack.subtract(player.getCash()));
+        } else if (compare > 0) {
+            player.payCash(player.getCash().subtract(stack));
+        }
+    }
+    
+    /**
+     * Task playing a block of hands.
+     */
+    private class BlockTask implements Callable<double[]> {
+        
+        /** The seed of the block. */
+        private final long blockSeed;
+        
+        /**
+         * Constructor.
+         * 
+         * @param blockSeed
+         *            The seed of the block.
+         */
+        public BlockTask(long blockSeed) {
+            this.blockSeed = blockSeed;
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public double[] call() {
+            return playBlock(blockSeed);
+        }
+        
+    }
+    
+}
@@ -0,0 +1,150 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.match;
+
+/**
+ * The result of a duplicate match between two bots, from the first bot's
+ * point of view.
+ */
+public class MatchResult {
+    
+    /** The name of the first bot. */
+    private final String name1;
+    
+    /** The name of the second bot. */
+    private final String name2;
+    
+    /** The number of hands played (both seatings together). */
+    private final long hands;
+    
+    /** The first bot's mean winnings in milli big blinds per hand. */
+    private final double mean;
+    
+    /** The standard error of the mean. */
+    private final double standardError;
+    
+    /** The number of standard errors of the confidence interval. */
+    private final double z;
+    
+    /**
+     * Constructor.
+     * 
+     * @param name1
+     *            The name of the first bot.
+     * @param name2
+     *            The name of the second bot.
+     * @param hands
+     *            The number of hands played.
+     * @param mean
+     *            The first bot's mean winnings in milli big blinds per hand.
+     * @param standardError
+     *            The standard error of the mean.
+     * @param z
+     *            The number of standard errors of the confidence interval.
+     */
+    public MatchResult(String name1, String name2, long hands, double mean, double standardError, double z) {
+        this.name1 = name1;
+        this.name2 = name2;
+        this.hands = hands;
+        this.mean = mean;
+        this.standardError = standardError;
+        this.z = z;
+    }
+    
+    /**
+     * Returns the name of the first bot.
+     * 
+     * @return The name.
+     */
+    public String getName1() {
+        return name1;
+    }
+    
+    /**
+     * Returns the name of the second bot.
+     * 
+     * @return The name.
+     */
+    public String getName2() {
+        return name2;
+    }
+    
+    /**
+     * Returns the number of hands played, in both seatings together.
+     * 
+     * @return The number of hands.
+     */
+    public long getHands() {
+        return hands;
+    }
+    
+    /**
+     * Returns the first bot's mean winnings (the second bot's are the
+     * opposite).
+     * 
+     * @return The winnings in milli big blinds per hand.
+     */
+    public double getMean() {
+        return mean;
+    }
+    
+    /**
+     * Returns the standard error of the mean.
+     * 
+     * @return The standard error in milli big blinds per hand.
+     */
+    public double getStandardError() {
+        return standardError;
+    }
+    
+    /**
+     * Returns the lower bound of the confidence interval.
+     * 
+     * @return The lower bound in milli big blinds per hand.
+     */
+    public double getLowerBound() {
+        return mean - z * standardError;
+    }
+    
+    /**
+     * Returns the upper bound of the confidence interval.
+     * 
+     * @return The upper bound in milli big blinds per hand.
+     */
+    public double getUpperBound() {
+        return mean + z * standardError;
+    }
+    
+    /**
+     * Indicates whether the winner is significant, i.e. the confidence
+     * interval excludes zero.
+     * 
+     * @return True if significant, otherwise false.
+     */
+    public boolean isSignificant() {
+        return getLowerBound() > 0.0 || getUpperBound() < 0.0;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("%s vs %s: %+.1f +/- %.1f mbb/hand (%d hands%s)", name1, name2, mean, z * standardError, hands,
+                isSignificant() ? ", significant" : "");
+    }
+    
+}
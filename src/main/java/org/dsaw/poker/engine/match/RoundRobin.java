@@ -0,0 +1,283 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.match;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.dsaw.poker.engine.ClientAdapter;
+import org.dsaw.poker.engine.HandRecord;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableEventType;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.dsaw.poker.engine.bots.Bot;
+
+/**
+ * Round-robin of heads-up {@link DuplicateMatch}es between bots, to tell
+ * whether a change to a bot is an improvement. <br />
+ * <br />
+ * 
+ * Every pair of bots plays one match. All matches use the same seed, so all
+ * bots play the same cards.
+ */
+public class RoundRobin {
+    
+    /** The event types of the <code>BasicBot</code>. */
+    private static final Set<TableEventType> BASIC_BOT_EVENT_TYPES = Collections.unmodifiableSet(EnumSet.of(TableEventType.JOINED_TABLE,
+            TableEventType.HAND_STARTED, TableEventType.PLAYER_UPDATED, TableEventType.BOARD_UPDATED, TableEventType.PLAYER_ACTED));
+    
+    /** The table type. */
+    private final TableType tableType;
+    
+    /** The big blind. */
+    private final BigDecimal bigBlind;
+    
+    /** The bots. */
+    private final List<BotFactory> bots = new ArrayList<>();
+    
+    /** The minimum number of hands per match. */
+    private long minHands = 10000L;
+    
+    /** The maximum number of hands per match. */
+    private long maxHands = 1000000L;
+    
+    /** The seed. */
+    private long seed;
+    
+    /** The number of threads. */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * Constructor.
+     * 
+     * @param tableType
+     *            The table type (betting structure).
+     * @param bigBlind
+     *            The big blind.
+     */
+    public RoundRobin(TableType tableType, BigDecimal bigBlind) {
+        this.tableType = tableType;
+        this.bigBlind = bigBlind;
+    }
+    
+    /**
+     * Adds a bot.
+     * 
+     * @param bot
+     *            The bot.
+     */
+    public void addBot(BotFactory bot) {
+        bots.add(bot);
+    }
+    
+    /**
+     * Sets the number of hands per match before stopping early.
+     * 
+     * @param minHands
+     *            The minimum number of hands (default 10,000).
+     */
+    public void setMinHands(long minHands) {
+        this.minHands = minHands;
+    }
+    
+    /**
+     * Sets the maximum number of hands per match.
+     * 
+     * @param maxHands
+     *            The maximum number of hands (default 1,000,000).
+     */
+    public void setMaxHands(long maxHands) {
+        this.maxHands = maxHands;
+    }
+    
+    /**
+     * Sets the seed of the matches.
+     * 
+     * @param seed
+     *            The seed (default 0).
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * Sets the number of threads per match.
+     * 
+     * @param parallelism
+     *            The number of threads (default the number of processors).
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Plays all matches.
+     * 
+     * @return The results, one per pair of bots.
+     * 
+     * @throws InterruptedException
+     *             If interrupted while waiting for a match.
+     */
+    public List<MatchResult> run() throws InterruptedException {
+        List<MatchResult> results = new ArrayList<>();
+        for (int i = 0; i < bots.size(); i++) {
+            for (int j = i + 1; j < bots.size(); j++) {
+                DuplicateMatch match = new DuplicateMatch(tableType, bigBlind, bots.get(i), bots.get(j));
+                match.setMinHands(minHands);
+                match.setMaxHands(maxHands);
+                match.setSeed(seed);
+                match.setParallelism(parallelism);
+                results.add(match.run());
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Prepares a table to replay a hand of one of the matches from its record
+     * (as given when a hand fails), with new instances of the bots.
+     * 
+     * @param record
+     *            The hand record.
+     * 
+     * @return The table, ready to play the hand.
+     */
+    public Table prepareReplay(HandRecord record) {
+        for (int i = 0; i < bots.size(); i++) {
+            for (int j = i; j < bots.size(); j++) {
+                DuplicateMatch match = new DuplicateMatch(tableType, bigBlind, bots.get(i), bots.get(j));
+                try {
+                    return match.prepareReplay(record);
+                } catch (IllegalArgumentException e) {
+                    // Not this match.
+                }
+            }
+        }
+        throw new IllegalArgumentException("No match with the players of hand record: " + record);
+    }
+    
+    /**
+     * Returns the bot's mean winnings over its matches.
+     * 
+     * @param results
+     *            The match results.
+     * @param name
+     *            The bot's name.
+     * 
+     * @return The mean winnings in milli big blinds per hand.
+     */
+    public static double getMeanWinnings(List<MatchResult> results, String name) {
+        double sum = 0.0;
+        int noOfMatches = 0;
+        for (MatchResult result : results) {
+            if (result.getName1().equals(name)) {
+                sum += result.getMean();
+                noOfMatches++;
+            } else if (result.getName2().equals(name)) {
+                sum -= result.getMean();
+                noOfMatches++;
+            }
+        }
+        return (noOfMatches == 0) ? 0.0 : sum / noOfMatches;
+    }
+    
+    /**
+     * Creates a factory of a <code>BasicBot</code>.
+     * 
+     * @param name
+     *            The name.
+     * @param tightness
+     *            The bot's tightness (0 = loose, 100 = tight).
+     * @param aggression
+     *            The bot's aggressiveness in betting (0 = careful, 100 =
+     *            aggressive).
+     * @param timeBudget
+     *            The time budget per decision in nanoseconds (0 for the Chen
+     *            formula only).
+     * 
+     * @return The factory.
+     */
+    public static BotFactory basicBot(final String name, final int tightness, final int aggression, final long timeBudget) {
+        return new BotFactory() {
+            
+            @Override
+            public String getName() {
+                return name;
+            }
+            
+            @Override
+            public Bot createBot() {
+                return (timeBudget > 0L) ? new BasicBot(tightness, aggression, timeBudget) : new BasicBot(tightness, aggression);
+            }
+            
+            @Override
+            public Set<TableEventType> getEventTypes() {
+                return BASIC_BOT_EVENT_TYPES;
+            }
+            
+        };
+    }
+    
+    /**
+     * Plays a round-robin of a few <code>BasicBot</code> settings, or replays a
+     * single hand of it.
+     * 
+     * @param args
+     *            The maximum number of hands per match (default 100,000), or
+     *            "replay" and a hand record.
+     * 
+     * @throws InterruptedException
+     *             If interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        RoundRobin roundRobin = new RoundRobin(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        List<BotFactory> bots = Arrays.asList(basicBot("Tight", 80, 30, 0L), basicBot("Loose", 20, 70, 0L),
+                basicBot("Equity", 50, 50, 100000L));
+        for (BotFactory bot : bots) {
+            roundRobin.addBot(bot);
+        }
+        if (args.length == 2 && args[0].equals("replay")) {
+            Table table = roundRobin.prepareReplay(HandRecord.parse(args[1]));
+            table.addObserver(new ClientAdapter() {
+                @Override
+                public void messageReceived(String message) {
+                    System.err.println(message);
+                }
+            }, EnumSet.of(TableEventType.MESSAGE));
+            table.playNextHand();
+            return;
+        }
+        roundRobin.setMaxHands((args.length > 0) ? Long.parseLong(args[0]) : 100000L);
+        long startTime = System.currentTimeMillis();
+        List<MatchResult> results = roundRobin.run();
+        long duration = System.currentTimeMillis() - startTime;
+        for (MatchResult result : results) {
+            System.err.println(result);
+        }
+        for (BotFactory bot : bots) {
+            System.err.format("%-10s %+8.1f mbb/hand\n", bot.getName(), getMeanWinnings(results, bot.getName()));
+        }
+        System.err.format("%d matches in %d ms.\n", results.size(), duration);
+    }
+    
+}
@@ -0,0 +1,201 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds. <br />
+ * <br />
+ * 
+ * The buckets are log-linear (as in HdrHistogram): each power of two is split
+ * in {@link #SUB_BUCKETS} linear buckets, so every recorded value is known
+ * within about 3%. Recording is a few atomic increments and never allocates;
+ * reading is a consistent-enough view while recording continues.
+ */
+public class LatencyHistogram {
+    
+    /** The number of bits of the value kept within each power of two. */
+    private static final int SUB_BUCKET_BITS = 5;
+    
+    /** The number of linear buckets within each power of two. */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    /** The number of buckets, covering all non-negative long values. */
+    private static final int NO_OF_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    /** The counts per bucket. */
+    private final AtomicLongArray counts;
+    
+    /** The number of recorded values. */
+    private final LongAdder count;
+    
+    /** The sum of the recorded values. */
+    private final LongAdder sum;
+    
+    /** The largest recorded value. */
+    private final AtomicLong max;
+    
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(NO_OF_BUCKETS);
+        count = new LongAdder();
+        sum = new LongAdder();
+        max = new AtomicLong();
+    }
+    
+    /**
+     * Records a value.
+     * 
+     * @param nanos
+     *            The value in nanoseconds (negative values count as zero).
+     */
+    public void record(long nanos) {
+        if (nanos < 0L) {
+            nanos = 0L;
+        }
+        counts.getAndIncrement(getBucket(nanos));
+        count.increment();
+        sum.add(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+    
+    /**
+     * Returns the number of recorded values.
+     * 
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * Returns the mean of the recorded values.
+     * 
+     * @return The mean in nanoseconds (zero if none).
+     */
+    public double getMean() {
+        long n = count.sum();
+        return (n == 0L) ? 0.0 : (double) sum.sum() / n;
+    }
+    
+    /**
+     * Returns the largest recorded value.
+     * 
+     * @return The maximum in nanoseconds (zero if none).
+     */
+    public long getMax() {
+        return max.get();
+    }
+    
+    /**
+     * Returns the value at a percentile, i.e. the highest value equivalent to
+     * the bucket holding it.
+     * 
+     * @param percentile
+     *            The percentile, from 0 to 100.
+     * 
+     * @return The value in nanoseconds (zero if none).
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        long total = 0L;
+        for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++) {
+            total += counts.get(bucket);
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+        long cumulative = 0L;
+        for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++) {
+            cumulative += counts.get(bucket);
+            if (cumulative >= target) {
+                return Math.min(getHighestValue(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    /**
+     * Clears the histogram. <br />
+     * <br />
+     * 
+     * Values recorded while clearing may be partly lost.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < NO_OF_BUCKETS; bucket++) {
+            counts.set(bucket, 0L);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.0f p50=%d p99=%d max=%d", getCount(), getMean(),
+                getValueAtPercentile(50.0), getValueAtPercentile(99.0), getMax());
+    }
+    
+    /**
+     * Returns the bucket of a value.
+     * 
+     * @param value
+     *            The (non-negative) value.
+     * 
+     * @return The bucket.
+     */
+    /* package */ static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    /**
+     * Returns the highest value of a bucket.
+     * 
+     * @param bucket
+     *            The bucket.
+     * 
+     * @return The highest value.
+     */
+    /* package */ static long getHighestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long lowest = (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1L;
+    }
+    
+}
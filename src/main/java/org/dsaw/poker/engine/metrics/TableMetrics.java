@@ -0,0 +1,323 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The hot-path metrics of a table: hands and decisions per second, per-client
+ * decision latencies, showdown evaluation time and notification fan-out time.
+ * <br />
+ * <br />
+ * 
+ * A table only records metrics once they are set (see
+ * {@link org.dsaw.poker.engine.Table#setMetrics(TableMetrics)}); without
+ * them, the only cost is a null check. Recording is lock-free, so the metrics
+ * can be read (pulled directly or through JMX) while the table plays, and may
+ * be shared by several tables.
+ */
+public class TableMetrics implements TableMetricsMXBean {
+    
+    /** The domain of the JMX object names. */
+    public static final String JMX_DOMAIN = "org.dsaw.poker.engine";
+    
+    /** The number of nanoseconds per microsecond. */
+    private static final double NANOS_PER_MICRO = 1000.0;
+    
+    /** The number of hands played. */
+    private final LongAdder hands;
+    
+    /** The number of client decisions. */
+    private final LongAdder actions;
+    
+    /** The decision latency over all clients. */
+    private final LatencyHistogram decisionLatency;
+    
+    /** The decision latency per client (player name). */
+    private final ConcurrentMap<String, LatencyHistogram> clientLatencies;
+    
+    /** The showdown evaluation time. */
+    private final LatencyHistogram showdownTime;
+    
+    /** The notification fan-out time. */
+    private final LatencyHistogram notificationTime;
+    
+    /** The time of the last reset, in nanoseconds. */
+    private volatile long startTime;
+    
+    /** The name under which the metrics are registered with JMX, if any. */
+    private ObjectName objectName;
+    
+    /**
+     * Constructor.
+     */
+    public TableMetrics() {
+        hands = new LongAdder();
+        actions = new LongAdder();
+        decisionLatency = new LatencyHistogram();
+        clientLatencies = new ConcurrentHashMap<>();
+        showdownTime = new LatencyHistogram();
+        notificationTime = new LatencyHistogram();
+        startTime = System.nanoTime();
+    }
+    
+    /**
+     * Records a played hand.
+     */
+    public void handPlayed() {
+        hands.increment();
+    }
+    
+    /**
+     * Records a client decision.
+     * 
+     * @param name
+     *            The client's (player's) name.
+     * @param nanos
+     *            The time the client took to act, in nanoseconds.
+     */
+    public void clientActed(String name, long nanos) {
+        actions.increment();
+        decisionLatency.record(nanos);
+        getClientLatency(name).record(nanos);
+    }
+    
+    /**
+     * Records the evaluation time of a showdown.
+     * 
+     * @param nanos
+     *            The time in nanoseconds.
+     */
+    public void showdownEvaluated(long nanos) {
+        showdownTime.record(nanos);
+    }
+    
+    /**
+     * Records the time of notifying the clients of an event.
+     * 
+     * @param nanos
+     *            The time in nanoseconds.
+     */
+    public void clientsNotified(long nanos) {
+        notificationTime.record(nanos);
+    }
+    
+    /**
+     * Returns the decision latency over all clients.
+     * 
+     * @return The histogram.
+     */
+    public LatencyHistogram getDecisionLatency() {
+        return decisionLatency;
+    }
+    
+    /**
+     * Returns the decision latency of a single client, creating it if
+     * necessary.
+     * 
+     * @param name
+     *            The client's (player's) name.
+     * 
+     * @return The histogram.
+     */
+    public LatencyHistogram getClientLatency(String name) {
+        LatencyHistogram histogram = clientLatencies.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = clientLatencies.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+    
+    /**
+     * Returns the showdown evaluation time.
+     * 
+     * @return The histogram.
+     */
+    public LatencyHistogram getShowdownTime() {
+        return showdownTime;
+    }
+    
+    /**
+     * Returns the notification fan-out time.
+     * 
+     * @return The histogram.
+     */
+    public LatencyHistogram getNotificationTime() {
+        return notificationTime;
+    }
+    
+    /**
+     * Registers the metrics with the platform MBean server.
+     * 
+     * @param tableName
+     *            The table's name, unique within the JVM.
+     * 
+     * @throws IllegalStateException
+     *             If the metrics could not be registered.
+     */
+    public synchronized void register(String tableName) {
+        if (objectName != null) {
+            throw new IllegalStateException("Already registered as " + objectName);
+        }
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Table,name=" + ObjectName.quote(tableName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics of table " + tableName, e);
+        }
+    }
+    
+    /**
+     * Unregisters the metrics from the platform MBean server, if registered.
+     */
+    public synchronized void unregister() {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // Already gone.
+            }
+            objectName = null;
+        }
+    }
+    
+    /**
+     * Returns the name under which the metrics are registered with JMX.
+     * 
+     * @return The object name, or null if not registered.
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public long getHands() {
+        return hands.sum();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public long getActions() {
+        return actions.sum();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public double getHandsPerSecond() {
+        return getRate(hands.sum());
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public double getActionsPerSecond() {
+        return getRate(actions.sum());
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public double getDecisionP50Micros() {
+        return decisionLatency.getValueAtPercentile(50.0) / NANOS_PER_MICRO;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public double getDecisionP99Micros() {
+        return decisionLatency.getValueAtPercentile(99.0) / NANOS_PER_MICRO;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public double getDecisionMaxMicros() {
+        return decisionLatency.getMax() / NANOS_PER_MICRO;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public double getShowdownP99Micros() {
+        return showdownTime.getValueAtPercentile(99.0) / NANOS_PER_MICRO;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public double getNotificationP99Micros() {
+        return notificationTime.getValueAtPercentile(99.0) / NANOS_PER_MICRO;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String[] getClientNames() {
+        String[] names = clientLatencies.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        return names;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public double getClientDecisionMicros(String name, double percentile) {
+        LatencyHistogram histogram = clientLatencies.get(name);
+        return (histogram == null) ? 0.0 : histogram.getValueAtPercentile(percentile) / NANOS_PER_MICRO;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        hands.reset();
+        actions.reset();
+        decisionLatency.reset();
+        clientLatencies.clear();
+        showdownTime.reset();
+        notificationTime.reset();
+        startTime = System.nanoTime();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("%d hands (%.1f/s), %d actions (%.1f/s), decision [%s], showdown [%s], notification [%s]",
+                getHands(), getHandsPerSecond(), getActions(), getActionsPerSecond(), decisionLatency, showdownTime,
+                notificationTime);
+    }
+    
+    /**
+     * Returns a rate since the last reset.
+     * 
+     * @param count
+     *            The count since the last reset.
+     * 
+     * @return The count per second.
+     */
+    private double getRate(long count) {
+        long elapsed = System.nanoTime() - startTime;
+        return (elapsed <= 0L) ? 0.0 : count * 1e9 / elapsed;
+    }
+    
+}
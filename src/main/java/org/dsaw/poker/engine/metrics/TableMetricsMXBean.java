@@ -0,0 +1,115 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.metrics;
+
+/**
+ * The management interface of the table metrics. <br />
+ * <br />
+ * 
+ * Latencies are in microseconds; rates are per second since the last reset.
+ */
+public interface TableMetricsMXBean {
+    
+    /**
+     * Returns the number of hands played.
+     * 
+     * @return The number of hands.
+     */
+    long getHands();
+    
+    /**
+     * Returns the number of client decisions.
+     * 
+     * @return The number of actions.
+     */
+    long getActions();
+    
+    /**
+     * Returns the hands played per second.
+     * 
+     * @return The rate.
+     */
+    double getHandsPerSecond();
+    
+    /**
+     * Returns the client decisions per second.
+     * 
+     * @return The rate.
+     */
+    double getActionsPerSecond();
+    
+    /**
+     * Returns the median decision latency over all clients.
+     * 
+     * @return The latency in microseconds.
+     */
+    double getDecisionP50Micros();
+    
+    /**
+     * Returns the 99th percentile of the decision latency over all clients.
+     * 
+     * @return The latency in microseconds.
+     */
+    double getDecisionP99Micros();
+    
+    /**
+     * Returns the largest decision latency over all clients.
+     * 
+     * @return The latency in microseconds.
+     */
+    double getDecisionMaxMicros();
+    
+    /**
+     * Returns the 99th percentile of the showdown evaluation time.
+     * 
+     * @return The time in microseconds.
+     */
+    double getShowdownP99Micros();
+    
+    /**
+     * Returns the 99th percentile of the notification fan-out time.
+     * 
+     * @return The time in microseconds.
+     */
+    double getNotificationP99Micros();
+    
+    /**
+     * Returns the names of the clients with a decision latency histogram.
+     * 
+     * @return The names, sorted.
+     */
+    String[] getClientNames();
+    
+    /**
+     * Returns a percentile of the decision latency of a single client.
+     * 
+     * @param name
+     *            The client's (player's) name.
+     * @param percentile
+     *            The percentile, from 0 to 100.
+     * 
+     * @return The latency in microseconds (zero if unknown).
+     */
+    double getClientDecisionMicros(String name, double percentile);
+    
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+    
+}
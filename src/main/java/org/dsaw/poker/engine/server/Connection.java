@@ -0,0 +1,234 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A remote client's network connection to the {@link Server}. <br />
+ * <br />
+ * 
+ * Both the inbound and outbound buffers have a fixed size. Incoming frames
+ * larger than the inbound buffer are rejected, and a client that does not
+ * read its outbound frames fast enough (slow consumer) is disconnected once
+ * its outbound buffer overflows, so a connection never uses more than a
+ * bounded amount of memory. <br />
+ * <br />
+ * 
+ * Reading and flushing is performed by the server's selector thread; frames
+ * may be sent from any thread (typically a table thread).
+ */
+/* package */ class Connection {
+    
+    /** The server. */
+    private final Server server;
+    
+    /** The socket channel. */
+    private final SocketChannel channel;
+    
+    /** The selection key. */
+    private final SelectionKey key;
+    
+    /** The inbound buffer (in write mode). */
+    private final ByteBuffer inbound;
+    
+    /** The outbound buffer (in write mode, guarded by this). */
+    private final ByteBuffer outbound;
+    
+    /** Whether this connection is waiting for its outbound buffer to be flushed. */
+    private final AtomicBoolean flushPending;
+    
+    /** Whether this connection has been closed. */
+    private volatile boolean closed;
+    
+    /** The client of the logged in player (if any). */
+    private volatile RemoteClient client;
+    
+    /**
+     * Constructor.
+     * 
+     * @param server
+     *            The server.
+     * @param channel
+     *            The (non-blocking) socket channel.
+     * @param key
+     *            The selection key.
+     * @param inboundSize
+     *            The size of the inbound buffer.
+     * @param outboundSize
+     *            The size of the outbound buffer.
+     */
+    public Connection(Server server, SocketChannel channel, SelectionKey key, int inboundSize, int outboundSize) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+        inbound = ByteBuffer.allocate(inboundSize);
+        outbound = ByteBuffer.allocate(outboundSize);
+        flushPending = new AtomicBoolean();
+    }
+    
+    /**
+     * Returns the client of the logged in player.
+     * 
+     * @return The client, or null if not logged in.
+     */
+    public RemoteClient getClient() {
+        return client;
+    }
+    
+    /**
+     * Sets the client of the logged in player.
+     * 
+     * @param client
+     *            The client.
+     */
+    public void setClient(RemoteClient client) {
+        this.client = client;
+    }
+    
+    /**
+     * Indicates whether this connection has been closed.
+     * 
+     * @return True if closed, otherwise false.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Queues a frame for sending.
+     * 
+     * @param frame
+     *            The frame (in read mode); its content is copied.
+     * 
+     * @return True if queued, false if the connection is closed or the
+     *         outbound buffer overflowed (which closes the connection).
+     */
+    public boolean send(ByteBuffer frame) {
+        boolean overflow = false;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (outbound.remaining() < frame.remaining()) {
+                overflow = true;
+            } else {
+                outbound.put(frame);
+            }
+        }
+        if (overflow) {
+            close();
+            return false;
+        }
+        if (flushPending.compareAndSet(false, true)) {
+            server.requestFlush(this);
+        }
+        return true;
+    }
+    
+    /**
+     * Reads the available data from the channel and handles all complete
+     * frames. Called from the selector thread only.
+     * 
+     * @throws IOException
+     *             If the channel could not be read, or the client sent an
+     *             invalid frame.
+     */
+    public void read() throws IOException {
+        if (channel.read(inbound) < 0) {
+            close();
+            return;
+        }
+        inbound.flip();
+        while (inbound.remaining() >= Protocol.HEADER_SIZE) {
+            int length = inbound.getShort(inbound.position()) & 0xffff;
+            if (length < 1) {
+                // Every frame has at least an opcode.
+                throw new IOException("Empty frame");
+            }
+            if (length + 2 > inbound.capacity()) {
+                throw new IOException("Frame too large: " + length);
+            }
+            if (inbound.remaining() < length + 2) {
+                // Incomplete frame.
+                break;
+            }
+            int end = inbound.position() + length + 2;
+            int limit = inbound.limit();
+            inbound.position(inbound.position() + 2);
+            inbound.limit(end);
+            server.handleFrame(this, inbound.get(), inbound);
+            inbound.limit(limit);
+            inbound.position(end);
+        }
+        inbound.compact();
+    }
+    
+    /**
+     * Writes as much of the outbound buffer as the channel accepts. Called
+     * from the selector thread only.
+     * 
+     * @throws IOException
+     *             If the channel could not be written.
+     */
+    public void flush() throws IOException {
+        flushPending.set(false);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            outbound.flip();
+            channel.write(outbound);
+            boolean remaining = outbound.hasRemaining();
+            outbound.compact();
+            if (remaining) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            } else {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        }
+    }
+    
+    /**
+     * Closes this connection.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore.
+        }
+        RemoteClient client = this.client;
+        if (client != null) {
+            client.disconnected();
+        }
+        server.connectionClosed(this);
+    }
+    
+}
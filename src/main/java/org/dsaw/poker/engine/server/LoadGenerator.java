@@ -0,0 +1,298 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+import org.dsaw.poker.engine.codec.WireCodec;
+
+/**
+ * Load generator for the {@link Server}. <br />
+ * <br />
+ * 
+ * Opens a large number of connections from a single thread, logs in a
+ * simple bot on each of them (which checks or calls, and occasionally folds)
+ * and reports the throughput every second.
+ */
+public class LoadGenerator {
+    
+    /** The size of a connection's buffers. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    /** The chance (in percent) that a bot folds when it cannot check. */
+    private static final int FOLD_CHANCE = 10;
+    
+    /** The server address. */
+    private final InetSocketAddress address;
+    
+    /** The number of connections. */
+    private final int noOfConnections;
+    
+    /** The random number generator for the bots' decisions. */
+    private final Random random;
+    
+    /** The number of frames received. */
+    private long framesReceived;
+    
+    /** The number of actions sent. */
+    private long actionsSent;
+    
+    /** The number of open connections. */
+    private int openConnections;
+    
+    /**
+     * Constructor.
+     * 
+     * @param address
+     *            The server address.
+     * @param noOfConnections
+     *            The number of connections.
+     */
+    public LoadGenerator(InetSocketAddress address, int noOfConnections) {
+        this.address = address;
+        this.noOfConnections = noOfConnections;
+        random = new Random();
+    }
+    
+    /**
+     * Runs the load test.
+     * 
+     * @param duration
+     *            The duration in milliseconds.
+     * 
+     * @throws IOException
+     *             If the connections could not be opened.
+     */
+    public void run(long duration) throws IOException {
+        Selector selector = Selector.open();
+        for (int i = 0; i < noOfConnections; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            BotConnection connection = new BotConnection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connection.login("Bot-" + i);
+            openConnections++;
+        }
+        
+        long start = System.currentTimeMillis();
+        long nextReport = start + 1000L;
+        long lastFrames = 0L;
+        long lastActions = 0L;
+        while (System.currentTimeMillis() - start < duration && openConnections > 0) {
+            selector.select(100L);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                BotConnection connection = (BotConnection) key.attachment();
+                try {
+                    if (key.isValid() && key.isReadable()) {
+                        connection.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.flush();
+                    }
+                } catch (IOException e) {
+                    connection.close();
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (now >= nextReport) {
+                System.out.format("%d connections, %d frames/s, %d actions/s\n",
+                        openConnections, framesReceived - lastFrames, actionsSent - lastActions);
+                lastFrames = framesReceived;
+                lastActions = actionsSent;
+                nextReport += 1000L;
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((BotConnection) key.attachment()).close();
+        }
+        selector.close();
+        System.out.format("Total: %d frames received, %d actions sent.\n", framesReceived, actionsSent);
+    }
+    
+    /**
+     * The load generator's entry point. <br />
+     * <br />
+     * 
+     * Arguments: [host [port [connections [seconds]]]]
+     * 
+     * @param args
+     *            The command line arguments.
+     * 
+     * @throws IOException
+     *             If the connections could not be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        String host = (args.length > 0) ? args[0] : "localhost";
+        int port = (args.length > 1) ? Integer.parseInt(args[1]) : Protocol.DEFAULT_PORT;
+        int connections = (args.length > 2) ? Integer.parseInt(args[2]) : 1000;
+        int seconds = (args.length > 3) ? Integer.parseInt(args[3]) : 30;
+        new LoadGenerator(new InetSocketAddress(host, port), connections).run(seconds * 1000L);
+    }
+    
+    /**
+     * A single bot connection.
+     */
+    private class BotConnection {
+        
+        /** The socket channel. */
+        private final SocketChannel channel;
+        
+        /** The inbound buffer (in write mode). */
+        private final ByteBuffer inbound;
+        
+        /** The outbound buffer (in write mode). */
+        private final ByteBuffer outbound;
+        
+        /** The selection key. */
+        private SelectionKey key;
+        
+        /** Whether the connection is closed. */
+        private boolean closed;
+        
+        /**
+         * Constructor.
+         * 
+         * @param channel
+         *            The socket channel.
+         */
+        public BotConnection(SocketChannel channel) {
+            this.channel = channel;
+            inbound = ByteBuffer.allocate(BUFFER_SIZE);
+            outbound = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        
+        /**
+         * Logs in.
+         * 
+         * @param name
+         *            The bot's name.
+         * 
+         * @throws IOException
+         *             If the frame could not be sent.
+         */
+        public void login(String name) throws IOException {
+            int start = outbound.position();
+            outbound.putShort((short) 0);
+            outbound.put(Protocol.LOGIN);
+            WireCodec.putString(outbound, name);
+            outbound.putShort(start, (short) (outbound.position() - start - 2));
+            flush();
+        }
+        
+        /**
+         * Reads and handles all complete frames.
+         * 
+         * @throws IOException
+         *             If the channel could not be read.
+         */
+        public void read() throws IOException {
+            if (channel.read(inbound) < 0) {
+                close();
+                return;
+            }
+            inbound.flip();
+            while (inbound.remaining() >= Protocol.HEADER_SIZE) {
+                int length = inbound.getShort(inbound.position()) & 0xffff;
+                if (inbound.remaining() < length + 2) {
+                    break;
+                }
+                int end = inbound.position() + length + 2;
+                byte opcode = inbound.get(inbound.position() + 2);
+                framesReceived++;
+                if (opcode == Protocol.ACT_REQUEST) {
+                    // Payload: min. bet, current bet, allowed actions.
+                    inbound.position(inbound.position() + Protocol.HEADER_SIZE);
+                    WireCodec.getVarLong(inbound);
+                    WireCodec.getVarLong(inbound);
+                    act(inbound.get());
+                }
+                inbound.position(end);
+            }
+            inbound.compact();
+        }
+        
+        /**
+         * Selects and sends an action.
+         * 
+         * @param allowed
+         *            The allowed actions (mask of action codes).
+         * 
+         * @throws IOException
+         *             If the frame could not be sent.
+         */
+        private void act(int allowed) throws IOException {
+            int code;
+            if ((allowed & (1 << WireCodec.CHECK)) != 0) {
+                code = WireCodec.CHECK;
+            } else if (random.nextInt(100) < FOLD_CHANCE || (allowed & (1 << WireCodec.CALL)) == 0) {
+                code = WireCodec.FOLD;
+            } else {
+                code = WireCodec.CALL;
+            }
+            outbound.putShort((short) 2);
+            outbound.put(Protocol.ACTION);
+            WireCodec.putAction(outbound, code, 0L);
+            actionsSent++;
+            flush();
+        }
+        
+        /**
+         * Writes as much of the outbound buffer as possible.
+         * 
+         * @throws IOException
+         *             If the channel could not be written.
+         */
+        public void flush() throws IOException {
+            outbound.flip();
+            channel.write(outbound);
+            boolean remaining = outbound.hasRemaining();
+            outbound.compact();
+            if (key != null) {
+                key.interestOps(remaining ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+        
+        /**
+         * Closes the connection.
+         */
+        public void close() {
+            if (!closed) {
+                closed = true;
+                openConnections--;
+                key.cancel();
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Ignore.
+                }
+            }
+        }
+        
+    }
+    
+}
@@ -0,0 +1,145 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.server;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.ActionType;
+import org.dsaw.poker.engine.codec.PlayerDeltaEncoder;
+import org.dsaw.poker.engine.codec.WireCodec;
+
+/**
+ * The binary wire protocol between the {@link Server} and its remote clients. <br />
+ * <br />
+ * 
+ * Each frame consists of an unsigned 16-bit length (of the rest of the
+ * frame), a single opcode byte and the opcode specific payload. Players are
+ * referred to by their seat number, as announced in the
+ * {@link #JOINED_TABLE} frame. Cards, boards, amounts, actions and strings
+ * are encoded by the {@link WireCodec}, and player updates are delta encoded
+ * per connection by a {@link PlayerDeltaEncoder}.
+ */
+public abstract class Protocol {
+    
+    /** The default port. */
+    public static final int DEFAULT_PORT = 4747;
+    
+    /** The size of the frame header (length and opcode). */
+    public static final int HEADER_SIZE = 3;
+    
+    /** The maximum size of a frame. */
+    public static final int MAX_FRAME_SIZE = 0xffff + 2;
+    
+    // Client-to-server opcodes.
+    
+    /** Log in: name. */
+    public static final byte LOGIN          = 0x01;
+    
+    /** The requested action: action. */
+    public static final byte ACTION         = 0x02;
+    
+    // Server-to-client opcodes.
+    
+    /** Game message: message. */
+    public static final byte MESSAGE        = 0x10;
+    
+    /** Joined a table: table type (byte), big blind, own seat (byte), no. of players (byte), per player name and cash. */
+    public static final byte JOINED_TABLE   = 0x11;
+    
+    /** Hand started: dealer seat (byte). */
+    public static final byte HAND_STARTED   = 0x12;
+    
+    /** Actor rotated: actor seat (byte). */
+    public static final byte ACTOR_ROTATED  = 0x13;
+    
+    /** Player updated: player delta. */
+    public static final byte PLAYER_UPDATED = 0x14;
+    
+    /** Board updated: board, bet, pot. */
+    public static final byte BOARD_UPDATED  = 0x15;
+    
+    /** Player acted: player delta. */
+    public static final byte PLAYER_ACTED   = 0x16;
+    
+    /** Request to act: min. bet, current bet, allowed actions (byte mask). */
+    public static final byte ACT_REQUEST    = 0x17;
+    
+    /**
+     * Returns the allowed actions as a bit mask of {@link WireCodec} action
+     * codes.
+     * 
+     * @param allowedActions
+     *            The allowed actions.
+     * 
+     * @return The bit mask.
+     */
+    public static int getActionMask(Set<Action> allowedActions) {
+        int mask = 0;
+        for (Action action : allowedActions) {
+            mask |= 1 << WireCodec.getActionCode(action);
+        }
+        return mask;
+    }
+    
+    /**
+     * Returns the allowed actions as a bit mask of {@link WireCodec} action
+     * codes.
+     * 
+     * @param allowedActions
+     *            The mask of the allowed action types.
+     * 
+     * @return The bit mask.
+     */
+    public static int getActionMask(int allowedActions) {
+        int mask = 0;
+        for (ActionType type : ActionType.values()) {
+            if (type.isIn(allowedActions)) {
+                mask |= 1 << WireCodec.getActionCode(type.getAction());
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Starts a frame.
+     * 
+     * @param buffer
+     *            The (cleared) frame buffer.
+     * @param opcode
+     *            The opcode.
+     */
+    public static void beginFrame(ByteBuffer buffer, byte opcode) {
+        buffer.clear();
+        buffer.putShort((short) 0);
+        buffer.put(opcode);
+    }
+    
+    /**
+     * Completes a frame by filling in its length, and flips the buffer for
+     * sending.
+     * 
+     * @param buffer
+     *            The frame buffer.
+     */
+    public static void endFrame(ByteBuffer buffer) {
+        buffer.putShort(0, (short) (buffer.position() - 2));
+        buffer.flip();
+    }
+    
+}
@@ -0,0 +1,341 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.server;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.Client;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.ActionType;
+import org.dsaw.poker.engine.actions.BetAction;
+import org.dsaw.poker.engine.actions.RaiseAction;
+import org.dsaw.poker.engine.codec.PlayerDeltaEncoder;
+import org.dsaw.poker.engine.codec.WireCodec;
+
+/**
+ * Proxy for a client connected to the {@link Server}. <br />
+ * <br />
+ * 
+ * Translates the table events into {@link Protocol} frames, and waits for the
+ * remote client's response when asked to act. A remote client that does not
+ * respond in time, or has disconnected, checks when possible and otherwise
+ * folds. Actions received from the network are validated, so a broken or
+ * malicious client can never stall or break the table.
+ */
+public class RemoteClient implements Client {
+    
+    /** The size of the frame buffer. */
+    private static final int FRAME_BUFFER_SIZE = 4096;
+    
+    /** The connection. */
+    private final Connection connection;
+    
+    /** The player's name. */
+    private final String name;
+    
+    /** The maximum time to wait for the client to act, in milliseconds. */
+    private final long actTimeout;
+    
+    /** The frame buffer, only used by the table thread. */
+    private final ByteBuffer frame;
+    
+    /** The seats of the players at the table, by player key (see {@link Player#getKey()}). */
+    private final Map<Object, Integer> seats;
+    
+    /** The key of the seated player, or null if not seated. */
+    private volatile Object playerKey;
+    
+    /** The delta encoder for the player updates, only used by the table thread. */
+    private final PlayerDeltaEncoder playerEncoder;
+    
+    /** The action received from the remote client. */
+    private final BlockingQueue<Action> actions;
+    
+    /** The player's current amount of cash. */
+    private BigDecimal cash;
+    
+    /**
+     * Constructor.
+     * 
+     * @param connection
+     *            The connection.
+     * @param name
+     *            The player's name.
+     * @param actTimeout
+     *            The maximum time to wait for the client to act, in
+     *            milliseconds.
+     */
+    /* package */ RemoteClient(Connection connection, String name, long actTimeout) {
+        this.connection = connection;
+        this.name = name;
+        this.actTimeout = actTimeout;
+        frame = ByteBuffer.allocate(FRAME_BUFFER_SIZE);
+        seats = new HashMap<>();
+        playerEncoder = new PlayerDeltaEncoder();
+        actions = new ArrayBlockingQueue<>(1);
+        cash = BigDecimal.ZERO;
+    }
+    
+    /**
+     * Returns the player's name.
+     * 
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Seats the remote client as a player at a new table.
+     * 
+     * @param player
+     *            The player.
+     */
+    /* package */ void seated(Player player) {
+        playerKey = player.getKey();
+    }
+    
+    /**
+     * Indicates whether the remote client is still connected.
+     * 
+     * @return True if connected, otherwise false.
+     */
+    public boolean isConnected() {
+        return !connection.isClosed();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void messageReceived(String message) {
+        Protocol.beginFrame(frame, Protocol.MESSAGE);
+        WireCodec.putString(frame, message);
+        send();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void joinedTable(TableType type, BigDecimal bigBlind, List<Player> players) {
+        seats.clear();
+        playerEncoder.reset();
+        for (int i = 0; i < players.size(); i++) {
+            seats.put(players.get(i).getKey(), i);
+        }
+        Protocol.beginFrame(frame, Protocol.JOINED_TABLE);
+        frame.put((byte) type.ordinal());
+        WireCodec.putAmount(frame, bigBlind);
+        frame.put((byte) getSeat(playerKey, name));
+        frame.put((byte) players.size());
+        for (Player player : players) {
+            WireCodec.putString(frame, player.getName());
+            WireCodec.putAmount(frame, player.getCash());
+        }
+        send();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handStarted(Player dealer) {
+        Protocol.beginFrame(frame, Protocol.HAND_STARTED);
+        frame.put((byte) getSeat(dealer));
+        send();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void actorRotated(Player actor) {
+        Protocol.beginFrame(frame, Protocol.ACTOR_ROTATED);
+        frame.put((byte) getSeat(actor));
+        send();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void playerUpdated(Player player) {
+        sendPlayer(Protocol.PLAYER_UPDATED, player);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
+        Protocol.beginFrame(frame, Protocol.BOARD_UPDATED);
+        WireCodec.putBoard(frame, cards);
+        WireCodec.putAmount(frame, bet);
+        WireCodec.putAmount(frame, pot);
+        send();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void playerActed(Player player) {
+        sendPlayer(Protocol.PLAYER_ACTED, player);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+        return act(minBet, currentBet, ActionType.mask(allowedActions));
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public Action act(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+        Action defaultAction = ActionType.CHECK.isIn(allowedActions) ? Action.CHECK : Action.FOLD;
+        actions.clear();
+        Protocol.beginFrame(frame, Protocol.ACT_REQUEST);
+        WireCodec.putAmount(frame, minBet);
+        WireCodec.putAmount(frame, currentBet);
+        frame.put((byte) Protocol.getActionMask(allowedActions));
+        if (!send()) {
+            return defaultAction;
+        }
+        Action action;
+        try {
+            action = actions.poll(actTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            action = null;
+        }
+        if (action == null) {
+            // Timeout or disconnected.
+            return defaultAction;
+        }
+        if (action instanceof BetAction) {
+            if (!ActionType.BET.isIn(allowedActions)) {
+                return defaultAction;
+            }
+            return new BetAction(clampAmount(action.getAmount(), minBet));
+        } else if (action instanceof RaiseAction) {
+            if (!ActionType.RAISE.isIn(allowedActions)) {
+                return defaultAction;
+            }
+            return new RaiseAction(clampAmount(action.getAmount(), minBet));
+        } else if (action.getType().isIn(allowedActions)) {
+            return action;
+        } else {
+            return defaultAction;
+        }
+    }
+    
+    /**
+     * Handles an action received from the remote client. Called from the
+     * selector thread.
+     * 
+     * @param action
+     *            The action.
+     */
+    /* package */ void actionReceived(Action action) {
+        // Only the first response counts; any unsolicited actions are dropped.
+        actions.offer(action);
+    }
+    
+    /**
+     * Handles the disconnection of the remote client.
+     */
+    /* package */ void disconnected() {
+        actions.offer(Action.FOLD);
+    }
+    
+    /**
+     * Clamps a bet or raise amount between the minimum bet and the player's
+     * cash.
+     * 
+     * @param amount
+     *            The requested amount.
+     * @param minBet
+     *            The minimum bet.
+     * 
+     * @return The clamped amount.
+     */
+    private BigDecimal clampAmount(BigDecimal amount, BigDecimal minBet) {
+        if (amount.compareTo(minBet) < 0) {
+            amount = minBet;
+        }
+        if (amount.compareTo(cash) > 0 && cash.signum() > 0) {
+            amount = cash;
+        }
+        return amount;
+    }
+    
+    /**
+     * Sends a player state frame.
+     * 
+     * @param opcode
+     *            The opcode.
+     * @param player
+     *            The player.
+     */
+    private void sendPlayer(byte opcode, Player player) {
+        if (player.getKey() == playerKey) {
+            cash = player.getCash();
+        }
+        Protocol.beginFrame(frame, opcode);
+        playerEncoder.encode(frame, getSeat(player), player);
+        send();
+    }
+    
+    /**
+     * Returns the seat of a player.
+     * 
+     * @param player
+     *            The player.
+     * 
+     * @return The seat.
+     */
+    private int getSeat(Player player) {
+        return getSeat(player.getKey(), player.getName());
+    }
+    
+    /**
+     * Returns the seat of a player.
+     * 
+     * @param key
+     *            The player's key.
+     * @param playerName
+     *            The player's name.
+     * 
+     * @return The seat.
+     */
+    private int getSeat(Object key, String playerName) {
+        Integer seat = seats.get(key);
+        if (seat == null) {
+            throw new IllegalStateException(String.format("Player '%s' is not seated", playerName));
+        }
+        return seat;
+    }
+    
+    /**
+     * Completes and sends the current frame.
+     * 
+     * @return True if sent, otherwise false.
+     */
+    private boolean send() {
+        Protocol.endFrame(frame);
+        return connection.send(frame);
+    }
+    
+}
@@ -0,0 +1,519 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.server;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.codec.WireCodec;
+import org.dsaw.poker.engine.log.Log;
+import org.dsaw.poker.engine.log.Logger;
+
+/**
+ * Non-blocking game server hosting many tables for remote clients. <br />
+ * <br />
+ * 
+ * A single selector thread accepts the connections, reads the incoming
+ * frames and flushes the outbound buffers of all connections, so thousands
+ * of idle or slow connections cost no threads. Each {@link Table} runs in its
+ * own thread, in which the seated players are represented by
+ * {@link RemoteClient} proxies. <br />
+ * <br />
+ * 
+ * A client logs in with a unique name and waits until enough players have
+ * logged in to fill a table. When a table's game is over, its still connected
+ * players are queued for the next table.
+ */
+public class Server {
+    
+    /** The logger. */
+    private static final Logger LOG = Log.getLogger(Server.class);
+    
+    /** The default size of a connection's inbound buffer. */
+    public static final int DEFAULT_INBOUND_SIZE = 512;
+    
+    /** The default size of a connection's outbound buffer. */
+    public static final int DEFAULT_OUTBOUND_SIZE = 64 * 1024;
+    
+    /** The default time a client is given to act, in milliseconds. */
+    public static final long DEFAULT_ACT_TIMEOUT = 30000L;
+    
+    /** The valid player names (letters, digits, spaces, '.', '_' and '-'). */
+    private static final Pattern NAME_PATTERN = Pattern.compile("[\\p{L}\\p{N}][\\p{L}\\p{N} ._-]{0,31}");
+    
+    /** The port to listen on (0 for any free port). */
+    private final int port;
+    
+    /** The table type. */
+    private final TableType tableType;
+    
+    /** The big blind. */
+    private final BigDecimal bigBlind;
+    
+    /** The starting cash per player. */
+    private final BigDecimal startingCash;
+    
+    /** The number of players per table. */
+    private final int playersPerTable;
+    
+    /** The size of a connection's inbound buffer. */
+    private int inboundSize = DEFAULT_INBOUND_SIZE;
+    
+    /** The size of a connection's outbound buffer. */
+    private int outboundSize = DEFAULT_OUTBOUND_SIZE;
+    
+    /** The time a client is given to act, in milliseconds. */
+    private long actTimeout = DEFAULT_ACT_TIMEOUT;
+    
+    /** The connections waiting to be flushed by the selector thread. */
+    private final Queue<Connection> flushQueue;
+    
+    /** The names of the logged in players. */
+    private final Set<String> names;
+    
+    /** The logged in players waiting for a table (selector thread only). */
+    private final List<RemoteClient> waitingClients;
+    
+    /** The players re-queued by finished tables. */
+    private final Queue<RemoteClient> requeuedClients;
+    
+    /** The number of open connections. */
+    private final AtomicInteger connectionCount;
+    
+    /** The number of running tables. */
+    private final AtomicInteger tableCount;
+    
+    /** The executor running the tables. */
+    private ExecutorService tableExecutor;
+    
+    /** The selector. */
+    private Selector selector;
+    
+    /** The server socket channel. */
+    private ServerSocketChannel serverChannel;
+    
+    /** The selector thread. */
+    private Thread selectorThread;
+    
+    /** Whether the server is running. */
+    private volatile boolean running;
+    
+    /**
+     * Constructor.
+     * 
+     * @param port
+     *            The port to listen on (0 for any free port).
+     * @param tableType
+     *            The table type.
+     * @param bigBlind
+     *            The big blind.
+     * @param startingCash
+     *            The starting cash per player.
+     * @param playersPerTable
+     *            The number of players per table.
+     */
+    public Server(int port, TableType tableType, BigDecimal bigBlind, BigDecimal startingCash, int playersPerTable) {
+        if (playersPerTable < 2 || playersPerTable > 10) {
+            throw new IllegalArgumentException("Invalid number of players per table");
+        }
+        this.port = port;
+        this.tableType = tableType;
+        this.bigBlind = bigBlind;
+        this.startingCash = startingCash;
+        this.playersPerTable = playersPerTable;
+        flushQueue = new ConcurrentLinkedQueue<>();
+        names = ConcurrentHashMap.newKeySet();
+        waitingClients = new ArrayList<>();
+        requeuedClients = new ConcurrentLinkedQueue<>();
+        connectionCount = new AtomicInteger();
+        tableCount = new AtomicInteger();
+    }
+    
+    /**
+     * Sets the sizes of the per-connection buffers.
+     * 
+     * @param inboundSize
+     *            The size of the inbound buffer.
+     * @param outboundSize
+     *            The size of the outbound buffer.
+     */
+    public void setBufferSizes(int inboundSize, int outboundSize) {
+        if (inboundSize < Protocol.HEADER_SIZE || outboundSize < Protocol.HEADER_SIZE) {
+            throw new IllegalArgumentException("Buffer size too small");
+        }
+        this.inboundSize = inboundSize;
+        this.outboundSize = outboundSize;
+    }
+    
+    /**
+     * Sets the time a client is given to act.
+     * 
+     * @param actTimeout
+     *            The timeout in milliseconds.
+     */
+    public void setActTimeout(long actTimeout) {
+        this.actTimeout = actTimeout;
+    }
+    
+    /**
+     * Starts the server.
+     * 
+     * @throws IOException
+     *             If the server socket could not be opened.
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            throw new IllegalStateException("Server already running");
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        tableExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Table-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        running = true;
+        selectorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                selectLoop();
+            }
+        }, "Server-Selector");
+        selectorThread.start();
+    }
+    
+    /**
+     * Stops the server, closing all connections.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tableExecutor.shutdownNow();
+    }
+    
+    /**
+     * Returns the port the server listens on.
+     * 
+     * @return The port.
+     */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new IllegalStateException("Server not running", e);
+        }
+    }
+    
+    /**
+     * Returns the number of open connections.
+     * 
+     * @return The number of connections.
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+    
+    /**
+     * Returns the number of running tables.
+     * 
+     * @return The number of tables.
+     */
+    public int getTableCount() {
+        return tableCount.get();
+    }
+    
+    /**
+     * Requests a connection's outbound buffer to be flushed by the selector
+     * thread.
+     * 
+     * @param connection
+     *            The connection.
+     */
+    /* package */ void requestFlush(Connection connection) {
+        flushQueue.add(connection);
+        selector.wakeup();
+    }
+    
+    /**
+     * Handles the closing of a connection.
+     * 
+     * @param connection
+     *            The connection.
+     */
+    /* package */ void connectionClosed(Connection connection) {
+        RemoteClient client = connection.getClient();
+        if (client != null) {
+            names.remove(client.getName());
+        }
+        connectionCount.decrementAndGet();
+    }
+    
+    /**
+     * Handles an incoming frame. Called from the selector thread.
+     * 
+     * @param connection
+     *            The connection.
+     * @param opcode
+     *            The frame's opcode.
+     * @param payload
+     *            The frame's payload.
+     * 
+     * @throws IOException
+     *             If the frame is invalid.
+     */
+    /* package */ void handleFrame(Connection connection, byte opcode, ByteBuffer payload) throws IOException {
+        RemoteClient client = connection.getClient();
+        try {
+            switch (opcode) {
+                case Protocol.LOGIN:
+                    if (client != null) {
+                        throw new IOException("Already logged in");
+                    }
+                    String name = WireCodec.getString(payload);
+                    if (!NAME_PATTERN.matcher(name).matches()) {
+                        throw new IOException("Invalid name");
+                    }
+                    if (!names.add(name)) {
+                        throw new IOException("Name already logged in: " + name);
+                    }
+                    client = new RemoteClient(connection, name, actTimeout);
+                    connection.setClient(client);
+                    waitingClients.add(client);
+                    break;
+                case Protocol.ACTION:
+                    if (client == null) {
+                        throw new IOException("Not logged in");
+                    }
+                    client.actionReceived(WireCodec.getAction(payload));
+                    break;
+                default:
+                    throw new IOException("Invalid opcode: " + opcode);
+            }
+        } catch (RuntimeException e) {
+            // Malformed payload.
+            throw new IOException("Invalid frame", e);
+        }
+    }
+    
+    /**
+     * The selector thread's main loop.
+     */
+    private void selectLoop() {
+        while (running) {
+            try {
+                selector.select(1000L);
+            } catch (IOException e) {
+                break;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+                Connection connection = (Connection) key.attachment();
+                try {
+                    if (key.isReadable()) {
+                        connection.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.flush();
+                    }
+                } catch (IOException e) {
+                    LOG.debug("Closing connection: %s", e);
+                    connection.close();
+                } catch (CancelledKeyException e) {
+                    connection.close();
+                } catch (RuntimeException e) {
+                    // A bug triggered by a single client must not stop the selector thread.
+                    LOG.warn("Closing connection after an unexpected error", e);
+                    connection.close();
+                }
+            }
+            Connection connection;
+            while ((connection = flushQueue.poll()) != null) {
+                try {
+                    connection.flush();
+                } catch (IOException e) {
+                    connection.close();
+                } catch (CancelledKeyException e) {
+                    connection.close();
+                } catch (RuntimeException e) {
+                    LOG.warn("Closing connection after an unexpected error", e);
+                    connection.close();
+                }
+            }
+            startTables();
+        }
+        
+        // Shut down.
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            // Ignore.
+        }
+    }
+    
+    /**
+     * Accepts all pending connections.
+     */
+    private void accept() {
+        SocketChannel channel;
+        try {
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(this, channel, key, inboundSize, outboundSize));
+                connectionCount.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // Ignore; the client will retry.
+        }
+    }
+    
+    /**
+     * Starts a table for each full set of waiting players.
+     */
+    private void startTables() {
+        RemoteClient requeued;
+        while ((requeued = requeuedClients.poll()) != null) {
+            waitingClients.add(requeued);
+        }
+        Iterator<RemoteClient> it = waitingClients.iterator();
+        while (it.hasNext()) {
+            if (!it.next().isConnected()) {
+                it.remove();
+            }
+        }
+        while (waitingClients.size() >= playersPerTable) {
+            List<RemoteClient> clients = new ArrayList<>(waitingClients.subList(0, playersPerTable));
+            waitingClients.subList(0, playersPerTable).clear();
+            startTable(clients);
+        }
+    }
+    
+    /**
+     * Starts a table.
+     * 
+     * @param clients
+     *            The clients to seat at the table.
+     */
+    private void startTable(final List<RemoteClient> clients) {
+        final Table table = new Table(tableType, bigBlind);
+        for (RemoteClient client : clients) {
+            Player player = new Player(client.getName(), startingCash, client);
+            client.seated(player);
+            table.addPlayer(player);
+        }
+        tableCount.incrementAndGet();
+        tableExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // Stop playing hands when the server stops.
+                    while (running && table.playNextHand()) {
+                        // Keep playing.
+                    }
+                    if (running) {
+                        // Game over; notifies the clients.
+                        table.run();
+                    }
+                } finally {
+                    tableCount.decrementAndGet();
+                    if (running) {
+                        for (RemoteClient client : clients) {
+                            if (client.isConnected()) {
+                                requeuedClients.add(client);
+                            }
+                        }
+                        selector.wakeup();
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * The server's entry point. <br />
+     * <br />
+     * 
+     * Arguments: [port [playersPerTable]]
+     * 
+     * @param args
+     *            The command line arguments.
+     * 
+     * @throws IOException
+     *             If the server could not be started.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        int playersPerTable = (args.length > 1) ? Integer.parseInt(args[1]) : 6;
+        Server server = new Server(port, TableType.NO_LIMIT, BigDecimal.valueOf(10), BigDecimal.valueOf(500), playersPerTable);
+        server.start();
+        LOG.info("Server listening on port %d.", server.getPort());
+    }
+    
+}
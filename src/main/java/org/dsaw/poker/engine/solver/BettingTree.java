@@ -0,0 +1,350 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.solver;
+
+import java.util.Arrays;
+import org.dsaw.poker.engine.abstraction.CardAbstraction;
+
+/**
+ * The betting tree of heads-up Fixed-Limit Texas Hold'em, following the
+ * betting rules of the <code>Table</code>. <br />
+ * <br />
+ * 
+ * Player 0 is the big blind and player 1 the dealer (small blind). As at the
+ * table, the big blind acts first on every street (also Pre-Flop, with the
+ * option to check or raise), and bets and raises are one small bet (the big blind)
+ * on the Pre-Flop and Flop and one big bet on the Turn and River. A street
+ * ends when both players checked or a bet or raise is called, the number of
+ * raises per street is capped at {@value #MAX_RAISES} (which the table only
+ * applies to more than two players) and folding is only offered when facing
+ * a bet. The table also lets a player whose raise was called act once more;
+ * the tree leaves that option out, which is equivalent to always checking. <br />
+ * <br />
+ * 
+ * Amounts are in units of half a big blind. The players are assumed to have
+ * enough chips for all bets. <br />
+ * <br />
+ * 
+ * The nodes are numbered in depth-first order, with the root 0. Each
+ * decision node has an information set offset, so the information set of a
+ * node and a card bucket is its offset plus the bucket.
+ */
+public class BettingTree {
+    
+    /** The action to fold. */
+    public static final int FOLD = 0;
+    
+    /** The action to check or call. */
+    public static final int CALL = 1;
+    
+    /** The action to bet or raise. */
+    public static final int RAISE = 2;
+    
+    /** The number of actions. */
+    public static final int NO_OF_ACTIONS = 3;
+    
+    /** Node type: a player decides. */
+    public static final int DECISION = 0;
+    
+    /** Node type: a player folded. */
+    public static final int FOLDED = 1;
+    
+    /** Node type: showdown after the River. */
+    public static final int SHOWDOWN = 2;
+    
+    /** The maximum number of raises per street. */
+    public static final int MAX_RAISES = 3;
+    
+    /** The small blind. */
+    public static final int SMALL_BLIND = 1;
+    
+    /** The big blind (and small bet). */
+    public static final int BIG_BLIND = 2;
+    
+    /** The big bet (Turn and River). */
+    public static final int BIG_BET = 2 * BIG_BLIND;
+    
+    /** The number of streets. */
+    private static final int NO_OF_STREETS = CardAbstraction.NO_OF_STREETS;
+    
+    /** The node types. */
+    private int[] types = new int[256];
+    
+    /** The players to act (decision) or that folded (folded). */
+    private int[] players = new int[256];
+    
+    /** The streets. */
+    private int[] streets = new int[256];
+    
+    /** The children per action (-1 if not allowed). */
+    private int[] children = new int[256 * NO_OF_ACTIONS];
+    
+    /** The total contributions of both players. */
+    private int[] contributions = new int[256 * 2];
+    
+    /** The information set offsets (decision nodes). */
+    private long[] infoSetOffsets;
+    
+    /** The number of nodes. */
+    private int noOfNodes;
+    
+    /** The number of decision nodes. */
+    private int noOfDecisionNodes;
+    
+    /** The maximum depth (number of decisions on a path). */
+    private int maxDepth;
+    
+    /** The number of information sets. */
+    private final long noOfInfoSets;
+    
+    /**
+     * Constructor.
+     * 
+     * @param abstraction
+     *            The card abstraction (for the number of buckets per street).
+     */
+    public BettingTree(CardAbstraction abstraction) {
+        // Pre-Flop: the big blind acts first, already matching the bet.
+        int[] bets = {BIG_BLIND, SMALL_BLIND};
+        build(0, 0, 0, bets, BIG_BLIND, 0, 2, 0);
+        types = Arrays.copyOf(types, noOfNodes);
+        players = Arrays.copyOf(players, noOfNodes);
+        streets = Arrays.copyOf(streets, noOfNodes);
+        children = Arrays.copyOf(children, noOfNodes * NO_OF_ACTIONS);
+        contributions = Arrays.copyOf(contributions, noOfNodes * 2);
+        infoSetOffsets = new long[noOfNodes];
+        long offset = 0L;
+        for (int node = 0; node < noOfNodes; node++) {
+            if (types[node] == DECISION) {
+                infoSetOffsets[node] = offset;
+                offset += abstraction.getNoOfBuckets(streets[node]);
+            } else {
+                infoSetOffsets[node] = -1L;
+            }
+        }
+        noOfInfoSets = offset;
+    }
+    
+    /**
+     * Builds the subtree of a betting state, mirroring the table's betting
+     * round.
+     * 
+     * @param street
+     *            The street.
+     * @param potBefore
+     *            The contribution of each player before this street.
+     * @param actor
+     *            The player to act.
+     * @param bets
+     *            The bets of both players in this street.
+     * @param bet
+     *            The current bet.
+     * @param raises
+     *            The number of raises in this street.
+     * @param playersToAct
+     *            The number of players still to act.
+     * @param depth
+     *            The number of decisions so far.
+     * 
+     * @return The node.
+     */
+    private int build(int street, int potBefore, int actor, int[] bets, int bet, int raises, int playersToAct, int depth) {
+        int node = newNode();
+        contributions[node * 2] = potBefore + bets[0];
+        contributions[node * 2 + 1] = potBefore + bets[1];
+        streets[node] = street;
+        if (playersToAct == 0) {
+            // End of the street (both players contributed the same).
+            if (street == NO_OF_STREETS - 1) {
+                types[node] = SHOWDOWN;
+                return node;
+            }
+            // Reuse this node as the first decision of the next street.
+            noOfNodes--;
+            return build(street + 1, potBefore + bets[0], 0, new int[2], 0, 0, 2, depth);
+        }
+        types[node] = DECISION;
+        players[node] = actor;
+        noOfDecisionNodes++;
+        maxDepth = Math.max(maxDepth, depth + 1);
+        int other = 1 - actor;
+        int betSize = (street < 2) ? BIG_BLIND : BIG_BET;
+        Arrays.fill(children, node * NO_OF_ACTIONS, (node + 1) * NO_OF_ACTIONS, -1);
+        
+        if (bets[actor] < bet) {
+            // Fold.
+            int folded = newNode();
+            types[folded] = FOLDED;
+            players[folded] = actor;
+            streets[folded] = street;
+            contributions[folded * 2] = potBefore + bets[0];
+            contributions[folded * 2 + 1] = potBefore + bets[1];
+            children[node * NO_OF_ACTIONS + FOLD] = folded;
+        }
+        
+        // Check or call.
+        int[] called = bets.clone();
+        called[actor] = bet;
+        // (The arrays may grow while building a subtree, so assign afterwards.)
+        int child = build(street, potBefore, other, called, bet, raises, playersToAct - 1, depth + 1);
+        children[node * NO_OF_ACTIONS + CALL] = child;
+        
+        // Bet or raise (a bet does not count as a raise).
+        if (raises < MAX_RAISES) {
+            int[] raised = bets.clone();
+            int newBet = bet + betSize;
+            raised[actor] = newBet;
+            int newRaises = (bet == 0) ? raises : raises + 1;
+            child = build(street, potBefore, other, raised, newBet, newRaises, 1, depth + 1);
+            children[node * NO_OF_ACTIONS + RAISE] = child;
+        }
+        return node;
+    }
+    
+    /**
+     * Allocates a new node.
+     * 
+     * @return The node.
+     */
+    private int newNode() {
+        if (noOfNodes == types.length) {
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            players = Arrays.copyOf(players, capacity);
+            streets = Arrays.copyOf(streets, capacity);
+            children = Arrays.copyOf(children, capacity * NO_OF_ACTIONS);
+            contributions = Arrays.copyOf(contributions, capacity * 2);
+        }
+        return noOfNodes++;
+    }
+    
+    /**
+     * Returns the number of nodes.
+     * 
+     * @return The number of nodes.
+     */
+    public int getNoOfNodes() {
+        return noOfNodes;
+    }
+    
+    /**
+     * Returns the number of decision nodes.
+     * 
+     * @return The number of decision nodes.
+     */
+    public int getNoOfDecisionNodes() {
+        return noOfDecisionNodes;
+    }
+    
+    /**
+     * Returns the maximum number of decisions on a path from the root.
+     * 
+     * @return The maximum depth.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+    
+    /**
+     * Returns the number of information sets (decision nodes times buckets).
+     * 
+     * @return The number of information sets.
+     */
+    public long getNoOfInfoSets() {
+        return noOfInfoSets;
+    }
+    
+    /**
+     * Returns the type of a node.
+     * 
+     * @param node
+     *            The node.
+     * 
+     * @return The type ({@link #DECISION}, {@link #FOLDED} or {@link #SHOWDOWN}).
+     */
+    public int getType(int node) {
+        return types[node];
+    }
+    
+    /**
+     * Returns the player to act in a decision node, or the player that folded.
+     * 
+     * @param node
+     *            The node.
+     * 
+     * @return The player (0 for the big blind, 1 for the dealer).
+     */
+    public int getPlayer(int node) {
+        return players[node];
+    }
+    
+    /**
+     * Returns the street of a node.
+     * 
+     * @param node
+     *            The node.
+     * 
+     * @return The street.
+     */
+    public int getStreet(int node) {
+        return streets[node];
+    }
+    
+    /**
+     * Returns the child of a decision node.
+     * 
+     * @param node
+     *            The node.
+     * @param action
+     *            The action.
+     * 
+     * @return The child, or -1 if the action is not allowed.
+     */
+    public int getChild(int node, int action) {
+        return children[node * NO_OF_ACTIONS + action];
+    }
+    
+    /**
+     * Returns the total contribution of a player to the pot in a node.
+     * 
+     * @param node
+     *            The node.
+     * @param player
+     *            The player.
+     * 
+     * @return The contribution (in half big blinds).
+     */
+    public int getContribution(int node, int player) {
+        return contributions[node * 2 + player];
+    }
+    
+    /**
+     * Returns the information set of a decision node and a card bucket.
+     * 
+     * @param node
+     *            The decision node.
+     * @param bucket
+     *            The bucket on the node's street.
+     * 
+     * @return The information set.
+     */
+    public long getInfoSet(int node, int bucket) {
+        return infoSetOffsets[node] + bucket;
+    }
+    
+}
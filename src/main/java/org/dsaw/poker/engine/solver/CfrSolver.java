@@ -0,0 +1,586 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.dsaw.poker.engine.abstraction.CardAbstraction;
+import org.dsaw.poker.engine.abstraction.MappedCardAbstraction;
+
+/**
+ * Solver of heads-up Fixed-Limit Texas Hold'em with Monte Carlo
+ * Counterfactual Regret Minimization (MCCFR) on a {@link BettingTree} and a
+ * {@link CardAbstraction}. <br />
+ * <br />
+ * 
+ * Each iteration deals the cards (chance sampling) and traverses the tree
+ * once for each player with external sampling: all actions of the traversing
+ * player are explored, and one action of the opponent is sampled from his
+ * current (regret matching) strategy, whose probabilities are added to the
+ * strategy sums. The average strategy converges to an equilibrium of the
+ * abstracted game. <br />
+ * <br />
+ * 
+ * The regrets and strategy sums are stored in {@link FloatArray}s, on the
+ * heap or off-heap, with {@value BettingTree#NO_OF_ACTIONS} elements per
+ * information set. Worker threads update them concurrently with lock-free
+ * atomic additions. Between batches of iterations the solver can write a
+ * checkpoint, from which a later run resumes, and the average strategy is
+ * exported as a {@link PolicyFile}.
+ */
+public class CfrSolver {
+    
+    /** The default number of iterations between checkpoints. */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1000000L;
+    
+    /** The magic number of a checkpoint ('CFR1'). */
+    private static final int MAGIC = 0x43465231;
+    
+    /** The number of floats per checkpoint write. */
+    private static final int CHUNK_SIZE = 1 << 16;
+    
+    /** The number of board cards per street. */
+    private static final int[] BOARD_CARDS = {0, 3, 4, 5};
+    
+    /** The card abstraction. */
+    private final CardAbstraction abstraction;
+    
+    /** The betting tree. */
+    private final BettingTree tree;
+    
+    /** The cumulative regrets per information set and action. */
+    private final FloatArray regrets;
+    
+    /** The strategy sums per information set and action. */
+    private final FloatArray strategySums;
+    
+    /** The random generator (split per worker). */
+    private final SplittableRandom random;
+    
+    /** The number of worker threads. */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    
+    /** The checkpoint file (<code>null</code> for none). */
+    private File checkpointFile;
+    
+    /** The number of iterations between checkpoints. */
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    
+    /** The number of completed iterations. */
+    private long iterations;
+    
+    /**
+     * Constructor.
+     * 
+     * @param abstraction
+     *            The card abstraction.
+     * @param offHeap
+     *            Whether to store the regrets and strategy sums off-heap.
+     * @param seed
+     *            The random seed.
+     */
+    public CfrSolver(CardAbstraction abstraction, boolean offHeap, long seed) {
+        this.abstraction = abstraction;
+        tree = new BettingTree(abstraction);
+        long length = tree.getNoOfInfoSets() * BettingTree.NO_OF_ACTIONS;
+        regrets = offHeap ? FloatArray.direct(length) : FloatArray.heap(length);
+        strategySums = offHeap ? FloatArray.direct(length) : FloatArray.heap(length);
+        random = new SplittableRandom(seed);
+    }
+    
+    /**
+     * Returns the betting tree.
+     * 
+     * @return The betting tree.
+     */
+    public BettingTree getTree() {
+        return tree;
+    }
+    
+    /**
+     * Returns the number of completed iterations.
+     * 
+     * @return The number of iterations.
+     */
+    public long getIterations() {
+        return iterations;
+    }
+    
+    /**
+     * Sets the number of worker threads.
+     * 
+     * @param parallelism
+     *            The number of threads.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Sets the checkpoint file and interval.
+     * 
+     * @param file
+     *            The file (<code>null</code> for none).
+     * @param interval
+     *            The number of iterations between checkpoints.
+     */
+    public void setCheckpoint(File file, long interval) {
+        if (interval < 1L) {
+            throw new IllegalArgumentException("Invalid checkpoint interval: " + interval);
+        }
+        checkpointFile = file;
+        checkpointInterval = interval;
+    }
+    
+    /**
+     * Runs iterations until the given total, in batches between checkpoints.
+     * 
+     * @param totalIterations
+     *            The total number of iterations (including those of a restored
+     *            checkpoint).
+     * 
+     * @throws IOException
+     *             If a checkpoint could not be written.
+     */
+    public void solve(long totalIterations) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (iterations < totalIterations) {
+                long batch = Math.min(checkpointInterval, totalIterations - iterations);
+                List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+                for (int i = 0; i < parallelism; i++) {
+                    long share = batch / parallelism + ((i < batch % parallelism) ? 1L : 0L);
+                    if (share > 0L) {
+                        workers.add(new Worker(random.split(), share));
+                    }
+                }
+                for (Future<Void> future : pool.invokeAll(workers)) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted", e);
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Worker failed", e.getCause());
+                    }
+                }
+                iterations += batch;
+                if (checkpointFile != null) {
+                    saveCheckpoint(checkpointFile);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Returns the average strategy in an information set.
+     * 
+     * @param node
+     *            The decision node.
+     * @param bucket
+     *            The card bucket.
+     * 
+     * @return The probability per action.
+     */
+    public double[] getAverageStrategy(int node, int bucket) {
+        long base = tree.getInfoSet(node, bucket) * BettingTree.NO_OF_ACTIONS;
+        double[] strategy = new double[BettingTree.NO_OF_ACTIONS];
+        double sum = 0.0;
+        int noOfAllowed = 0;
+        for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+            if (tree.getChild(node, action) != -1) {
+                strategy[action] = strategySums.get(base + action);
+                sum += strategy[action];
+                noOfAllowed++;
+            }
+        }
+        for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+            if (tree.getChild(node, action) != -1) {
+                strategy[action] = (sum > 0.0) ? strategy[action] / sum : 1.0 / noOfAllowed;
+            }
+        }
+        return strategy;
+    }
+    
+    /**
+     * Exports the average strategy as a policy file.
+     * 
+     * @param file
+     *            The file.
+     * 
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public void exportPolicy(File file) throws IOException {
+        PolicyFile.write(file, tree, abstraction, strategySums);
+    }
+    
+    /**
+     * Writes a checkpoint: the number of iterations, the regrets and the
+     * strategy sums. The file is replaced atomically, so an interrupted write
+     * leaves the previous checkpoint.
+     * 
+     * @param file
+     *            The file.
+     * 
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public void saveCheckpoint(File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+        try {
+            raf.setLength(0L);
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.BIG_ENDIAN);
+            header.putInt(MAGIC).putLong(iterations).putLong(regrets.length());
+            header.flip();
+            PolicyFile.writeFully(channel, header);
+            writeFloats(channel, regrets);
+            writeFloats(channel, strategySums);
+            channel.force(true);
+        } finally {
+            raf.close();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Restores a checkpoint, if it exists.
+     * 
+     * @param file
+     *            The file.
+     * 
+     * @return True if restored, false if the file does not exist.
+     * 
+     * @throws IOException
+     *             If the file could not be read or does not match the tree.
+     */
+    public boolean restoreCheckpoint(File file) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.BIG_ENDIAN);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a checkpoint: " + file);
+            }
+            long restoredIterations = header.getLong();
+            if (header.getLong() != regrets.length()) {
+                throw new IOException("Checkpoint of a different tree or abstraction: " + file);
+            }
+            readFloats(channel, regrets);
+            readFloats(channel, strategySums);
+            iterations = restoredIterations;
+            return true;
+        } finally {
+            raf.close();
+        }
+    }
+    
+    /**
+     * Writes all elements of a float array.
+     * 
+     * @param channel
+     *            The channel.
+     * @param array
+     *            The array.
+     * 
+     * @throws IOException
+     *             If the elements could not be written.
+     */
+    private static void writeFloats(FileChannel channel, FloatArray array) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE * Float.BYTES).order(ByteOrder.BIG_ENDIAN);
+        for (long i = 0L; i < array.length(); i++) {
+            buffer.putFloat(array.get(i));
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                PolicyFile.writeFully(channel, buffer);
+                buffer.clear();
+            }
+        }
+        buffer.flip();
+        PolicyFile.writeFully(channel, buffer);
+    }
+    
+    /**
+     * Reads all elements of a float array.
+     * 
+     * @param channel
+     *            The channel.
+     * @param array
+     *            The array.
+     * 
+     * @throws IOException
+     *             If the elements could not be read.
+     */
+    private static void readFloats(FileChannel channel, FloatArray array) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE * Float.BYTES).order(ByteOrder.BIG_ENDIAN);
+        long i = 0L;
+        while (i < array.length()) {
+            buffer.clear();
+            buffer.limit((int) Math.min(CHUNK_SIZE, array.length() - i) * Float.BYTES);
+            readFully(channel, buffer);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                array.set(i++, buffer.getFloat());
+            }
+        }
+    }
+    
+    /**
+     * Fills a buffer from a channel.
+     * 
+     * @param channel
+     *            The channel.
+     * @param buffer
+     *            The buffer.
+     * 
+     * @throws IOException
+     *             If the channel ends early.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+    
+    /**
+     * Solves with bucket maps for the Flop, Turn and River (the Pre-Flop is
+     * lossless), resuming from the checkpoint if it exists, and exports the
+     * policy.
+     * 
+     * @param args
+     *            The number of iterations, the policy file, the checkpoint
+     *            file and the bucket map files of the Flop, Turn and River.
+     * 
+     * @throws IOException
+     *             If a file could not be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 6) {
+            System.err.println("Usage: CfrSolver <iterations> <policy> <checkpoint> <flop.bkt> <turn.bkt> <river.bkt>");
+            System.exit(1);
+        }
+        CardAbstraction abstraction = MappedCardAbstraction.load(null, new File(args[3]), new File(args[4]), new File(args[5]));
+        CfrSolver solver = new CfrSolver(abstraction, true, System.nanoTime());
+        File checkpointFile = new File(args[2]);
+        if (solver.restoreCheckpoint(checkpointFile)) {
+            System.out.format("Resumed after %d iterations%n", solver.getIterations());
+        }
+        solver.setCheckpoint(checkpointFile, DEFAULT_CHECKPOINT_INTERVAL);
+        long startTime = System.currentTimeMillis();
+        solver.solve(Long.parseLong(args[0]));
+        solver.exportPolicy(new File(args[1]));
+        System.out.format("%d iterations in %d s%n", solver.getIterations(), (System.currentTimeMillis() - startTime) / 1000L);
+    }
+    
+    /**
+     * Worker running a number of iterations with its own random generator and
+     * scratch space.
+     */
+    private class Worker implements Callable<Void> {
+        
+        /** The random generator. */
+        private final SplittableRandom random;
+        
+        /** The number of iterations. */
+        private final long noOfIterations;
+        
+        /** The deck (card indexes). */
+        private final int[] deck = new int[CardSet.NO_OF_CARDS];
+        
+        /** The buckets per player and street. */
+        private final int[][] buckets = new int[2][CardAbstraction.NO_OF_STREETS];
+        
+        /** The current strategies, per depth and action. */
+        private final double[] strategies;
+        
+        /** The action utilities, per depth and action. */
+        private final double[] utilities;
+        
+        /** The showdown result for player 0 (1 win, 0 tie, -1 loss). */
+        private int showdown;
+        
+        /**
+         * Constructor.
+         * 
+         * @param random
+         *            The random generator.
+         * @param noOfIterations
+         *            The number of iterations.
+         */
+        private Worker(SplittableRandom random, long noOfIterations) {
+            this.random = random;
+            this.noOfIterations = noOfIterations;
+            for (int i = 0; i < deck.length; i++) {
+                deck[i] = i;
+            }
+            strategies = new double[(tree.getMaxDepth() + 1) * BettingTree.NO_OF_ACTIONS];
+            utilities = new double[(tree.getMaxDepth() + 1) * BettingTree.NO_OF_ACTIONS];
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public Void call() {
+            for (long i = 0L; i < noOfIterations; i++) {
+                deal();
+                traverse(0, 0, 0);
+                traverse(0, 1, 0);
+            }
+            return null;
+        }
+        
+        /**
+         * Deals the hole cards and the board, and determines the buckets and
+         * the showdown result.
+         */
+        private void deal() {
+            // Partial Fisher-Yates shuffle of 9 cards.
+            for (int i = 0; i < 9; i++) {
+                int j = i + random.nextInt(deck.length - i);
+                int card = deck[j];
+                deck[j] = deck[i];
+                deck[i] = card;
+            }
+            long[] holeCards = {(1L << deck[0]) | (1L << deck[1]), (1L << deck[2]) | (1L << deck[3])};
+            for (int street = 0; street < CardAbstraction.NO_OF_STREETS; street++) {
+                long board = 0L;
+                for (int i = 0; i < BOARD_CARDS[street]; i++) {
+                    board |= 1L << deck[4 + i];
+                }
+                for (int player = 0; player < 2; player++) {
+                    buckets[player][street] = abstraction.getBucket(street, holeCards[player], board);
+                }
+                if (street == CardAbstraction.NO_OF_STREETS - 1) {
+                    showdown = Integer.signum(FastHandEvaluator.evaluate(holeCards[0] | board) - FastHandEvaluator.evaluate(holeCards[1] | board));
+                }
+            }
+        }
+        
+        /**
+         * Traverses a node with external sampling.
+         * 
+         * @param node
+         *            The node.
+         * @param traverser
+         *            The traversing player.
+         * @param depth
+         *            The number of decisions so far.
+         * 
+         * @return The utility for the traversing player (in half big blinds).
+         */
+        private double traverse(int node, int traverser, int depth) {
+            switch (tree.getType(node)) {
+                case BettingTree.FOLDED:
+                    if (tree.getPlayer(node) == traverser) {
+                        return -tree.getContribution(node, traverser);
+                    } else {
+                        return tree.getContribution(node, 1 - traverser);
+                    }
+                case BettingTree.SHOWDOWN:
+                    return ((traverser == 0) ? showdown : -showdown) * tree.getContribution(node, traverser);
+                default:
+                    break;
+            }
+            int player = tree.getPlayer(node);
+            long base = tree.getInfoSet(node, buckets[player][tree.getStreet(node)]) * BettingTree.NO_OF_ACTIONS;
+            int offset = depth * BettingTree.NO_OF_ACTIONS;
+            
+            // Regret matching.
+            double sum = 0.0;
+            int noOfAllowed = 0;
+            for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+                double regret = 0.0;
+                if (tree.getChild(node, action) != -1) {
+                    regret = Math.max(regrets.get(base + action), 0.0f);
+                    noOfAllowed++;
+                }
+                strategies[offset + action] = regret;
+                sum += regret;
+            }
+            for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+                if (tree.getChild(node, action) != -1) {
+                    strategies[offset + action] = (sum > 0.0) ? strategies[offset + action] / sum : 1.0 / noOfAllowed;
+                }
+            }
+            
+            if (player == traverser) {
+                double nodeUtility = 0.0;
+                for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+                    int child = tree.getChild(node, action);
+                    if (child != -1) {
+                        utilities[offset + action] = traverse(child, traverser, depth + 1);
+                        nodeUtility += strategies[offset + action] * utilities[offset + action];
+                    }
+                }
+                for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+                    if (tree.getChild(node, action) != -1) {
+                        regrets.add(base + action, (float) (utilities[offset + action] - nodeUtility));
+                    }
+                }
+                return nodeUtility;
+            } else {
+                double target = random.nextDouble();
+                int sampled = -1;
+                for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+                    if (tree.getChild(node, action) != -1) {
+                        strategySums.add(base + action, (float) strategies[offset + action]);
+                        target -= strategies[offset + action];
+                        if (sampled == -1 && target < 0.0) {
+                            sampled = action;
+                        }
+                    }
+                }
+                if (sampled == -1) {
+                    // Rounding; take the last allowed action.
+                    sampled = (tree.getChild(node, BettingTree.RAISE) != -1) ? BettingTree.RAISE : BettingTree.CALL;
+                }
+                return traverse(tree.getChild(node, sampled), traverser, depth + 1);
+            }
+        }
+        
+    }
+    
+}
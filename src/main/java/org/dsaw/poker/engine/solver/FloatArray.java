@@ -0,0 +1,215 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.solver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Array of <code>float</code>s with lock-free atomic additions, stored on the
+ * heap or off-heap (in direct buffers, not counted against the Java heap). <br />
+ * <br />
+ * 
+ * Additions are compare-and-set loops on the raw bits through a
+ * {@link VarHandle}, so concurrent updates by many threads are never lost,
+ * while reads are plain (possibly slightly stale) reads.
+ */
+public abstract class FloatArray {
+    
+    /** The number of elements per direct buffer. */
+    private static final int SEGMENT_SIZE = 1 << 28;
+    
+    /** The handle for the elements of a heap array. */
+    private static final VarHandle HEAP_ELEMENT = MethodHandles.arrayElementVarHandle(float[].class);
+    
+    /** The handle for the elements of a direct buffer. */
+    private static final VarHandle DIRECT_ELEMENT = MethodHandles.byteBufferViewVarHandle(float[].class, ByteOrder.nativeOrder());
+    
+    /** The number of elements. */
+    protected final long length;
+    
+    /**
+     * Constructor.
+     * 
+     * @param length
+     *            The number of elements.
+     */
+    protected FloatArray(long length) {
+        this.length = length;
+    }
+    
+    /**
+     * Creates an array on the heap.
+     * 
+     * @param length
+     *            The number of elements.
+     * 
+     * @return The array.
+     */
+    public static FloatArray heap(long length) {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too large for the heap: " + length);
+        }
+        return new HeapFloatArray((int) length);
+    }
+    
+    /**
+     * Creates an array off-heap.
+     * 
+     * @param length
+     *            The number of elements.
+     * 
+     * @return The array.
+     */
+    public static FloatArray direct(long length) {
+        return new DirectFloatArray(length);
+    }
+    
+    /**
+     * Returns the number of elements.
+     * 
+     * @return The number of elements.
+     */
+    public long length() {
+        return length;
+    }
+    
+    /**
+     * Returns an element.
+     * 
+     * @param index
+     *            The index.
+     * 
+     * @return The element.
+     */
+    public abstract float get(long index);
+    
+    /**
+     * Sets an element.
+     * 
+     * @param index
+     *            The index.
+     * @param value
+     *            The value.
+     */
+    public abstract void set(long index, float value);
+    
+    /**
+     * Atomically adds to an element.
+     * 
+     * @param index
+     *            The index.
+     * @param delta
+     *            The value to add.
+     */
+    public abstract void add(long index, float delta);
+    
+    /**
+     * Array on the heap.
+     */
+    private static class HeapFloatArray extends FloatArray {
+        
+        /** The elements. */
+        private final float[] elements;
+        
+        /**
+         * Constructor.
+         * 
+         * @param length
+         *            The number of elements.
+         */
+        private HeapFloatArray(int length) {
+            super(length);
+            elements = new float[length];
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public float get(long index) {
+            return elements[(int) index];
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void set(long index, float value) {
+            elements[(int) index] = value;
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void add(long index, float delta) {
+            int i = (int) index;
+            float value;
+            do {
+                value = (float) HEAP_ELEMENT.getVolatile(elements, i);
+            } while (!HEAP_ELEMENT.weakCompareAndSet(elements, i, value, value + delta));
+        }
+        
+    }
+    
+    /**
+     * Array off-heap, in direct buffers of {@value #SEGMENT_SIZE} elements.
+     */
+    private static class DirectFloatArray extends FloatArray {
+        
+        /** The buffers. */
+        private final ByteBuffer[] segments;
+        
+        /**
+         * Constructor.
+         * 
+         * @param length
+         *            The number of elements.
+         */
+        private DirectFloatArray(long length) {
+            super(length);
+            segments = new ByteBuffer[(int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                long size = Math.min(length - (long) i * SEGMENT_SIZE, SEGMENT_SIZE);
+                segments[i] = ByteBuffer.allocateDirect((int) size * Float.BYTES).order(ByteOrder.nativeOrder());
+            }
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public float get(long index) {
+            return segments[(int) (index / SEGMENT_SIZE)].getFloat((int) (index % SEGMENT_SIZE) * Float.BYTES);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void set(long index, float value) {
+            segments[(int) (index / SEGMENT_SIZE)].putFloat((int) (index % SEGMENT_SIZE) * Float.BYTES, value);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void add(long index, float delta) {
+            ByteBuffer segment = segments[(int) (index / SEGMENT_SIZE)];
+            int position = (int) (index % SEGMENT_SIZE) * Float.BYTES;
+            float value;
+            do {
+                value = (float) DIRECT_ELEMENT.getVolatile(segment, position);
+            } while (!DIRECT_ELEMENT.weakCompareAndSet(segment, position, value, value + delta));
+        }
+        
+    }
+    
+}
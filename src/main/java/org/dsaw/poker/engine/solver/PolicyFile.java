@@ -0,0 +1,252 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import org.dsaw.poker.engine.abstraction.CardAbstraction;
+
+/**
+ * A strategy table (policy) file: the probability of each action in each
+ * information set of a {@link BettingTree}. <br />
+ * <br />
+ * 
+ * The file has a header of {@value #HEADER_SIZE} bytes (the magic number
+ * 'POL1', the number of buckets per street, the number of decision nodes and
+ * the number of information sets), followed by
+ * {@value BettingTree#NO_OF_ACTIONS} big-endian <code>float</code>s per
+ * information set, indexed by action (0 for actions not allowed). <br />
+ * <br />
+ * 
+ * A loaded policy file is memory-mapped (in segments, if larger than a
+ * mapped buffer), immutable and shared by any number of bots and threads.
+ */
+public class PolicyFile {
+    
+    /** The size of the header in bytes. */
+    public static final int HEADER_SIZE = 64;
+    
+    /** The magic number ('POL1'). */
+    /* package */ static final int MAGIC = 0x504f4c31;
+    
+    /** The number of information sets per write. */
+    private static final int CHUNK_SIZE = 1 << 16;
+    
+    /** The number of bits of the offset within a segment. */
+    private static final int SEGMENT_BITS = 30;
+    
+    /** The mask of the offset within a segment. */
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1L;
+    
+    /** The card abstraction. */
+    private final CardAbstraction abstraction;
+    
+    /** The betting tree. */
+    private final BettingTree tree;
+    
+    /** The mapped segments. */
+    private final MappedByteBuffer[] segments;
+    
+    /**
+     * Constructor.
+     * 
+     * @param channel
+     *            The file channel.
+     * @param abstraction
+     *            The card abstraction.
+     * @param tree
+     *            The betting tree.
+     * 
+     * @throws IOException
+     *             If the file could not be mapped.
+     */
+    private PolicyFile(FileChannel channel, CardAbstraction abstraction, BettingTree tree) throws IOException {
+        this.abstraction = abstraction;
+        this.tree = tree;
+        long length = tree.getNoOfInfoSets() * BettingTree.NO_OF_ACTIONS * Float.BYTES;
+        segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS)];
+        for (int i = 0; i < segments.length; i++) {
+            long position = (long) i << SEGMENT_BITS;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + position, Math.min(length - position, 1L << SEGMENT_BITS));
+            segments[i].order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+    
+    /**
+     * Loads a policy file.
+     * 
+     * @param file
+     *            The file.
+     * @param abstraction
+     *            The card abstraction the policy was solved with.
+     * 
+     * @return The policy.
+     * 
+     * @throws IOException
+     *             If the file could not be read, or does not match the
+     *             abstraction.
+     */
+    public static PolicyFile load(File file, CardAbstraction abstraction) throws IOException {
+        BettingTree tree = new BettingTree(abstraction);
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            if (raf.readInt() != MAGIC) {
+                throw new IOException("Not a policy file: " + file);
+            }
+            for (int street = 0; street < CardAbstraction.NO_OF_STREETS; street++) {
+                if (raf.readInt() != abstraction.getNoOfBuckets(street)) {
+                    throw new IOException("Policy of a different card abstraction: " + file);
+                }
+            }
+            if (raf.readInt() != tree.getNoOfDecisionNodes() || raf.readLong() != tree.getNoOfInfoSets()) {
+                throw new IOException("Policy of a different betting tree: " + file);
+            }
+            if (raf.length() != HEADER_SIZE + tree.getNoOfInfoSets() * BettingTree.NO_OF_ACTIONS * Float.BYTES) {
+                throw new IOException("Corrupt policy file: " + file);
+            }
+            // The mapping stays valid after closing the file.
+            return new PolicyFile(raf.getChannel(), abstraction, tree);
+        } finally {
+            raf.close();
+        }
+    }
+    
+    /**
+     * Returns the card abstraction.
+     * 
+     * @return The card abstraction.
+     */
+    public CardAbstraction getAbstraction() {
+        return abstraction;
+    }
+    
+    /**
+     * Returns the betting tree.
+     * 
+     * @return The betting tree.
+     */
+    public BettingTree getTree() {
+        return tree;
+    }
+    
+    /**
+     * Returns the probability of an action in an information set.
+     * 
+     * @param infoSet
+     *            The information set.
+     * @param action
+     *            The action.
+     * 
+     * @return The probability.
+     */
+    public float getProbability(long infoSet, int action) {
+        long offset = (infoSet * BettingTree.NO_OF_ACTIONS + action) * Float.BYTES;
+        return segments[(int) (offset >>> SEGMENT_BITS)].getFloat((int) (offset & SEGMENT_MASK));
+    }
+    
+    /**
+     * Writes the average strategy from the strategy sums.
+     * 
+     * @param file
+     *            The file.
+     * @param tree
+     *            The betting tree.
+     * @param abstraction
+     *            The card abstraction.
+     * @param strategySums
+     *            The strategy sums per information set and action.
+     * 
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public static void write(File file, BettingTree tree, CardAbstraction abstraction, FloatArray strategySums) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0L);
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            header.putInt(MAGIC);
+            for (int street = 0; street < CardAbstraction.NO_OF_STREETS; street++) {
+                header.putInt(abstraction.getNoOfBuckets(street));
+            }
+            header.putInt(tree.getNoOfDecisionNodes());
+            header.putLong(tree.getNoOfInfoSets());
+            header.rewind();
+            writeFully(channel, header);
+            
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE * BettingTree.NO_OF_ACTIONS * Float.BYTES).order(ByteOrder.BIG_ENDIAN);
+            for (int node = 0; node < tree.getNoOfNodes(); node++) {
+                if (tree.getType(node) != BettingTree.DECISION) {
+                    continue;
+                }
+                int noOfBuckets = abstraction.getNoOfBuckets(tree.getStreet(node));
+                for (int bucket = 0; bucket < noOfBuckets; bucket++) {
+                    long base = tree.getInfoSet(node, bucket) * BettingTree.NO_OF_ACTIONS;
+                    double sum = 0.0;
+                    int noOfAllowed = 0;
+                    for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+                        if (tree.getChild(node, action) != -1) {
+                            sum += strategySums.get(base + action);
+                            noOfAllowed++;
+                        }
+                    }
+                    for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+                        float probability = 0.0f;
+                        if (tree.getChild(node, action) != -1) {
+                            // Never reached: uniform.
+                            probability = (float) ((sum > 0.0) ? strategySums.get(base + action) / sum : 1.0 / noOfAllowed);
+                        }
+                        buffer.putFloat(probability);
+                    }
+                    if (!buffer.hasRemaining()) {
+                        buffer.flip();
+                        writeFully(channel, buffer);
+                        buffer.clear();
+                    }
+                }
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+        } finally {
+            raf.close();
+        }
+    }
+    
+    /**
+     * Writes a buffer completely.
+     * 
+     * @param channel
+     *            The channel.
+     * @param buffer
+     *            The buffer.
+     * 
+     * @throws IOException
+     *             If the buffer could not be written.
+     */
+    /* package */ static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+}
@@ -0,0 +1,234 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Behavior statistics of a single player, as counters that many tables can
+ * update concurrently. <br />
+ * <br />
+ * 
+ * The counters are striped: each thread increments the copy of its stripe
+ * (chosen by its thread ID), so tables played on different threads rarely
+ * contend for the same cache line. A read sums the stripes, of which there
+ * are at most {@link #MAX_STRIPES}, so the statistics are queried in constant
+ * time. Reads are not atomic across counters, so a ratio may be off by an
+ * update that is in progress.
+ */
+public class PlayerStats {
+    
+    /** The hands dealt in. */
+    public static final int HANDS = 0;
+    
+    /** The hands with money voluntarily put in the pot Pre-Flop. */
+    public static final int VPIP = 1;
+    
+    /** The hands with a bet or raise Pre-Flop. */
+    public static final int PFR = 2;
+    
+    /** The hands with the Flop seen. */
+    public static final int SAW_FLOP = 3;
+    
+    /** The hands with a showdown. */
+    public static final int SHOWDOWNS = 4;
+    
+    /** The bets and raises after the Flop. */
+    public static final int AGGRESSIVE = 5;
+    
+    /** The calls after the Flop. */
+    public static final int PASSIVE = 6;
+    
+    /** The first Flop decisions as the Pre-Flop aggressor, without a bet. */
+    public static final int CBET_OPPORTUNITIES = 7;
+    
+    /** The continuation bets (bets on the Flop by the Pre-Flop aggressor). */
+    public static final int CBETS = 8;
+    
+    /** The decisions facing a continuation bet. */
+    public static final int CBETS_FACED = 9;
+    
+    /** The folds to a continuation bet. */
+    public static final int CBET_FOLDS = 10;
+    
+    /** The bets and raises after the Flop in hands that went to a showdown. */
+    public static final int SHOWDOWN_AGGRESSIVE = 11;
+    
+    /** The bets and raises after the Flop shown down with less than a pair. */
+    public static final int SHOWDOWN_BLUFFS = 12;
+    
+    /** The number of counters. */
+    public static final int NO_OF_COUNTERS = 13;
+    
+    /** The maximum number of stripes. */
+    public static final int MAX_STRIPES = 16;
+    
+    /** The number of counters per stripe (a multiple of a cache line). */
+    private static final int STRIPE_SIZE = 16;
+    
+    /** The number of stripes (a power of two). */
+    private static final int NO_OF_STRIPES = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1), MAX_STRIPES);
+    
+    /** The counters, per stripe. */
+    private final AtomicLongArray counters = new AtomicLongArray(NO_OF_STRIPES * STRIPE_SIZE);
+    
+    /**
+     * Increments a counter.
+     * 
+     * @param counter
+     *            The counter.
+     */
+    public void increment(int counter) {
+        counters.getAndIncrement(getStripe() + counter);
+    }
+    
+    /**
+     * Adds to a counter.
+     * 
+     * @param counter
+     *            The counter.
+     * @param delta
+     *            The value to add.
+     */
+    public void add(int counter, long delta) {
+        counters.getAndAdd(getStripe() + counter, delta);
+    }
+    
+    /**
+     * Returns the value of a counter.
+     * 
+     * @param counter
+     *            The counter.
+     * 
+     * @return The value.
+     */
+    public long get(int counter) {
+        if (counter < 0 || counter >= NO_OF_COUNTERS) {
+            throw new IllegalArgumentException("Invalid counter: " + counter);
+        }
+        long value = 0L;
+        for (int stripe = 0; stripe < NO_OF_STRIPES; stripe++) {
+            value += counters.get(stripe * STRIPE_SIZE + counter);
+        }
+        return value;
+    }
+    
+    /**
+     * Returns the number of hands dealt in.
+     * 
+     * @return The number of hands.
+     */
+    public long getHands() {
+        return get(HANDS);
+    }
+    
+    /**
+     * Returns the fraction of hands with money voluntarily put in the pot
+     * Pre-Flop (a measure of looseness).
+     * 
+     * @return The VPIP, or 0 without any hands.
+     */
+    public double getVpip() {
+        return ratio(VPIP, HANDS);
+    }
+    
+    /**
+     * Returns the fraction of hands with a Pre-Flop bet or raise.
+     * 
+     * @return The PFR, or 0 without any hands.
+     */
+    public double getPfr() {
+        return ratio(PFR, HANDS);
+    }
+    
+    /**
+     * Returns the ratio of bets and raises to calls after the Flop.
+     * 
+     * @return The aggression factor, or 0 without any calls.
+     */
+    public double getAggressionFactor() {
+        return ratio(AGGRESSIVE, PASSIVE);
+    }
+    
+    /**
+     * Returns the fraction of continuation bet opportunities taken.
+     * 
+     * @return The continuation bet frequency, or 0 without any opportunities.
+     */
+    public double getCbet() {
+        return ratio(CBETS, CBET_OPPORTUNITIES);
+    }
+    
+    /**
+     * Returns the fraction of continuation bets folded to.
+     * 
+     * @return The fold to continuation bet frequency, or 0 without any faced.
+     */
+    public double getFoldToCbet() {
+        return ratio(CBET_FOLDS, CBETS_FACED);
+    }
+    
+    /**
+     * Returns the fraction of the hands with the Flop seen that went to a
+     * showdown.
+     * 
+     * @return The WTSD, or 0 without any Flops seen.
+     */
+    public double getWentToShowdown() {
+        return ratio(SHOWDOWNS, SAW_FLOP);
+    }
+    
+    /**
+     * Returns the fraction of the bets and raises after the Flop that were
+     * bluffs, as far as revealed at the showdown: those shown down with less
+     * than a pair.
+     * 
+     * @return The bluffing frequency, or 0 without any bets or raises shown
+     *         down.
+     */
+    public double getBluffing() {
+        return ratio(SHOWDOWN_BLUFFS, SHOWDOWN_AGGRESSIVE);
+    }
+    
+    /**
+     * Returns the ratio of two counters.
+     * 
+     * @param numerator
+     *            The counter of the numerator.
+     * @param denominator
+     *            The counter of the denominator.
+     * 
+     * @return The ratio, or 0 if the denominator is 0.
+     */
+    private double ratio(int numerator, int denominator) {
+        long divisor = get(denominator);
+        return (divisor == 0L) ? 0.0 : (double) get(numerator) / divisor;
+    }
+    
+    /**
+     * Returns the offset of the current thread's stripe.
+     * 
+     * @return The offset of the stripe.
+     */
+    private static int getStripe() {
+        // Fibonacci hashing spreads consecutive thread IDs.
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return ((hash >>> 16) & (NO_OF_STRIPES - 1)) * STRIPE_SIZE;
+    }
+    
+}
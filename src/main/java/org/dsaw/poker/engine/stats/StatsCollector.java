@@ -0,0 +1,312 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.stats;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.ClientAdapter;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.dsaw.poker.engine.HandValueType;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.TableEventType;
+import org.dsaw.poker.engine.actions.PackedAction;
+import org.dsaw.poker.engine.codec.WireCodec;
+
+/**
+ * Table observer updating the {@link PlayerStats} of the players in a
+ * {@link StatsStore}. <br />
+ * <br />
+ * 
+ * Use one collector per table, added with <code>Table.addObserver</code> and
+ * {@link #EVENT_TYPES}; any number of collectors may share a store. <br />
+ * <br />
+ * 
+ * The table does not announce the action that closes a betting round, so the
+ * collector infers it when the players are updated at the end of the round:
+ * a call if the actor's cash went down, otherwise a fold when facing a bet or
+ * else a check. <br />
+ * <br />
+ * 
+ * Bluffs can only be told from the hands revealed at the showdown, so the
+ * bluffing statistics count the bets and raises after the Flop of the hands
+ * shown down, of which those with less than a pair as bluffs.
+ */
+public class StatsCollector extends ClientAdapter {
+    
+    /** The event types the collector needs. */
+    public static final Set<TableEventType> EVENT_TYPES = Collections.unmodifiableSet(EnumSet.of(TableEventType.HAND_STARTED,
+            TableEventType.ACTOR_ROTATED, TableEventType.PLAYER_UPDATED, TableEventType.BOARD_UPDATED, TableEventType.PLAYER_ACTED));
+    
+    /** The number of hole cards. */
+    private static final int NO_OF_HOLE_CARDS = 2;
+    
+    /** The store. */
+    private final StatsStore store;
+    
+    /** The players dealt in the current hand, by name. */
+    private final Map<String, Seat> seats = new HashMap<>();
+    
+    /** The current street (0 = Pre-Flop, 1 = Flop, 2 = Turn, 3 = River). */
+    private int street;
+    
+    /** The current bet. */
+    private BigDecimal bet = BigDecimal.ZERO;
+    
+    /** The board, as a card mask. */
+    private long board;
+    
+    /** The actor whose action has not been announced yet, if any. */
+    private Seat pending;
+    
+    /** The pending actor's cash before acting. */
+    private BigDecimal pendingCash;
+    
+    /** Whether the pending actor was facing a bet. */
+    private boolean pendingFacingBet;
+    
+    /** The last player to bet or raise Pre-Flop, if any. */
+    private Seat aggressor;
+    
+    /** Whether the Pre-Flop aggressor has made its first Flop decision. */
+    private boolean cbetDecided;
+    
+    /** Whether there has been a bet on the Flop. */
+    private boolean flopBet;
+    
+    /** Whether the first Flop bet was a continuation bet. */
+    private boolean cbet;
+    
+    /** Whether there has been a raise on the Flop. */
+    private boolean flopRaised;
+    
+    /**
+     * Constructor.
+     * 
+     * @param store
+     *            The store to update.
+     */
+    public StatsCollector(StatsStore store) {
+        this.store = store;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void handStarted(Player dealer) {
+        seats.clear();
+        street = 0;
+        bet = BigDecimal.ZERO;
+        board = 0L;
+        pending = null;
+        aggressor = null;
+        cbetDecided = false;
+        flopBet = false;
+        cbet = false;
+        flopRaised = false;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void actorRotated(Player actor) {
+        pending = seats.get(actor.getName());
+        pendingCash = actor.getCash();
+        pendingFacingBet = bet.compareTo(actor.getBet()) > 0;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void playerUpdated(Player player) {
+        Seat seat = seats.get(player.getName());
+        if (seat == null) {
+            if (player.hasCards()) {
+                // Dealt in.
+                seat = new Seat(store.getStats(player.getName()));
+                seats.put(player.getName(), seat);
+                seat.stats.increment(PlayerStats.HANDS);
+            }
+        } else {
+            if (seat == pending) {
+                // The end of the betting round; infer the closing action.
+                int action;
+                if (player.getCash().compareTo(pendingCash) < 0) {
+                    action = WireCodec.CALL;
+                } else if (pendingFacingBet) {
+                    action = WireCodec.FOLD;
+                } else {
+                    action = WireCodec.CHECK;
+                }
+                pending = null;
+                record(seat, action);
+            }
+            if (!seat.showdown && player.getCards().length == NO_OF_HOLE_CARDS) {
+                // The hole cards of all players are only revealed at the showdown.
+                seat.showdown = true;
+                seat.stats.increment(PlayerStats.SHOWDOWNS);
+                if (seat.aggressiveActions > 0) {
+                    seat.stats.add(PlayerStats.SHOWDOWN_AGGRESSIVE, seat.aggressiveActions);
+                    int value = FastHandEvaluator.evaluate(player.getCardMask() | board);
+                    if (FastHandEvaluator.getType(value) == HandValueType.HIGH_CARD) {
+                        seat.stats.add(PlayerStats.SHOWDOWN_BLUFFS, seat.aggressiveActions);
+                    }
+                }
+            }
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
+        this.bet = bet;
+        board = CardSet.mask(cards);
+        int newStreet = (cards.size() < 3) ? 0 : cards.size() - 2;
+        if (newStreet > street) {
+            street = newStreet;
+            if (street == 1) {
+                for (Seat seat : seats.values()) {
+                    if (!seat.folded) {
+                        seat.stats.increment(PlayerStats.SAW_FLOP);
+                    }
+                }
+            }
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void playerActed(Player player) {
+        Seat seat = seats.get(player.getName());
+        if (seat != null && player.getPackedAction() != PackedAction.NONE) {
+            if (seat == pending) {
+                pending = null;
+            }
+            // Packed action codes are the wire's action codes.
+            record(seat, PackedAction.getCode(player.getPackedAction()));
+        }
+    }
+    
+    /**
+     * Records an action of a player.
+     * 
+     * @param seat
+     *            The player's seat.
+     * @param action
+     *            The action code (see {@link WireCodec}).
+     */
+    private void record(Seat seat, int action) {
+        PlayerStats stats = seat.stats;
+        boolean aggressive = (action == WireCodec.BET || action == WireCodec.RAISE);
+        if (action == WireCodec.FOLD) {
+            seat.folded = true;
+        }
+        if (street == 0) {
+            if ((aggressive || action == WireCodec.CALL) && !seat.vpip) {
+                seat.vpip = true;
+                stats.increment(PlayerStats.VPIP);
+            }
+            if (aggressive) {
+                if (!seat.pfr) {
+                    seat.pfr = true;
+                    stats.increment(PlayerStats.PFR);
+                }
+                aggressor = seat;
+            }
+        } else {
+            if (aggressive) {
+                stats.increment(PlayerStats.AGGRESSIVE);
+                seat.aggressiveActions++;
+            } else if (action == WireCodec.CALL) {
+                stats.increment(PlayerStats.PASSIVE);
+            }
+            if (street == 1) {
+                recordFlop(seat, action);
+            }
+        }
+    }
+    
+    /**
+     * Records the continuation bet statistics of a Flop action.
+     * 
+     * @param seat
+     *            The player's seat.
+     * @param action
+     *            The action code (see {@link WireCodec}).
+     */
+    private void recordFlop(Seat seat, int action) {
+        if (!flopBet) {
+            if (seat == aggressor && !cbetDecided) {
+                cbetDecided = true;
+                seat.stats.increment(PlayerStats.CBET_OPPORTUNITIES);
+                if (action == WireCodec.BET) {
+                    seat.stats.increment(PlayerStats.CBETS);
+                    cbet = true;
+                }
+            }
+            flopBet = (action == WireCodec.BET);
+        } else if (cbet && !flopRaised && seat != aggressor) {
+            seat.stats.increment(PlayerStats.CBETS_FACED);
+            if (action == WireCodec.FOLD) {
+                seat.stats.increment(PlayerStats.CBET_FOLDS);
+            }
+        }
+        if (action == WireCodec.RAISE) {
+            flopRaised = true;
+        }
+    }
+    
+    /**
+     * A player dealt in the current hand.
+     */
+    private static class Seat {
+        
+        /** The player's statistics. */
+        private final PlayerStats stats;
+        
+        /** Whether money was voluntarily put in the pot Pre-Flop. */
+        private boolean vpip;
+        
+        /** Whether there was a Pre-Flop bet or raise. */
+        private boolean pfr;
+        
+        /** Whether the player has folded. */
+        private boolean folded;
+        
+        /** Whether the player went to the showdown. */
+        private boolean showdown;
+        
+        /** The number of bets and raises after the Flop. */
+        private int aggressiveActions;
+        
+        /**
+         * Constructor.
+         * 
+         * @param stats
+         *            The player's statistics.
+         */
+        public Seat(PlayerStats stats) {
+            this.stats = stats;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,161 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.dsaw.poker.engine.codec.WireCodec;
+
+/**
+ * Store of the behavior statistics of all players, by player name, shared by
+ * any number of tables (see {@link StatsCollector}) and bots. <br />
+ * <br />
+ * 
+ * Snapshots are persisted compactly: after a header, each player is stored as
+ * its name and its counters, all as variable-length integers (see
+ * {@link WireCodec}).
+ */
+public class StatsStore {
+    
+    /** The magic number of a snapshot ('STS1'). */
+    private static final int MAGIC = 0x53545331;
+    
+    /** The initial size of the snapshot buffer. */
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    
+    /** The statistics by player name. */
+    private final ConcurrentMap<String, PlayerStats> stats = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the statistics of a player, created empty on first use.
+     * 
+     * @param name
+     *            The player's name.
+     * 
+     * @return The statistics.
+     */
+    public PlayerStats getStats(String name) {
+        PlayerStats playerStats = stats.get(name);
+        if (playerStats == null) {
+            playerStats = new PlayerStats();
+            PlayerStats existing = stats.putIfAbsent(name, playerStats);
+            if (existing != null) {
+                playerStats = existing;
+            }
+        }
+        return playerStats;
+    }
+    
+    /**
+     * Returns the names of the players with statistics.
+     * 
+     * @return The player names.
+     */
+    public List<String> getPlayerNames() {
+        return new ArrayList<>(stats.keySet());
+    }
+    
+    /**
+     * Saves a snapshot of the statistics, replacing the file atomically. <br />
+     * <br />
+     * 
+     * The tables may keep playing during the save.
+     * 
+     * @param file
+     *            The file.
+     * 
+     * @throws IOException
+     *             If the file could not be written.
+     */
+    public void save(File file) throws IOException {
+        List<String> names = getPlayerNames();
+        ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        buffer.putInt(MAGIC);
+        WireCodec.putVarLong(buffer, PlayerStats.NO_OF_COUNTERS);
+        WireCodec.putVarLong(buffer, names.size());
+        for (String name : names) {
+            PlayerStats playerStats = stats.get(name);
+            int size = WireCodec.MAX_VARINT_SIZE * (PlayerStats.NO_OF_COUNTERS + 1) + 4 * name.length();
+            if (buffer.remaining() < size) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + size));
+                buffer.flip();
+                buffer = grown.put(buffer);
+            }
+            WireCodec.putString(buffer, name);
+            for (int counter = 0; counter < PlayerStats.NO_OF_COUNTERS; counter++) {
+                WireCodec.putVarLong(buffer, playerStats.get(counter));
+            }
+        }
+        buffer.flip();
+        File tempFile = new File(file.getPath() + ".tmp");
+        RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+        try {
+            raf.setLength(0L);
+            FileChannel channel = raf.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } finally {
+            raf.close();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Loads a snapshot, adding its counters to the current statistics.
+     * 
+     * @param file
+     *            The file.
+     * 
+     * @throws IOException
+     *             If the file could not be read or is not a snapshot.
+     */
+    public void load(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a statistics snapshot: " + file);
+            }
+            int noOfCounters = (int) WireCodec.getVarLong(buffer);
+            long noOfPlayers = WireCodec.getVarLong(buffer);
+            for (long i = 0L; i < noOfPlayers; i++) {
+                PlayerStats playerStats = getStats(WireCodec.getString(buffer));
+                for (int counter = 0; counter < noOfCounters; counter++) {
+                    long value = WireCodec.getVarLong(buffer);
+                    // Counters added by later versions are skipped.
+                    if (counter < PlayerStats.NO_OF_COUNTERS) {
+                        playerStats.add(counter, value);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt statistics snapshot: " + file, e);
+        }
+    }
+    
+}
@@ -0,0 +1,81 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.math.BigDecimal;
+
+/**
+ * A tournament blind level: the big blind and the ante. The small blind is
+ * half of the big blind.
+ */
+public class BlindLevel {
+    
+    /** The big blind. */
+    private final BigDecimal bigBlind;
+    
+    /** The ante (zero for none). */
+    private final BigDecimal ante;
+    
+    /**
+     * Constructor.
+     * 
+     * @param bigBlind
+     *            The big blind.
+     * @param ante
+     *            The ante (zero for none).
+     */
+    public BlindLevel(BigDecimal bigBlind, BigDecimal ante) {
+        if (bigBlind.signum() <= 0) {
+            throw new IllegalArgumentException("Invalid big blind: " + bigBlind);
+        }
+        if (ante.signum() < 0) {
+            throw new IllegalArgumentException("Invalid ante: " + ante);
+        }
+        this.bigBlind = bigBlind;
+        this.ante = ante;
+    }
+    
+    /**
+     * Returns the big blind.
+     * 
+     * @return The big blind.
+     */
+    public BigDecimal getBigBlind() {
+        return bigBlind;
+    }
+    
+    /**
+     * Returns the ante.
+     * 
+     * @return The ante (zero for none).
+     */
+    public BigDecimal getAnte() {
+        return ante;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        if (ante.signum() > 0) {
+            return String.format("%s/%s (ante %s)", bigBlind.divide(BigDecimal.valueOf(2)), bigBlind, ante);
+        } else {
+            return String.format("%s/%s", bigBlind.divide(BigDecimal.valueOf(2)), bigBlind);
+        }
+    }
+    
+}
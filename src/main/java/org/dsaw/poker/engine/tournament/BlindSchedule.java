@@ -0,0 +1,132 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A schedule of blind levels, each lasting a fixed number of hands. <br />
+ * <br />
+ * 
+ * Simulated tables play at different speeds, so the level is counted in hands
+ * played per table rather than in time. After the last level, the last level
+ * stays in effect.
+ */
+public class BlindSchedule {
+    
+    /** The levels. */
+    private final List<BlindLevel> levels;
+    
+    /** The number of hands per level. */
+    private final int handsPerLevel;
+    
+    /**
+     * Constructor.
+     * 
+     * @param handsPerLevel
+     *            The number of hands per level.
+     * @param levels
+     *            The levels, in order.
+     */
+    public BlindSchedule(int handsPerLevel, BlindLevel... levels) {
+        this(handsPerLevel, Arrays.asList(levels));
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param handsPerLevel
+     *            The number of hands per level.
+     * @param levels
+     *            The levels, in order.
+     */
+    public BlindSchedule(int handsPerLevel, List<BlindLevel> levels) {
+        if (handsPerLevel < 1) {
+            throw new IllegalArgumentException("Invalid number of hands per level: " + handsPerLevel);
+        }
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("No blind levels");
+        }
+        this.handsPerLevel = handsPerLevel;
+        this.levels = Collections.unmodifiableList(new ArrayList<>(levels));
+    }
+    
+    /**
+     * Creates a schedule with geometrically increasing blinds (rounded to
+     * whole chips), with an ante of an eighth of the big blind from the fourth
+     * level on.
+     * 
+     * @param handsPerLevel
+     *            The number of hands per level.
+     * @param startingBigBlind
+     *            The big blind of the first level.
+     * @param factor
+     *            The factor by which the blinds increase per level.
+     * @param noOfLevels
+     *            The number of levels.
+     * 
+     * @return The schedule.
+     */
+    public static BlindSchedule geometric(int handsPerLevel, long startingBigBlind, double factor, int noOfLevels) {
+        List<BlindLevel> levels = new ArrayList<>(noOfLevels);
+        double bigBlind = startingBigBlind;
+        for (int i = 0; i < noOfLevels; i++) {
+            // Keep the big blind even, so the small blind is a whole chip.
+            long roundedBigBlind = Math.max(2L, Math.round(bigBlind / 2.0) * 2L);
+            long ante = (i < 3) ? 0L : roundedBigBlind / 8L;
+            levels.add(new BlindLevel(BigDecimal.valueOf(roundedBigBlind), BigDecimal.valueOf(ante)));
+            bigBlind *= factor;
+        }
+        return new BlindSchedule(handsPerLevel, levels);
+    }
+    
+    /**
+     * Returns the level in effect after a number of hands.
+     * 
+     * @param handsPlayed
+     *            The number of hands played.
+     * 
+     * @return The level.
+     */
+    public BlindLevel getLevel(int handsPlayed) {
+        return levels.get(Math.min(handsPlayed / handsPerLevel, levels.size() - 1));
+    }
+    
+    /**
+     * Returns the number of hands per level.
+     * 
+     * @return The number of hands per level.
+     */
+    public int getHandsPerLevel() {
+        return handsPerLevel;
+    }
+    
+    /**
+     * Returns the levels.
+     * 
+     * @return The levels.
+     */
+    public List<BlindLevel> getLevels() {
+        return levels;
+    }
+    
+}
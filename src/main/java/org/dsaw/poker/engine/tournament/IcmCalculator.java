@@ -0,0 +1,492 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import org.dsaw.poker.engine.Player;
+
+/**
+ * Calculator of tournament equities according to the Independent Chip Model
+ * (ICM). <br />
+ * <br />
+ * 
+ * In the ICM, a player finishes first with a probability proportional to his
+ * stack, and each next place is awarded the same way among the players left.
+ * The plain recursion over all finishing orders is factorial in the number of
+ * players. Instead, up to {@link #MAX_EXACT_PLAYERS} players are calculated
+ * exactly with dynamic programming over the sets of players occupying the top
+ * places, in O(2<sup>n</sup> n). Larger fields are approximated with Monte
+ * Carlo sampling of the top finishing places. <br />
+ * <br />
+ * 
+ * The calculator is immutable and thread-safe; the scratch arrays of the
+ * exact calculation are kept per thread, so repeated queries (e.g. on every
+ * push/fold decision) do not allocate beyond the returned array.
+ */
+public class IcmCalculator {
+    
+    /** The maximum number of players calculated exactly. */
+    public static final int MAX_EXACT_PLAYERS = 16;
+    
+    /** The default number of Monte Carlo trials. */
+    public static final int DEFAULT_TRIALS = 20000;
+    
+    /** The number of trials per parallel Monte Carlo task. */
+    private static final int TRIALS_PER_TASK = 5000;
+    
+    /** The scratch arrays of the exact calculation, per thread. */
+    private static final ThreadLocal<double[][]> SCRATCH = new ThreadLocal<double[][]>() {
+        @Override
+        protected double[][] initialValue() {
+            return new double[2][1 << 10];
+        }
+    };
+    
+    /** The payouts per place (index 0 for the winner). */
+    private final double[] payouts;
+    
+    /** The number of Monte Carlo trials. */
+    private final int trials;
+    
+    /**
+     * Constructor.
+     * 
+     * @param payouts
+     *            The payouts per place, starting with the winner.
+     */
+    public IcmCalculator(double... payouts) {
+        this(payouts, DEFAULT_TRIALS);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param payouts
+     *            The payouts per place, starting with the winner.
+     * @param trials
+     *            The number of Monte Carlo trials for large fields.
+     */
+    public IcmCalculator(double[] payouts, int trials) {
+        if (payouts.length == 0) {
+            throw new IllegalArgumentException("No payouts");
+        }
+        if (trials < 1) {
+            throw new IllegalArgumentException("Invalid number of trials: " + trials);
+        }
+        this.payouts = payouts.clone();
+        this.trials = trials;
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param payoutStructure
+     *            The payout structure.
+     * @param prizePool
+     *            The prize pool.
+     */
+    public IcmCalculator(PayoutStructure payoutStructure, BigDecimal prizePool) {
+        this(toDoubles(payoutStructure.getPrizes(prizePool)));
+    }
+    
+    /**
+     * Returns the equities of players based on their current stacks.
+     * 
+     * @param players
+     *            The players.
+     * 
+     * @return The equities, in the order of the players.
+     */
+    public double[] getEquities(List<Player> players) {
+        double[] stacks = new double[players.size()];
+        for (int i = 0; i < stacks.length; i++) {
+            stacks[i] = players.get(i).getCash().doubleValue();
+        }
+        return getEquities(stacks);
+    }
+    
+    /**
+     * Returns the equities of players based on their stacks. Exact up to
+     * {@link #MAX_EXACT_PLAYERS} players, otherwise approximated.
+     * 
+     * @param stacks
+     *            The stacks (players with an empty stack get nothing).
+     * 
+     * @return The equities.
+     */
+    public double[] getEquities(double[] stacks) {
+        if (stacks.length <= MAX_EXACT_PLAYERS) {
+            return getExactEquities(stacks);
+        } else {
+            return getApproximateEquities(stacks, trials, new SplittableRandom());
+        }
+    }
+    
+    /**
+     * Returns the equities of many independent queries in parallel, using the
+     * common fork/join pool.
+     * 
+     * @param stacks
+     *            The stacks per query.
+     * 
+     * @return The equities per query.
+     */
+    public double[][] getEquities(final double[][] stacks) {
+        final double[][] equities = new double[stacks.length][];
+        ForkJoinPool.commonPool().invoke(new BatchTask(stacks, equities, 0, stacks.length));
+        return equities;
+    }
+    
+    /**
+     * Calculates the exact equities with dynamic programming over the sets of
+     * players occupying the top places.
+     * 
+     * @param stacks
+     *            The stacks (at most {@link #MAX_EXACT_PLAYERS}).
+     * 
+     * @return The equities.
+     */
+    public double[] getExactEquities(double[] stacks) {
+        int n = stacks.length;
+        if (n > MAX_EXACT_PLAYERS) {
+            throw new IllegalArgumentException("Too many players for an exact calculation: " + n);
+        }
+        double[] equities = new double[n];
+        int noOfPlaces = Math.min(payouts.length, n);
+        int noOfSets = 1 << n;
+        double[][] scratch = SCRATCH.get();
+        if (scratch[0].length < noOfSets) {
+            scratch = new double[][] {new double[noOfSets], new double[noOfSets]};
+            SCRATCH.set(scratch);
+        }
+        // The probability that exactly the set of players occupies the top places (in any order)...
+        double[] probabilities = scratch[0];
+        // ...and the chips of that set.
+        double[] chips = scratch[1];
+        double total = 0.0;
+        for (double stack : stacks) {
+            total += stack;
+        }
+        if (total <= 0.0) {
+            return equities;
+        }
+        Arrays.fill(probabilities, 0, noOfSets, 0.0);
+        probabilities[0] = 1.0;
+        chips[0] = 0.0;
+        // Sets in increasing order, so all subsets of a set are done before the set itself.
+        for (int set = 0; set < noOfSets; set++) {
+            if (set != 0) {
+                int lowest = Integer.numberOfTrailingZeros(set);
+                chips[set] = chips[set & (set - 1)] + stacks[lowest];
+            }
+            double probability = probabilities[set];
+            if (probability == 0.0) {
+                continue;
+            }
+            int place = Integer.bitCount(set);
+            if (place >= noOfPlaces) {
+                continue;
+            }
+            double chipsLeft = total - chips[set];
+            if (chipsLeft <= 0.0) {
+                continue;
+            }
+            double payout = payouts[place];
+            for (int i = 0; i < n; i++) {
+                int bit = 1 << i;
+                if ((set & bit) == 0 && stacks[i] > 0.0) {
+                    double p = probability * stacks[i] / chipsLeft;
+                    equities[i] += p * payout;
+                    probabilities[set | bit] += p;
+                }
+            }
+        }
+        return equities;
+    }
+    
+    /**
+     * Approximates the equities with Monte Carlo sampling, in parallel on the
+     * common fork/join pool. <br />
+     * <br />
+     * 
+     * Each trial draws the finishing order of the paid places directly: with
+     * exponentially distributed keys with rates proportional to the stacks,
+     * the player with the smallest key finishes first with a probability
+     * proportional to his stack, and so on for the next places, exactly as in
+     * the ICM. Only the paid places are selected, in O(n log k) per trial.
+     * 
+     * @param stacks
+     *            The stacks.
+     * @param trials
+     *            The number of trials.
+     * @param random
+     *            The random generator (split per task).
+     * 
+     * @return The equities.
+     */
+    public double[] getApproximateEquities(double[] stacks, int trials, SplittableRandom random) {
+        return ForkJoinPool.commonPool().invoke(new SampleTask(stacks, trials, random));
+    }
+    
+    /**
+     * Runs Monte Carlo trials in the current thread.
+     * 
+     * @param stacks
+     *            The stacks.
+     * @param trials
+     *            The number of trials.
+     * @param random
+     *            The random generator.
+     * 
+     * @return The sum of the payouts per player over all trials.
+     */
+    private double[] sample(double[] stacks, int trials, SplittableRandom random) {
+        int n = stacks.length;
+        double[] payoutSums = new double[n];
+        int noOfLivePlayers = 0;
+        for (double stack : stacks) {
+            if (stack > 0.0) {
+                noOfLivePlayers++;
+            }
+        }
+        int noOfPlaces = Math.min(payouts.length, noOfLivePlayers);
+        if (noOfPlaces == 0) {
+            return payoutSums;
+        }
+        // Max-heap of the smallest keys drawn so far (and their players).
+        double[] heapKeys = new double[noOfPlaces];
+        int[] heapPlayers = new int[noOfPlaces];
+        for (int trial = 0; trial < trials; trial++) {
+            int size = 0;
+            for (int i = 0; i < n; i++) {
+                if (stacks[i] <= 0.0) {
+                    continue;
+                }
+                double key = -Math.log(1.0 - random.nextDouble()) / stacks[i];
+                if (size < noOfPlaces) {
+                    siftUp(heapKeys, heapPlayers, size++, key, i);
+                } else if (key < heapKeys[0]) {
+                    siftDown(heapKeys, heapPlayers, size, key, i);
+                }
+            }
+            // Pop from the largest key (last paid place) to the smallest (winner).
+            for (int place = size - 1; place >= 0; place--) {
+                payoutSums[heapPlayers[0]] += payouts[place];
+                double lastKey = heapKeys[place];
+                int lastPlayer = heapPlayers[place];
+                if (place > 0) {
+                    siftDown(heapKeys, heapPlayers, place, lastKey, lastPlayer);
+                }
+            }
+        }
+        return payoutSums;
+    }
+    
+    /**
+     * Inserts an entry at the end of a max-heap.
+     * 
+     * @param keys
+     *            The heap's keys.
+     * @param players
+     *            The heap's players.
+     * @param index
+     *            The index of the new entry (the current size).
+     * @param key
+     *            The key.
+     * @param player
+     *            The player.
+     */
+    private static void siftUp(double[] keys, int[] players, int index, double key, int player) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] >= key) {
+                break;
+            }
+            keys[index] = keys[parent];
+            players[index] = players[parent];
+            index = parent;
+        }
+        keys[index] = key;
+        players[index] = player;
+    }
+    
+    /**
+     * Replaces the root of a max-heap.
+     * 
+     * @param keys
+     *            The heap's keys.
+     * @param players
+     *            The heap's players.
+     * @param size
+     *            The size of the heap.
+     * @param key
+     *            The key.
+     * @param player
+     *            The player.
+     */
+    private static void siftDown(double[] keys, int[] players, int size, double key, int player) {
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && keys[child + 1] > keys[child]) {
+                child++;
+            }
+            if (key >= keys[child]) {
+                break;
+            }
+            keys[index] = keys[child];
+            players[index] = players[child];
+            index = child;
+        }
+        keys[index] = key;
+        players[index] = player;
+    }
+    
+    /**
+     * Converts amounts to doubles.
+     * 
+     * @param amounts
+     *            The amounts.
+     * 
+     * @return The doubles.
+     */
+    private static double[] toDoubles(BigDecimal[] amounts) {
+        double[] values = new double[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            values[i] = amounts[i].doubleValue();
+        }
+        return values;
+    }
+    
+    /**
+     * Task running Monte Carlo trials, split over subtasks.
+     */
+    private class SampleTask extends RecursiveTask<double[]> {
+        
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+        
+        /** The stacks. */
+        private final double[] stacks;
+        
+        /** The number of trials. */
+        private final int trials;
+        
+        /** The random generator. */
+        private final SplittableRandom random;
+        
+        /** Whether this is the root task (which averages the sums). */
+        private final boolean isRoot;
+        
+        /**
+         * Constructor.
+         */
+        private SampleTask(double[] stacks, int trials, SplittableRandom random) {
+            this(stacks, trials, random, true);
+        }
+        
+        /**
+         * Constructor.
+         */
+        private SampleTask(double[] stacks, int trials, SplittableRandom random, boolean isRoot) {
+            this.stacks = stacks;
+            this.trials = trials;
+            this.random = random;
+            this.isRoot = isRoot;
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        protected double[] compute() {
+            double[] sums;
+            if (trials <= TRIALS_PER_TASK) {
+                sums = sample(stacks, trials, random);
+            } else {
+                int half = trials / 2;
+                SampleTask left = new SampleTask(stacks, half, random.split(), false);
+                SampleTask right = new SampleTask(stacks, trials - half, random, false);
+                left.fork();
+                sums = right.compute();
+                double[] leftSums = left.join();
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += leftSums[i];
+                }
+            }
+            if (isRoot) {
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] /= trials;
+                }
+            }
+            return sums;
+        }
+        
+    }
+    
+    /**
+     * Task calculating a range of independent queries.
+     */
+    private class BatchTask extends RecursiveAction {
+        
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+        
+        /** The stacks per query. */
+        private final double[][] stacks;
+        
+        /** The equities per query. */
+        private final double[][] equities;
+        
+        /** The first query. */
+        private final int from;
+        
+        /** The end of the range (exclusive). */
+        private final int to;
+        
+        /**
+         * Constructor.
+         */
+        private BatchTask(double[][] stacks, double[][] equities, int from, int to) {
+            this.stacks = stacks;
+            this.equities = equities;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        protected void compute() {
+            if (to - from <= 16) {
+                for (int i = from; i < to; i++) {
+                    equities[i] = getEquities(stacks[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask(stacks, equities, from, middle), new BatchTask(stacks, equities, middle, to));
+            }
+        }
+        
+    }
+    
+}
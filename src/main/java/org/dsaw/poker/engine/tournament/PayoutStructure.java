@@ -0,0 +1,117 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The distribution of a tournament's prize pool over the top places. <br />
+ * <br />
+ * 
+ * Prizes are rounded down to whole cents; the rounding remainder goes to the
+ * winner.
+ */
+public class PayoutStructure {
+    
+    /** The fraction of the prize pool per place (index 0 for the winner). */
+    private final double[] fractions;
+    
+    /**
+     * Constructor.
+     * 
+     * @param fractions
+     *            The fraction of the prize pool per place, starting with the
+     *            winner; must add up to 1.
+     */
+    public PayoutStructure(double... fractions) {
+        if (fractions.length == 0) {
+            throw new IllegalArgumentException("No paid places");
+        }
+        double total = 0.0;
+        for (double fraction : fractions) {
+            if (fraction < 0.0) {
+                throw new IllegalArgumentException("Negative payout fraction: " + fraction);
+            }
+            total += fraction;
+        }
+        if (Math.abs(total - 1.0) > 1e-6) {
+            throw new IllegalArgumentException("Payout fractions add up to " + total);
+        }
+        this.fractions = fractions.clone();
+    }
+    
+    /**
+     * Creates a structure paying a share of the field, with each place paying
+     * a constant factor more than the next.
+     * 
+     * @param noOfEntrants
+     *            The number of entrants.
+     * @param paidShare
+     *            The share of the field that is paid (e.g. 0.15).
+     * @param ratio
+     *            The ratio between the prizes of consecutive places (e.g.
+     *            1.3).
+     * 
+     * @return The structure.
+     */
+    public static PayoutStructure geometric(int noOfEntrants, double paidShare, double ratio) {
+        int noOfPlaces = Math.max(1, Math.min(noOfEntrants, (int) Math.ceil(noOfEntrants * paidShare)));
+        double[] fractions = new double[noOfPlaces];
+        double total = 0.0;
+        double weight = 1.0;
+        for (int i = 0; i < noOfPlaces; i++) {
+            fractions[i] = weight;
+            total += weight;
+            weight /= ratio;
+        }
+        for (int i = 0; i < noOfPlaces; i++) {
+            fractions[i] /= total;
+        }
+        return new PayoutStructure(fractions);
+    }
+    
+    /**
+     * Returns the number of paid places.
+     * 
+     * @return The number of paid places.
+     */
+    public int getNoOfPaidPlaces() {
+        return fractions.length;
+    }
+    
+    /**
+     * Returns the prizes of all paid places.
+     * 
+     * @param prizePool
+     *            The prize pool.
+     * 
+     * @return The prizes, starting with the winner.
+     */
+    public BigDecimal[] getPrizes(BigDecimal prizePool) {
+        BigDecimal[] prizes = new BigDecimal[fractions.length];
+        BigDecimal paid = BigDecimal.ZERO;
+        for (int i = 0; i < fractions.length; i++) {
+            prizes[i] = prizePool.multiply(BigDecimal.valueOf(fractions[i])).setScale(2, RoundingMode.DOWN);
+            paid = paid.add(prizes[i]);
+        }
+        prizes[0] = prizes[0].add(prizePool.subtract(paid));
+        return prizes;
+    }
+    
+}
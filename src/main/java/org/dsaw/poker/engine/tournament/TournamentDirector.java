@@ -0,0 +1,893 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dsaw.poker.engine.Client;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.dsaw.poker.engine.codec.WireCodec;
+
+/**
+ * Director of a multi-table tournament. <br />
+ * <br />
+ * 
+ * The entrants are randomly seated at as few tables as possible. All tables
+ * play in parallel, each hand as a separate task. The tasks share a single
+ * FIFO queue, so a table that played a hand queues behind all other tables
+ * and the tables take turns fairly, whatever the number of threads. The
+ * blinds increase according to the {@link BlindSchedule}, on a
+ * tournament-wide clock that advances by one hand once every active table
+ * has played a hand (on average), so all tables play the same level at the
+ * same time. <br />
+ * <br />
+ * 
+ * There is no global lock. The number of players per table (including players
+ * on their way to it) is kept in an {@link AtomicIntegerArray}; a table
+ * reserves a seat at another table with a compare-and-set on its count before
+ * moving a player there. After each hand, a table with two players more than
+ * the shortest table moves players to it until within one, and when fewer tables are needed
+ * for the remaining players, the shortest table is asked to break. Breaking is
+ * claimed with a compare-and-set on the number of active tables, so never
+ * too many tables break. <br />
+ * <br />
+ * 
+ * A running tournament can be checkpointed with {@link #checkpoint()}, which
+ * pauses all tables between hands, and resumed (e.g. after a crash) by a new
+ * director with {@link #restore(byte[])}.
+ */
+public class TournamentDirector {
+    
+    /** Count of a broken table. */
+    private static final int BROKEN = -1;
+    
+    /** The number of tournament clock units per hand. */
+    private static final long CLOCK_UNITS_PER_HAND = 1L << 16;
+    
+    /** The magic number of a checkpoint ('TRN1'). */
+    private static final int CHECKPOINT_MAGIC = 0x54524e31;
+    
+    /** The maximum size of a checkpoint without the entrants and tables. */
+    private static final int CHECKPOINT_BASE_SIZE = 12 + 4 * WireCodec.MAX_VARINT_SIZE;
+    
+    /** The table type. */
+    private final TableType tableType;
+    
+    /** The maximum number of players per table. */
+    private final int seatsPerTable;
+    
+    /** The starting stack. */
+    private final BigDecimal startingStack;
+    
+    /** The buy-in per entrant. */
+    private final BigDecimal buyIn;
+    
+    /** The blind schedule. */
+    private final BlindSchedule blindSchedule;
+    
+    /** The entrants. */
+    private final List<Entrant> entrants;
+    
+    /** The entrants by player (read-only once started). */
+    private final Map<Player, Entrant> entrantsByPlayer;
+    
+    /** The payout structure (null for the default structure). */
+    private PayoutStructure payoutStructure;
+    
+    /** The random generator for the seating. */
+    private Random random;
+    
+    /** The tables. */
+    private TournamentTable[] tables;
+    
+    /** The number of players per table (or BROKEN). */
+    private AtomicIntegerArray seatCounts;
+    
+    /** The number of tables not broken. */
+    private final AtomicInteger activeTables;
+    
+    /** The number of players left. */
+    private final AtomicInteger remaining;
+    
+    /** The tournament clock: the hands played per active table, in clock units. */
+    private final AtomicLong clock;
+    
+    /** Signalled when the tournament is finished (or failed). */
+    private final CountDownLatch finished;
+    
+    /** The executor running the tables. */
+    private volatile ExecutorService pool;
+    
+    /** The number of tables scheduled to run (or running). */
+    private final AtomicInteger scheduledTables;
+    
+    /** Whether a checkpoint is being taken; the tables pause before their next hand. */
+    private volatile boolean checkpointPending;
+    
+    /** Guards the checkpoints; notified when the last table paused, or the tournament finished. */
+    private final Object checkpointLock;
+    
+    /** The failure of a table, if any. */
+    private volatile Throwable failure;
+    
+    /**
+     * Constructor.
+     * 
+     * @param tableType
+     *            The table type.
+     * @param seatsPerTable
+     *            The maximum number of players per table.
+     * @param startingStack
+     *            The starting stack.
+     * @param buyIn
+     *            The buy-in per entrant.
+     * @param blindSchedule
+     *            The blind schedule.
+     */
+    public TournamentDirector(TableType tableType, int seatsPerTable, BigDecimal startingStack, BigDecimal buyIn, BlindSchedule blindSchedule) {
+        if (seatsPerTable < 2) {
+            throw new IllegalArgumentException("Invalid number of seats per table: " + seatsPerTable);
+        }
+        this.tableType = tableType;
+        this.seatsPerTable = seatsPerTable;
+        this.startingStack = startingStack;
+        this.buyIn = buyIn;
+        this.blindSchedule = blindSchedule;
+        entrants = new ArrayList<>();
+        entrantsByPlayer = new IdentityHashMap<>();
+        random = new Random();
+        activeTables = new AtomicInteger();
+        remaining = new AtomicInteger();
+        clock = new AtomicLong();
+        finished = new CountDownLatch(1);
+        scheduledTables = new AtomicInteger();
+        checkpointLock = new Object();
+    }
+    
+    /**
+     * Registers an entrant.
+     * 
+     * @param name
+     *            The entrant's name.
+     * @param client
+     *            The entrant's client.
+     */
+    public void addEntrant(String name, Client client) {
+        if (pool != null || tables != null) {
+            throw new IllegalStateException("Tournament already started");
+        }
+        Entrant entrant = new Entrant(new Player(name, startingStack, client));
+        entrants.add(entrant);
+        entrantsByPlayer.put(entrant.player, entrant);
+    }
+    
+    /**
+     * Sets the payout structure. By default, 15% of the field is paid.
+     * 
+     * @param payoutStructure
+     *            The payout structure.
+     */
+    public void setPayoutStructure(PayoutStructure payoutStructure) {
+        this.payoutStructure = payoutStructure;
+    }
+    
+    /**
+     * Sets the random generator used for the seat assignment and the tables'
+     * seeds.
+     * 
+     * @param random
+     *            The random generator.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+    
+    /**
+     * Returns the blind schedule.
+     * 
+     * @return The blind schedule.
+     */
+    public BlindSchedule getBlindSchedule() {
+        return blindSchedule;
+    }
+    
+    /**
+     * Returns the number of hands on the tournament clock, i.e. the number of
+     * hands played per active table.
+     * 
+     * @return The number of hands.
+     */
+    public int getClockHands() {
+        return (int) (clock.get() / CLOCK_UNITS_PER_HAND);
+    }
+    
+    /**
+     * Returns the current blind level, according to the tournament clock.
+     * 
+     * @return The blind level.
+     */
+    public BlindLevel getBlindLevel() {
+        return blindSchedule.getLevel(getClockHands());
+    }
+    
+    /**
+     * Returns the number of players left.
+     * 
+     * @return The number of players left.
+     */
+    public int getRemaining() {
+        return remaining.get();
+    }
+    
+    /**
+     * Returns the number of tables not broken.
+     * 
+     * @return The number of active tables.
+     */
+    public int getActiveTables() {
+        return activeTables.get();
+    }
+    
+    /**
+     * Plays the tournament until one player is left, or resumes it after
+     * {@link #restore(byte[])}.
+     * 
+     * @param parallelism
+     *            The number of threads.
+     * 
+     * @return The results, ordered by place.
+     * 
+     * @throws InterruptedException
+     *             If interrupted while waiting for the tournament to finish.
+     */
+    public List<TournamentResult> run(int parallelism) throws InterruptedException {
+        int noOfEntrants = entrants.size();
+        if (noOfEntrants < 2) {
+            throw new IllegalStateException("Not enough entrants");
+        }
+        if (pool != null) {
+            throw new IllegalStateException("Tournament already started");
+        }
+        if (payoutStructure == null) {
+            payoutStructure = PayoutStructure.geometric(noOfEntrants, 0.15, 1.3);
+        }
+        
+        if (tables == null) {
+            // Seat the entrants randomly, spread evenly over the tables.
+            int noOfTables = getTablesNeeded(noOfEntrants);
+            TournamentTable[] newTables = new TournamentTable[noOfTables];
+            seatCounts = new AtomicIntegerArray(noOfTables);
+            BigDecimal bigBlind = blindSchedule.getLevel(0).getBigBlind();
+            for (int i = 0; i < noOfTables; i++) {
+                Table table = new Table(tableType, bigBlind);
+                table.setShortStacksAllowed(true);
+                table.setSeed(random.nextLong());
+                newTables[i] = new TournamentTable(this, i, table);
+            }
+            List<Entrant> seating = new ArrayList<>(entrants);
+            Collections.shuffle(seating, random);
+            for (int i = 0; i < noOfEntrants; i++) {
+                newTables[i % noOfTables].seat(seating.get(i).player);
+                seatCounts.incrementAndGet(i % noOfTables);
+            }
+            activeTables.set(noOfTables);
+            remaining.set(noOfEntrants);
+            tables = newTables;
+        }
+        
+        // A single FIFO queue; a table re-scheduling itself queues behind the other tables.
+        pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            scheduleAll();
+            finished.await();
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(1L, TimeUnit.MINUTES);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Tournament table failed", failure);
+        }
+        return getResults();
+    }
+    
+    /**
+     * Indicates whether the tournament is finished.
+     * 
+     * @return True if finished (or failed), otherwise false.
+     */
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+    
+    /**
+     * Takes a checkpoint of the running tournament, to resume it later (e.g.
+     * after a crash) with {@link #restore(byte[])}. <br />
+     * <br />
+     * 
+     * All tables pause before their next hand while the checkpoint is taken,
+     * so it is consistent: the entrants' places, hands played and stacks, the
+     * snapshot of every table (see {@link Table#snapshot()}), the players on
+     * their way to another table, the balancing state and the tournament
+     * clock. The settings, entrants and payout structure are not included.
+     * 
+     * @return The checkpoint.
+     * 
+     * @throws IllegalStateException
+     *             If the tournament is not running.
+     * @throws InterruptedException
+     *             If interrupted while waiting for the tables to pause.
+     */
+    public byte[] checkpoint() throws InterruptedException {
+        synchronized (checkpointLock) {
+            if (pool == null || isFinished()) {
+                throw new IllegalStateException("Tournament not running");
+            }
+            checkpointPending = true;
+            try {
+                while (scheduledTables.get() > 0 && !isFinished()) {
+                    checkpointLock.wait();
+                }
+                if (isFinished()) {
+                    throw new IllegalStateException("Tournament finished");
+                }
+                return writeCheckpoint();
+            } finally {
+                checkpointPending = false;
+                if (!isFinished()) {
+                    scheduleAll();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes a checkpoint while all tables are paused.
+     * 
+     * @return The checkpoint.
+     */
+    private byte[] writeCheckpoint() {
+        Map<Player, Integer> indexes = new IdentityHashMap<>();
+        int size = CHECKPOINT_BASE_SIZE;
+        for (int i = 0; i < entrants.size(); i++) {
+            Player player = entrants.get(i).player;
+            indexes.put(player, i);
+            size += 5 * WireCodec.MAX_VARINT_SIZE + 4 * player.getName().length();
+        }
+        byte[][] snapshots = new byte[tables.length][];
+        for (int i = 0; i < tables.length; i++) {
+            snapshots[i] = tables[i].getTable().snapshot();
+            size += 1 + 4 * WireCodec.MAX_VARINT_SIZE + snapshots[i].length;
+        }
+        // Every entrant is seated at or on the way to at most one table.
+        size += entrants.size() * WireCodec.MAX_VARINT_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(CHECKPOINT_MAGIC);
+        buffer.putLong(clock.get());
+        WireCodec.putVarLong(buffer, activeTables.get());
+        WireCodec.putVarLong(buffer, remaining.get());
+        WireCodec.putVarLong(buffer, entrants.size());
+        for (Entrant entrant : entrants) {
+            WireCodec.putString(buffer, entrant.player.getName());
+            WireCodec.putVarLong(buffer, entrant.place);
+            WireCodec.putVarLong(buffer, entrant.handsPlayed);
+            WireCodec.putDecimal(buffer, entrant.player.getCash());
+        }
+        WireCodec.putVarLong(buffer, tables.length);
+        for (int i = 0; i < tables.length; i++) {
+            TournamentTable table = tables[i];
+            buffer.put((byte) ((table.isBroken() ? 1 : 0) | (table.isBreakRequested() ? 2 : 0)));
+            // The count plus one, with zero for a broken table.
+            WireCodec.putVarLong(buffer, seatCounts.get(i) + 1L);
+            WireCodec.putVarLong(buffer, snapshots[i].length);
+            buffer.put(snapshots[i]);
+            List<Player> players = table.getTable().getPlayers();
+            WireCodec.putVarLong(buffer, players.size());
+            for (Player player : players) {
+                WireCodec.putVarLong(buffer, indexes.get(player));
+            }
+            Collection<Player> arrivals = table.getArrivals();
+            WireCodec.putVarLong(buffer, arrivals.size());
+            for (Player player : arrivals) {
+                WireCodec.putVarLong(buffer, indexes.get(player));
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+    
+    /**
+     * Restores the state of a checkpoint taken with {@link #checkpoint()},
+     * after which {@link #run(int)} resumes the tournament. <br />
+     * <br />
+     * 
+     * This director must have the settings, payout structure and entrants
+     * (registered in the same order) of the checkpointed one. The players are
+     * seated with the clients of the entrants; clients implementing
+     * {@link org.dsaw.poker.engine.StatefulClient} get their saved state back.
+     * 
+     * @param checkpoint
+     *            The checkpoint.
+     * 
+     * @throws IllegalArgumentException
+     *             If the checkpoint is invalid, or the entrants do not match.
+     * @throws IllegalStateException
+     *             If the tournament has already started.
+     */
+    public void restore(byte[] checkpoint) {
+        if (pool != null || tables != null) {
+            throw new IllegalStateException("Tournament already started");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(checkpoint);
+        try {
+            if (buffer.getInt() != CHECKPOINT_MAGIC) {
+                throw new IllegalArgumentException("Not a tournament checkpoint");
+            }
+            long clockUnits = buffer.getLong();
+            int noOfActiveTables = (int) WireCodec.getVarLong(buffer);
+            int noOfRemaining = (int) WireCodec.getVarLong(buffer);
+            int noOfEntrants = (int) WireCodec.getVarLong(buffer);
+            if (noOfEntrants != entrants.size()) {
+                throw new IllegalArgumentException("Expected " + noOfEntrants + " entrants");
+            }
+            int[] places = new int[noOfEntrants];
+            int[] handsPlayed = new int[noOfEntrants];
+            Player[] players = new Player[noOfEntrants];
+            for (int i = 0; i < noOfEntrants; i++) {
+                Player player = entrants.get(i).player;
+                String name = WireCodec.getString(buffer);
+                if (!name.equals(player.getName())) {
+                    throw new IllegalArgumentException("Expected entrant '" + name + "' instead of '" + player.getName() + "'");
+                }
+                places[i] = (int) WireCodec.getVarLong(buffer);
+                handsPlayed[i] = (int) WireCodec.getVarLong(buffer);
+                // Replaced by the seated player, if any.
+                players[i] = new Player(name, WireCodec.getDecimal(buffer), player.getClient());
+            }
+            int noOfTables = (int) WireCodec.getVarLong(buffer);
+            TournamentTable[] restoredTables = new TournamentTable[noOfTables];
+            AtomicIntegerArray restoredCounts = new AtomicIntegerArray(noOfTables);
+            int[] flags = new int[noOfTables];
+            int[][] arrivals = new int[noOfTables][];
+            for (int i = 0; i < noOfTables; i++) {
+                flags[i] = buffer.get();
+                restoredCounts.set(i, (int) WireCodec.getVarLong(buffer) - 1);
+                byte[] snapshot = new byte[(int) WireCodec.getVarLong(buffer)];
+                buffer.get(snapshot);
+                int noOfSeated = (int) WireCodec.getVarLong(buffer);
+                int[] seated = new int[noOfSeated];
+                List<Client> clients = new ArrayList<>(noOfSeated);
+                for (int j = 0; j < noOfSeated; j++) {
+                    seated[j] = (int) WireCodec.getVarLong(buffer);
+                    clients.add(players[seated[j]].getClient());
+                }
+                Table table = Table.restore(snapshot, clients);
+                for (int j = 0; j < noOfSeated; j++) {
+                    players[seated[j]] = table.getPlayers().get(j);
+                }
+                restoredTables[i] = new TournamentTable(this, i, table);
+                arrivals[i] = new int[(int) WireCodec.getVarLong(buffer)];
+                for (int j = 0; j < arrivals[i].length; j++) {
+                    arrivals[i][j] = (int) WireCodec.getVarLong(buffer);
+                }
+            }
+            for (int i = 0; i < noOfTables; i++) {
+                List<Player> arrivingPlayers = new ArrayList<>(arrivals[i].length);
+                for (int index : arrivals[i]) {
+                    arrivingPlayers.add(players[index]);
+                }
+                restoredTables[i].restore((flags[i] & 1) != 0, (flags[i] & 2) != 0, arrivingPlayers);
+            }
+            
+            entrantsByPlayer.clear();
+            for (int i = 0; i < noOfEntrants; i++) {
+                Entrant entrant = entrants.get(i);
+                entrant.player = players[i];
+                entrant.place = places[i];
+                entrant.handsPlayed = handsPlayed[i];
+                entrantsByPlayer.put(entrant.player, entrant);
+            }
+            clock.set(clockUnits);
+            activeTables.set(noOfActiveTables);
+            remaining.set(noOfRemaining);
+            seatCounts = restoredCounts;
+            tables = restoredTables;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ArithmeticException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Corrupt tournament checkpoint", e);
+        }
+    }
+    
+    /**
+     * Indicates whether a checkpoint is being taken, so the tables must pause
+     * before their next hand.
+     * 
+     * @return True if pending, otherwise false.
+     */
+    /* package */ boolean isCheckpointPending() {
+        return checkpointPending;
+    }
+    
+    /**
+     * Records that a table was scheduled to run.
+     */
+    /* package */ void tableScheduled() {
+        scheduledTables.incrementAndGet();
+    }
+    
+    /**
+     * Records that a table is no longer scheduled (idle or paused).
+     */
+    /* package */ void tableUnscheduled() {
+        if (scheduledTables.decrementAndGet() == 0 && checkpointPending) {
+            synchronized (checkpointLock) {
+                checkpointLock.notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Marks the tournament as finished (or failed).
+     */
+    private void finish() {
+        finished.countDown();
+        synchronized (checkpointLock) {
+            checkpointLock.notifyAll();
+        }
+    }
+    
+    /**
+     * Returns the results, ordered by place.
+     * 
+     * @return The results.
+     */
+    private List<TournamentResult> getResults() {
+        BigDecimal prizePool = buyIn.multiply(BigDecimal.valueOf(entrants.size()));
+        BigDecimal[] prizes = payoutStructure.getPrizes(prizePool);
+        List<Entrant> ranking = new ArrayList<>(entrants);
+        Collections.sort(ranking, new Comparator<Entrant>() {
+            @Override
+            public int compare(Entrant e1, Entrant e2) {
+                return Integer.compare(e1.place, e2.place);
+            }
+        });
+        List<TournamentResult> results = new ArrayList<>(ranking.size());
+        for (Entrant entrant : ranking) {
+            BigDecimal prize = (entrant.place <= prizes.length) ? prizes[entrant.place - 1] : BigDecimal.ZERO;
+            results.add(new TournamentResult(entrant.player.getName(), entrant.place, prize, entrant.handsPlayed));
+        }
+        return results;
+    }
+    
+    /**
+     * Returns the number of tables needed to seat a number of players.
+     * 
+     * @param noOfPlayers
+     *            The number of players.
+     * 
+     * @return The number of tables.
+     */
+    private int getTablesNeeded(int noOfPlayers) {
+        return Math.max(1, (noOfPlayers + seatsPerTable - 1) / seatsPerTable);
+    }
+    
+    /**
+     * Schedules all tables, in order. <br />
+     * <br />
+     * 
+     * The tables are scheduled by a task, so that no table plays a second hand
+     * before the other tables are queued (on a single thread).
+     */
+    private void scheduleAll() {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                for (TournamentTable table : tables) {
+                    table.schedule();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Runs a task.
+     * 
+     * @param task
+     *            The task (a table, or scheduling the tables).
+     */
+    /* package */ void execute(Runnable task) {
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (!isFinished()) {
+                throw e;
+            }
+            // Shut down after the tournament finished.
+        }
+    }
+    
+    /**
+     * Advances the tournament clock after a table played a hand.
+     */
+    /* package */ void tableHandPlayed() {
+        int active = Math.max(1, activeTables.get());
+        // Round up, so that every active table playing a hand advances the clock by at least a full hand.
+        clock.addAndGet((CLOCK_UNITS_PER_HAND + active - 1) / active);
+    }
+    
+    /**
+     * Records that a player was dealt a hand.
+     * 
+     * @param player
+     *            The player.
+     */
+    /* package */ void handPlayed(Player player) {
+        entrantsByPlayer.get(player).handsPlayed++;
+    }
+    
+    /**
+     * Records the players busted in the same hand and assigns their places.
+     * 
+     * @param table
+     *            The table.
+     * @param busted
+     *            The busted players, from the smallest to the largest stack
+     *            at the start of the hand.
+     * @param survivors
+     *            The players left at the table.
+     */
+    /* package */ void eliminated(TournamentTable table, List<Player> busted, List<Player> survivors) {
+        seatCounts.addAndGet(table.getIndex(), -busted.size());
+        int place = remaining.getAndAdd(-busted.size());
+        for (Player player : busted) {
+            entrantsByPlayer.get(player).place = place--;
+        }
+        if (place == 1) {
+            // The last bust happens at the winner's table.
+            entrantsByPlayer.get(survivors.get(0)).place = 1;
+            finish();
+        }
+    }
+    
+    /**
+     * Balances the tables after a hand: moves players from the table to the
+     * shortest table while it has two players more, or asks the shortest
+     * table to break if fewer tables are needed.
+     * 
+     * @param table
+     *            The table that played a hand.
+     */
+    /* package */ void balance(TournamentTable table) {
+        int index = table.getIndex();
+        int shortest = findShortestTable(-1);
+        if (shortest < 0) {
+            return;
+        }
+        if (activeTables.get() > getTablesNeeded(remaining.get())) {
+            tables[shortest].requestBreak();
+            return;
+        }
+        while (shortest >= 0 && shortest != index) {
+            int count = seatCounts.get(shortest);
+            if (count >= 0 && seatCounts.get(index) > count + 1 && seatCounts.compareAndSet(shortest, count, count + 1)) {
+                seatCounts.decrementAndGet(index);
+                tables[shortest].arrive(table.removePlayerToMove());
+            } else {
+                // Balanced, or another table moved a player there first; try again next hand.
+                break;
+            }
+            shortest = findShortestTable(-1);
+        }
+    }
+    
+    /**
+     * Claims the breaking of a table, if fewer tables are needed.
+     * 
+     * @param table
+     *            The table.
+     * 
+     * @return True if the table must break, otherwise false.
+     */
+    /* package */ boolean tryBreak(TournamentTable table) {
+        while (true) {
+            int active = activeTables.get();
+            if (active <= getTablesNeeded(remaining.get())) {
+                return false;
+            }
+            if (activeTables.compareAndSet(active, active - 1)) {
+                break;
+            }
+        }
+        // Close the table for arrivals; players already on their way are forwarded.
+        int index = table.getIndex();
+        int count;
+        do {
+            count = seatCounts.get(index);
+        } while (!seatCounts.compareAndSet(index, count, BROKEN));
+        return true;
+    }
+    
+    /**
+     * Moves a player from a broken table to the shortest table.
+     * 
+     * @param from
+     *            The broken table.
+     * @param player
+     *            The player.
+     */
+    /* package */ void relocate(TournamentTable from, Player player) {
+        while (true) {
+            int shortest = findShortestTable(from.getIndex());
+            if (shortest < 0) {
+                throw new IllegalStateException("No table left to move player to");
+            }
+            int count = seatCounts.get(shortest);
+            if (count >= 0 && count < seatsPerTable && seatCounts.compareAndSet(shortest, count, count + 1)) {
+                tables[shortest].arrive(player);
+                return;
+            }
+            // Table changed in the meantime; try again.
+        }
+    }
+    
+    /**
+     * Returns the number of players at a table, including players on their
+     * way to it.
+     * 
+     * @param index
+     *            The table's index.
+     * 
+     * @return The number of players, or -1 if the table is broken.
+     */
+    /* package */ int getSeatCount(int index) {
+        return seatCounts.get(index);
+    }
+    
+    /**
+     * Returns the number of players at the shortest active table.
+     * 
+     * @return The number of players.
+     */
+    /* package */ int getShortestSeatCount() {
+        return seatCounts.get(findShortestTable(-1));
+    }
+    
+    /**
+     * Returns an entrant's current stack.
+     * 
+     * @param name
+     *            The entrant's name.
+     * 
+     * @return The stack, or null if not an entrant.
+     */
+    /* package */ BigDecimal getStack(String name) {
+        for (Entrant entrant : entrants) {
+            if (entrant.player.getName().equals(name)) {
+                return entrant.player.getCash();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the active table with the fewest players.
+     * 
+     * @param excludedIndex
+     *            The index of a table to skip (or -1).
+     * 
+     * @return The table index, or -1 if none.
+     */
+    private int findShortestTable(int excludedIndex) {
+        int shortest = -1;
+        int minCount = Integer.MAX_VALUE;
+        for (int i = 0; i < tables.length; i++) {
+            int count = seatCounts.get(i);
+            if (i != excludedIndex && count != BROKEN && count < minCount) {
+                shortest = i;
+                minCount = count;
+            }
+        }
+        return shortest;
+    }
+    
+    /**
+     * Aborts the tournament after a table failed.
+     * 
+     * @param t
+     *            The failure.
+     */
+    /* package */ void fail(Throwable t) {
+        failure = t;
+        finish();
+    }
+    
+    /**
+     * Runs a simulated tournament of bots.
+     * 
+     * @param args
+     *            The number of entrants (default 1000).
+     * 
+     * @throws InterruptedException
+     *             If interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int noOfEntrants = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        BlindSchedule schedule = BlindSchedule.geometric(10, 20L, 1.25, 30);
+        TournamentDirector director = new TournamentDirector(TableType.NO_LIMIT, 9, BigDecimal.valueOf(1500), BigDecimal.TEN, schedule);
+        Random random = new Random();
+        for (int i = 0; i < noOfEntrants; i++) {
+            director.addEntrant("Bot " + (i + 1), new BasicBot(random.nextInt(100), random.nextInt(100)));
+        }
+        long startTime = System.currentTimeMillis();
+        List<TournamentResult> results = director.run(Runtime.getRuntime().availableProcessors());
+        long duration = System.currentTimeMillis() - startTime;
+        long hands = 0L;
+        for (TournamentResult result : results) {
+            hands += result.getHandsPlayed();
+        }
+        for (TournamentResult result : results.subList(0, Math.min(10, results.size()))) {
+            System.err.println(result);
+        }
+        System.err.format("%d entrants, %d player-hands in %d ms.\n", noOfEntrants, hands, duration);
+    }
+    
+    /**
+     * A registered entrant.
+     */
+    private static class Entrant {
+        
+        /** The player (replaced when restored from a checkpoint). */
+        private Player player;
+        
+        /** The finishing place (0 while still playing). */
+        private int place;
+        
+        /** The number of hands dealt. */
+        private int handsPlayed;
+        
+        /**
+         * Constructor.
+         * 
+         * @param player
+         *            The player.
+         */
+        private Entrant(Player player) {
+            this.player = player;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,100 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.math.BigDecimal;
+
+/**
+ * The final result of a tournament entrant.
+ */
+public class TournamentResult {
+    
+    /** The player's name. */
+    private final String name;
+    
+    /** The finishing place (1 for the winner). */
+    private final int place;
+    
+    /** The prize (zero if not in the money). */
+    private final BigDecimal prize;
+    
+    /** The number of hands the player was dealt. */
+    private final int handsPlayed;
+    
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The player's name.
+     * @param place
+     *            The finishing place.
+     * @param prize
+     *            The prize.
+     * @param handsPlayed
+     *            The number of hands the player was dealt.
+     */
+    public TournamentResult(String name, int place, BigDecimal prize, int handsPlayed) {
+        this.name = name;
+        this.place = place;
+        this.prize = prize;
+        this.handsPlayed = handsPlayed;
+    }
+    
+    /**
+     * Returns the player's name.
+     * 
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Returns the finishing place.
+     * 
+     * @return The place (1 for the winner).
+     */
+    public int getPlace() {
+        return place;
+    }
+    
+    /**
+     * Returns the prize.
+     * 
+     * @return The prize (zero if not in the money).
+     */
+    public BigDecimal getPrize() {
+        return prize;
+    }
+    
+    /**
+     * Returns the number of hands the player was dealt.
+     * 
+     * @return The number of hands.
+     */
+    public int getHandsPlayed() {
+        return handsPlayed;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("%d. %s ($ %s, %d hands)", place, name, prize, handsPlayed);
+    }
+    
+}
@@ -0,0 +1,330 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+
+/**
+ * A table of a tournament, played one hand per task. <br />
+ * <br />
+ * 
+ * The table is only ever run by one thread at a time (guarded by the
+ * scheduled flag), so its {@link Table} needs no locking. Other tables only
+ * interact with it through its queue of arriving players and its break
+ * request flag, after which they schedule it. While the director takes a
+ * checkpoint, the table pauses before its next hand.
+ */
+class TournamentTable implements Runnable {
+    
+    /** The tournament director. */
+    private final TournamentDirector director;
+    
+    /** The table's index. */
+    private final int index;
+    
+    /** The table. */
+    private final Table table;
+    
+    /** The players moved to this table, not seated yet. */
+    private final Queue<Player> arrivals;
+    
+    /** Whether the table is scheduled to run (or running). */
+    private final AtomicBoolean scheduled;
+    
+    /** Whether another table has asked this table to break. */
+    private volatile boolean breakRequested;
+    
+    /** Whether the table is broken. */
+    private boolean broken;
+    
+    /**
+     * Constructor.
+     * 
+     * @param director
+     *            The tournament director.
+     * @param index
+     *            The table's index.
+     * @param table
+     *            The table (allowing short stacks).
+     */
+    /* package */ TournamentTable(TournamentDirector director, int index, Table table) {
+        this.director = director;
+        this.index = index;
+        this.table = table;
+        arrivals = new ConcurrentLinkedQueue<>();
+        scheduled = new AtomicBoolean();
+    }
+    
+    /**
+     * Returns the table's index.
+     * 
+     * @return The index.
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * Returns the table (only while paused for a checkpoint).
+     * 
+     * @return The table.
+     */
+    /* package */ Table getTable() {
+        return table;
+    }
+    
+    /**
+     * Returns the players on their way to this table (only while paused for
+     * a checkpoint).
+     * 
+     * @return The arriving players.
+     */
+    /* package */ Collection<Player> getArrivals() {
+        return arrivals;
+    }
+    
+    /**
+     * Indicates whether the table is broken.
+     * 
+     * @return True if broken, otherwise false.
+     */
+    /* package */ boolean isBroken() {
+        return broken;
+    }
+    
+    /**
+     * Indicates whether another table has asked this table to break.
+     * 
+     * @return True if asked to break, otherwise false.
+     */
+    /* package */ boolean isBreakRequested() {
+        return breakRequested;
+    }
+    
+    /**
+     * Restores the state of a table from a checkpoint, before the tournament
+     * is resumed.
+     * 
+     * @param broken
+     *            Whether the table is broken.
+     * @param breakRequested
+     *            Whether the table has been asked to break.
+     * @param arrivingPlayers
+     *            The players on their way to the table.
+     */
+    /* package */ void restore(boolean broken, boolean breakRequested, List<Player> arrivingPlayers) {
+        this.broken = broken;
+        this.breakRequested = breakRequested;
+        arrivals.addAll(arrivingPlayers);
+    }
+    
+    /**
+     * Seats a player before the start of the tournament.
+     * 
+     * @param player
+     *            The player.
+     */
+    /* package */ void seat(Player player) {
+        table.addPlayer(player);
+    }
+    
+    /**
+     * Moves a player to this table. The caller must have reserved the seat.
+     * 
+     * @param player
+     *            The player.
+     */
+    /* package */ void arrive(Player player) {
+        arrivals.add(player);
+        schedule();
+    }
+    
+    /**
+     * Asks this table to break (if still needed once it runs).
+     */
+    /* package */ void requestBreak() {
+        breakRequested = true;
+        schedule();
+    }
+    
+    /**
+     * Schedules this table to run, unless already scheduled.
+     */
+    /* package */ void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            director.tableScheduled();
+            director.execute(this);
+        }
+    }
+    
+    /**
+     * Marks this table as no longer scheduled.
+     */
+    private void unschedule() {
+        scheduled.set(false);
+        director.tableUnscheduled();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void run() {
+        try {
+            if (director.isFinished()) {
+                return;
+            }
+            if (director.isCheckpointPending()) {
+                // Pause; the director schedules all tables again after the checkpoint.
+                unschedule();
+                return;
+            }
+            if (broken) {
+                // Forward players who were on their way when the table broke.
+                relocateArrivals();
+            } else {
+                seatArrivals();
+                if (breakRequested) {
+                    breakRequested = false;
+                    if (director.tryBreak(this)) {
+                        broken = true;
+                        relocateAll();
+                    }
+                }
+                if (!broken && table.getPlayers().size() > 1) {
+                    playHand();
+                    if (!director.isFinished()) {
+                        // Play the next hand in a new task, queued behind the other tables.
+                        director.execute(this);
+                    }
+                    return;
+                }
+            }
+            // Idle until another table moves a player here or asks us to break.
+            unschedule();
+            if (!arrivals.isEmpty() || breakRequested) {
+                schedule();
+            }
+        } catch (Throwable t) {
+            director.fail(t);
+        }
+    }
+    
+    /**
+     * Plays a hand, then eliminates the busted players and balances the
+     * table.
+     */
+    private void playHand() {
+        BlindLevel level = director.getBlindLevel();
+        table.setBlinds(level.getBigBlind(), level.getAnte());
+        final List<Player> players = new ArrayList<>(table.getPlayers());
+        final BigDecimal[] startingStacks = new BigDecimal[players.size()];
+        for (int i = 0; i < startingStacks.length; i++) {
+            startingStacks[i] = players.get(i).getCash();
+        }
+        try {
+            table.playNextHand();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Hand failed (replay: " + table.getHandRecord() + ")", e);
+        }
+        director.tableHandPlayed();
+        
+        // Eliminate the busted players; the one with the bigger stack at the start of the hand finishes higher.
+        List<Integer> busted = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            director.handPlayed(player);
+            if (player.getCash().signum() == 0) {
+                busted.add(i);
+            }
+        }
+        if (!busted.isEmpty()) {
+            Collections.sort(busted, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer i1, Integer i2) {
+                    return startingStacks[i1].compareTo(startingStacks[i2]);
+                }
+            });
+            List<Player> eliminated = new ArrayList<>(busted.size());
+            for (int i : busted) {
+                Player player = players.get(i);
+                table.removePlayer(player);
+                eliminated.add(player);
+            }
+            director.eliminated(this, eliminated, table.getPlayers());
+        }
+        
+        if (!director.isFinished()) {
+            director.balance(this);
+        }
+    }
+    
+    /**
+     * Removes the player next in line for the big blind, to be moved to
+     * another table.
+     * 
+     * @return The player.
+     */
+    /* package */ Player removePlayerToMove() {
+        List<Player> players = table.getPlayers();
+        int dealerIndex = players.indexOf(table.getDealer());
+        Player player = players.get((dealerIndex + 2) % players.size());
+        table.removePlayer(player);
+        return player;
+    }
+    
+    /**
+     * Seats the arrived players.
+     */
+    private void seatArrivals() {
+        Player player;
+        while ((player = arrivals.poll()) != null) {
+            table.addPlayer(player);
+        }
+    }
+    
+    /**
+     * Moves all players to other tables after breaking.
+     */
+    private void relocateAll() {
+        for (Player player : new ArrayList<>(table.getPlayers())) {
+            table.removePlayer(player);
+            director.relocate(this, player);
+        }
+        relocateArrivals();
+    }
+    
+    /**
+     * Moves the arrived players to other tables after breaking.
+     */
+    private void relocateArrivals() {
+        Player player;
+        while ((player = arrivals.poll()) != null) {
+            director.relocate(this, player);
+        }
+    }
+    
+}
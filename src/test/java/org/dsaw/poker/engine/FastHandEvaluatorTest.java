@@ -0,0 +1,150 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.util.Random;
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>FastHandEvaluator</code> class.
+ */
+public class FastHandEvaluatorTest {
+    
+    /** The number of random hands. */
+    private static final int NO_OF_HANDS = 20000;
+    
+    /**
+     * Tests specific hands, including cases with more than five relevant
+     * cards.
+     */
+    @Test
+    public void specificHands() {
+        assertType(HandValueType.HIGH_CARD, "As Qh Tc 8d 5d 4h 2c");
+        assertType(HandValueType.ONE_PAIR, "As Ah Tc 8d 5d 4h 2c");
+        assertType(HandValueType.TWO_PAIRS, "As Ah Tc Td 5d 5h 2c");
+        assertType(HandValueType.THREE_OF_A_KIND, "As Ah Ac 8d 5d 4h 2c");
+        assertType(HandValueType.STRAIGHT, "As 2h 3c 4d 5d Kh Kc");
+        assertType(HandValueType.FLUSH, "As Qs Ts 8s 5s 4h 2c");
+        assertType(HandValueType.FULL_HOUSE, "As Ah Ac Kd Kh Ks 2c");
+        assertType(HandValueType.FOUR_OF_A_KIND, "As Ah Ac Ad Kh Ks Kc");
+        assertType(HandValueType.STRAIGHT_FLUSH, "5s 4s 3s 2s As Ah Ac");
+        assertType(HandValueType.ROYAL_FLUSH, "As Ks Qs Js Ts Qh 5c");
+        
+        // Two triples: the higher triple with the lower as pair.
+        Assert.assertTrue(evaluate("Ad Ah Ac Kd Kh Ks 2c") > evaluate("Kd Kh Kc Ad Ah Qs 2c"));
+        // The third pair can be the kicker of Two Pairs.
+        Assert.assertTrue(evaluate("As Ah Kc Kd Qd Qh 2c") > evaluate("As Ah Kc Kd Jd Th 2c"));
+        // Six flushing cards: the highest five count.
+        Assert.assertEquals(evaluate("As Ks 9s 8s 5s"), evaluate("As Ks 9s 8s 5s 2s 3h"));
+        // The Wheel is the lowest Straight.
+        Assert.assertTrue(evaluate("2s 3h 4c 5d 6d") > evaluate("As 2h 3c 4d 5d"));
+    }
+    
+    /**
+     * Tests the ordering of random five-card hands against the
+     * <code>HandEvaluator</code>.
+     */
+    @Test
+    public void fiveCardHands() {
+        Random random = new Random(0L);
+        int lastValue = 0;
+        int lastFastValue = 0;
+        for (int i = 0; i < NO_OF_HANDS; i++) {
+            long cards = randomCards(random, 5);
+            HandEvaluator evaluator = new HandEvaluator(new Hand(CardSet.toCards(cards)));
+            int fastValue = FastHandEvaluator.evaluate(cards);
+            Assert.assertEquals(evaluator.getType(), FastHandEvaluator.getType(fastValue));
+            if (i > 0) {
+                Assert.assertEquals(Integer.signum(Integer.compare(evaluator.getValue(), lastValue)),
+                        Integer.signum(Integer.compare(fastValue, lastFastValue)));
+            }
+            lastValue = evaluator.getValue();
+            lastFastValue = fastValue;
+        }
+    }
+    
+    /**
+     * Tests that a seven-card hand has the value of its best five cards.
+     */
+    @Test
+    public void sevenCardHands() {
+        Random random = new Random(1L);
+        for (int i = 0; i < NO_OF_HANDS; i++) {
+            long cards = randomCards(random, 7);
+            int[] indexes = new int[7];
+            long mask = cards;
+            for (int j = 0; j < 7; j++) {
+                indexes[j] = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1L;
+            }
+            // Best of all 21 subsets of five cards (leaving out two).
+            int best = 0;
+            for (int j = 0; j < 7; j++) {
+                for (int k = j + 1; k < 7; k++) {
+                    long subset = cards & ~(1L << indexes[j]) & ~(1L << indexes[k]);
+                    best = Math.max(best, FastHandEvaluator.evaluate(subset));
+                }
+            }
+            Assert.assertEquals(best, FastHandEvaluator.evaluate(cards));
+        }
+    }
+    
+    /**
+     * Asserts the hand value type of a hand.
+     * 
+     * @param type
+     *            The expected type.
+     * @param s
+     *            The hand.
+     */
+    private static void assertType(HandValueType type, String s) {
+        Assert.assertEquals(type, FastHandEvaluator.getType(evaluate(s)));
+    }
+    
+    /**
+     * Evaluates a hand.
+     * 
+     * @param s
+     *            The hand.
+     * 
+     * @return The hand value.
+     */
+    private static int evaluate(String s) {
+        return FastHandEvaluator.evaluate(CardSet.parse(s));
+    }
+    
+    /**
+     * Returns random distinct cards.
+     * 
+     * @param random
+     *            The random generator.
+     * @param noOfCards
+     *            The number of cards.
+     * 
+     * @return The card mask.
+     */
+    private static long randomCards(Random random, int noOfCards) {
+        long cards = 0L;
+        while (Long.bitCount(cards) < noOfCards) {
+            cards |= 1L << random.nextInt(CardSet.NO_OF_CARDS);
+        }
+        return cards;
+    }
+    
+}
@@ -0,0 +1,138 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>HandRecord</code> class and the seeded replay of
+ * hands.
+ */
+public class HandRecordTest {
+    
+    /**
+     * Tests the string form.
+     */
+    @Test
+    public void parse() {
+        HandRecord record = new HandRecord(TableType.NO_LIMIT, new BigDecimal("0.50"), BigDecimal.ZERO, -42L, 1234567L, 1,
+                new String[] {"Joe = 100%", "Mike"}, new BigDecimal[] {new BigDecimal("12.25"), BigDecimal.valueOf(1000)});
+        HandRecord parsed = HandRecord.parse(record.toString());
+        Assert.assertEquals(record.toString(), parsed.toString());
+        Assert.assertEquals(TableType.NO_LIMIT, parsed.getTableType());
+        Assert.assertEquals(new BigDecimal("0.50"), parsed.getBigBlind());
+        Assert.assertEquals(-42L, parsed.getTableSeed());
+        Assert.assertEquals(1234567L, parsed.getHandNumber());
+        Assert.assertEquals(record.getHandSeed(), parsed.getHandSeed());
+        Assert.assertEquals(1, parsed.getDealer());
+        Assert.assertEquals("Joe = 100%", parsed.getName(0));
+        Assert.assertEquals(new BigDecimal("12.25"), parsed.getStack(0));
+        try {
+            HandRecord.parse("NO_LIMIT 10 0 2a");
+            Assert.fail("No exception thrown");
+        } catch (IllegalArgumentException e) {
+            // OK.
+        }
+    }
+    
+    /**
+     * Tests that tables with the same seed deal the same cards.
+     */
+    @Test
+    public void seed() {
+        Table table1 = createTable(7L);
+        Table table2 = createTable(7L);
+        for (int hand = 0; hand < 10; hand++) {
+            table1.playNextHand();
+            table2.playNextHand();
+            Assert.assertEquals(table1.getHandRecord().getHandSeed(), table2.getHandRecord().getHandSeed());
+            // Deterministic bots, so the same play.
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(table1.getPlayers().get(i).getCash(), table2.getPlayers().get(i).getCash());
+            }
+        }
+    }
+    
+    /**
+     * Tests replaying single hands from their records.
+     */
+    @Test
+    public void replay() {
+        Table table = createTable(new Table(TableType.NO_LIMIT, BigDecimal.TEN).getSeed());
+        for (int hand = 0; hand < 30 && table.playNextHand(); hand++) {
+            HandRecord record = table.getHandRecord();
+            
+            List<Client> clients = new ArrayList<>();
+            for (int i = 0; i < record.getNoOfPlayers(); i++) {
+                clients.add(createBot(record.getName(i)));
+            }
+            Table replay = Table.prepareReplay(HandRecord.parse(record.toString()), clients);
+            Assert.assertTrue(replay.playNextHand());
+            Assert.assertEquals(record.toString(), replay.getHandRecord().toString());
+            for (Player player : replay.getPlayers()) {
+                for (Player original : table.getPlayers()) {
+                    if (original.getName().equals(player.getName())) {
+                        Assert.assertEquals(original.getCash(), player.getCash());
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Creates a table with three deterministic bots.
+     * 
+     * @param seed
+     *            The table's seed.
+     * 
+     * @return The table.
+     */
+    private static Table createTable(long seed) {
+        Table table = new Table(TableType.NO_LIMIT, BigDecimal.TEN);
+        table.setSeed(seed);
+        for (String name : Arrays.asList("Joe", "Mike", "Eddie")) {
+            table.addPlayer(new Player(name, BigDecimal.valueOf(1000), createBot(name)));
+        }
+        return table;
+    }
+    
+    /**
+     * Creates the deterministic bot of a player.
+     * 
+     * @param name
+     *            The player's name.
+     * 
+     * @return The bot.
+     */
+    private static Client createBot(String name) {
+        if (name.equals("Joe")) {
+            return new BasicBot(0, 75);
+        } else if (name.equals("Mike")) {
+            return new BasicBot(25, 50);
+        } else {
+            return new BasicBot(50, 100);
+        }
+    }
+    
+}
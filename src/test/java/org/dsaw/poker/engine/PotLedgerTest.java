@@ -0,0 +1,249 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>PotLedger</code> class.
+ */
+public class PotLedgerTest {
+    
+    /**
+     * Tests the side pots of a hand with all-in players.
+     */
+    @Test
+    public void sidePots() {
+        PotLedger ledger = new PotLedger(2);
+        ledger.reset(4);
+        ledger.contribute(0, BigDecimal.valueOf(50));   // All-in.
+        ledger.contribute(1, BigDecimal.valueOf(200));  // All-in.
+        ledger.contribute(2, BigDecimal.valueOf(300));
+        ledger.contribute(3, BigDecimal.valueOf(25));   // Folded.
+        ledger.contribute(3, BigDecimal.valueOf(100));
+        Assert.assertEquals(BigDecimal.valueOf(675), ledger.getTotal());
+        Assert.assertEquals(BigDecimal.valueOf(125), ledger.getContribution(3));
+        
+        // Main pot (200) to seat 0; side pots (375, 100) to seat 1 and 2.
+        long[] winnings = new long[4];
+        ledger.divide(new int[] {3, 2, 1, PotLedger.NO_HAND}, new int[] {0, 1, 2, 3}, winnings);
+        Assert.assertTrue(Arrays.equals(new long[] {200L, 375L, 100L, 0L}, winnings));
+        
+        // Split main pot with an odd chip for the first in order.
+        ledger.reset(3);
+        ledger.contribute(0, BigDecimal.valueOf(5));
+        ledger.contribute(1, BigDecimal.valueOf(10));
+        ledger.contribute(2, BigDecimal.valueOf(10));
+        winnings = new long[3];
+        ledger.divide(new int[] {1, 1, PotLedger.NO_HAND}, new int[] {1, 0, 2}, winnings);
+        Assert.assertTrue(Arrays.equals(new long[] {7L, 18L, 0L}, winnings));
+        
+        // Fractional amounts, in cents.
+        ledger.reset(2);
+        ledger.contribute(0, BigDecimal.valueOf(2));
+        ledger.contribute(1, new BigDecimal("0.05"));
+        ledger.contribute(1, new BigDecimal("1.950"));
+        Assert.assertEquals(new BigDecimal("4.00"), ledger.getTotal());
+        winnings = new long[2];
+        ledger.divide(new int[] {1, 1}, new int[] {0, 1}, winnings);
+        Assert.assertEquals(new BigDecimal("2.00"), ledger.toAmount(winnings[0]));
+        Assert.assertEquals(new BigDecimal("2.00"), ledger.toAmount(winnings[1]));
+    }
+    
+    /**
+     * Tests that the division matches the pots of the original algorithm
+     * (see {@link Pot}) for random hands. <br />
+     * <br />
+     * 
+     * The original algorithm split a side pot into several pots with the same
+     * contributors, one per contribution crossing it, and handed out the odd
+     * chips of each separately; the ledger divides such a side pot as one.
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void matchesPots() {
+        Random random = new Random(1L);
+        PotLedger ledger = new PotLedger(2);
+        for (int hand = 0; hand < 10000; hand++) {
+            int noOfSeats = 2 + random.nextInt(9);
+            List<Player> players = new ArrayList<>();
+            for (int seat = 0; seat < noOfSeats; seat++) {
+                players.add(new Player("Player " + seat, BigDecimal.ZERO, null));
+            }
+            ledger.reset(noOfSeats);
+            List<Pot> pots = new ArrayList<>();
+            int noOfContributions = random.nextInt(4 * noOfSeats);
+            for (int i = 0; i < noOfContributions; i++) {
+                int seat = random.nextInt(noOfSeats);
+                BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(200), random.nextInt(4) == 0 ? 2 : 0);
+                ledger.contribute(seat, amount);
+                contributePot(pots, players.get(seat), amount);
+            }
+            
+            // Random hand values with ties, and some players folded.
+            int[] handValues = new int[noOfSeats];
+            List<Integer> oddChipOrder = new ArrayList<>();
+            for (int seat = 0; seat < noOfSeats; seat++) {
+                boolean folded = (seat > 0) && random.nextInt(3) == 0;
+                handValues[seat] = folded ? PotLedger.NO_HAND : random.nextInt(4);
+                if (!folded) {
+                    oddChipOrder.add(seat);
+                }
+            }
+            Collections.shuffle(oddChipOrder, random);
+            for (int seat = 0; seat < noOfSeats; seat++) {
+                if (handValues[seat] == PotLedger.NO_HAND) {
+                    oddChipOrder.add(random.nextInt(oddChipOrder.size() + 1), seat);
+                }
+            }
+            int[] order = new int[oddChipOrder.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = oddChipOrder.get(i);
+            }
+            
+            long[] winnings = new long[noOfSeats];
+            ledger.divide(handValues, order, winnings);
+            BigDecimal[] expected = dividePots(pots, players, handValues, order);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int seat = 0; seat < noOfSeats; seat++) {
+                Assert.assertEquals(0, expected[seat].compareTo(ledger.toAmount(winnings[seat])));
+                total = total.add(expected[seat]);
+            }
+            Assert.assertEquals(0, total.compareTo(ledger.getTotal()));
+        }
+    }
+    
+    /**
+     * Adds a contribution to the pots, as the table did before the ledger.
+     * 
+     * @param pots
+     *            The pots.
+     * @param player
+     *            The contributing player.
+     * @param amount
+     *            The amount.
+     */
+    @SuppressWarnings("deprecation")
+    private static void contributePot(List<Pot> pots, Player player, BigDecimal amount) {
+        for (int i = 0; i < pots.size(); i++) {
+            Pot pot = pots.get(i);
+            if (!pot.hasContributer(player)) {
+                if (amount.compareTo(pot.getBet()) >= 0) {
+                    pot.addContributer(player);
+                    amount = amount.subtract(pot.getBet());
+                } else {
+                    pots.add(i + 1, pot.split(player, amount));
+                    amount = BigDecimal.ZERO;
+                }
+            }
+            if (amount.signum() <= 0) {
+                break;
+            }
+        }
+        if (amount.signum() > 0) {
+            Pot pot = new Pot(amount);
+            pot.addContributer(player);
+            pots.add(pot);
+        }
+    }
+    
+    /**
+     * Divides the pots, as the table did before the ledger (after merging
+     * the pots with the same contributors).
+     * 
+     * @param pots
+     *            The pots.
+     * @param players
+     *            The players by seat.
+     * @param handValues
+     *            The hand values by seat.
+     * @param oddChipOrder
+     *            The order of the seats for the odd chips.
+     * 
+     * @return The winnings by seat.
+     */
+    @SuppressWarnings("deprecation")
+    private static BigDecimal[] dividePots(List<Pot> pots, List<Player> players, int[] handValues, int[] oddChipOrder) {
+        // Merge the pots with the same contributors.
+        for (int i = pots.size() - 1; i > 0; i--) {
+            Pot pot = pots.get(i);
+            Pot lowerPot = pots.get(i - 1);
+            if (pot.getContributors().equals(lowerPot.getContributors())) {
+                Pot merged = new Pot(lowerPot.getBet().add(pot.getBet()));
+                for (Player contributor : pot.getContributors()) {
+                    merged.addContributer(contributor);
+                }
+                pots.set(i - 1, merged);
+                pots.remove(i);
+            }
+        }
+        
+        BigDecimal[] winnings = new BigDecimal[players.size()];
+        Arrays.fill(winnings, BigDecimal.ZERO);
+        TreeSet<Integer> values = new TreeSet<>(Collections.<Integer>reverseOrder());
+        for (int value : handValues) {
+            if (value != PotLedger.NO_HAND) {
+                values.add(value);
+            }
+        }
+        for (int value : values) {
+            for (Pot pot : pots) {
+                boolean isDeadPot = pot.getValue().signum() > 0;
+                for (int seat = 0; seat < players.size(); seat++) {
+                    if (handValues[seat] != PotLedger.NO_HAND && pot.hasContributer(players.get(seat))) {
+                        isDeadPot = false;
+                    }
+                }
+                int noOfWinners = 0;
+                for (int seat = 0; seat < players.size(); seat++) {
+                    if (handValues[seat] == value && (isDeadPot || pot.hasContributer(players.get(seat)))) {
+                        noOfWinners++;
+                    }
+                }
+                if (noOfWinners > 0) {
+                    BigDecimal share = pot.getValue().divideToIntegralValue(BigDecimal.valueOf(noOfWinners));
+                    for (int seat = 0; seat < players.size(); seat++) {
+                        if (handValues[seat] == value && (isDeadPot || pot.hasContributer(players.get(seat)))) {
+                            winnings[seat] = winnings[seat].add(share);
+                        }
+                    }
+                    BigDecimal oddChips = pot.getValue().subtract(share.multiply(BigDecimal.valueOf(noOfWinners)));
+                    for (int i = 0; oddChips.signum() > 0; i = (i + 1) % oddChipOrder.length) {
+                        int seat = oddChipOrder[i];
+                        if (handValues[seat] == value && (isDeadPot || pot.hasContributer(players.get(seat)))) {
+                            BigDecimal oddChip = oddChips.min(BigDecimal.ONE);
+                            winnings[seat] = winnings[seat].add(oddChip);
+                            oddChips = oddChips.subtract(oddChip);
+                        }
+                    }
+                    pot.clear();
+                }
+            }
+        }
+        return winnings;
+    }
+    
+}
@@ -0,0 +1,63 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * Benchmark of hands played to the showdown per second, for 2 to 10
+ * players who check or call down (not a unit test; run manually).
+ */
+public class ShowdownBenchmark {
+    
+    /** The duration of a run in nanoseconds. */
+    private static final long RUN_TIME = 1000000000L;
+    
+    /** The number of runs (the first ones warm up the JIT). */
+    private static final int RUNS = 3;
+    
+    /**
+     * The benchmark's entry point.
+     * 
+     * @param args
+     *            The command line arguments (not used).
+     */
+    public static void main(String[] args) {
+        for (int run = 0; run < RUNS; run++) {
+            for (int noOfPlayers = 2; noOfPlayers <= 10; noOfPlayers++) {
+                Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+                table.setSeed(run);
+                for (int i = 0; i < noOfPlayers; i++) {
+                    // Deep enough to never go broke.
+                    table.addPlayer(new Player("Player " + i, BigDecimal.valueOf(Long.MAX_VALUE / 1000L),
+                            new ShowdownTest.CallingStation()));
+                }
+                long hands = 0L;
+                long start = System.nanoTime();
+                long end = start + RUN_TIME;
+                while (System.nanoTime() - end < 0L) {
+                    table.playNextHand();
+                    hands++;
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.format("%2d players: %9.0f showdowns/s\n", noOfPlayers, hands / seconds);
+            }
+        }
+    }
+    
+}
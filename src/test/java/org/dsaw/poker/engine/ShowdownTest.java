@@ -0,0 +1,119 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.actions.Action;
+import org.junit.Test;
+
+/**
+ * Test suite for the showdown of the <code>Table</code> class.
+ */
+public class ShowdownTest {
+    
+    /** The number of hands. */
+    private static final int NO_OF_HANDS = 500;
+    
+    /**
+     * Tests that the best hands win the showdown, and the others lose.
+     */
+    @Test
+    public void bestHandsWin() {
+        for (int noOfPlayers = 2; noOfPlayers <= 10; noOfPlayers += 4) {
+            Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+            table.setSeed(noOfPlayers);
+            CallingStation[] clients = new CallingStation[noOfPlayers];
+            for (int i = 0; i < noOfPlayers; i++) {
+                clients[i] = new CallingStation();
+                table.addPlayer(new Player("Player " + i, BigDecimal.valueOf(1000000), clients[i]));
+            }
+            for (int hand = 0; hand < NO_OF_HANDS; hand++) {
+                BigDecimal[] cash = new BigDecimal[noOfPlayers];
+                for (int i = 0; i < noOfPlayers; i++) {
+                    cash[i] = table.getPlayers().get(i).getCash();
+                }
+                Assert.assertTrue(table.playNextHand());
+                
+                // Everyone called down, so all contributed the same.
+                int bestValue = -1;
+                int noOfWinners = 0;
+                for (int i = 0; i < noOfPlayers; i++) {
+                    int value = FastHandEvaluator.evaluate(clients[i].cards | clients[i].board);
+                    if (value > bestValue) {
+                        bestValue = value;
+                        noOfWinners = 1;
+                    } else if (value == bestValue) {
+                        noOfWinners++;
+                    }
+                    clients[i].value = value;
+                }
+                BigDecimal total = BigDecimal.ZERO;
+                for (int i = 0; i < noOfPlayers; i++) {
+                    BigDecimal won = table.getPlayers().get(i).getCash().subtract(cash[i]);
+                    total = total.add(won);
+                    if (clients[i].value < bestValue) {
+                        Assert.assertTrue(won.signum() < 0);
+                    } else if (noOfWinners < noOfPlayers) {
+                        Assert.assertTrue(won.signum() > 0);
+                    } else {
+                        Assert.assertEquals(0, won.signum());
+                    }
+                }
+                Assert.assertEquals(0, total.signum());
+            }
+        }
+    }
+    
+    /**
+     * Client that always checks or calls, remembering its cards and the board.
+     */
+    /* package */ static class CallingStation extends ClientAdapter {
+        
+        /** The hole cards. */
+        private long cards;
+        
+        /** The board. */
+        private long board;
+        
+        /** The hand value. */
+        private int value;
+        
+        @Override
+        public void playerUpdated(Player player) {
+            // Other players' cards are shown at the showdown.
+            if (player.getClient() == this && player.getCardMask() != 0L) {
+                cards = player.getCardMask();
+            }
+        }
+        
+        @Override
+        public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
+            board = CardSet.mask(cards);
+        }
+        
+        @Override
+        public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+            return allowedActions.contains(Action.CHECK) ? Action.CHECK : Action.CALL;
+        }
+        
+    }
+    
+}
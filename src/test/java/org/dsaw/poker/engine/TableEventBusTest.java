@@ -0,0 +1,270 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>TableEventBus</code> class.
+ */
+public class TableEventBusTest {
+    
+    /**
+     * Tests that clients only receive the event types they subscribed to.
+     */
+    @Test
+    public void subscriptions() {
+        TableEventBus bus = new TableEventBus();
+        RecordingClient handsOnly = new RecordingClient();
+        RecordingClient all = new RecordingClient();
+        bus.subscribe(handsOnly, null, EnumSet.of(TableEventType.HAND_STARTED));
+        bus.subscribe(all, null, TableEventType.ALL);
+        Assert.assertTrue(bus.hasSubscribers(TableEventType.MESSAGE));
+        Assert.assertTrue(bus.hasSubscribers(TableEventType.HAND_STARTED));
+        
+        Player dealer = new Player("Joe", BigDecimal.valueOf(100), null);
+        bus.messageReceived("Hello");
+        bus.handStarted(dealer);
+        bus.boardUpdated(new ArrayList<Card>(), BigDecimal.ZERO, BigDecimal.TEN);
+        Assert.assertEquals(Arrays.asList(TableEventType.HAND_STARTED), handsOnly.types);
+        Assert.assertEquals(Arrays.asList(TableEventType.MESSAGE, TableEventType.HAND_STARTED, TableEventType.BOARD_UPDATED), all.types);
+        
+        // Unsubscribing updates the combined event mask.
+        bus.unsubscribe(all);
+        Assert.assertFalse(bus.hasSubscribers(TableEventType.MESSAGE));
+        Assert.assertFalse(bus.hasSubscribers(TableEventType.BOARD_UPDATED));
+        Assert.assertTrue(bus.hasSubscribers(TableEventType.HAND_STARTED));
+        bus.messageReceived("Bye");
+        bus.handStarted(dealer);
+        Assert.assertEquals(3, all.types.size());
+        Assert.assertEquals(2, handsOnly.types.size());
+        
+        try {
+            bus.subscribe(null, null, TableEventType.ALL);
+            Assert.fail("Subscribed null client");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+    
+    /**
+     * Tests that only the client owning a player gets its private view, and
+     * that the other clients share one public snapshot.
+     */
+    @Test
+    public void views() {
+        TableEventBus bus = new TableEventBus();
+        RecordingClient client1 = new RecordingClient();
+        RecordingClient client2 = new RecordingClient();
+        RecordingClient observer = new RecordingClient();
+        Player player1 = new Player("Joe", BigDecimal.valueOf(100), client1);
+        Player player2 = new Player("Mike", BigDecimal.valueOf(100), client2);
+        bus.subscribe(client1, player1, TableEventType.ALL);
+        bus.subscribe(client2, player2, TableEventType.ALL);
+        bus.subscribe(observer, null, TableEventType.ALL);
+        player1.setCards(Arrays.asList(new Card("As"), new Card("Ah")));
+        player1.setAction(Action.CALL);
+        
+        bus.playerUpdated(player1, false);
+        Assert.assertSame(player1, client1.players.get(0));
+        Player snapshot = client2.players.get(0);
+        Assert.assertSame(snapshot, observer.players.get(0));
+        Assert.assertTrue(snapshot.isReadOnly());
+        Assert.assertEquals(0L, snapshot.getCardMask());
+        Assert.assertTrue(snapshot.hasCards());
+        Assert.assertEquals(player1.getCash(), snapshot.getCash());
+        
+        // At the showdown, all clients see the cards in a shared snapshot.
+        bus.playerUpdated(player1, true);
+        Assert.assertSame(player1, client1.players.get(1));
+        snapshot = client2.players.get(1);
+        Assert.assertSame(snapshot, observer.players.get(1));
+        Assert.assertTrue(snapshot.isReadOnly());
+        Assert.assertEquals(player1.getCardMask(), snapshot.getCardMask());
+        try {
+            snapshot.setCards(null);
+            Assert.fail("Modified a showdown snapshot");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        
+        // The same for the other player events.
+        bus.handStarted(player1);
+        bus.actorRotated(player1);
+        bus.playerActed(player1);
+        for (int i = 2; i < 5; i++) {
+            Assert.assertSame(player1, client1.players.get(i));
+            Assert.assertTrue(client2.players.get(i).isReadOnly());
+            Assert.assertSame(client2.players.get(i), observer.players.get(i));
+            Assert.assertEquals(0L, observer.players.get(i).getCardMask());
+        }
+        Assert.assertEquals(Action.CALL, observer.players.get(4).getAction());
+        try {
+            observer.players.get(4).setBet(BigDecimal.ZERO);
+            Assert.fail("Modified a public snapshot");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+    }
+    
+    /**
+     * Tests that all clients, including the owners, get the same unmodifiable
+     * list of public snapshots when joining a table.
+     */
+    @Test
+    public void joinedTable() {
+        TableEventBus bus = new TableEventBus();
+        RecordingClient client1 = new RecordingClient();
+        RecordingClient client2 = new RecordingClient();
+        Player player1 = new Player("Joe", BigDecimal.valueOf(100), client1);
+        Player player2 = new Player("Mike", BigDecimal.valueOf(200), client2);
+        bus.subscribe(client1, player1, TableEventType.ALL);
+        bus.subscribe(client2, player2, EnumSet.of(TableEventType.MESSAGE));
+        List<Player> players = new ArrayList<>(Arrays.asList(player1, player2));
+        player1.setCards(Arrays.asList(new Card("As"), new Card("Ah")));
+        
+        bus.joinedTable(TableType.NO_LIMIT, BigDecimal.TEN, players);
+        Assert.assertEquals(1, client1.joined.size());
+        Assert.assertTrue(client2.joined.isEmpty());
+        List<Player> joined = client1.joined.get(0);
+        Assert.assertNotSame(players, joined);
+        Assert.assertEquals(2, joined.size());
+        for (int i = 0; i < players.size(); i++) {
+            Assert.assertNotSame(players.get(i), joined.get(i));
+            Assert.assertTrue(joined.get(i).isReadOnly());
+            Assert.assertEquals(players.get(i).getName(), joined.get(i).getName());
+            Assert.assertEquals(players.get(i).getCash(), joined.get(i).getCash());
+            Assert.assertEquals(0L, joined.get(i).getCardMask());
+        }
+        try {
+            joined.remove(0);
+            Assert.fail("Modified the joined players");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        
+        // Later changes of the table's players are not reflected.
+        players.remove(1);
+        Assert.assertEquals(2, joined.size());
+    }
+    
+    /**
+     * Tests observers at a table.
+     */
+    @Test
+    public void observers() {
+        Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        table.addPlayer(new Player("Joe", BigDecimal.valueOf(1000), new BasicBot(50, 50)));
+        table.addPlayer(new Player("Mike", BigDecimal.valueOf(1000), new BasicBot(50, 50)));
+        RecordingClient handsOnly = new RecordingClient();
+        RecordingClient all = new RecordingClient();
+        table.addObserver(handsOnly, EnumSet.of(TableEventType.HAND_STARTED));
+        table.addObserver(all, TableEventType.ALL);
+        
+        // Observers are never asked to act (see RecordingClient).
+        int noOfHands = 0;
+        for (int i = 0; i < 10 && table.playNextHand(); i++) {
+            noOfHands++;
+        }
+        Assert.assertEquals(noOfHands, handsOnly.types.size());
+        Assert.assertEquals(EnumSet.of(TableEventType.HAND_STARTED), EnumSet.copyOf(handsOnly.types));
+        Assert.assertEquals(1, all.joined.size());
+        Assert.assertTrue(all.types.contains(TableEventType.PLAYER_ACTED));
+        Assert.assertTrue(all.types.contains(TableEventType.BOARD_UPDATED));
+        for (Player player : handsOnly.players) {
+            Assert.assertTrue(player.isReadOnly());
+        }
+        for (Player player : all.players) {
+            // Observers only get public snapshots, also at the showdown.
+            Assert.assertTrue(player.isReadOnly());
+        }
+    }
+    
+    /**
+     * Observer recording the events.
+     */
+    private static class RecordingClient extends ClientAdapter {
+        
+        /** The types of the received events. */
+        private final List<TableEventType> types = new ArrayList<>();
+        
+        /** The players of the received player events. */
+        private final List<Player> players = new ArrayList<>();
+        
+        /** The players of the received joined table events. */
+        private final List<List<Player>> joined = new ArrayList<>();
+        
+        /** {@inheritDoc} */
+        @Override
+        public void messageReceived(String message) {
+            types.add(TableEventType.MESSAGE);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void joinedTable(TableType type, BigDecimal bigBlind, List<Player> players) {
+            types.add(TableEventType.JOINED_TABLE);
+            joined.add(players);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void handStarted(Player dealer) {
+            types.add(TableEventType.HAND_STARTED);
+            players.add(dealer);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void actorRotated(Player actor) {
+            types.add(TableEventType.ACTOR_ROTATED);
+            players.add(actor);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void playerUpdated(Player player) {
+            types.add(TableEventType.PLAYER_UPDATED);
+            players.add(player);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
+            types.add(TableEventType.BOARD_UPDATED);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void playerActed(Player player) {
+            types.add(TableEventType.PLAYER_ACTED);
+            players.add(player);
+        }
+        
+    }
+    
+}
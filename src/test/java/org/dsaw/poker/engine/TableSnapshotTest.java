@@ -0,0 +1,178 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.junit.Test;
+
+/**
+ * Test suite for the table snapshots.
+ */
+public class TableSnapshotTest {
+    
+    /** The names of the players. */
+    private static final String[] NAMES = {"Joe", "Mike", "Eddie"};
+    
+    /**
+     * Tests that a restored table plays on exactly as the original.
+     */
+    @Test
+    public void restore() {
+        Table table = new Table(TableType.NO_LIMIT, new BigDecimal("0.10"));
+        table.setSeed(3L);
+        for (String name : NAMES) {
+            table.addPlayer(new Player(name, new BigDecimal("25.005"), new CountingBot()));
+        }
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(table.playNextHand());
+        }
+        byte[] snapshot = table.snapshot();
+        Assert.assertTrue(snapshot.length < 200);
+        for (int i = 0; i < 10; i++) {
+            table.playNextHand();
+        }
+        
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            clients.add(new CountingBot());
+        }
+        Table restored = Table.restore(snapshot, clients);
+        Assert.assertEquals(10, ((CountingBot) clients.get(0)).noOfHands);
+        for (int i = 0; i < 10; i++) {
+            restored.playNextHand();
+        }
+        Assert.assertEquals(table.getHandRecord().toString(), restored.getHandRecord().toString());
+        for (int i = 0; i < NAMES.length; i++) {
+            Player player = table.getPlayers().get(i);
+            Player restoredPlayer = restored.getPlayers().get(i);
+            Assert.assertEquals(player.getName(), restoredPlayer.getName());
+            Assert.assertEquals(player.getCash(), restoredPlayer.getCash());
+            Assert.assertEquals(20, ((CountingBot) restoredPlayer.getClient()).noOfHands);
+        }
+        
+        // Invalid snapshots.
+        try {
+            Table.restore(snapshot, clients.subList(0, 2));
+            Assert.fail("No exception thrown");
+        } catch (IllegalArgumentException e) {
+            // OK.
+        }
+        try {
+            Table.restore(new byte[] {1, 2, 3, 4, 5}, clients);
+            Assert.fail("No exception thrown");
+        } catch (IllegalArgumentException e) {
+            // OK.
+        }
+    }
+    
+    /**
+     * Tests that no snapshot can be taken during a hand.
+     */
+    @Test
+    public void duringHand() {
+        final Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        final boolean[] refused = new boolean[1];
+        table.addPlayer(new Player("Joe", BigDecimal.valueOf(100), new BasicBot(50, 50) {
+            
+            @Override
+            public long actPacked(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+                try {
+                    table.snapshot();
+                } catch (IllegalStateException e) {
+                    refused[0] = true;
+                }
+                return super.actPacked(minBet, currentBet, allowedActions);
+            }
+            
+        }));
+        table.addPlayer(new Player("Mike", BigDecimal.valueOf(100), new BasicBot(50, 50)));
+        table.playNextHand();
+        Assert.assertTrue(refused[0]);
+        Assert.assertNotNull(table.snapshot());
+    }
+    
+    /**
+     * Tests the state of a deck.
+     */
+    @Test
+    public void deck() {
+        Deck deck = new Deck();
+        deck.shuffle(1L);
+        deck.deal(5);
+        ByteBuffer buffer = ByteBuffer.allocate(Deck.STATE_SIZE);
+        deck.saveState(buffer);
+        Assert.assertEquals(Deck.STATE_SIZE, buffer.position());
+        
+        Deck restored = new Deck();
+        buffer.flip();
+        restored.restoreState(buffer);
+        Assert.assertEquals(deck.toString(), restored.toString());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(deck.deal(), restored.deal());
+        }
+        
+        // A card twice.
+        buffer.put(0, buffer.get(1));
+        buffer.rewind();
+        try {
+            restored.restoreState(buffer);
+            Assert.fail("No exception thrown");
+        } catch (IllegalArgumentException e) {
+            // OK.
+        }
+    }
+    
+    /**
+     * Deterministic bot keeping the number of hands it was dealt as its state.
+     */
+    private static class CountingBot extends BasicBot implements StatefulClient {
+        
+        /** The number of hands. */
+        private int noOfHands;
+        
+        /**
+         * Constructor.
+         */
+        public CountingBot() {
+            super(25, 75);
+        }
+        
+        @Override
+        public void handStarted(Player dealer) {
+            super.handStarted(dealer);
+            noOfHands++;
+        }
+        
+        @Override
+        public byte[] saveState() {
+            return ByteBuffer.allocate(4).putInt(noOfHands).array();
+        }
+        
+        @Override
+        public void restoreState(byte[] state) {
+            noOfHands = ByteBuffer.wrap(state).getInt();
+        }
+        
+    }
+    
+}
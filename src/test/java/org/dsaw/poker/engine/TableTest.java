@@ -0,0 +1,112 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>Table</code> class.
+ */
+public class TableTest {
+
+    /**
+     * Tests the rejection of blinds that are not a whole number of cents.
+     */
+    @Test
+    public void subCentBlinds() {
+        try {
+            new Table(TableType.FIXED_LIMIT, new BigDecimal("0.125"));
+            Assert.fail("Accepted big blind: 0.125");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        Table table = new Table(TableType.FIXED_LIMIT, new BigDecimal("0.10"));
+        try {
+            table.setBlinds(new BigDecimal("0.125"), BigDecimal.ZERO);
+            Assert.fail("Accepted big blind: 0.125");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            table.setBlinds(new BigDecimal("0.10"), new BigDecimal("0.005"));
+            Assert.fail("Accepted ante: 0.005");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        Assert.assertEquals(new BigDecimal("0.10"), table.getBigBlind());
+    }
+
+    /**
+     * Tests that a big blind of an odd number of cents keeps the stacks in
+     * whole cents (the small blind is rounded down).
+     */
+    @Test
+    public void oddCentBigBlind() {
+        for (TableType type : TableType.values()) {
+            Table table = new Table(type, new BigDecimal("0.05"));
+            table.setSeed(1L);
+            Player[] players = new Player[3];
+            for (int i = 0; i < players.length; i++) {
+                players[i] = new Player("Bot " + i, new BigDecimal("5.00"), new BasicBot(20, 80));
+                table.addPlayer(players[i]);
+            }
+            for (int hand = 0; hand < 50 && table.playNextHand(); hand++) {
+                BigDecimal total = BigDecimal.ZERO;
+                for (Player player : players) {
+                    Assert.assertTrue(player.getCash().scale() <= 2);
+                    total = total.add(player.getCash());
+                }
+                Assert.assertEquals(0, new BigDecimal("15.00").compareTo(total));
+            }
+        }
+    }
+
+    /**
+     * Tests that player names are never used as format strings in the game
+     * messages.
+     */
+    @Test
+    public void messagesWithFormatSpecifiers() {
+        Table table = new Table(TableType.NO_LIMIT, BigDecimal.TEN);
+        table.setSeed(1L);
+        table.addPlayer(new Player("%d", BigDecimal.valueOf(1000), new BasicBot(50, 50)));
+        table.addPlayer(new Player("100%s", BigDecimal.valueOf(1000), new BasicBot(50, 50)));
+        final List<String> messages = new ArrayList<>();
+        table.addObserver(new ClientAdapter() {
+            @Override
+            public void messageReceived(String message) {
+                messages.add(message);
+            }
+        }, EnumSet.of(TableEventType.MESSAGE));
+        for (int hand = 0; hand < 10 && table.playNextHand(); hand++) {
+            // Keep playing.
+        }
+        boolean won = false;
+        for (String message : messages) {
+            won |= message.startsWith("%d wins $ ") || message.startsWith("100%s wins $ ");
+        }
+        Assert.assertTrue(won);
+    }
+
+}
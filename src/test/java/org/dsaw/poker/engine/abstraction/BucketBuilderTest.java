@@ -0,0 +1,97 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.abstraction;
+
+import java.io.File;
+import java.io.IOException;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.analysis.HandIndexer;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>BucketBuilder</code> and <code>BucketMap</code>
+ * classes.
+ */
+public class BucketBuilderTest {
+    
+    /**
+     * Tests bucketing the preflop hands and loading the bucket map.
+     * 
+     * @throws IOException
+     *             If the bucket map could not be written or read.
+     */
+    @Test
+    public void preflop() throws IOException {
+        File file = File.createTempFile("preflop", ".bkt");
+        try {
+            BucketBuilder builder = new BucketBuilder(HandIndexer.PREFLOP, 8);
+            builder.setTrials(100);
+            builder.setSeed(42L);
+            builder.build(file);
+            
+            BucketMap map = BucketMap.load(file);
+            Assert.assertEquals(8, map.getNoOfBuckets());
+            Assert.assertEquals(169L, map.getIndexer().getSize());
+            int[] counts = new int[8];
+            for (long index = 0L; index < 169L; index++) {
+                counts[map.getBucket(index)]++;
+            }
+            for (int count : counts) {
+                Assert.assertTrue(count > 0);
+            }
+            // Buckets are numbered by equity.
+            int aces = map.getHandBucket(CardSet.parse("As Ah"));
+            int kings = map.getHandBucket(CardSet.parse("Kd Kc"));
+            int trash = map.getHandBucket(CardSet.parse("7s 2h"));
+            Assert.assertEquals(7, aces);
+            Assert.assertTrue(kings >= 6);
+            Assert.assertTrue(trash <= 1);
+            // Suit isomorphism.
+            Assert.assertEquals(map.getHandBucket(CardSet.parse("Ah Kh")), map.getHandBucket(CardSet.parse("Ac Kc")));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    /**
+     * Tests the wider entries of a bucket map with more than 256 buckets.
+     * 
+     * @throws IOException
+     *             If the bucket map could not be written or read.
+     */
+    @Test
+    public void wideBuckets() throws IOException {
+        File file = File.createTempFile("flop", ".bkt");
+        try {
+            BucketMap map = BucketMap.create(file, HandIndexer.FLOP, 1000);
+            for (long index = 0L; index < HandIndexer.FLOP.getSize(); index += 997L) {
+                map.setBucket(index, (int) (index % 1000L));
+            }
+            map.flush();
+            map = BucketMap.load(file);
+            for (long index = 0L; index < HandIndexer.FLOP.getSize(); index += 997L) {
+                Assert.assertEquals(index % 1000L, map.getBucket(index));
+            }
+            Assert.assertEquals(0, map.getBucket(1L));
+        } finally {
+            file.delete();
+        }
+    }
+    
+}
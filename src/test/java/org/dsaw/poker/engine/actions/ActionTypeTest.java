@@ -0,0 +1,121 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.actions;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Client;
+import org.dsaw.poker.engine.ClientAdapter;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>ActionType</code> class.
+ */
+public class ActionTypeTest {
+    
+    /**
+     * Tests the types of the actions.
+     */
+    @Test
+    public void types() {
+        List<Action> actions = Arrays.asList(Action.CHECK, Action.CALL, Action.BET, Action.RAISE, Action.FOLD,
+                Action.ALL_IN, Action.SMALL_BLIND, Action.BIG_BLIND, Action.CONTINUE);
+        for (int i = 0; i < actions.size(); i++) {
+            ActionType type = ActionType.values()[i];
+            Assert.assertEquals(type, actions.get(i).getType());
+            Assert.assertSame(actions.get(i), type.getAction());
+        }
+        Assert.assertEquals(ActionType.BET, new BetAction(BigDecimal.TEN).getType());
+        Assert.assertEquals(ActionType.RAISE, new RaiseAction(BigDecimal.TEN).getType());
+    }
+    
+    /**
+     * Tests the types of actions from outside this package.
+     */
+    @Test
+    public void customActions() {
+        Action fold = new Action("Fold", "folds") {
+            // An action from before the action types.
+        };
+        Action bet = new Action("Bet", "bets", BigDecimal.TEN) {
+            // An action from before the action types.
+        };
+        Action unknown = new Action("Muck", "mucks") {
+            // An unknown action.
+        };
+        Assert.assertEquals(ActionType.FOLD, fold.getType());
+        Assert.assertEquals(ActionType.BET, bet.getType());
+        Assert.assertNull(unknown.getType());
+        Assert.assertEquals(ActionType.RAISE, new RaiseAction(BigDecimal.ONE) {
+            // A subclass of a typed action.
+        }.getType());
+        
+        Assert.assertEquals(ActionType.FOLD.mask(), ActionType.mask(new HashSet<>(Arrays.asList(fold, unknown))));
+        Assert.assertEquals(PackedAction.FOLD, PackedAction.fromAction(fold));
+        Assert.assertEquals(1000L, PackedAction.getCents(PackedAction.fromAction(bet)));
+        try {
+            PackedAction.fromAction(unknown);
+            Assert.fail("Packed unknown action");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+    
+    /**
+     * Tests the action masks.
+     */
+    @Test
+    public void masks() {
+        Set<Action> actions = new HashSet<>(Arrays.asList(Action.CALL, Action.RAISE, Action.FOLD));
+        int mask = ActionType.mask(actions);
+        Assert.assertEquals(3, ActionType.size(mask));
+        Assert.assertTrue(ActionType.CALL.isIn(mask));
+        Assert.assertTrue(ActionType.RAISE.isIn(mask));
+        Assert.assertTrue(ActionType.FOLD.isIn(mask));
+        Assert.assertFalse(ActionType.CHECK.isIn(mask));
+        Assert.assertFalse(ActionType.BET.isIn(mask));
+        Assert.assertEquals(actions, ActionType.toSet(mask));
+        Assert.assertTrue(ActionType.toSet(0).isEmpty());
+    }
+    
+    /**
+     * Tests that clients deciding on a set of actions get the actions of the
+     * mask.
+     */
+    @Test
+    public void setAdapter() {
+        final Set<Action> received = new HashSet<>();
+        Client client = new ClientAdapter() {
+            
+            @Override
+            public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+                received.addAll(allowedActions);
+                return Action.CHECK;
+            }
+            
+        };
+        int mask = ActionType.CHECK.mask() | ActionType.BET.mask() | ActionType.FOLD.mask();
+        Assert.assertSame(Action.CHECK, client.act(BigDecimal.TEN, BigDecimal.ZERO, mask));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(Action.CHECK, Action.BET, Action.FOLD)), received);
+    }
+    
+}
@@ -0,0 +1,165 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.actions;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Client;
+import org.dsaw.poker.engine.ClientAdapter;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.dsaw.poker.engine.codec.WireCodec;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>PackedAction</code> class.
+ */
+public class PackedActionTest {
+    
+    /**
+     * Tests packing and unpacking the actions.
+     */
+    @Test
+    public void roundTrip() {
+        List<Action> actions = Arrays.asList(Action.CHECK, Action.CALL, Action.FOLD, Action.ALL_IN,
+                Action.SMALL_BLIND, Action.BIG_BLIND, Action.CONTINUE, new BetAction(new BigDecimal("12.50")),
+                new RaiseAction(new BigDecimal("1000000")));
+        for (Action action : actions) {
+            long packed = PackedAction.fromAction(action);
+            Assert.assertEquals(action.getType(), PackedAction.getType(packed));
+            // Packed action codes are the wire's action codes.
+            Assert.assertEquals(WireCodec.getActionCode(action), PackedAction.getCode(packed));
+            Action unpacked = PackedAction.toAction(packed);
+            Assert.assertEquals(action.getType(), unpacked.getType());
+            if (action.getAmount() != null) {
+                Assert.assertEquals(0, action.getAmount().compareTo(unpacked.getAmount()));
+            }
+        }
+        Assert.assertEquals(1250L, PackedAction.getCents(PackedAction.bet(new BigDecimal("12.50"))));
+        Assert.assertEquals(PackedAction.NONE, PackedAction.fromAction(null));
+        Assert.assertNull(PackedAction.getType(PackedAction.NONE));
+        Assert.assertNull(PackedAction.toAction(PackedAction.NONE));
+        Assert.assertEquals(WireCodec.NO_ACTION, PackedAction.getCode(PackedAction.NONE));
+    }
+    
+    /**
+     * Tests the rejection of invalid action codes and amounts.
+     */
+    @Test
+    public void invalid() {
+        Assert.assertTrue(PackedAction.isValid(PackedAction.NONE));
+        Assert.assertTrue(PackedAction.isValid(PackedAction.CONTINUE));
+        for (int code = ActionType.values().length + 1; code < 16; code++) {
+            long action = (100L << 4) | code;
+            Assert.assertFalse(PackedAction.isValid(action));
+            Assert.assertNull(PackedAction.getType(action));
+            Assert.assertNull(PackedAction.toAction(action));
+        }
+        
+        long max = -1L >>> 4;
+        Assert.assertEquals(max, PackedAction.getCents(PackedAction.of(ActionType.RAISE, max)));
+        long[] invalidCents = {-1L, max + 1L, Long.MIN_VALUE};
+        for (long cents : invalidCents) {
+            try {
+                PackedAction.of(ActionType.BET, cents);
+                Assert.fail("Accepted amount: " + cents);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+        try {
+            PackedAction.bet(new BigDecimal("0.005"));
+            Assert.fail("Accepted sub-cent bet");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            PackedAction.fromAction(new RaiseAction(new BigDecimal("10.001")));
+            Assert.fail("Accepted sub-cent raise");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+    
+    /**
+     * Tests that the table rejects invalid action codes as illegal actions.
+     */
+    @Test
+    public void tableRejectsInvalidCode() {
+        Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        table.addPlayer(new Player("Joe", BigDecimal.valueOf(100), new BasicBot(50, 50) {
+            
+            @Override
+            public long actPacked(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+                return 15L;
+            }
+            
+        }));
+        table.addPlayer(new Player("Mike", BigDecimal.valueOf(100), new BasicBot(50, 50) {
+            
+            @Override
+            public long actPacked(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+                return 15L;
+            }
+            
+        }));
+        try {
+            table.playNextHand();
+            Assert.fail("Accepted invalid action code");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("invalid action code 15"));
+        }
+    }
+    
+    /**
+     * Tests that players keep the packed action and unpack it on demand.
+     */
+    @Test
+    public void player() {
+        Player player = new Player("Joe", new BigDecimal("100"), null);
+        player.setPackedAction(PackedAction.raise(BigDecimal.TEN));
+        Assert.assertTrue(player.getAction() instanceof RaiseAction);
+        Assert.assertEquals(0, BigDecimal.TEN.compareTo(player.getAction().getAmount()));
+        Assert.assertSame(player.getAction(), player.getAction());
+        player.setAction(Action.FOLD);
+        Assert.assertEquals(PackedAction.FOLD, player.getPackedAction());
+    }
+    
+    /**
+     * Tests that clients deciding on an action object are packed.
+     */
+    @Test
+    public void clientAdapter() {
+        Client client = new ClientAdapter() {
+            
+            @Override
+            public Action act(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+                return new BetAction(minBet);
+            }
+            
+        };
+        long action = client.actPacked(BigDecimal.TEN, BigDecimal.ZERO, ActionType.BET.mask());
+        Assert.assertEquals(ActionType.BET, PackedAction.getType(action));
+        Assert.assertEquals(0, BigDecimal.TEN.compareTo(PackedAction.getAmount(action)));
+    }
+    
+}
@@ -0,0 +1,130 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.dsaw.poker.engine.HandValueType;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>BoardTexture</code> class.
+ */
+public class BoardTextureTest {
+    
+    /**
+     * Tests the features of specific boards.
+     */
+    @Test
+    public void features() {
+        int texture = BoardTexture.getTexture(CardSet.parse("Ah 7h 2h"));
+        Assert.assertEquals(Card.ACE, BoardTexture.getHighRank(texture));
+        Assert.assertTrue(BoardTexture.isMonotone(texture));
+        Assert.assertEquals(BoardPairing.UNPAIRED, BoardTexture.getPairing(texture));
+        Assert.assertEquals(HandValueType.FLUSH, BoardTexture.getNutType(texture));
+        
+        texture = BoardTexture.getTexture(CardSet.parse("Kc Kd 5s"));
+        Assert.assertTrue(BoardTexture.isRainbow(texture));
+        Assert.assertEquals(BoardPairing.PAIRED, BoardTexture.getPairing(texture));
+        Assert.assertEquals(HandValueType.FOUR_OF_A_KIND, BoardTexture.getNutType(texture));
+        
+        texture = BoardTexture.getTexture(CardSet.parse("9c 8d 7s"));
+        Assert.assertEquals(HandValueType.STRAIGHT, BoardTexture.getNutType(texture));
+        Assert.assertTrue(BoardTexture.getStraightCombos(texture) > BoardTexture.getStraightCombos(BoardTexture.getTexture(CardSet.parse("Kc 8d 2s"))));
+        
+        texture = BoardTexture.getTexture(CardSet.parse("Qs Js Ts 2d"));
+        Assert.assertTrue(BoardTexture.isFlushPossible(texture));
+        Assert.assertEquals(HandValueType.ROYAL_FLUSH, BoardTexture.getNutType(texture));
+        
+        texture = BoardTexture.getTexture(CardSet.parse("7s 7d 7c 2d 2h"));
+        Assert.assertEquals(BoardPairing.FULL_HOUSE, BoardTexture.getPairing(texture));
+    }
+    
+    /**
+     * Tests the flop classes: 1755 classes, and equal for flops that only
+     * differ by suits.
+     */
+    @Test
+    public void flopClasses() {
+        Set<Integer> classes = new HashSet<>();
+        for (int c3 = 2; c3 < CardSet.NO_OF_CARDS; c3++) {
+            for (int c2 = 1; c2 < c3; c2++) {
+                for (int c1 = 0; c1 < c2; c1++) {
+                    long flop = (1L << c1) | (1L << c2) | (1L << c3);
+                    classes.add(BoardTexture.getFlopClass(flop));
+                    // Swap two suits.
+                    long swapped = swapSuits(flop, 0, 3);
+                    Assert.assertEquals(BoardTexture.getFlopClass(flop), BoardTexture.getFlopClass(swapped));
+                    Assert.assertEquals(BoardTexture.getTexture(flop), BoardTexture.getTexture(swapped));
+                }
+            }
+        }
+        Assert.assertEquals(BoardTexture.NO_OF_FLOP_CLASSES, classes.size());
+    }
+    
+    /**
+     * Tests the nuts of random turn and river boards against enumerating all
+     * hole cards.
+     */
+    @Test
+    public void nuts() {
+        Random random = new Random(0L);
+        for (int i = 0; i < 500; i++) {
+            int size = 4 + random.nextInt(2);
+            long board = 0L;
+            while (Long.bitCount(board) < size) {
+                board |= 1L << random.nextInt(CardSet.NO_OF_CARDS);
+            }
+            int best = 0;
+            for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+                long holeCards = Combos.getMask(combo);
+                if ((holeCards & board) == 0L) {
+                    best = Math.max(best, FastHandEvaluator.evaluate(board | holeCards));
+                }
+            }
+            Assert.assertEquals(FastHandEvaluator.getType(best), BoardTexture.getNutType(BoardTexture.getTexture(board)));
+        }
+    }
+    
+    /**
+     * Swaps two suits of a card mask.
+     * 
+     * @param mask
+     *            The card mask.
+     * @param suit1
+     *            One suit.
+     * @param suit2
+     *            The other suit.
+     * 
+     * @return The card mask with the suits swapped.
+     */
+    private static long swapSuits(long mask, int suit1, int suit2) {
+        long swapped = mask;
+        swapped &= ~((long) CardSet.RANK_MASK << (suit1 * Card.NO_OF_RANKS));
+        swapped &= ~((long) CardSet.RANK_MASK << (suit2 * Card.NO_OF_RANKS));
+        swapped |= (long) CardSet.getRanks(mask, suit1) << (suit2 * Card.NO_OF_RANKS);
+        swapped |= (long) CardSet.getRanks(mask, suit2) << (suit1 * Card.NO_OF_RANKS);
+        return swapped;
+    }
+    
+}
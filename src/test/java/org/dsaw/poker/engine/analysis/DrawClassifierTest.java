@@ -0,0 +1,107 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import junit.framework.Assert;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.dsaw.poker.engine.HandValueType;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>DrawClassifier</code> class.
+ */
+public class DrawClassifierTest {
+    
+    /**
+     * Tests the classification of typical draws.
+     */
+    @Test
+    public void draws() {
+        Draws draws = classify("9h 8h", "Th 7c 2h");
+        Assert.assertTrue(draws.has(DrawType.FLUSH_DRAW));
+        Assert.assertTrue(draws.has(DrawType.OPEN_ENDED_STRAIGHT_DRAW));
+        Assert.assertEquals(15, draws.getNoOfOuts());
+        
+        draws = classify("9c 8d", "Jh 7c 2s");
+        Assert.assertTrue(draws.has(DrawType.GUTSHOT));
+        Assert.assertEquals(4, draws.getNoOfOuts());
+        Assert.assertEquals(CardSet.parse("Td Tc Th Ts"), draws.getOuts());
+        
+        draws = classify("9c 7d", "Jh 5c Ks Td");
+        Assert.assertTrue(draws.has(DrawType.DOUBLE_GUTSHOT));
+        Assert.assertEquals(8, draws.getNoOfOuts());
+        
+        draws = classify("As 4d", "2h 3s Ks");
+        Assert.assertTrue(draws.has(DrawType.GUTSHOT));
+        Assert.assertTrue(draws.has(DrawType.BACKDOOR_FLUSH_DRAW));
+        
+        // Board alone makes the straight: not an out for the hole cards.
+        draws = classify("Ad Ac", "9h 8c 7s 6d");
+        Assert.assertEquals(0, draws.getNoOfOuts());
+        
+        // No draws on the river.
+        Assert.assertSame(Draws.NONE, classify("9h 8h", "Th 7c 2h 3s Kd"));
+    }
+    
+    /**
+     * Tests the outs against trying all remaining cards.
+     */
+    @Test
+    public void outs() {
+        String[][] hands = {
+            {"9h 8h", "Th 7c 2h"},
+            {"Kd Qd", "Jd 4s 3d 9c"},
+            {"6s 5s", "4s 3h Kc"},
+            {"Ah Kh", "Qh Jc 2s"},
+        };
+        for (String[] hand : hands) {
+            long holeCards = CardSet.parse(hand[0]);
+            long board = CardSet.parse(hand[1]);
+            long expected = 0L;
+            for (int card = 0; card < CardSet.NO_OF_CARDS; card++) {
+                long cardMask = 1L << card;
+                if (((holeCards | board) & cardMask) == 0L) {
+                    HandValueType type = FastHandEvaluator.getType(FastHandEvaluator.evaluate(holeCards | board | cardMask));
+                    HandValueType boardType = FastHandEvaluator.getType(FastHandEvaluator.evaluate(board | cardMask));
+                    boolean isStraightOrFlush = (type == HandValueType.STRAIGHT || type == HandValueType.FLUSH
+                            || type == HandValueType.STRAIGHT_FLUSH || type == HandValueType.ROYAL_FLUSH);
+                    if (isStraightOrFlush && type != boardType) {
+                        expected |= cardMask;
+                    }
+                }
+            }
+            Assert.assertEquals(CardSet.toString(expected), CardSet.toString(DrawClassifier.classify(holeCards, board).getOuts()));
+        }
+    }
+    
+    /**
+     * Classifies a hand.
+     * 
+     * @param holeCards
+     *            The hole cards.
+     * @param board
+     *            The board.
+     * 
+     * @return The draws.
+     */
+    private static Draws classify(String holeCards, String board) {
+        return DrawClassifier.classify(CardSet.parse(holeCards), CardSet.parse(board));
+    }
+    
+}
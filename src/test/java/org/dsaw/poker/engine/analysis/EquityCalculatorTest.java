@@ -0,0 +1,100 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.util.SplittableRandom;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.CardSet;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>EquityCalculator</code> class.
+ */
+public class EquityCalculatorTest {
+    
+    /**
+     * Tests the equity on complete boards.
+     */
+    @Test
+    public void river() {
+        // Royal flush: wins against everything.
+        Assert.assertEquals(1.0, EquityCalculator.getRiverEquity(CardSet.parse("As Ks"), CardSet.parse("Qs Js Ts 2d 3c")), 1e-9);
+        // Board plays: always a tie.
+        Assert.assertEquals(0.5, EquityCalculator.getRiverEquity(CardSet.parse("2c 3d"), CardSet.parse("As Ks Qs Js Ts")), 1e-9);
+        // Agrees with the nut-rank percentile.
+        long holeCards = CardSet.parse("Qh Jd");
+        long board = CardSet.parse("Qs 9c 4h 2d Kc");
+        Assert.assertEquals(new NutRanker().rank(holeCards, board).getPercentile(),
+                EquityCalculator.getRiverEquity(holeCards, board), 1e-9);
+    }
+    
+    /**
+     * Tests the equity before the river, exact and sampled.
+     */
+    @Test
+    public void runouts() {
+        SplittableRandom random = new SplittableRandom(1L);
+        // All-in preflop against a random hand: aces 85.2%, seven-deuce offsuit 34.6%.
+        Assert.assertEquals(0.852, EquityCalculator.getEquity(CardSet.parse("As Ah"), 0L, 20000, random), 0.01);
+        Assert.assertEquals(0.346, EquityCalculator.getEquity(CardSet.parse("7s 2h"), 0L, 20000, random), 0.01);
+        
+        // The turn enumerates the 46 rivers exactly.
+        long holeCards = CardSet.parse("Ah Kh");
+        long board = CardSet.parse("Qh 7h 2c 3d");
+        double sum = 0.0;
+        for (int card = 0; card < CardSet.NO_OF_CARDS; card++) {
+            long river = 1L << card;
+            if (((holeCards | board) & river) == 0L) {
+                sum += EquityCalculator.getRiverEquity(holeCards, board | river);
+            }
+        }
+        Assert.assertEquals(sum / 46.0, EquityCalculator.getEquity(holeCards, board, 46, random), 1e-9);
+        
+        double[] histogram = EquityCalculator.getHistogram(holeCards, board, 10, 46, random);
+        double total = 0.0;
+        for (double fraction : histogram) {
+            total += fraction;
+        }
+        Assert.assertEquals(1.0, total, 1e-9);
+        // The nine flush cards give (nearly) the nuts.
+        Assert.assertTrue(histogram[9] >= 9.0 / 46.0);
+    }
+    
+    /**
+     * Tests the equity against several opponents.
+     */
+    @Test
+    public void multiway() {
+        SplittableRandom random = new SplittableRandom(2L);
+        // Heads-up it agrees with the single opponent equity.
+        Assert.assertEquals(0.852, EquityCalculator.getMultiwayEquity(CardSet.parse("As Ah"), 0L, 1, 20000, random), 0.01);
+        // Aces against four random hands: about 56%.
+        Assert.assertEquals(0.56, EquityCalculator.getMultiwayEquity(CardSet.parse("As Ah"), 0L, 4, 20000, random), 0.015);
+        // Royal flush: wins the whole pot.
+        Assert.assertEquals(1.0, EquityCalculator.getMultiwayEquity(CardSet.parse("As Ks"), CardSet.parse("Qs Js Ts 2d 3c"), 5, 100, random), 1e-9);
+        // Board plays: the pot is always split.
+        Assert.assertEquals(0.25, EquityCalculator.getMultiwayEquity(CardSet.parse("2c 3d"), CardSet.parse("As Ks Qs Js Ts"), 3, 100, random), 1e-9);
+        try {
+            EquityCalculator.getMultiwayEquity(CardSet.parse("2c 3d"), 0L, 0, 100, random);
+            Assert.fail("No exception thrown");
+        } catch (IllegalArgumentException e) {
+            // OK.
+        }
+    }
+    
+}
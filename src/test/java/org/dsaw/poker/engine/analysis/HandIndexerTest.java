@@ -0,0 +1,148 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import java.util.Random;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>HandIndexer</code> class.
+ */
+public class HandIndexerTest {
+    
+    /**
+     * Tests the number of indexes per street.
+     */
+    @Test
+    public void sizes() {
+        Assert.assertEquals(169L, HandIndexer.PREFLOP.getSize());
+        Assert.assertEquals(1286792L, HandIndexer.FLOP.getSize());
+        Assert.assertEquals(55190538L, HandIndexer.TURN.getSize());
+        Assert.assertEquals(2428287420L, HandIndexer.RIVER.getSize());
+    }
+    
+    /**
+     * Tests that all preflop combinations map onto the 169 classes, with 6
+     * combinations per pair, 4 per suited and 12 per offsuit hand.
+     */
+    @Test
+    public void preflop() {
+        int[] counts = new int[169];
+        for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+            counts[(int) HandIndexer.PREFLOP.index(Combos.getMask(combo))]++;
+        }
+        int pairs = 0;
+        int suited = 0;
+        int offsuit = 0;
+        for (int index = 0; index < counts.length; index++) {
+            long holeCards = HandIndexer.PREFLOP.unindex(index)[0];
+            int c1 = Long.numberOfTrailingZeros(holeCards);
+            int c2 = 63 - Long.numberOfLeadingZeros(holeCards);
+            if (CardSet.getRank(c1) == CardSet.getRank(c2)) {
+                Assert.assertEquals(6, counts[index]);
+                pairs++;
+            } else if (CardSet.getSuit(c1) == CardSet.getSuit(c2)) {
+                Assert.assertEquals(4, counts[index]);
+                suited++;
+            } else {
+                Assert.assertEquals(12, counts[index]);
+                offsuit++;
+            }
+        }
+        Assert.assertEquals(13, pairs);
+        Assert.assertEquals(78, suited);
+        Assert.assertEquals(78, offsuit);
+        
+        Assert.assertEquals(HandIndexer.PREFLOP.index(new Card(Card.ACE, Card.SPADES), new Card(Card.KING, Card.SPADES)),
+                HandIndexer.PREFLOP.index(new Card(Card.KING, Card.HEARTS), new Card(Card.ACE, Card.HEARTS)));
+    }
+    
+    /**
+     * Tests that unindexing and indexing all flop indexes is the identity.
+     */
+    @Test
+    public void flopRoundTrip() {
+        HandIndexer indexer = HandIndexer.FLOP;
+        for (long index = 0L; index < indexer.getSize(); index++) {
+            long[] rounds = indexer.unindex(index);
+            Assert.assertEquals(2, Long.bitCount(rounds[0]));
+            Assert.assertEquals(3, Long.bitCount(rounds[1]));
+            Assert.assertEquals(index, indexer.index(rounds));
+        }
+    }
+    
+    /**
+     * Tests that random hands have the same index as their suit permutations
+     * and their canonical hands.
+     */
+    @Test
+    public void suitIsomorphism() {
+        Random random = new Random(42L);
+        HandIndexer[] indexers = {HandIndexer.FLOP, HandIndexer.TURN, HandIndexer.RIVER};
+        for (HandIndexer indexer : indexers) {
+            for (int i = 0; i < 10000; i++) {
+                long[] rounds = new long[indexer.getNoOfRounds()];
+                long dealt = 0L;
+                for (int r = 0; r < rounds.length; r++) {
+                    while (Long.bitCount(rounds[r]) < indexer.getNoOfCards(r)) {
+                        long card = 1L << random.nextInt(CardSet.NO_OF_CARDS);
+                        if ((dealt & card) == 0L) {
+                            rounds[r] |= card;
+                            dealt |= card;
+                        }
+                    }
+                }
+                long index = indexer.index(rounds);
+                Assert.assertEquals(index, indexer.index(permuteSuits(rounds, random)));
+                Assert.assertEquals(index, indexer.index(indexer.unindex(index)));
+            }
+        }
+    }
+    
+    /**
+     * Applies a random suit permutation to the cards of each round.
+     * 
+     * @param rounds
+     *            The cards of each round.
+     * @param random
+     *            The random generator.
+     * 
+     * @return The permuted cards.
+     */
+    private static long[] permuteSuits(long[] rounds, Random random) {
+        int[] suits = {0, 1, 2, 3};
+        for (int i = suits.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int suit = suits[i];
+            suits[i] = suits[j];
+            suits[j] = suit;
+        }
+        long[] permuted = new long[rounds.length];
+        for (int r = 0; r < rounds.length; r++) {
+            for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+                long ranks = (rounds[r] >>> (suit * Card.NO_OF_RANKS)) & CardSet.RANK_MASK;
+                permuted[r] |= ranks << (suits[suit] * Card.NO_OF_RANKS);
+            }
+        }
+        return permuted;
+    }
+    
+}
@@ -0,0 +1,94 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import junit.framework.Assert;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>HandStrengthCalculator</code> class.
+ */
+public class HandStrengthCalculatorTest {
+    
+    /** The allowed rounding error. */
+    private static final double DELTA = 1e-9;
+    
+    /**
+     * Tests the hand strength against a plain enumeration.
+     */
+    @Test
+    public void strength() {
+        HandStrengthCalculator calculator = new HandStrengthCalculator();
+        long holeCards = CardSet.parse("8s 8d");
+        long board = CardSet.parse("Kc 7h 2c 4d");
+        HandStrength hs = calculator.calculate(holeCards, board);
+        
+        int heroValue = FastHandEvaluator.evaluate(holeCards | board);
+        double ahead = 0.0;
+        double total = 0.0;
+        for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+            long opponent = Combos.getMask(combo);
+            if ((opponent & (holeCards | board)) == 0L) {
+                int value = FastHandEvaluator.evaluate(opponent | board);
+                ahead += (heroValue > value) ? 1.0 : (heroValue == value) ? 0.5 : 0.0;
+                total++;
+            }
+        }
+        Assert.assertEquals(ahead / total, hs.getStrength(), DELTA);
+        
+        // Same result from the cache.
+        Assert.assertEquals(hs.getStrength(), calculator.calculate(holeCards, board).getStrength(), DELTA);
+    }
+    
+    /**
+     * Tests the nuts on the river and a weighted range.
+     */
+    @Test
+    public void rangeAndNuts() {
+        HandStrengthCalculator calculator = new HandStrengthCalculator();
+        long board = CardSet.parse("Qs Js Ts 2d 3h");
+        HandStrength hs = calculator.calculate(CardSet.parse("As Ks"), board);
+        Assert.assertEquals(1.0, hs.getStrength(), DELTA);
+        Assert.assertEquals(0.0, hs.getPositivePotential(), DELTA);
+        Assert.assertEquals(0.0, hs.getNegativePotential(), DELTA);
+        
+        // Against a range of only the nuts, a lower straight always loses.
+        double[] weights = new double[Combos.NO_OF_COMBOS];
+        weights[Combos.indexOf(CardSet.parse("As Ks"))] = 1.0;
+        hs = calculator.calculate(CardSet.parse("Kh 9d"), board, weights);
+        Assert.assertEquals(0.0, hs.getStrength(), DELTA);
+    }
+    
+    /**
+     * Tests the potential of draws on the flop.
+     */
+    @Test
+    public void potential() {
+        HandStrengthCalculator calculator = new HandStrengthCalculator();
+        long board = CardSet.parse("Qh 7h 2c");
+        HandStrength flushDraw = calculator.calculate(CardSet.parse("5h 4h"), board);
+        HandStrength noDraw = calculator.calculate(CardSet.parse("5c 4d"), board);
+        Assert.assertTrue(flushDraw.getPositivePotential() > noDraw.getPositivePotential());
+        HandStrength set = calculator.calculate(CardSet.parse("Qd Qc"), board);
+        Assert.assertTrue(set.getStrength() > 0.95);
+        Assert.assertTrue(set.getNegativePotential() < 0.1);
+    }
+    
+}
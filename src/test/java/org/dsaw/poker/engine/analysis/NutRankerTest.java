@@ -0,0 +1,105 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.analysis;
+
+import junit.framework.Assert;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>NutRanker</code> class.
+ */
+public class NutRankerTest {
+    
+    /**
+     * Tests the ranks of typical hands.
+     */
+    @Test
+    public void ranks() {
+        NutRanker ranker = new NutRanker();
+        
+        // Nut flush: beaten by nothing.
+        NutRank rank = ranker.rank(CardSet.parse("Ah 5h"), CardSet.parse("Kh 9h 2h 7c 3d"));
+        Assert.assertEquals(1, rank.getRank());
+        Assert.assertEquals(0, rank.getNoOfBeatingCombos());
+        Assert.assertEquals(990, rank.getNoOfCombos());
+        
+        // King-high flush: beaten by the seven ace-high flushes, all with distinct kickers.
+        rank = ranker.rank(CardSet.parse("Qh 5h"), CardSet.parse("Kh 9h 2h 7c 3d"));
+        Assert.assertEquals(8, rank.getRank());
+        Assert.assertEquals(7, rank.getNoOfBeatingCombos());
+        for (int combo : rank.getBeatingCombos()) {
+            Assert.assertTrue((Combos.getMask(combo) & CardSet.parse("Ah")) != 0L);
+        }
+        
+        // Board plays: everybody ties.
+        rank = ranker.rank(CardSet.parse("2c 3c"), CardSet.parse("As Ks Qs Js Ts"));
+        Assert.assertEquals(1, rank.getRank());
+        Assert.assertEquals(rank.getNoOfCombos(), rank.getNoOfTies());
+        Assert.assertEquals(0.5, rank.getPercentile(), 1e-9);
+        
+        // Preflop: aces are the nuts, seven-deuce offsuit the worst.
+        Assert.assertEquals(1, ranker.rank(CardSet.parse("As Ah"), 0L).getRank());
+        Assert.assertEquals(1225, ranker.rank(CardSet.parse("As Ah"), 0L).getNoOfCombos());
+    }
+    
+    /**
+     * Tests the ranks against a brute-force comparison with all opponent
+     * combinations.
+     */
+    @Test
+    public void bruteForce() {
+        NutRanker ranker = new NutRanker(2);
+        String[][] hands = {
+            {"Ah Kd", "Ac 7d 2s"},
+            {"9c 8c", "Tc 7h 6c Kd"},
+            {"Qs Qd", "Qh Jh Th 9h 2c"},
+            {"4d 4c", "4h 4s Kd Kc"},
+            {"7s 2d", "Ah Kh Qc"},
+        };
+        for (String[] hand : hands) {
+            long holeCards = CardSet.parse(hand[0]);
+            long board = CardSet.parse(hand[1]);
+            int value = FastHandEvaluator.evaluate(holeCards | board);
+            int noOfBeating = 0;
+            int noOfTies = 0;
+            int noOfCombos = 0;
+            for (int combo = 0; combo < Combos.NO_OF_COMBOS; combo++) {
+                long comboMask = Combos.getMask(combo);
+                if ((comboMask & (holeCards | board)) == 0L) {
+                    int comboValue = FastHandEvaluator.evaluate(comboMask | board);
+                    noOfCombos++;
+                    if (comboValue > value) {
+                        noOfBeating++;
+                    } else if (comboValue == value) {
+                        noOfTies++;
+                    }
+                }
+            }
+            // Query twice: the second query uses the cached board.
+            for (int i = 0; i < 2; i++) {
+                NutRank rank = ranker.rank(holeCards, board);
+                Assert.assertEquals(noOfCombos, rank.getNoOfCombos());
+                Assert.assertEquals(noOfBeating, rank.getNoOfBeatingCombos());
+                Assert.assertEquals(noOfTies, rank.getNoOfTies());
+            }
+        }
+    }
+    
+}
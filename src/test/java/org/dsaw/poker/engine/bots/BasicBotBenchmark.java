@@ -0,0 +1,99 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.bots;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.actions.ActionType;
+
+/**
+ * Benchmark of the decisions per second of the <code>BasicBot</code> in
+ * equity mode, per time budget and number of opponents, and of the actual
+ * decision time against the budget (not a unit test; run manually).
+ */
+public class BasicBotBenchmark {
+    
+    /** The time budgets per decision in nanoseconds. */
+    private static final long[] TIME_BUDGETS = {20000L, 100000L, 1000000L};
+    
+    /** The numbers of opponents. */
+    private static final int[] OPPONENTS = {1, 3, 8};
+    
+    /** The duration of a run in nanoseconds. */
+    private static final long RUN_TIME = 1000000000L;
+    
+    /** The number of runs (the first ones warm up the JIT). */
+    private static final int RUNS = 3;
+    
+    /**
+     * The benchmark's entry point.
+     * 
+     * @param args
+     *            The command line arguments (not used).
+     */
+    public static void main(String[] args) {
+        int allowedActions = ActionType.CALL.mask() | ActionType.RAISE.mask() | ActionType.FOLD.mask();
+        List<Card> flop = new ArrayList<Card>();
+        CardSet.addCards(CardSet.parse("Qh 7h 2c"), flop);
+        List<Card> turn = new ArrayList<Card>(flop);
+        turn.add(new Card("3d"));
+        List<List<Card>> boards = Arrays.asList(flop, turn);
+        for (int run = 0; run < RUNS; run++) {
+            for (long timeBudget : TIME_BUDGETS) {
+                for (int noOfOpponents : OPPONENTS) {
+                    BasicBot bot = new BasicBot(50, 50, timeBudget);
+                    Player self = new Player("Bot", BigDecimal.valueOf(1000), bot);
+                    self.setCards(Arrays.asList(new Card("Ah"), new Card("Kh")));
+                    List<Player> players = new ArrayList<Player>();
+                    for (int i = 0; i < noOfOpponents; i++) {
+                        Player opponent = new Player("Opponent " + (i + 1), BigDecimal.valueOf(1000), null);
+                        opponent.setCards(Arrays.asList(CardSet.toCards(CardSet.parse("2s 3s"))));
+                        players.add(opponent.publicClone());
+                    }
+                    bot.joinedTable(TableType.NO_LIMIT, BigDecimal.TEN, players);
+                    bot.handStarted(players.get(0));
+                    bot.playerUpdated(self);
+                    for (Player opponent : players) {
+                        bot.playerUpdated(opponent);
+                    }
+                    
+                    // A new street per decision, so no equity is cached.
+                    long decisions = 0L;
+                    long start = System.nanoTime();
+                    long end = start + RUN_TIME;
+                    while (System.nanoTime() - end < 0L) {
+                        bot.boardUpdated(boards.get((int) (decisions & 1L)), BigDecimal.TEN, BigDecimal.valueOf(100));
+                        bot.act(BigDecimal.TEN, BigDecimal.TEN, allowedActions);
+                        decisions++;
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    System.out.format("Budget %7d ns, %d opponent(s): %9.0f decisions/s, %7d ns/decision (%.2f x budget)\n",
+                            timeBudget, noOfOpponents, decisions / (elapsed / 1e9), elapsed / decisions,
+                            (double) elapsed / decisions / timeBudget);
+                }
+            }
+        }
+    }
+    
+}
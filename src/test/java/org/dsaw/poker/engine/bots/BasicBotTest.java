@@ -0,0 +1,287 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.bots;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.RaiseAction;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>BasicBot</code> class, mostly its equity mode.
+ */
+public class BasicBotTest {
+    
+    /** The time budget per decision in nanoseconds. */
+    private static final long TIME_BUDGET = 200000L;
+    
+    /** A time budget to reach the maximum number of samples. */
+    private static final long ACCURATE = 1000000000L;
+    
+    /** The actions when facing a bet. */
+    private static final Set<Action> FACING_BET = new HashSet<Action>(Arrays.asList(Action.CALL, Action.RAISE, Action.FOLD));
+    
+    /** The actions when not facing a bet. */
+    private static final Set<Action> NOT_FACING_BET = new HashSet<Action>(Arrays.asList(Action.CHECK, Action.BET, Action.FOLD));
+    
+    /**
+     * Tests decisions against the pot odds.
+     */
+    @Test
+    public void potOdds() {
+        BasicBot bot = new BasicBot(0, 50, ACCURATE);
+        
+        // The nuts: raise.
+        deal(bot, "As Ks", "Qs Js Ts 2d 3c", 30, 1);
+        Assert.assertTrue(bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET) instanceof RaiseAction);
+        
+        // Nothing: fold against a pot sized bet, call a tiny one, check for free.
+        deal(bot, "3c 2d", "As Kd Qc 8h 5s", 20, 1);
+        Assert.assertEquals(Action.FOLD, bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET));
+        deal(bot, "3c 2d", "As Kd Qc 8h 5s", 1000, 1);
+        Assert.assertEquals(Action.CALL, bot.act(BigDecimal.ONE, BigDecimal.ONE, FACING_BET));
+        Assert.assertEquals(Action.CHECK, bot.act(BigDecimal.TEN, BigDecimal.ZERO, NOT_FACING_BET));
+        
+        // A tight bot needs a margin over the pot odds.
+        bot = new BasicBot(100, 50, ACCURATE);
+        deal(bot, "3c 2d", "As Kd Qc 8h 5s", 1000, 1);
+        Assert.assertEquals(Action.FOLD, bot.act(BigDecimal.ONE, BigDecimal.ONE, FACING_BET));
+        
+        // Without aggression, never bet.
+        bot = new BasicBot(0, 0, ACCURATE);
+        deal(bot, "As Ks", "Qs Js Ts 2d 3c", 30, 1);
+        Assert.assertEquals(Action.CALL, bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET));
+    }
+    
+    /**
+     * Tests that the table calls the act methods overridden by subclasses.
+     */
+    @Test
+    public void subclasses() {
+        final int[] noOfSetActs = new int[1];
+        final int[] noOfMaskActs = new int[1];
+        Table table = new Table(TableType.NO_LIMIT, BigDecimal.TEN);
+        Player player1 = new Player("Joe", BigDecimal.valueOf(1000), new BasicBot(50, 50) {
+            
+            @Override
+            public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+                noOfSetActs[0]++;
+                return super.act(minBet, currentBet, allowedActions);
+            }
+            
+        });
+        Player player2 = new Player("Mike", BigDecimal.valueOf(1000), new BasicBot(50, 50, TIME_BUDGET) {
+            
+            @Override
+            public Action act(BigDecimal minBet, BigDecimal currentBet, int allowedActions) {
+                noOfMaskActs[0]++;
+                return super.act(minBet, currentBet, allowedActions);
+            }
+            
+        });
+        table.addPlayer(player1);
+        table.addPlayer(player2);
+        for (int i = 0; i < 20 && table.playNextHand(); i++) {
+            Assert.assertEquals(0, BigDecimal.valueOf(2000).compareTo(player1.getCash().add(player2.getCash())));
+        }
+        Assert.assertTrue(noOfSetActs[0] > 0);
+        Assert.assertTrue(noOfMaskActs[0] > 0);
+        
+        // Without overrides, the bots decide on the packed actions.
+        Assert.assertFalse(new BasicBot(50, 50).overridesAct(BasicBot.class, Set.class));
+        Assert.assertFalse(new BasicBot(50, 50).overridesAct(BasicBot.class, int.class));
+    }
+    
+    /**
+     * Tests tracking the opponents still in the hand.
+     */
+    @Test
+    public void opponents() {
+        BasicBot bot = new BasicBot(0, 20, ACCURATE);
+        
+        // Queens are strong against one opponent, but not against eight.
+        deal(bot, "Qs Qh", "", 30, 1);
+        Assert.assertTrue(bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET) instanceof RaiseAction);
+        List<Player> opponents = deal(bot, "Qs Qh", "", 60, 8);
+        Assert.assertEquals(Action.CALL, bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET));
+        
+        // Until seven of them fold.
+        for (int i = 1; i < opponents.size(); i++) {
+            Player opponent = opponents.get(i);
+            opponent.setAction(Action.FOLD);
+            bot.playerActed(opponent.publicClone());
+        }
+        Assert.assertTrue(bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET) instanceof RaiseAction);
+    }
+    
+    /**
+     * Tests aggressive bots at no-limit tables, whose re-raises must stay
+     * within their stacks.
+     */
+    @Test
+    public void noLimit() {
+        String[] bigBlinds = {"1", "5", "0.10", "0.50", "2"};
+        for (String bigBlind : bigBlinds) {
+            Table table = new Table(TableType.NO_LIMIT, new BigDecimal(bigBlind));
+            table.setSeed(bigBlind.hashCode());
+            BigDecimal stack = new BigDecimal(bigBlind).multiply(BigDecimal.valueOf(100));
+            List<Player> players = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Player player = new Player("Bot " + i, stack, new BasicBot(20, 80));
+                players.add(player);
+                table.addPlayer(player);
+            }
+            for (int hand = 0; hand < 200 && table.playNextHand(); hand++) {
+                BigDecimal total = BigDecimal.ZERO;
+                for (Player player : players) {
+                    Assert.assertTrue(player.getCash().signum() >= 0);
+                    total = total.add(player.getCash());
+                }
+                Assert.assertEquals(0, stack.multiply(BigDecimal.valueOf(4)).compareTo(total));
+            }
+        }
+    }
+    
+    /**
+     * Tests the time budget per decision, on a simulated clock (the actual
+     * decision times are measured by the <code>BasicBotBenchmark</code>).
+     */
+    @Test
+    public void timeBudget() {
+        // Every clock reading takes a tenth of the budget, i.e. one per batch of samples.
+        final long[] clock = new long[1];
+        BasicBot bot = new BasicBot(50, 50, TIME_BUDGET) {
+            @Override
+            /* package */ long nanoTime() {
+                clock[0] += TIME_BUDGET / 10;
+                return clock[0];
+            }
+        };
+        
+        // The batches that are expected to finish before the deadline: nine (144 samples).
+        deal(bot, "Js Td", "", 30, 8);
+        // The decision starts at the first reading, 0.
+        clock[0] = -TIME_BUDGET / 10;
+        bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET);
+        Assert.assertEquals(144, bot.getTrials());
+        Assert.assertTrue(clock[0] <= TIME_BUDGET);
+        
+        // The next decision on the same street refines the cached equity.
+        bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET);
+        Assert.assertEquals(288, bot.getTrials());
+        
+        // A new hand starts over.
+        deal(bot, "Js Td", "", 30, 7);
+        bot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET);
+        Assert.assertEquals(144, bot.getTrials());
+        
+        // A batch slower than the budget: only the first one.
+        BasicBot slowBot = new BasicBot(50, 50, TIME_BUDGET) {
+            @Override
+            /* package */ long nanoTime() {
+                clock[0] += 2 * TIME_BUDGET;
+                return clock[0];
+            }
+        };
+        deal(slowBot, "Js Td", "", 30, 8);
+        slowBot.act(BigDecimal.TEN, BigDecimal.TEN, FACING_BET);
+        Assert.assertEquals(16, slowBot.getTrials());
+    }
+    
+    /**
+     * Tests playing No-Limit at a table, together with a Chen formula bot.
+     */
+    @Test
+    public void table() {
+        Table table = new Table(TableType.NO_LIMIT, BigDecimal.TEN);
+        BigDecimal startingCash = BigDecimal.valueOf(10000);
+        List<Player> players = new ArrayList<Player>();
+        players.add(new Player("Tight", startingCash, new BasicBot(80, 30, TIME_BUDGET)));
+        players.add(new Player("Loose", startingCash, new BasicBot(10, 80, TIME_BUDGET)));
+        players.add(new Player("Average", startingCash, new BasicBot(50, 50, TIME_BUDGET)));
+        players.add(new Player("Chen", startingCash, new BasicBot(50, 50)));
+        for (Player player : players) {
+            table.addPlayer(player);
+        }
+        BigDecimal totalCash = startingCash.multiply(BigDecimal.valueOf(players.size()));
+        for (int hand = 0; hand < 100 && table.playNextHand(); hand++) {
+            BigDecimal cash = BigDecimal.ZERO;
+            for (Player player : players) {
+                cash = cash.add(player.getCash());
+            }
+            Assert.assertEquals(0, totalCash.compareTo(cash));
+        }
+    }
+    
+    /**
+     * Starts a hand for the bot, with the given cards, pot and number of
+     * opponents (after the blinds and any antes).
+     * 
+     * @param bot
+     *            The bot.
+     * @param holeCards
+     *            The bot's hole cards.
+     * @param board
+     *            The board.
+     * @param pot
+     *            The pot.
+     * @param noOfOpponents
+     *            The number of opponents.
+     * 
+     * @return The opponents.
+     */
+    private static List<Player> deal(BasicBot bot, String holeCards, String board, int pot, int noOfOpponents) {
+        Player self = new Player("Bot", BigDecimal.valueOf(1000), bot);
+        List<Player> opponents = new ArrayList<Player>();
+        for (int i = 0; i < noOfOpponents; i++) {
+            opponents.add(new Player("Opponent " + (i + 1), BigDecimal.valueOf(1000), null));
+        }
+        List<Player> players = new ArrayList<Player>(opponents);
+        players.add(self);
+        bot.joinedTable(TableType.NO_LIMIT, BigDecimal.TEN, players);
+        bot.handStarted(opponents.get(0));
+        
+        // The deck's top cards for the opponents.
+        long dead = CardSet.parse(holeCards) | CardSet.parse(board);
+        List<Card> deck = new ArrayList<Card>();
+        CardSet.addCards(CardSet.ALL_CARDS & ~dead, deck);
+        self.setCards(Arrays.asList(CardSet.toCards(CardSet.parse(holeCards))));
+        bot.playerUpdated(self);
+        for (int i = 0; i < noOfOpponents; i++) {
+            Player opponent = opponents.get(i);
+            opponent.setCards(deck.subList(2 * i, 2 * i + 2));
+            bot.playerUpdated(opponent.publicClone());
+        }
+        List<Card> boardCards = new ArrayList<Card>();
+        CardSet.addCards(CardSet.parse(board), boardCards);
+        bot.boardUpdated(boardCards, BigDecimal.ZERO, BigDecimal.valueOf(pot));
+        return opponents;
+    }
+    
+}
@@ -0,0 +1,160 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.bots;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.abstraction.CardAbstraction;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.analysis.EquityCalculator;
+import org.dsaw.poker.engine.solver.CfrSolver;
+import org.dsaw.poker.engine.solver.PolicyFile;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>StrategyBot</code> class.
+ */
+public class StrategyBotTest {
+    
+    /** A small card abstraction: Pre-Flop equity in 5 buckets, otherwise none. */
+    private static final CardAbstraction ABSTRACTION = new CardAbstraction() {
+        
+        @Override
+        public int getNoOfBuckets(int street) {
+            return (street == 0) ? 5 : 1;
+        }
+        
+        @Override
+        public int getBucket(int street, long holeCards, long board) {
+            if (street == 0) {
+                double equity = EquityCalculator.getEquity(holeCards, 0L, 100, new SplittableRandom(holeCards));
+                return Math.min((int) ((equity - 0.3) / 0.1), 4);
+            } else {
+                return 0;
+            }
+        }
+        
+    };
+    
+    /** The policy file. */
+    private static File file;
+    
+    /** The policy. */
+    private static PolicyFile policy;
+    
+    /**
+     * Solves and loads a small policy.
+     * 
+     * @throws IOException
+     *             If the policy could not be written or read.
+     */
+    @BeforeClass
+    public static void solve() throws IOException {
+        file = File.createTempFile("strategy", ".pol");
+        CfrSolver solver = new CfrSolver(ABSTRACTION, false, 7L);
+        solver.setParallelism(1);
+        solver.solve(2000L);
+        solver.exportPolicy(file);
+        policy = PolicyFile.load(file, ABSTRACTION);
+    }
+    
+    /**
+     * Deletes the policy file.
+     */
+    @AfterClass
+    public static void delete() {
+        file.delete();
+    }
+    
+    /**
+     * Tests a first decision, driven by the table events.
+     */
+    @Test
+    public void decision() {
+        StrategyBot bot = new StrategyBot(policy);
+        Player self = new Player("Bot", BigDecimal.valueOf(100), bot);
+        Player opponent = new Player("Opponent", BigDecimal.valueOf(100), new BasicBot(50, 50));
+        bot.joinedTable(TableType.FIXED_LIMIT, BigDecimal.TEN, Arrays.asList(self, opponent));
+        bot.handStarted(opponent);
+        self.setCards(Arrays.asList(new Card("As"), new Card("Ah")));
+        bot.playerUpdated(self);
+        
+        // The big blind acts first and may not fold for free.
+        Set<Action> allowedActions = new HashSet<Action>(Arrays.asList(Action.CHECK, Action.RAISE, Action.FOLD));
+        for (int i = 0; i < 100; i++) {
+            bot.handStarted(opponent);
+            bot.playerUpdated(self);
+            Action action = bot.act(BigDecimal.TEN, BigDecimal.TEN, allowedActions);
+            Assert.assertTrue(action == Action.CHECK || action == Action.RAISE);
+        }
+    }
+    
+    /**
+     * Tests playing heads-up at a table.
+     */
+    @Test
+    public void headsUp() {
+        Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        Player player1 = new Player("Bot 1", BigDecimal.valueOf(10000), new StrategyBot(policy));
+        Player player2 = new Player("Bot 2", BigDecimal.valueOf(10000), new StrategyBot(policy));
+        table.addPlayer(player1, StrategyBot.EVENT_TYPES);
+        table.addPlayer(player2, StrategyBot.EVENT_TYPES);
+        for (int hand = 0; hand < 200 && table.playNextHand(); hand++) {
+            Assert.assertEquals(0, BigDecimal.valueOf(20000).compareTo(player1.getCash().add(player2.getCash())));
+        }
+    }
+    
+    /**
+     * Tests that the table calls the act method of a subclass deciding on the
+     * set of allowed actions.
+     */
+    @Test
+    public void subclass() {
+        final int[] noOfActs = new int[1];
+        Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        Player player1 = new Player("Bot 1", BigDecimal.valueOf(10000), new StrategyBot(policy) {
+            
+            @Override
+            public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+                noOfActs[0]++;
+                return super.act(minBet, currentBet, allowedActions);
+            }
+            
+        });
+        Player player2 = new Player("Bot 2", BigDecimal.valueOf(10000), new StrategyBot(policy));
+        table.addPlayer(player1, StrategyBot.EVENT_TYPES);
+        table.addPlayer(player2, StrategyBot.EVENT_TYPES);
+        for (int hand = 0; hand < 20 && table.playNextHand(); hand++) {
+            Assert.assertEquals(0, BigDecimal.valueOf(20000).compareTo(player1.getCash().add(player2.getCash())));
+        }
+        Assert.assertTrue(noOfActs[0] > 0);
+    }
+    
+}
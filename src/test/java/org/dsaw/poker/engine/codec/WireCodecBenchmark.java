@@ -0,0 +1,121 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.codec;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.BetAction;
+
+/**
+ * Throughput benchmark for the <code>WireCodec</code> and the player delta
+ * codec (not a unit test; run manually).
+ */
+public class WireCodecBenchmark {
+    
+    /** The number of iterations per run. */
+    private static final int ITERATIONS = 10000000;
+    
+    /** The number of runs (the first ones warm up the JIT). */
+    private static final int RUNS = 5;
+    
+    /**
+     * The benchmark's entry point.
+     * 
+     * @param args
+     *            The command line arguments (not used).
+     */
+    public static void main(String[] args) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        Action[] actions = {Action.CHECK, Action.CALL, new BetAction(BigDecimal.valueOf(40)), Action.FOLD};
+        List<Card> board = new ArrayList<>();
+        board.add(new Card("As"));
+        board.add(new Card("Td"));
+        board.add(new Card("7h"));
+        board.add(new Card("2c"));
+        Player player = new Player("Joe", BigDecimal.valueOf(500), null);
+        PlayerDeltaEncoder encoder = new PlayerDeltaEncoder();
+        PlayerDeltaDecoder decoder = new PlayerDeltaDecoder();
+        long checksum = 0L;
+        for (int run = 0; run < RUNS; run++) {
+            // Actions.
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                buffer.clear();
+                WireCodec.putAction(buffer, actions[i & 3]);
+                WireCodec.putAmount(buffer, BigDecimal.TEN);
+                buffer.flip();
+                checksum += WireCodec.getActionCode(buffer);
+                if (WireCodec.hasAmount(buffer.get(0))) {
+                    checksum += WireCodec.getVarLong(buffer);
+                }
+                checksum += WireCodec.getVarLong(buffer);
+            }
+            report("Actions", start);
+            
+            // Boards.
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                buffer.clear();
+                WireCodec.putBoard(buffer, board);
+                buffer.flip();
+                checksum += WireCodec.getCardMask(buffer);
+            }
+            report("Boards", start);
+            
+            // Player deltas.
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                buffer.clear();
+                encoder.encode(buffer, i & 7, (i & 1023) * 100L, (i & 15) * 100L, WireCodec.CALL, 0L, 0L, true);
+                buffer.flip();
+                checksum += decoder.getCash(decoder.decode(buffer));
+            }
+            report("Player deltas", start);
+            
+            // Player objects.
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                buffer.clear();
+                encoder.encode(buffer, i & 7, player);
+                buffer.flip();
+                checksum += decoder.decode(buffer);
+            }
+            report("Player objects", start);
+        }
+        System.out.format("(checksum: %d)\n", checksum);
+    }
+    
+    /**
+     * Reports the throughput of a run.
+     * 
+     * @param name
+     *            The name of the run.
+     * @param start
+     *            The start time in nanoseconds.
+     */
+    private static void report(String name, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.format("%-15s %6.1f M round-trips/s\n", name, ITERATIONS / seconds / 1e6);
+    }
+    
+}
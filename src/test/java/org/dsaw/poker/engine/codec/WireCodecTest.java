@@ -0,0 +1,228 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.codec;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.BetAction;
+import org.dsaw.poker.engine.actions.RaiseAction;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>WireCodec</code> and the player delta codec.
+ */
+public class WireCodecTest {
+    
+    /**
+     * Tests the round-trip of variable length integers.
+     */
+    @Test
+    public void varLong() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        long[] values = {0L, 1L, 127L, 128L, 16383L, 16384L, 1000000L, Long.MAX_VALUE};
+        for (long value : values) {
+            buffer.clear();
+            WireCodec.putVarLong(buffer, value);
+            Assert.assertEquals(WireCodec.getVarLongSize(value), buffer.position());
+            buffer.flip();
+            Assert.assertEquals(value, WireCodec.getVarLong(buffer));
+            Assert.assertFalse(buffer.hasRemaining());
+        }
+    }
+    
+    /**
+     * Tests the round-trip of all cards.
+     */
+    @Test
+    public void cards() {
+        ByteBuffer buffer = ByteBuffer.allocate(CardSet.NO_OF_CARDS);
+        for (int rank = 0; rank < Card.NO_OF_RANKS; rank++) {
+            for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+                WireCodec.putCard(buffer, new Card(rank, suit));
+            }
+        }
+        Assert.assertEquals(CardSet.NO_OF_CARDS, buffer.position());
+        buffer.flip();
+        for (int rank = 0; rank < Card.NO_OF_RANKS; rank++) {
+            for (int suit = 0; suit < Card.NO_OF_SUITS; suit++) {
+                Assert.assertEquals(new Card(rank, suit), WireCodec.getCard(buffer));
+            }
+        }
+    }
+    
+    /**
+     * Tests the round-trip of boards.
+     */
+    @Test
+    public void board() {
+        ByteBuffer buffer = ByteBuffer.allocate(WireCodec.BOARD_SIZE);
+        List<Card> board = new ArrayList<>();
+        board.add(new Card("As"));
+        board.add(new Card("2d"));
+        board.add(new Card("Th"));
+        board.add(new Card("Kc"));
+        board.add(new Card("2s"));
+        WireCodec.putBoard(buffer, board);
+        Assert.assertEquals(WireCodec.BOARD_SIZE, buffer.position());
+        buffer.flip();
+        List<Card> decoded = new ArrayList<>();
+        WireCodec.getBoard(buffer, decoded);
+        Assert.assertEquals(board.size(), decoded.size());
+        Assert.assertTrue(decoded.containsAll(board));
+        
+        // Empty board.
+        buffer.clear();
+        WireCodec.putBoard(buffer, new ArrayList<Card>());
+        buffer.flip();
+        Assert.assertEquals(0L, WireCodec.getCardMask(buffer));
+    }
+    
+    /**
+     * Tests the round-trip of actions.
+     */
+    @Test
+    public void actions() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        Action[] actions = {
+            Action.CHECK, Action.CALL, Action.FOLD, Action.ALL_IN, Action.SMALL_BLIND,
+            Action.BIG_BLIND, Action.CONTINUE
+        };
+        for (Action action : actions) {
+            buffer.clear();
+            WireCodec.putAction(buffer, action);
+            Assert.assertEquals(1, buffer.position());
+            buffer.flip();
+            Assert.assertSame(action, WireCodec.getAction(buffer));
+        }
+        
+        buffer.clear();
+        WireCodec.putAction(buffer, new BetAction(BigDecimal.valueOf(250)));
+        WireCodec.putAction(buffer, new RaiseAction(new BigDecimal("12.5")));
+        WireCodec.putAction(buffer, null);
+        buffer.flip();
+        Action action = WireCodec.getAction(buffer);
+        Assert.assertTrue(action instanceof BetAction);
+        Assert.assertEquals(0, BigDecimal.valueOf(250).compareTo(action.getAmount()));
+        action = WireCodec.getAction(buffer);
+        Assert.assertTrue(action instanceof RaiseAction);
+        Assert.assertEquals(0, new BigDecimal("12.5").compareTo(action.getAmount()));
+        Assert.assertNull(WireCodec.getAction(buffer));
+    }
+    
+    /**
+     * Tests the exact conversion of amounts to cents.
+     */
+    @Test
+    public void cents() {
+        Assert.assertEquals(25000L, WireCodec.toCents(BigDecimal.valueOf(250)));
+        Assert.assertEquals(1250L, WireCodec.toCents(new BigDecimal("12.5")));
+        Assert.assertEquals(1001L, WireCodec.toCents(new BigDecimal("10.01")));
+        Assert.assertEquals(1000L, WireCodec.toCents(new BigDecimal("10.000")));
+        Assert.assertEquals(100L, WireCodec.toCents(new BigDecimal("1E+0")));
+        Assert.assertEquals(10000L, WireCodec.toCents(new BigDecimal("1E+2")));
+        Assert.assertEquals(0, new BigDecimal("10.01").compareTo(WireCodec.fromCents(1001L)));
+        
+        // Sub-cents are rejected instead of rounded.
+        String[] invalidAmounts = {"10.005", "0.001", "92233720368547758.08", "92233720368547759"};
+        for (String amount : invalidAmounts) {
+            try {
+                WireCodec.toCents(new BigDecimal(amount));
+                Assert.fail("Accepted amount: " + amount);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+        Assert.assertEquals(Long.MAX_VALUE, WireCodec.toCents(new BigDecimal("92233720368547758.07")));
+    }
+    
+    /**
+     * Tests the rejection of invalid input.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCard() {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        buffer.put((byte) CardSet.NO_OF_CARDS);
+        buffer.flip();
+        WireCodec.getCard(buffer);
+    }
+    
+    /**
+     * Tests the round-trip of delta encoded player updates.
+     */
+    @Test
+    public void playerDelta() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        PlayerDeltaEncoder encoder = new PlayerDeltaEncoder();
+        PlayerDeltaDecoder decoder = new PlayerDeltaDecoder();
+        Player player = new Player("Joe", BigDecimal.valueOf(500), null);
+        
+        // First update is complete.
+        encoder.encode(buffer, 3, player);
+        buffer.flip();
+        Assert.assertEquals(3, decoder.decode(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+        Assert.assertEquals(50000L, decoder.getCash(3));
+        Assert.assertEquals(0L, decoder.getBet(3));
+        Assert.assertEquals(WireCodec.NO_ACTION, decoder.getActionCode(3));
+        Assert.assertFalse(decoder.hasCards(3));
+        
+        // Unchanged player only takes the seat and flags.
+        buffer.clear();
+        encoder.encode(buffer, 3, player);
+        Assert.assertEquals(2, buffer.position());
+        buffer.flip();
+        decoder.decode(buffer);
+        Assert.assertEquals(50000L, decoder.getCash(3));
+        
+        // Hole cards, bet and action.
+        List<Card> cards = new ArrayList<>();
+        cards.add(new Card("Ah"));
+        cards.add(new Card("Kh"));
+        player.setCards(cards);
+        player.payCash(BigDecimal.valueOf(20));
+        player.setBet(BigDecimal.valueOf(20));
+        player.setAction(new BetAction(BigDecimal.valueOf(20)));
+        buffer.clear();
+        encoder.encode(buffer, 3, player);
+        buffer.flip();
+        decoder.decode(buffer);
+        Assert.assertEquals(48000L, decoder.getCash(3));
+        Assert.assertEquals(2000L, decoder.getBet(3));
+        Assert.assertEquals(WireCodec.BET, decoder.getActionCode(3));
+        Assert.assertEquals(2000L, decoder.getActionAmount(3));
+        Assert.assertEquals(CardSet.parse("Ah Kh"), decoder.getCards(3));
+        Assert.assertTrue(decoder.hasCards(3));
+        
+        // Public snapshot hides the cards.
+        buffer.clear();
+        encoder.encode(buffer, 3, player.publicClone());
+        buffer.flip();
+        decoder.decode(buffer);
+        Assert.assertEquals(0L, decoder.getCards(3));
+        Assert.assertTrue(decoder.hasCards(3));
+        Assert.assertEquals(48000L, decoder.getCash(3));
+    }
+    
+}
@@ -0,0 +1,132 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.jfr;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.analysis.EquityCalculator;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.junit.Test;
+
+/**
+ * Test suite for the flight recorder events.
+ */
+public class FlightRecorderTest {
+    
+    /**
+     * Tests the events recorded while playing hands and calculating equities.
+     * 
+     * @throws IOException
+     *             If the recording could not be written or read.
+     */
+    @Test
+    public void events() throws IOException {
+        Map<String, Integer> counts = record(true);
+        Assert.assertEquals(Integer.valueOf(10), counts.get(HandEvent.NAME));
+        Assert.assertTrue(counts.get("org.dsaw.poker.engine.Decision") >= 20);
+        Assert.assertEquals(Integer.valueOf(1), counts.get("org.dsaw.poker.engine.Equity"));
+    }
+    
+    /**
+     * Tests that only the enabled events are recorded.
+     * 
+     * @throws IOException
+     *             If the recording could not be written or read.
+     */
+    @Test
+    public void disabled() throws IOException {
+        Map<String, Integer> counts = record(false);
+        Assert.assertEquals(Integer.valueOf(10), counts.get(HandEvent.NAME));
+        Assert.assertNull(counts.get("org.dsaw.poker.engine.Decision"));
+        Assert.assertNull(counts.get("org.dsaw.poker.engine.Equity"));
+    }
+    
+    /**
+     * Plays 10 hands and calculates an equity while recording.
+     * 
+     * @param all
+     *            Whether to enable all events, or only the hand events.
+     * 
+     * @return The number of recorded events by name.
+     * 
+     * @throws IOException
+     *             If the recording could not be written or read.
+     */
+    private static Map<String, Integer> record(boolean all) throws IOException {
+        File file = File.createTempFile("poker", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(HandEvent.class);
+                if (all) {
+                    recording.enable(DecisionEvent.class);
+                    recording.enable(ShowdownEvent.class);
+                    recording.enable(EquityEvent.class);
+                } else {
+                    recording.disable(DecisionEvent.class);
+                    recording.disable(ShowdownEvent.class);
+                    recording.disable(EquityEvent.class);
+                }
+                recording.start();
+                Table table = new Table(TableType.NO_LIMIT, BigDecimal.TEN);
+                BigDecimal stack = BigDecimal.valueOf(100000);
+                Player[] players = {new Player("Joe", stack, new BasicBot(50, 50)), new Player("Mike", stack, new BasicBot(50, 50))};
+                for (Player player : players) {
+                    table.addPlayer(player);
+                }
+                for (int i = 0; i < 10; i++) {
+                    // Rebuy between hands, so a bust-out does not end the match early.
+                    for (Player player : players) {
+                        if (player.getCash().compareTo(stack) < 0) {
+                            player.win(stack.subtract(player.getCash()));
+                        }
+                    }
+                    table.playNextHand();
+                }
+                EquityCalculator.getEquity(CardSet.parse("As Ah"), 0L, 100, new SplittableRandom(1L));
+                recording.stop();
+                recording.dump(file.toPath());
+            }
+            Map<String, Integer> counts = new HashMap<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+                String name = event.getEventType().getName();
+                // Only this test's events; other tests may leave tables running.
+                if (name.startsWith("org.dsaw.poker.engine.") && event.getThread() != null
+                        && event.getThread().getJavaThreadId() == Thread.currentThread().getId()) {
+                    Integer count = counts.get(name);
+                    counts.put(name, (count == null) ? 1 : count + 1);
+                }
+            }
+            return counts;
+        } finally {
+            file.delete();
+        }
+    }
+    
+}
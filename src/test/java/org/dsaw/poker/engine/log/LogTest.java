@@ -0,0 +1,243 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.log;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test suite for the logging classes.
+ */
+public class LogTest {
+    
+    /** The records written to the sink. */
+    private final List<LogRecord> records = new ArrayList<>();
+    
+    /** The sink before the test. */
+    private LogSink previousSink;
+    
+    /**
+     * Installs a sink collecting the records.
+     */
+    @Before
+    public void setUp() {
+        previousSink = Log.getSink();
+        Log.setSink(new LogSink() {
+            
+            @Override
+            public void write(LogRecord record) {
+                synchronized (records) {
+                    records.add(record);
+                }
+            }
+            
+            @Override
+            public void close() {
+                // Nothing to release.
+            }
+            
+        });
+    }
+    
+    /**
+     * Restores the default logging.
+     */
+    @After
+    public void tearDown() {
+        Log.setSink(previousSink);
+        Log.setDefaultLevel(LogLevel.INFO);
+    }
+    
+    /**
+     * Tests the levels and the lazy formatting.
+     */
+    @Test
+    public void levels() {
+        final int[] formatted = new int[1];
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                formatted[0]++;
+                return "arg";
+            }
+        };
+        Logger logger = Log.getLogger("test.levels");
+        Assert.assertSame(logger, Log.getLogger("test.levels"));
+        logger.debug("Debug %s", argument);
+        Assert.assertEquals(0, formatted[0]);
+        Assert.assertTrue(records.isEmpty());
+        
+        logger.info("Info %s", argument);
+        Assert.assertEquals(1, formatted[0]);
+        Assert.assertEquals(1, records.size());
+        Assert.assertEquals("Info arg", records.get(0).getMessage());
+        Assert.assertEquals(LogLevel.INFO, records.get(0).getLevel());
+        Assert.assertEquals("test.levels", records.get(0).getLoggerName());
+        
+        // A message without arguments is not a format.
+        logger.info("100%");
+        Assert.assertEquals("100%", records.get(1).getMessage());
+        
+        logger.setLevel(LogLevel.TRACE);
+        logger.trace("Trace %s", argument);
+        Assert.assertEquals(3, records.size());
+        logger.setLevel(LogLevel.OFF);
+        logger.error("Error", null);
+        Assert.assertEquals(3, records.size());
+        logger.setLevel(null);
+        Assert.assertFalse(logger.isEnabled(LogLevel.DEBUG));
+        Assert.assertFalse(logger.isEnabled(LogLevel.OFF));
+    }
+    
+    /**
+     * Tests that the table messages are only logged at debug level.
+     */
+    @Test
+    public void table() {
+        Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        table.addPlayer(new Player("Joe", BigDecimal.valueOf(100), new BasicBot(50, 50)));
+        table.addPlayer(new Player("Mike", BigDecimal.valueOf(100), new BasicBot(50, 50)));
+        table.playNextHand();
+        Assert.assertTrue(records.isEmpty());
+        
+        Log.setDefaultLevel(LogLevel.DEBUG);
+        table.playNextHand();
+        boolean dealt = false;
+        for (LogRecord record : records) {
+            Assert.assertEquals(Table.class.getName(), record.getLoggerName());
+            dealt |= record.getMessage().endsWith("deals the hole cards.");
+        }
+        Assert.assertTrue(dealt);
+        
+        // The hole cards at trace level.
+        records.clear();
+        Log.setDefaultLevel(LogLevel.TRACE);
+        table.playNextHand();
+        int cards = 0;
+        for (LogRecord record : records) {
+            if (record.getLoggerName().equals(Player.class.getName())) {
+                cards++;
+            }
+        }
+        Assert.assertEquals(2, cards);
+    }
+    
+    /**
+     * Tests the asynchronous sink.
+     */
+    @Test
+    public void async() {
+        AsyncSink sink = new AsyncSink(Log.getSink(), 1000);
+        for (int i = 0; i < 100; i++) {
+            sink.write(new LogRecord(0L, LogLevel.INFO, "test", "main", String.valueOf(i), null));
+        }
+        sink.close();
+        synchronized (records) {
+            Assert.assertEquals(100, records.size());
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(String.valueOf(i), records.get(i).getMessage());
+            }
+        }
+        Assert.assertEquals(0L, sink.getDropped());
+        
+        // Records after closing are dropped.
+        sink.write(new LogRecord(0L, LogLevel.INFO, "test", "main", "late", null));
+        Assert.assertEquals(1L, sink.getDropped());
+        Assert.assertEquals(100, records.size());
+    }
+    
+    /**
+     * Tests that records failing to be written are counted as dropped,
+     * without stopping the background thread.
+     */
+    @Test
+    public void asyncFailure() {
+        final LogSink delegate = Log.getSink();
+        AsyncSink sink = new AsyncSink(new LogSink() {
+            
+            @Override
+            public void write(LogRecord record) {
+                if (record.getMessage().equals("fail")) {
+                    throw new IllegalStateException("Failed");
+                }
+                delegate.write(record);
+            }
+            
+            @Override
+            public void close() {
+                delegate.close();
+            }
+            
+        }, 1000);
+        sink.write(new LogRecord(0L, LogLevel.INFO, "test", "main", "before", null));
+        sink.write(new LogRecord(0L, LogLevel.INFO, "test", "main", "fail", null));
+        sink.write(new LogRecord(0L, LogLevel.INFO, "test", "main", "after", null));
+        sink.close();
+        synchronized (records) {
+            Assert.assertEquals(2, records.size());
+            Assert.assertEquals("before", records.get(0).getMessage());
+            Assert.assertEquals("after", records.get(1).getMessage());
+        }
+        Assert.assertEquals(1L, sink.getDropped());
+    }
+    
+    /**
+     * Tests that every record written while closing is either written or
+     * counted as dropped.
+     */
+    @Test
+    public void asyncClose() throws InterruptedException {
+        final int noOfThreads = 4;
+        final int noOfRecords = 10000;
+        for (int run = 0; run < 20; run++) {
+            synchronized (records) {
+                records.clear();
+            }
+            final AsyncSink sink = new AsyncSink(Log.getSink(), 100);
+            Thread[] threads = new Thread[noOfThreads];
+            for (int i = 0; i < noOfThreads; i++) {
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < noOfRecords; j++) {
+                            sink.write(new LogRecord(0L, LogLevel.INFO, "test", "main", "", null));
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            sink.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            synchronized (records) {
+                Assert.assertEquals(noOfThreads * noOfRecords, records.size() + sink.getDropped());
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,174 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.match;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.ClientAdapter;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.actions.Action;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>DuplicateMatch</code> and <code>RoundRobin</code>
+ * classes.
+ */
+public class DuplicateMatchTest {
+    
+    /**
+     * Tests that two tables with the same seed and swapped seats deal the same
+     * cards to the same seats, hand by hand.
+     */
+    @Test
+    public void seededTables() {
+        CardRecorder[] recorders = new CardRecorder[6];
+        Table table1 = seededTable(42L, "Joe", "Mike", recorders, 0);
+        Table table2 = seededTable(42L, "Mike", "Joe", recorders, 2);
+        Table table3 = seededTable(43L, "Joe", "Mike", recorders, 4);
+        for (int hand = 0; hand < 5; hand++) {
+            Assert.assertTrue(table1.playNextHand());
+            Assert.assertTrue(table2.playNextHand());
+            Assert.assertTrue(table3.playNextHand());
+        }
+        for (int seat = 0; seat < 2; seat++) {
+            Assert.assertEquals(5, recorders[seat].holeCards.size());
+            Assert.assertEquals(recorders[seat].holeCards, recorders[2 + seat].holeCards);
+            Assert.assertEquals(recorders[seat].boards, recorders[2 + seat].boards);
+        }
+        Assert.assertFalse(recorders[0].holeCards.equals(recorders[4].holeCards));
+    }
+    
+    /**
+     * Creates a seeded heads-up table with two recording calling stations.
+     * 
+     * @param seed
+     *            The table's seed.
+     * @param name1
+     *            The name of the first player.
+     * @param name2
+     *            The name of the second player.
+     * @param recorders
+     *            The recorders, by seat.
+     * @param offset
+     *            The index of the table's first recorder.
+     * 
+     * @return The table.
+     */
+    private static Table seededTable(long seed, String name1, String name2, CardRecorder[] recorders, int offset) {
+        Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        table.setSeed(seed);
+        String[] names = {name1, name2};
+        for (int seat = 0; seat < names.length; seat++) {
+            recorders[offset + seat] = new CardRecorder();
+            table.addPlayer(new Player(names[seat], BigDecimal.valueOf(10000), recorders[offset + seat]));
+        }
+        return table;
+    }
+    
+    /**
+     * Tests that a deterministic bot against itself breaks exactly even, since
+     * duplicate dealing cancels the luck of the cards.
+     * 
+     * @throws InterruptedException
+     *             If interrupted.
+     */
+    @Test
+    public void selfPlay() throws InterruptedException {
+        BotFactory bot = RoundRobin.basicBot("Chen", 50, 50, 0L);
+        DuplicateMatch match = new DuplicateMatch(TableType.NO_LIMIT, BigDecimal.TEN, bot, bot);
+        match.setBlockSize(100);
+        match.setMaxHands(2000L);
+        match.setParallelism(2);
+        MatchResult result = match.run();
+        Assert.assertEquals(2000L, result.getHands());
+        Assert.assertEquals(0.0, result.getMean(), 1e-9);
+        Assert.assertEquals(0.0, result.getStandardError(), 1e-9);
+        Assert.assertFalse(result.isSignificant());
+    }
+    
+    /**
+     * Tests stopping early in a round-robin with a clear winner.
+     * 
+     * @throws InterruptedException
+     *             If interrupted.
+     */
+    @Test
+    public void roundRobin() throws InterruptedException {
+        RoundRobin roundRobin = new RoundRobin(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        roundRobin.addBot(RoundRobin.basicBot("Rock", 100, 0, 0L));
+        roundRobin.addBot(RoundRobin.basicBot("Maniac", 0, 100, 0L));
+        roundRobin.setMinHands(1000L);
+        roundRobin.setMaxHands(1000000L);
+        roundRobin.setParallelism(2);
+        List<MatchResult> results = roundRobin.run();
+        Assert.assertEquals(1, results.size());
+        MatchResult result = results.get(0);
+        Assert.assertTrue(result.isSignificant());
+        Assert.assertTrue(result.getHands() < 1000000L);
+        Assert.assertTrue(result.getUpperBound() < 0.0);
+        Assert.assertEquals(-result.getMean(), RoundRobin.getMeanWinnings(results, "Maniac"), 1e-9);
+    }
+    
+    /**
+     * Calling station recording its hole cards and the boards.
+     */
+    private static class CardRecorder extends ClientAdapter {
+        
+        /** The hole cards per hand, as card masks. */
+        private final List<Long> holeCards = new ArrayList<>();
+        
+        /** The boards, as card masks. */
+        private final List<Long> boards = new ArrayList<>();
+        
+        /** Whether the hole cards of the current hand are recorded. */
+        private boolean dealt;
+        
+        @Override
+        public void handStarted(Player dealer) {
+            dealt = false;
+        }
+        
+        @Override
+        public void playerUpdated(Player player) {
+            // Only the own player is not a read-only snapshot.
+            if (!dealt && !player.isReadOnly() && player.getCardMask() != 0L) {
+                holeCards.add(player.getCardMask());
+                dealt = true;
+            }
+        }
+        
+        @Override
+        public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
+            boards.add(CardSet.mask(cards));
+        }
+        
+        @Override
+        public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+            return allowedActions.contains(Action.CHECK) ? Action.CHECK : Action.CALL;
+        }
+        
+    }
+    
+}
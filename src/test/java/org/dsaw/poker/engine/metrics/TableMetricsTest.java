@@ -0,0 +1,127 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>LatencyHistogram</code> and
+ * <code>TableMetrics</code> classes.
+ */
+public class TableMetricsTest {
+    
+    /**
+     * Tests the buckets and percentiles of a histogram.
+     */
+    @Test
+    public void histogram() {
+        // Small values are exact; larger values within 1/32.
+        for (long value : new long[] { 0L, 1L, 31L, 32L, 33L, 1000L, 123456789L, Long.MAX_VALUE }) {
+            long highest = LatencyHistogram.getHighestValue(LatencyHistogram.getBucket(value));
+            Assert.assertTrue(highest >= value);
+            Assert.assertTrue(highest - value <= value / LatencyHistogram.SUB_BUCKETS);
+        }
+        
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0L, histogram.getValueAtPercentile(99.0));
+        for (long value = 1L; value <= 1000L; value++) {
+            histogram.record(value * 1000L);
+        }
+        Assert.assertEquals(1000L, histogram.getCount());
+        Assert.assertEquals(1000000L, histogram.getMax());
+        Assert.assertEquals(500500.0, histogram.getMean(), 1e-6);
+        Assert.assertEquals(500000.0, histogram.getValueAtPercentile(50.0), 500000.0 / 32);
+        Assert.assertEquals(990000.0, histogram.getValueAtPercentile(99.0), 990000.0 / 32);
+        Assert.assertEquals(1000000L, histogram.getValueAtPercentile(100.0));
+        
+        histogram.reset();
+        Assert.assertEquals(0L, histogram.getCount());
+        Assert.assertEquals(0L, histogram.getMax());
+    }
+    
+    /**
+     * Tests the metrics recorded by a table.
+     */
+    @Test
+    public void table() {
+        Table table = new Table(TableType.NO_LIMIT, BigDecimal.TEN);
+        table.addPlayer(new Player("Joe", BigDecimal.valueOf(1000), new BasicBot(50, 50)));
+        table.addPlayer(new Player("Mike", BigDecimal.valueOf(1000), new BasicBot(50, 50)));
+        table.playNextHand();
+        Assert.assertNull(table.getMetrics());
+        
+        TableMetrics metrics = new TableMetrics();
+        table.setMetrics(metrics);
+        for (int i = 0; i < 20 && table.playNextHand(); i++) {
+            // Keep playing.
+        }
+        Assert.assertTrue(metrics.getHands() > 0L);
+        Assert.assertTrue(metrics.getActions() >= 2L * metrics.getHands());
+        Assert.assertEquals(metrics.getActions(), metrics.getDecisionLatency().getCount());
+        Assert.assertEquals(metrics.getActions(),
+                metrics.getClientLatency("Joe").getCount() + metrics.getClientLatency("Mike").getCount());
+        Assert.assertTrue(metrics.getNotificationTime().getCount() > 0L);
+        Assert.assertTrue(metrics.getHandsPerSecond() > 0.0);
+        Assert.assertEquals(2, metrics.getClientNames().length);
+        
+        metrics.reset();
+        Assert.assertEquals(0L, metrics.getHands());
+        Assert.assertEquals(0, metrics.getClientNames().length);
+    }
+    
+    /**
+     * Tests the metrics through JMX.
+     * 
+     * @throws JMException
+     *             If an attribute could not be read.
+     */
+    @Test
+    public void jmx() throws JMException {
+        TableMetrics metrics = new TableMetrics();
+        metrics.register("Test table");
+        try {
+            metrics.handPlayed();
+            metrics.clientActed("Joe", 2000L);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertEquals(1L, server.getAttribute(metrics.getObjectName(), "Hands"));
+            Assert.assertEquals(2.0, (Double) server.getAttribute(metrics.getObjectName(), "DecisionMaxMicros"), 1e-9);
+            Object latency = server.invoke(metrics.getObjectName(), "getClientDecisionMicros",
+                    new Object[] { "Joe", 50.0 }, new String[] { String.class.getName(), double.class.getName() });
+            Assert.assertEquals(2.0, (Double) latency, 0.1);
+            try {
+                metrics.register("Test table");
+                Assert.fail("No exception thrown");
+            } catch (IllegalStateException e) {
+                // OK.
+            }
+        } finally {
+            metrics.unregister();
+        }
+        Assert.assertNull(metrics.getObjectName());
+    }
+    
+}
@@ -0,0 +1,516 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.server;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.codec.WireCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>Server</code> class, driving a real server over
+ * the loopback interface.
+ */
+public class ServerTest {
+    
+    /** The time to wait for the server, in milliseconds. */
+    private static final long TIMEOUT = 5000L;
+    
+    /** The server. */
+    private Server server;
+    
+    /**
+     * Starts a heads-up server.
+     * 
+     * @throws IOException
+     *             If the server could not be started.
+     */
+    @Before
+    public void setUp() throws IOException {
+        server = new Server(0, TableType.FIXED_LIMIT, BigDecimal.TEN, BigDecimal.valueOf(100), 2);
+        server.setActTimeout(100L);
+        server.start();
+    }
+    
+    /**
+     * Stops the server.
+     */
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+    
+    /**
+     * Tests logging in, and acting on the act requests.
+     * 
+     * @throws Exception
+     *             If the test could not be run.
+     */
+    @Test
+    public void login() throws Exception {
+        TestClient joe = new TestClient(server, "Joe", Action.FOLD);
+        TestClient mike = new TestClient(server, "Mike", Action.FOLD);
+        try {
+            Assert.assertNotNull(joe.awaitFrame(Protocol.JOINED_TABLE));
+            Assert.assertNotNull(mike.awaitFrame(Protocol.JOINED_TABLE));
+            Assert.assertEquals(1, server.getTableCount());
+            // The first player asked to act folds, so the other wins.
+            Assert.assertNotNull(joe.awaitMessage(" wins "));
+            Assert.assertNotNull(mike.awaitMessage(" wins "));
+            Assert.assertTrue(joe.actRequests.get() + mike.actRequests.get() > 0);
+        } finally {
+            joe.close();
+            mike.close();
+        }
+        assertAccepting();
+    }
+    
+    /**
+     * Tests clients not responding in time, which check or fold.
+     * 
+     * @throws Exception
+     *             If the test could not be run.
+     */
+    @Test
+    public void timeout() throws Exception {
+        TestClient joe = new TestClient(server, "Joe", null);
+        TestClient mike = new TestClient(server, "Mike", null);
+        try {
+            Assert.assertNotNull(joe.awaitMessage(" wins "));
+            Assert.assertTrue(joe.actRequests.get() + mike.actRequests.get() > 0);
+        } finally {
+            joe.close();
+            mike.close();
+        }
+        assertAccepting();
+    }
+    
+    /**
+     * Tests a client disconnecting during a game.
+     * 
+     * @throws Exception
+     *             If the test could not be run.
+     */
+    @Test
+    public void disconnect() throws Exception {
+        TestClient joe = new TestClient(server, "Joe", Action.CALL);
+        TestClient mike = new TestClient(server, "Mike", Action.CALL);
+        try {
+            Assert.assertNotNull(mike.awaitFrame(Protocol.JOINED_TABLE));
+            mike.close();
+            awaitConnections(1);
+            // Mike folds from now on.
+            Assert.assertNotNull(joe.awaitMessage("Joe wins "));
+        } finally {
+            joe.close();
+        }
+        assertAccepting();
+    }
+    
+    /**
+     * Tests that invalid frames close only their own connection.
+     * 
+     * @throws Exception
+     *             If the test could not be run.
+     */
+    @Test
+    public void invalidFrames() throws Exception {
+        byte[][] frames = {
+                // Empty frame (no opcode).
+                { 0, 0, 1 },
+                // Larger than the inbound buffer.
+                { (byte) 0xff, (byte) 0xff, Protocol.LOGIN },
+                // Login with a string longer than the frame.
+                { 0, 3, Protocol.LOGIN, 0x7f, 'a' },
+                // Login with an empty name.
+                { 0, 2, Protocol.LOGIN, 0 },
+                // Invalid opcode.
+                { 0, 1, 0x55 },
+                // Action before logging in.
+                { 0, 2, Protocol.ACTION, 1 },
+        };
+        for (byte[] frame : frames) {
+            Socket socket = new Socket("localhost", server.getPort());
+            try {
+                socket.setSoTimeout((int) TIMEOUT);
+                socket.getOutputStream().write(frame);
+                socket.getOutputStream().flush();
+                Assert.assertEquals(-1, read(socket.getInputStream()));
+            } finally {
+                socket.close();
+            }
+            assertAccepting();
+        }
+    }
+    
+    /**
+     * Tests a malformed action from a logged in client.
+     * 
+     * @throws Exception
+     *             If the test could not be run.
+     */
+    @Test
+    public void malformedAction() throws Exception {
+        TestClient joe = new TestClient(server, "Joe", null);
+        try {
+            // A bet without its amount.
+            joe.send(new byte[] { 0, 2, Protocol.ACTION, (byte) WireCodec.BET });
+            Assert.assertTrue(joe.awaitClosed());
+        } finally {
+            joe.close();
+        }
+        assertAccepting();
+    }
+    
+    /**
+     * Tests that a name can only be logged in once at a time.
+     * 
+     * @throws Exception
+     *             If the test could not be run.
+     */
+    @Test
+    public void duplicateName() throws Exception {
+        TestClient joe = new TestClient(server, "Joe", Action.FOLD);
+        TestClient joe2 = new TestClient(server, "Joe", Action.FOLD);
+        TestClient mike = null;
+        try {
+            // Only one of the two logins is accepted (the first one processed).
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (!joe.awaitClosed(10L) && !joe2.awaitClosed(10L)) {
+                if (System.currentTimeMillis() > deadline) {
+                    Assert.fail("Accepted a duplicate name");
+                }
+            }
+            TestClient loggedIn = (joe.awaitClosed(0L)) ? joe2 : joe;
+            Assert.assertFalse(loggedIn.awaitClosed(0L));
+            mike = new TestClient(server, "Mike", Action.FOLD);
+            Assert.assertNotNull(loggedIn.awaitFrame(Protocol.JOINED_TABLE));
+            Assert.assertNotNull(mike.awaitFrame(Protocol.JOINED_TABLE));
+        } finally {
+            joe.close();
+            joe2.close();
+            if (mike != null) {
+                mike.close();
+            }
+        }
+        awaitConnections(0);
+        
+        // The names are released when their connections close.
+        joe = new TestClient(server, "Joe", Action.FOLD);
+        mike = new TestClient(server, "Mike", Action.FOLD);
+        try {
+            Assert.assertNotNull(joe.awaitFrame(Protocol.JOINED_TABLE));
+            Assert.assertNotNull(mike.awaitFrame(Protocol.JOINED_TABLE));
+        } finally {
+            joe.close();
+            mike.close();
+        }
+        assertAccepting();
+    }
+    
+    /**
+     * Tests the rejection of invalid names, such as format specifiers.
+     * 
+     * @throws Exception
+     *             If the test could not be run.
+     */
+    @Test
+    public void invalidName() throws Exception {
+        String[] names = {"%d", "%s wins", " Joe", "Joe\n", "Joe\u0000", "abcdefghijklmnopqrstuvwxyz0123456789"};
+        for (String name : names) {
+            TestClient client = new TestClient(server, name, Action.FOLD);
+            try {
+                Assert.assertTrue(client.awaitClosed());
+            } finally {
+                client.close();
+            }
+        }
+        assertAccepting();
+    }
+    
+    /**
+     * Reads from a stream until the end of the stream.
+     * 
+     * @param in
+     *            The stream.
+     * 
+     * @return -1 at the end of the stream (or a connection reset).
+     * 
+     * @throws IOException
+     *             If the stream timed out.
+     */
+    private static int read(InputStream in) throws IOException {
+        try {
+            while (in.read() >= 0) {
+                // Skip.
+            }
+        } catch (SocketTimeoutException e) {
+            throw e;
+        } catch (IOException e) {
+            // Connection reset.
+        }
+        return -1;
+    }
+    
+    /**
+     * Asserts that the server still accepts connections.
+     * 
+     * @throws Exception
+     *             If the test could not be run.
+     */
+    private void assertAccepting() throws Exception {
+        awaitConnections(0);
+        Socket socket = new Socket("localhost", server.getPort());
+        try {
+            awaitConnections(1);
+        } finally {
+            socket.close();
+        }
+        awaitConnections(0);
+    }
+    
+    /**
+     * Waits for the server to have a number of open connections.
+     * 
+     * @param count
+     *            The number of connections.
+     * 
+     * @throws InterruptedException
+     *             If interrupted.
+     */
+    private void awaitConnections(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (server.getConnectionCount() != count) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("Expected " + count + " connections, found " + server.getConnectionCount());
+            }
+            Thread.sleep(10L);
+        }
+    }
+    
+    /**
+     * A remote client answering every act request with the same action.
+     */
+    private static class TestClient implements Runnable {
+        
+        /** The socket. */
+        private final Socket socket;
+        
+        /** The action to respond with, or null to never respond. */
+        private final Action response;
+        
+        /** The received frames' opcodes and payloads. */
+        private final BlockingQueue<ByteBuffer> frames;
+        
+        /** The number of act requests received. */
+        private final AtomicInteger actRequests;
+        
+        /** The reader thread. */
+        private final Thread thread;
+        
+        /**
+         * Connects and logs in.
+         * 
+         * @param server
+         *            The server.
+         * @param name
+         *            The player's name.
+         * @param response
+         *            The action to respond with, or null to never respond.
+         * 
+         * @throws IOException
+         *             If the client could not connect.
+         */
+        public TestClient(Server server, String name, Action response) throws IOException {
+            this.response = response;
+            socket = new Socket("localhost", server.getPort());
+            frames = new LinkedBlockingQueue<>();
+            actRequests = new AtomicInteger();
+            ByteBuffer frame = ByteBuffer.allocate(64);
+            Protocol.beginFrame(frame, Protocol.LOGIN);
+            WireCodec.putString(frame, name);
+            send(frame);
+            thread = new Thread(this, "TestClient-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            try {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                while (true) {
+                    byte[] bytes = new byte[in.readUnsignedShort()];
+                    in.readFully(bytes);
+                    ByteBuffer frame = ByteBuffer.wrap(bytes);
+                    if (frame.get(0) == Protocol.ACT_REQUEST) {
+                        actRequests.incrementAndGet();
+                        if (response != null) {
+                            ByteBuffer action = ByteBuffer.allocate(64);
+                            Protocol.beginFrame(action, Protocol.ACTION);
+                            WireCodec.putAction(action, response);
+                            send(action);
+                        }
+                    }
+                    frames.add(frame);
+                }
+            } catch (IOException e) {
+                // Closed; signal the end with an empty frame.
+                frames.add(ByteBuffer.allocate(0));
+            }
+        }
+        
+        /**
+         * Waits for a frame.
+         * 
+         * @param opcode
+         *            The opcode.
+         * 
+         * @return The frame's payload, or null if not received in time.
+         * 
+         * @throws InterruptedException
+         *             If interrupted.
+         */
+        public ByteBuffer awaitFrame(byte opcode) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            ByteBuffer frame;
+            while ((frame = frames.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS)) != null) {
+                if (!frame.hasRemaining()) {
+                    return null;
+                }
+                if (frame.get() == opcode) {
+                    return frame;
+                }
+            }
+            return null;
+        }
+        
+        /**
+         * Waits for a game message.
+         * 
+         * @param text
+         *            The text the message contains.
+         * 
+         * @return The message, or null if not received in time.
+         * 
+         * @throws InterruptedException
+         *             If interrupted.
+         */
+        public String awaitMessage(String text) throws InterruptedException {
+            ByteBuffer frame;
+            while ((frame = awaitFrame(Protocol.MESSAGE)) != null) {
+                String message = WireCodec.getString(frame);
+                if (message.contains(text)) {
+                    return message;
+                }
+            }
+            return null;
+        }
+        
+        /**
+         * Waits for the server to close the connection.
+         * 
+         * @return True if closed in time, otherwise false.
+         * 
+         * @throws InterruptedException
+         *             If interrupted.
+         */
+        public boolean awaitClosed() throws InterruptedException {
+            return awaitClosed(TIMEOUT);
+        }
+        
+        /**
+         * Waits for the server to close the connection.
+         * 
+         * @param timeout
+         *            The time to wait, in milliseconds (0 for not waiting).
+         * 
+         * @return True if closed in time, otherwise false.
+         * 
+         * @throws InterruptedException
+         *             If interrupted.
+         */
+        public boolean awaitClosed(long timeout) throws InterruptedException {
+            if (timeout > 0L) {
+                thread.join(timeout);
+            }
+            return !thread.isAlive();
+        }
+        
+        /**
+         * Sends raw bytes.
+         * 
+         * @param bytes
+         *            The bytes.
+         * 
+         * @throws IOException
+         *             If the bytes could not be sent.
+         */
+        public void send(byte[] bytes) throws IOException {
+            OutputStream out = socket.getOutputStream();
+            synchronized (out) {
+                out.write(bytes);
+                out.flush();
+            }
+        }
+        
+        /**
+         * Sends a frame.
+         * 
+         * @param frame
+         *            The frame.
+         * 
+         * @throws IOException
+         *             If the frame could not be sent.
+         */
+        private void send(ByteBuffer frame) throws IOException {
+            Protocol.endFrame(frame);
+            byte[] bytes = new byte[frame.remaining()];
+            frame.get(bytes);
+            send(bytes);
+        }
+        
+        /**
+         * Closes the connection.
+         * 
+         * @throws IOException
+         *             If the socket could not be closed.
+         */
+        public void close() throws IOException {
+            socket.close();
+        }
+        
+    }
+    
+}
@@ -0,0 +1,167 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.solver;
+
+import java.io.File;
+import java.io.IOException;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.FastHandEvaluator;
+import org.dsaw.poker.engine.abstraction.CardAbstraction;
+import org.dsaw.poker.engine.analysis.HandIndexer;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>BettingTree</code> and <code>CfrSolver</code>
+ * classes.
+ */
+public class CfrSolverTest {
+    
+    /** A small card abstraction: lossless Pre-Flop, then the hand value type. */
+    /* package */ static final CardAbstraction ABSTRACTION = new CardAbstraction() {
+        
+        @Override
+        public int getNoOfBuckets(int street) {
+            return (street == 0) ? 169 : 10;
+        }
+        
+        @Override
+        public int getBucket(int street, long holeCards, long board) {
+            if (street == 0) {
+                return (int) HandIndexer.PREFLOP.index(holeCards);
+            } else {
+                return FastHandEvaluator.getType(FastHandEvaluator.evaluate(holeCards | board)).ordinal();
+            }
+        }
+        
+    };
+    
+    /**
+     * Tests the structure of the betting tree.
+     */
+    @Test
+    public void bettingTree() {
+        BettingTree tree = new BettingTree(ABSTRACTION);
+        
+        // The big blind acts first Pre-Flop and may check or raise.
+        Assert.assertEquals(BettingTree.DECISION, tree.getType(0));
+        Assert.assertEquals(0, tree.getPlayer(0));
+        Assert.assertEquals(-1, tree.getChild(0, BettingTree.FOLD));
+        Assert.assertEquals(2, tree.getContribution(0, 0));
+        Assert.assertEquals(1, tree.getContribution(0, 1));
+        
+        // After a check, the dealer completes, raises or folds.
+        int node = tree.getChild(0, BettingTree.CALL);
+        Assert.assertEquals(1, tree.getPlayer(node));
+        Assert.assertEquals(BettingTree.FOLDED, tree.getType(tree.getChild(node, BettingTree.FOLD)));
+        
+        // A call ends the Pre-Flop; the big blind acts first on the Flop.
+        node = tree.getChild(node, BettingTree.CALL);
+        Assert.assertEquals(1, tree.getStreet(node));
+        Assert.assertEquals(0, tree.getPlayer(node));
+        Assert.assertEquals(2, tree.getContribution(node, 1));
+        
+        // Bet and three raises on the Flop, then only call or fold.
+        node = tree.getChild(node, BettingTree.RAISE);
+        for (int i = 0; i < BettingTree.MAX_RAISES; i++) {
+            node = tree.getChild(node, BettingTree.RAISE);
+            Assert.assertTrue(node != -1);
+        }
+        Assert.assertEquals(-1, tree.getChild(node, BettingTree.RAISE));
+        Assert.assertEquals(2 + 4 * BettingTree.BIG_BLIND, tree.getContribution(node, 1));
+        
+        // Check down to the showdown.
+        node = tree.getChild(node, BettingTree.CALL);
+        Assert.assertEquals(2, tree.getStreet(node));
+        node = tree.getChild(tree.getChild(node, BettingTree.CALL), BettingTree.CALL);
+        node = tree.getChild(tree.getChild(node, BettingTree.CALL), BettingTree.CALL);
+        Assert.assertEquals(BettingTree.SHOWDOWN, tree.getType(node));
+        
+        // One information set per decision node and bucket.
+        long noOfInfoSets = 0L;
+        for (node = 0; node < tree.getNoOfNodes(); node++) {
+            if (tree.getType(node) == BettingTree.DECISION) {
+                Assert.assertEquals(noOfInfoSets, tree.getInfoSet(node, 0));
+                noOfInfoSets += ABSTRACTION.getNoOfBuckets(tree.getStreet(node));
+            }
+        }
+        Assert.assertEquals(noOfInfoSets, tree.getNoOfInfoSets());
+    }
+    
+    /**
+     * Tests that the solver learns obvious Pre-Flop decisions. <br />
+     * <br />
+     * 
+     * A single worker keeps the sampling (and so the test) deterministic.
+     * 
+     * @throws IOException
+     *             Never (no checkpoints).
+     */
+    @Test
+    public void solve() throws IOException {
+        CfrSolver solver = new CfrSolver(ABSTRACTION, false, 42L);
+        solver.setParallelism(1);
+        solver.solve(100000L);
+        Assert.assertEquals(100000L, solver.getIterations());
+        
+        // The dealer facing the big blind's raise.
+        int node = solver.getTree().getChild(0, BettingTree.RAISE);
+        int aces = (int) HandIndexer.PREFLOP.index(CardSet.parse("As Ah"));
+        int trash = (int) HandIndexer.PREFLOP.index(CardSet.parse("7s 2h"));
+        Assert.assertTrue(solver.getAverageStrategy(node, aces)[BettingTree.FOLD] < 0.05);
+        Assert.assertTrue(solver.getAverageStrategy(node, aces)[BettingTree.RAISE] > 0.5);
+        Assert.assertTrue(solver.getAverageStrategy(node, trash)[BettingTree.FOLD] > 0.8);
+    }
+    
+    /**
+     * Tests the checkpoints, the off-heap storage and the policy export.
+     * 
+     * @throws IOException
+     *             If a file could not be written or read.
+     */
+    @Test
+    public void checkpointAndPolicy() throws IOException {
+        File checkpoint = File.createTempFile("cfr", ".chk");
+        File policy = File.createTempFile("cfr", ".pol");
+        try {
+            CfrSolver solver = new CfrSolver(ABSTRACTION, true, 1L);
+            solver.setParallelism(1);
+            solver.setCheckpoint(checkpoint, 500L);
+            solver.solve(1000L);
+            
+            CfrSolver restored = new CfrSolver(ABSTRACTION, false, 2L);
+            Assert.assertTrue(restored.restoreCheckpoint(checkpoint));
+            Assert.assertEquals(1000L, restored.getIterations());
+            int node = solver.getTree().getChild(0, BettingTree.CALL);
+            for (int bucket = 0; bucket < 169; bucket++) {
+                double[] expected = solver.getAverageStrategy(node, bucket);
+                double[] actual = restored.getAverageStrategy(node, bucket);
+                for (int action = 0; action < BettingTree.NO_OF_ACTIONS; action++) {
+                    Assert.assertEquals(expected[action], actual[action], 1e-6);
+                }
+            }
+            
+            solver.exportPolicy(policy);
+            Assert.assertEquals(PolicyFile.HEADER_SIZE + solver.getTree().getNoOfInfoSets() * BettingTree.NO_OF_ACTIONS * 4L, policy.length());
+        } finally {
+            checkpoint.delete();
+            policy.delete();
+        }
+    }
+    
+}
@@ -0,0 +1,331 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Card;
+import org.dsaw.poker.engine.CardSet;
+import org.dsaw.poker.engine.ClientAdapter;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.Table;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.actions.Action;
+import org.dsaw.poker.engine.actions.PackedAction;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>StatsStore</code>, <code>StatsCollector</code> and
+ * <code>PlayerStats</code> classes.
+ */
+public class StatsStoreTest {
+    
+    /** The number of hands per game. */
+    private static final int NO_OF_HANDS = 40;
+    
+    /**
+     * Tests the statistics of an aggressive player against a calling station.
+     */
+    @Test
+    public void aggressive() {
+        StatsStore store = new StatsStore();
+        play(store, new ScriptedClient(true, false, false), new ScriptedClient(false, false, false));
+        
+        PlayerStats aggressor = store.getStats("Player 1");
+        Assert.assertEquals(NO_OF_HANDS, aggressor.getHands());
+        Assert.assertEquals(1.0, aggressor.getVpip(), 1e-9);
+        Assert.assertEquals(1.0, aggressor.getPfr(), 1e-9);
+        Assert.assertEquals(1.0, aggressor.getCbet(), 1e-9);
+        Assert.assertEquals(1.0, aggressor.getWentToShowdown(), 1e-9);
+        Assert.assertEquals(3L * NO_OF_HANDS, aggressor.get(PlayerStats.AGGRESSIVE));
+        Assert.assertEquals(0L, aggressor.get(PlayerStats.PASSIVE));
+        Assert.assertEquals(3L * NO_OF_HANDS, aggressor.get(PlayerStats.SHOWDOWN_AGGRESSIVE));
+        
+        PlayerStats caller = store.getStats("Player 2");
+        Assert.assertEquals(NO_OF_HANDS, caller.getHands());
+        Assert.assertEquals(1.0, caller.getVpip(), 1e-9);
+        Assert.assertEquals(0.0, caller.getPfr(), 1e-9);
+        Assert.assertEquals(NO_OF_HANDS, caller.get(PlayerStats.CBETS_FACED));
+        Assert.assertEquals(0.0, caller.getFoldToCbet(), 1e-9);
+        Assert.assertEquals(3L * NO_OF_HANDS, caller.get(PlayerStats.PASSIVE));
+        Assert.assertEquals(0.0, caller.getAggressionFactor(), 1e-9);
+        Assert.assertEquals(0L, caller.get(PlayerStats.SHOWDOWN_AGGRESSIVE));
+        Assert.assertEquals(0.0, caller.getBluffing(), 1e-9);
+    }
+    
+    /**
+     * Tests the bluffing statistics, from the hands shown down.
+     */
+    @Test
+    public void bluffing() {
+        StatsStore store = new StatsStore();
+        StatsCollector collector = new StatsCollector(store);
+        
+        // A bet on the Flop and the River, shown down with a High Card.
+        showdown(collector, "2c 3d", 2);
+        PlayerStats stats = store.getStats("Joe");
+        Assert.assertEquals(2L, stats.get(PlayerStats.SHOWDOWN_AGGRESSIVE));
+        Assert.assertEquals(2L, stats.get(PlayerStats.SHOWDOWN_BLUFFS));
+        Assert.assertEquals(1.0, stats.getBluffing(), 1e-9);
+        
+        // Value bets with a pair.
+        showdown(collector, "Kd 8h", 2);
+        Assert.assertEquals(4L, stats.get(PlayerStats.SHOWDOWN_AGGRESSIVE));
+        Assert.assertEquals(0.5, stats.getBluffing(), 1e-9);
+        
+        // No bets; nothing to tell.
+        showdown(collector, "2c 3d", 0);
+        Assert.assertEquals(4L, stats.get(PlayerStats.SHOWDOWN_AGGRESSIVE));
+        Assert.assertEquals(0.5, stats.getBluffing(), 1e-9);
+    }
+    
+    /**
+     * Tests the continuation bet statistics.
+     */
+    @Test
+    public void cbet() {
+        StatsStore store = new StatsStore();
+        play(store, new ScriptedClient(true, false, false), new ScriptedClient(false, false, true));
+        
+        Assert.assertEquals(1.0, store.getStats("Player 1").getCbet(), 1e-9);
+        PlayerStats folder = store.getStats("Player 2");
+        Assert.assertEquals(NO_OF_HANDS, folder.get(PlayerStats.SAW_FLOP));
+        Assert.assertEquals(1.0, folder.getFoldToCbet(), 1e-9);
+        Assert.assertEquals(0.0, folder.getWentToShowdown(), 1e-9);
+    }
+    
+    /**
+     * Tests the actions that close a betting round, which the table does not
+     * announce.
+     */
+    @Test
+    public void closingActions() {
+        StatsStore store = new StatsStore();
+        play(store, new ScriptedClient(false, false, false), new ScriptedClient(false, true, false));
+        
+        // The calling station only completes the small blind as the dealer,
+        // which closes the Pre-Flop; as the big blind it checks.
+        PlayerStats caller = store.getStats("Player 1");
+        Assert.assertEquals(0.5, caller.getVpip(), 1e-9);
+        Assert.assertEquals(NO_OF_HANDS / 2, caller.get(PlayerStats.SAW_FLOP));
+        
+        // The folder folds as the dealer, but sees the Flop as the big blind.
+        PlayerStats folder = store.getStats("Player 2");
+        Assert.assertEquals(0.0, folder.getVpip(), 1e-9);
+        Assert.assertEquals(NO_OF_HANDS / 2, folder.get(PlayerStats.SAW_FLOP));
+        Assert.assertEquals(1.0, folder.getWentToShowdown(), 1e-9);
+    }
+    
+    /**
+     * Tests concurrent updates.
+     * 
+     * @throws InterruptedException
+     *             If interrupted while waiting for the threads.
+     */
+    @Test
+    public void concurrency() throws InterruptedException {
+        final PlayerStats stats = new PlayerStats();
+        final int increments = 100000;
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < increments; j++) {
+                        stats.increment(PlayerStats.HANDS);
+                        stats.add(PlayerStats.VPIP, 2L);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(threads.length * increments, stats.getHands());
+        Assert.assertEquals(2.0, stats.getVpip(), 1e-9);
+    }
+    
+    /**
+     * Tests saving and loading snapshots.
+     * 
+     * @throws IOException
+     *             If the snapshot could not be written or read.
+     */
+    @Test
+    public void persistence() throws IOException {
+        StatsStore store = new StatsStore();
+        store.getStats("Joe").add(PlayerStats.HANDS, 1000000L);
+        store.getStats("Joe").add(PlayerStats.VPIP, 250000L);
+        store.getStats("Mike").increment(PlayerStats.CBETS);
+        File file = File.createTempFile("stats", ".sts");
+        try {
+            store.save(file);
+            // Varints: a few bytes per counter.
+            Assert.assertTrue(file.length() < 64);
+            
+            StatsStore loaded = new StatsStore();
+            loaded.load(file);
+            loaded.load(file);
+            Assert.assertEquals(2, loaded.getPlayerNames().size());
+            Assert.assertEquals(2000000L, loaded.getStats("Joe").getHands());
+            Assert.assertEquals(0.25, loaded.getStats("Joe").getVpip(), 1e-9);
+            Assert.assertEquals(2L, loaded.getStats("Mike").get(PlayerStats.CBETS));
+            
+            Files.write(file.toPath(), new byte[] {1, 2, 3});
+            try {
+                loaded.load(file);
+                Assert.fail("No exception thrown");
+            } catch (IOException e) {
+                // OK.
+            }
+        } finally {
+            file.delete();
+        }
+    }
+    
+    /**
+     * Feeds a collector the events of a hand of a single player that bets on
+     * the first streets after the Flop and shows down its hole cards, on the
+     * board "Ks Qh 9d 7c 5s".
+     * 
+     * @param collector
+     *            The collector.
+     * @param holeCards
+     *            The player's hole cards.
+     * @param noOfBets
+     *            The number of streets the player bets on.
+     */
+    private static void showdown(StatsCollector collector, String holeCards, int noOfBets) {
+        Player player = new Player("Joe", BigDecimal.valueOf(1000), null);
+        List<Card> cards = new ArrayList<>();
+        CardSet.addCards(CardSet.parse(holeCards), cards);
+        player.setCards(cards);
+        collector.handStarted(player.publicClone());
+        collector.playerUpdated(player.publicClone());
+        List<Card> board = new ArrayList<>();
+        CardSet.addCards(CardSet.parse("Ks Qh 9d 7c 5s"), board);
+        for (int street = 1; street <= 3; street++) {
+            collector.boardUpdated(board.subList(0, street + 2), BigDecimal.ZERO, BigDecimal.ZERO);
+            if (street <= noOfBets) {
+                player.setPackedAction(PackedAction.bet(BigDecimal.TEN));
+                collector.playerActed(player.publicClone());
+            }
+        }
+        collector.playerUpdated(player.showdownClone());
+    }
+    
+    /**
+     * Plays heads-up Fixed-Limit hands with a collector observing the table.
+     * 
+     * @param store
+     *            The store.
+     * @param client1
+     *            The client of the first player.
+     * @param client2
+     *            The client of the second player.
+     */
+    private static void play(StatsStore store, ScriptedClient client1, ScriptedClient client2) {
+        Table table = new Table(TableType.FIXED_LIMIT, BigDecimal.TEN);
+        table.addPlayer(new Player("Player 1", BigDecimal.valueOf(100000), client1));
+        table.addPlayer(new Player("Player 2", BigDecimal.valueOf(100000), client2));
+        table.addObserver(new StatsCollector(store), StatsCollector.EVENT_TYPES);
+        for (int hand = 0; hand < NO_OF_HANDS; hand++) {
+            Assert.assertTrue(table.playNextHand());
+        }
+    }
+    
+    /**
+     * Client with a fixed playing style.
+     */
+    private static class ScriptedClient extends ClientAdapter {
+        
+        /** Whether to bet or raise once per street. */
+        private final boolean aggressive;
+        
+        /** Whether to fold to a Pre-Flop bet. */
+        private final boolean foldPreFlop;
+        
+        /** Whether to fold to a bet after the Flop. */
+        private final boolean foldPostFlop;
+        
+        /** The number of board cards. */
+        private int noOfBoardCards;
+        
+        /** Whether the client has bet or raised on the current street. */
+        private boolean raised;
+        
+        /**
+         * Constructor.
+         * 
+         * @param aggressive
+         *            Whether to bet or raise once per street.
+         * @param foldPreFlop
+         *            Whether to fold to a Pre-Flop bet.
+         * @param foldPostFlop
+         *            Whether to fold to a bet after the Flop.
+         */
+        public ScriptedClient(boolean aggressive, boolean foldPreFlop, boolean foldPostFlop) {
+            this.aggressive = aggressive;
+            this.foldPreFlop = foldPreFlop;
+            this.foldPostFlop = foldPostFlop;
+        }
+        
+        @Override
+        public void handStarted(Player dealer) {
+            noOfBoardCards = 0;
+            raised = false;
+        }
+        
+        @Override
+        public void boardUpdated(List<Card> cards, BigDecimal bet, BigDecimal pot) {
+            if (cards.size() != noOfBoardCards) {
+                noOfBoardCards = cards.size();
+                raised = false;
+            }
+        }
+        
+        @Override
+        public Action act(BigDecimal minBet, BigDecimal currentBet, Set<Action> allowedActions) {
+            if (aggressive && !raised) {
+                if (allowedActions.contains(Action.BET)) {
+                    raised = true;
+                    return Action.BET;
+                } else if (allowedActions.contains(Action.RAISE)) {
+                    raised = true;
+                    return Action.RAISE;
+                }
+            }
+            if (allowedActions.contains(Action.CHECK)) {
+                return Action.CHECK;
+            } else if ((noOfBoardCards == 0) ? foldPreFlop : foldPostFlop) {
+                return Action.FOLD;
+            } else {
+                return Action.CALL;
+            }
+        }
+        
+    }
+    
+}
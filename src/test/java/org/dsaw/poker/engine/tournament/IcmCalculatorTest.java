@@ -0,0 +1,138 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.util.SplittableRandom;
+import junit.framework.Assert;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>IcmCalculator</code> class.
+ */
+public class IcmCalculatorTest {
+    
+    /** The allowed rounding error of the exact calculation. */
+    private static final double DELTA = 1e-9;
+    
+    /**
+     * Tests the exact calculation against the plain recursion over all
+     * finishing orders.
+     */
+    @Test
+    public void exact() {
+        double[] payouts = {50.0, 30.0, 20.0};
+        IcmCalculator calculator = new IcmCalculator(payouts);
+        
+        // Heads-up: equity is linear in the stack.
+        double[] equities = calculator.getEquities(new double[] {1000.0, 3000.0});
+        Assert.assertEquals(0.25 * 50.0 + 0.75 * 30.0, equities[0], DELTA);
+        Assert.assertEquals(0.75 * 50.0 + 0.25 * 30.0, equities[1], DELTA);
+        
+        // Equal stacks share equally.
+        equities = calculator.getEquities(new double[] {500.0, 500.0, 500.0, 500.0});
+        for (double equity : equities) {
+            Assert.assertEquals(25.0, equity, DELTA);
+        }
+        
+        // Uneven stacks, including a busted player.
+        double[] stacks = {5000.0, 3000.0, 1500.0, 700.0, 0.0, 300.0, 2500.0};
+        equities = calculator.getEquities(stacks);
+        double total = 0.0;
+        for (int i = 0; i < stacks.length; i++) {
+            Assert.assertEquals(recurse(stacks, payouts, i, 0, new boolean[stacks.length]), equities[i], DELTA);
+            total += equities[i];
+        }
+        Assert.assertEquals(0.0, equities[4], DELTA);
+        Assert.assertEquals(100.0, total, DELTA);
+    }
+    
+    /**
+     * Tests the Monte Carlo approximation against the exact calculation.
+     */
+    @Test
+    public void approximate() {
+        double[] payouts = {50.0, 30.0, 20.0};
+        IcmCalculator calculator = new IcmCalculator(payouts);
+        double[] stacks = {5000.0, 3000.0, 1500.0, 700.0, 300.0, 2500.0};
+        double[] exact = calculator.getExactEquities(stacks);
+        double[] approximate = calculator.getApproximateEquities(stacks, 200000, new SplittableRandom(42L));
+        for (int i = 0; i < stacks.length; i++) {
+            Assert.assertEquals(exact[i], approximate[i], 0.5);
+        }
+    }
+    
+    /**
+     * Tests parallel queries.
+     */
+    @Test
+    public void batch() {
+        IcmCalculator calculator = new IcmCalculator(65.0, 35.0);
+        double[][] stacks = new double[100][];
+        for (int i = 0; i < stacks.length; i++) {
+            stacks[i] = new double[] {i + 1.0, 100.0, 50.0};
+        }
+        double[][] equities = calculator.getEquities(stacks);
+        for (int i = 0; i < stacks.length; i++) {
+            Assert.assertEquals(calculator.getExactEquities(stacks[i])[0], equities[i][0], DELTA);
+        }
+    }
+    
+    /**
+     * Plain ICM recursion: the equity of a player given the players already
+     * placed.
+     * 
+     * @param stacks
+     *            The stacks.
+     * @param payouts
+     *            The payouts.
+     * @param player
+     *            The player.
+     * @param place
+     *            The next place to award.
+     * @param placed
+     *            The players already placed.
+     * 
+     * @return The equity.
+     */
+    private static double recurse(double[] stacks, double[] payouts, int player, int place, boolean[] placed) {
+        if (place >= payouts.length) {
+            return 0.0;
+        }
+        double chipsLeft = 0.0;
+        for (int i = 0; i < stacks.length; i++) {
+            if (!placed[i]) {
+                chipsLeft += stacks[i];
+            }
+        }
+        double equity = 0.0;
+        for (int i = 0; i < stacks.length; i++) {
+            if (!placed[i] && stacks[i] > 0.0) {
+                double p = stacks[i] / chipsLeft;
+                if (i == player) {
+                    equity += p * payouts[place];
+                } else {
+                    placed[i] = true;
+                    equity += p * recurse(stacks, payouts, player, place + 1, placed);
+                    placed[i] = false;
+                }
+            }
+        }
+        return equity;
+    }
+    
+}
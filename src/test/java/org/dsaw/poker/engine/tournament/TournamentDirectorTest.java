@@ -0,0 +1,334 @@
+// This file is part of the 'texasholdem' project, an open source
+// Texas Hold'em poker application written in Java.
+//
+// Copyright 2009 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.dsaw.poker.engine.tournament;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.Assert;
+import org.dsaw.poker.engine.Player;
+import org.dsaw.poker.engine.TableType;
+import org.dsaw.poker.engine.bots.BasicBot;
+import org.junit.Test;
+
+/**
+ * Test suite for the <code>TournamentDirector</code>,
+ * <code>BlindSchedule</code> and <code>PayoutStructure</code> classes.
+ */
+public class TournamentDirectorTest {
+    
+    /** The number of entrants. */
+    private static final int NO_OF_ENTRANTS = 40;
+    
+    /** The number of seats per table. */
+    private static final int SEATS_PER_TABLE = 9;
+    
+    /** The starting stack. */
+    private static final BigDecimal STARTING_STACK = BigDecimal.valueOf(1500);
+    
+    /** The buy-in. */
+    private static final BigDecimal BUY_IN = BigDecimal.TEN;
+    
+    /**
+     * Plays a small tournament on a single thread and checks the
+     * eliminations, the chips, the balancing and the fairness of the
+     * scheduling.
+     * 
+     * @throws InterruptedException
+     *             If interrupted.
+     */
+    @Test
+    public void tournament() throws InterruptedException {
+        CheckingDirector director = createDirector();
+        List<TournamentResult> results = director.run(1);
+        
+        // Unique and complete places, in reverse order of elimination.
+        Assert.assertEquals(NO_OF_ENTRANTS, results.size());
+        Assert.assertEquals(NO_OF_ENTRANTS - 1, director.eliminations.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(i + 1, results.get(i).getPlace());
+        }
+        for (int i = 0; i < director.eliminations.size(); i++) {
+            Assert.assertEquals(director.eliminations.get(i), results.get(NO_OF_ENTRANTS - 1 - i).getName());
+        }
+        
+        // All chips end up with the winner.
+        BigDecimal total = BigDecimal.ZERO;
+        for (TournamentResult result : results) {
+            total = total.add(director.getStack(result.getName()));
+        }
+        Assert.assertEquals(0, STARTING_STACK.multiply(BigDecimal.valueOf(NO_OF_ENTRANTS)).compareTo(total));
+        Assert.assertEquals(0, total.compareTo(director.getStack(results.get(0).getName())));
+        
+        // The prizes add up to the prize pool.
+        BigDecimal prizes = BigDecimal.ZERO;
+        for (TournamentResult result : results) {
+            prizes = prizes.add(result.getPrize());
+        }
+        Assert.assertEquals(0, BUY_IN.multiply(BigDecimal.valueOf(NO_OF_ENTRANTS)).compareTo(prizes));
+        
+        // Every table dealt its first hand before any table dealt its second.
+        int noOfTables = (NO_OF_ENTRANTS + SEATS_PER_TABLE - 1) / SEATS_PER_TABLE;
+        Set<Integer> firstRound = new HashSet<>(director.balancingTables.subList(0, noOfTables));
+        Assert.assertEquals(noOfTables, firstRound.size());
+        Assert.assertTrue(director.balanced);
+        
+        // The runner-up played (nearly) as many hands as the winner.
+        Assert.assertTrue(results.get(1).getHandsPlayed() >= 0.9 * results.get(0).getHandsPlayed());
+        Assert.assertTrue(director.getClockHands() > 0);
+    }
+    
+    /**
+     * Tests that a tournament restored from a checkpoint plays on exactly as
+     * the original.
+     * 
+     * @throws InterruptedException
+     *             If interrupted.
+     */
+    @Test
+    public void checkpoint() throws InterruptedException {
+        final CheckingDirector director = createDirector();
+        try {
+            director.checkpoint();
+            Assert.fail("Checkpoint before the start");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        final List<List<TournamentResult>> results = new ArrayList<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    results.add(director.run(1));
+                } catch (InterruptedException e) {
+                    // Fails below.
+                }
+            }
+        });
+        thread.start();
+        while (director.getClockHands() < 20) {
+            Thread.sleep(1L);
+        }
+        byte[] checkpoint = director.checkpoint();
+        thread.join();
+        Assert.assertEquals(1, results.size());
+        try {
+            director.checkpoint();
+            Assert.fail("Checkpoint after the end");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        
+        CheckingDirector restored = createDirector();
+        restored.restore(checkpoint);
+        Assert.assertTrue(restored.getClockHands() >= 20);
+        Assert.assertTrue(restored.getRemaining() > 1);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < NO_OF_ENTRANTS; i++) {
+            total = total.add(restored.getStack("Bot " + (i + 1)));
+        }
+        Assert.assertEquals(0, STARTING_STACK.multiply(BigDecimal.valueOf(NO_OF_ENTRANTS)).compareTo(total));
+        
+        List<TournamentResult> restoredResults = restored.run(1);
+        for (int i = 0; i < NO_OF_ENTRANTS; i++) {
+            TournamentResult result = results.get(0).get(i);
+            TournamentResult restoredResult = restoredResults.get(i);
+            Assert.assertEquals(result.getName(), restoredResult.getName());
+            Assert.assertEquals(result.getPlace(), restoredResult.getPlace());
+            Assert.assertEquals(result.getHandsPlayed(), restoredResult.getHandsPlayed());
+            Assert.assertEquals(0, result.getPrize().compareTo(restoredResult.getPrize()));
+        }
+        Assert.assertEquals(director.getClockHands(), restored.getClockHands());
+        
+        // Invalid restores.
+        try {
+            restored.restore(checkpoint);
+            Assert.fail("Restored a started tournament");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        CheckingDirector other = new CheckingDirector();
+        other.addEntrant("Joe", new BasicBot(50, 50));
+        try {
+            other.restore(checkpoint);
+            Assert.fail("Restored other entrants");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            createDirector().restore(Arrays.copyOf(checkpoint, checkpoint.length / 2));
+            Assert.fail("Restored a truncated checkpoint");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+    
+    /**
+     * Tests checkpoints of a tournament played on several threads.
+     * 
+     * @throws InterruptedException
+     *             If interrupted.
+     */
+    @Test
+    public void checkpointParallel() throws InterruptedException {
+        final CheckingDirector director = createDirector();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    director.run(4);
+                } catch (InterruptedException e) {
+                    // Checked below.
+                }
+            }
+        });
+        thread.start();
+        int noOfCheckpoints = 0;
+        while (!director.isFinished()) {
+            byte[] checkpoint;
+            try {
+                checkpoint = director.checkpoint();
+            } catch (IllegalStateException e) {
+                // Not started yet, or finished in the meantime.
+                Thread.sleep(1L);
+                continue;
+            }
+            noOfCheckpoints++;
+            
+            // Every player is seated (or on the way) and all chips are accounted for.
+            CheckingDirector restored = createDirector();
+            restored.restore(checkpoint);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < NO_OF_ENTRANTS; i++) {
+                total = total.add(restored.getStack("Bot " + (i + 1)));
+            }
+            Assert.assertEquals(0, STARTING_STACK.multiply(BigDecimal.valueOf(NO_OF_ENTRANTS)).compareTo(total));
+            int seated = 0;
+            for (int i = 0; i < (NO_OF_ENTRANTS + SEATS_PER_TABLE - 1) / SEATS_PER_TABLE; i++) {
+                seated += Math.max(0, restored.getSeatCount(i));
+            }
+            Assert.assertEquals(restored.getRemaining(), seated);
+        }
+        thread.join();
+        Assert.assertTrue(noOfCheckpoints > 0);
+        Assert.assertTrue(director.balanced);
+    }
+    
+    /**
+     * Tests the blind schedule.
+     */
+    @Test
+    public void blindSchedule() {
+        BlindSchedule schedule = BlindSchedule.geometric(10, 20L, 1.25, 5);
+        Assert.assertEquals(5, schedule.getLevels().size());
+        Assert.assertSame(schedule.getLevels().get(0), schedule.getLevel(9));
+        Assert.assertSame(schedule.getLevels().get(1), schedule.getLevel(10));
+        Assert.assertSame(schedule.getLevels().get(4), schedule.getLevel(1000));
+        for (int i = 0; i < 5; i++) {
+            BlindLevel level = schedule.getLevels().get(i);
+            Assert.assertEquals(0, level.getBigBlind().remainder(BigDecimal.valueOf(2)).signum());
+            Assert.assertEquals(i >= 3, level.getAnte().signum() > 0);
+        }
+        try {
+            new BlindSchedule(0, schedule.getLevels());
+            Assert.fail("No exception thrown");
+        } catch (IllegalArgumentException e) {
+            // OK.
+        }
+    }
+    
+    /**
+     * Tests the payout structure.
+     */
+    @Test
+    public void payouts() {
+        PayoutStructure payouts = PayoutStructure.geometric(100, 0.15, 1.3);
+        Assert.assertEquals(15, payouts.getNoOfPaidPlaces());
+        BigDecimal[] prizes = payouts.getPrizes(BigDecimal.valueOf(1000));
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < prizes.length; i++) {
+            total = total.add(prizes[i]);
+            if (i > 0) {
+                Assert.assertTrue(prizes[i].compareTo(prizes[i - 1]) <= 0);
+            }
+        }
+        Assert.assertEquals(0, BigDecimal.valueOf(1000).compareTo(total));
+    }
+    
+    /**
+     * Creates a director with the entrants, seeded.
+     * 
+     * @return The director.
+     */
+    private static CheckingDirector createDirector() {
+        CheckingDirector director = new CheckingDirector();
+        director.setRandom(new Random(1L));
+        Random random = new Random(2L);
+        for (int i = 0; i < NO_OF_ENTRANTS; i++) {
+            director.addEntrant("Bot " + (i + 1), new BasicBot(random.nextInt(100), random.nextInt(100)));
+        }
+        return director;
+    }
+    
+    /**
+     * A tournament director recording the eliminations and checking the
+     * balancing.
+     */
+    private static class CheckingDirector extends TournamentDirector {
+        
+        /** The names of the eliminated players, in order of elimination. */
+        private final List<String> eliminations = new ArrayList<>();
+        
+        /** The indexes of the tables that played a hand, in order. */
+        private final List<Integer> balancingTables = new ArrayList<>();
+        
+        /** Whether every table was within one player of the shortest after balancing. */
+        private boolean balanced = true;
+        
+        /**
+         * Constructor.
+         */
+        public CheckingDirector() {
+            super(TableType.NO_LIMIT, SEATS_PER_TABLE, STARTING_STACK, BUY_IN, BlindSchedule.geometric(10, 20L, 1.25, 30));
+        }
+        
+        @Override
+        /* package */ void eliminated(TournamentTable table, List<Player> busted, List<Player> survivors) {
+            for (Player player : busted) {
+                eliminations.add(player.getName());
+            }
+            super.eliminated(table, busted, survivors);
+        }
+        
+        @Override
+        /* package */ void balance(TournamentTable table) {
+            balancingTables.add(table.getIndex());
+            super.balance(table);
+            int count = getSeatCount(table.getIndex());
+            if (getActiveTables() == (getRemaining() + SEATS_PER_TABLE - 1) / SEATS_PER_TABLE && count > getShortestSeatCount() + 1) {
+                balanced = false;
+            }
+        }
+        
+    }
+    
+}